@@ -3,8 +3,14 @@ package main.java;
 import com.formdev.flatlaf.FlatLightLaf;
 import main.java.data.DatabaseBootstrap;
 import main.java.gui.LoginFrame;
+import main.java.service.RegistrationQueue;
+import main.java.utils.AuditArchiver;
+import main.java.utils.AuditLogService;
 import main.java.utils.DatabaseUtil;
 import main.java.utils.FinanceReminderScheduler;
+import main.java.utils.JobScheduler;
+import main.java.utils.SeatReconciler;
+import main.java.utils.TermInvoicer;
 import javax.swing.SwingUtilities;
 
 /**
@@ -18,8 +24,14 @@ public class Main {
         // Run migrations and initialize application data
         DatabaseBootstrap.migrate();
         DatabaseUtil.initializeDatabase();
-        FinanceReminderScheduler.start();
-        Runtime.getRuntime().addShutdownHook(new Thread(FinanceReminderScheduler::stop));
+        FinanceReminderScheduler.register();
+        AuditArchiver.register();
+        TermInvoicer.register();
+        SeatReconciler.register();
+        JobScheduler.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(JobScheduler::stop));
+        Runtime.getRuntime().addShutdownHook(new Thread(RegistrationQueue::shutdown));
+        Runtime.getRuntime().addShutdownHook(new Thread(AuditLogService::shutdown));
         
         // Start the application
         SwingUtilities.invokeLater(() -> {
@@ -37,7 +37,7 @@ public class AuthUserDao {
     }
 
     public Optional<User> findByUsername(String username) {
-        try (Connection conn = dataSource.getConnection();
+        try (Connection conn = TransactionManager.getConnection(dataSource);
              PreparedStatement ps = conn.prepareStatement(BASE_SELECT)) {
             ps.setString(1, username);
             try (ResultSet rs = ps.executeQuery()) {
@@ -54,7 +54,7 @@ public class AuthUserDao {
     }
 
     public User insert(User user) {
-        try (Connection conn = dataSource.getConnection();
+        try (Connection conn = TransactionManager.getConnection(dataSource);
              PreparedStatement ps = conn.prepareStatement(INSERT_USER, Statement.RETURN_GENERATED_KEYS)) {
             ps.setString(1, user.getUsername());
             ps.setString(2, user.getPasswordHash());
@@ -79,7 +79,7 @@ public class AuthUserDao {
     }
 
     public void updateProfile(User user) {
-        try (Connection conn = dataSource.getConnection();
+        try (Connection conn = TransactionManager.getConnection(dataSource);
              PreparedStatement ps = conn.prepareStatement(UPDATE_PROFILE)) {
             ps.setString(1, user.getFullName());
             ps.setString(2, user.getEmail());
@@ -93,7 +93,7 @@ public class AuthUserDao {
     }
 
     public void recordLoginSuccess(User user) {
-        try (Connection conn = dataSource.getConnection();
+        try (Connection conn = TransactionManager.getConnection(dataSource);
              PreparedStatement ps = conn.prepareStatement(UPDATE_LOGIN_SUCCESS)) {
             ps.setTimestamp(1, Timestamp.valueOf(LocalDateTime.now()));
             ps.setBoolean(2, user.isMustChangePassword());
@@ -105,7 +105,7 @@ public class AuthUserDao {
     }
 
     public void recordLoginFailure(User user, int failedAttempts, LocalDateTime lockedUntil) {
-        try (Connection conn = dataSource.getConnection();
+        try (Connection conn = TransactionManager.getConnection(dataSource);
              PreparedStatement ps = conn.prepareStatement(UPDATE_LOGIN_FAILURE)) {
             ps.setInt(1, failedAttempts);
             if (lockedUntil != null) {
@@ -121,7 +121,7 @@ public class AuthUserDao {
     }
 
     public void updatePassword(User user, String salt, String hash, boolean mustChange) {
-        try (Connection conn = dataSource.getConnection();
+        try (Connection conn = TransactionManager.getConnection(dataSource);
              PreparedStatement ps = conn.prepareStatement(UPDATE_PASSWORD)) {
             ps.setString(1, hash);
             ps.setString(2, salt);
@@ -185,7 +185,7 @@ public class AuthUserDao {
 
     public List<User> findAll() {
         List<User> users = new ArrayList<>();
-        try (Connection conn = dataSource.getConnection();
+        try (Connection conn = TransactionManager.getConnection(dataSource);
              PreparedStatement ps = conn.prepareStatement("SELECT id, username, password_hash, salt, role, full_name, email, active, failed_attempts, locked_until, must_change_password, last_login FROM users")) {
             try (ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) {
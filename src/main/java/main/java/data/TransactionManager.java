@@ -0,0 +1,259 @@
+package main.java.data;
+
+import main.java.config.DataSourceRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Thread-bound unit of work for the pooled data sources.
+ * <p>
+ * {@link #inTransaction(Supplier)} checks out one connection, binds it to the calling thread and commits or
+ * rolls back once when the outermost scope ends. DAOs obtain connections through
+ * {@link #getConnection(DataSource)}: inside a scope they share the bound connection (closing it is a no-op),
+ * outside one they get a pooled connection that commits on close, since the pools run with auto-commit off.
+ * Nested scopes join the outer one; a failure in any of them rolls back the whole unit.
+ */
+public final class TransactionManager {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TransactionManager.class);
+    private static final ThreadLocal<Map<DataSource, Transaction>> BOUND = ThreadLocal.withInitial(HashMap::new);
+
+    private TransactionManager() {
+    }
+
+    public static <T> T inTransaction(Supplier<T> work) {
+        return inTransaction(erpDataSource(), work);
+    }
+
+    public static void runInTransaction(Runnable work) {
+        inTransaction(erpDataSource(), () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    public static <T> T inTransaction(DataSource dataSource, Supplier<T> work) {
+        Map<DataSource, Transaction> bound = BOUND.get();
+        Transaction existing = bound.get(dataSource);
+        if (existing != null) {
+            try {
+                return work.get();
+            } catch (RuntimeException | Error ex) {
+                existing.rollbackOnly = true;
+                throw ex;
+            }
+        }
+
+        Transaction tx = begin(dataSource);
+        bound.put(dataSource, tx);
+        T result;
+        try {
+            result = work.get();
+        } catch (RuntimeException | Error ex) {
+            bound.remove(dataSource);
+            tx.rollbackQuietly();
+            throw ex;
+        }
+        bound.remove(dataSource);
+        tx.complete();
+        tx.runAfterCommit();
+        return result;
+    }
+
+    /**
+     * Whether the calling thread currently has a unit of work open on the ERP data source.
+     */
+    public static boolean isActive() {
+        return BOUND.get().containsKey(erpDataSource());
+    }
+
+    /**
+     * Runs {@code action} once the current ERP unit of work commits, or immediately when none is open.
+     * Used for in-memory cache updates that must not outlive a rollback.
+     */
+    public static void afterCommit(Runnable action) {
+        Transaction tx = BOUND.get().get(erpDataSource());
+        if (tx == null) {
+            action.run();
+        } else {
+            tx.afterCommit.add(action);
+        }
+    }
+
+    /**
+     * Connection for DAO use: the thread-bound one when a unit of work is open, otherwise a pooled connection
+     * that commits on close.
+     */
+    public static Connection getConnection(DataSource dataSource) throws SQLException {
+        Transaction tx = BOUND.get().get(dataSource);
+        if (tx != null) {
+            return wrap(new JoinedHandler(tx));
+        }
+        Connection connection = dataSource.getConnection();
+        return wrap(new CommitOnCloseHandler(connection));
+    }
+
+    private static Transaction begin(DataSource dataSource) {
+        try {
+            Connection connection = dataSource.getConnection();
+            if (connection.getAutoCommit()) {
+                connection.setAutoCommit(false);
+            }
+            return new Transaction(connection);
+        } catch (SQLException ex) {
+            LOGGER.error("Unable to open transaction: {}", ex.getMessage(), ex);
+            throw new IllegalStateException("Unable to open transaction", ex);
+        }
+    }
+
+    private static DataSource erpDataSource() {
+        return DataSourceRegistry.erpDataSource()
+                .orElseThrow(() -> new IllegalStateException("ERP datasource not configured."));
+    }
+
+    private static Connection wrap(InvocationHandler handler) {
+        return (Connection) Proxy.newProxyInstance(
+                TransactionManager.class.getClassLoader(), new Class<?>[]{Connection.class}, handler);
+    }
+
+    private static Object invoke(Connection target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    private static final class Transaction {
+        private final Connection connection;
+        private final List<Runnable> afterCommit = new ArrayList<>();
+        private boolean rollbackOnly;
+
+        private Transaction(Connection connection) {
+            this.connection = connection;
+        }
+
+        private void complete() {
+            try {
+                if (rollbackOnly) {
+                    connection.rollback();
+                    throw new IllegalStateException("Transaction was marked rollback-only by a nested scope");
+                }
+                connection.commit();
+            } catch (SQLException ex) {
+                rollbackQuietly();
+                LOGGER.error("Unable to commit transaction: {}", ex.getMessage(), ex);
+                throw new IllegalStateException("Unable to commit transaction", ex);
+            } finally {
+                closeQuietly();
+            }
+        }
+
+        private void rollbackQuietly() {
+            try {
+                connection.rollback();
+            } catch (SQLException ex) {
+                LOGGER.warn("Rollback failed: {}", ex.getMessage());
+            } finally {
+                closeQuietly();
+            }
+        }
+
+        private void closeQuietly() {
+            try {
+                if (!connection.isClosed()) {
+                    connection.close();
+                }
+            } catch (SQLException ex) {
+                LOGGER.warn("Unable to return connection to pool: {}", ex.getMessage());
+            }
+        }
+
+        private void runAfterCommit() {
+            for (Runnable action : afterCommit) {
+                try {
+                    action.run();
+                } catch (RuntimeException ex) {
+                    LOGGER.error("After-commit action failed: {}", ex.getMessage(), ex);
+                }
+            }
+        }
+    }
+
+    /**
+     * DAO view of the bound connection: close is a no-op and transaction control stays with the scope owner.
+     */
+    private static final class JoinedHandler implements InvocationHandler {
+        private final Transaction tx;
+        private boolean closed;
+
+        private JoinedHandler(Transaction tx) {
+            this.tx = tx;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    closed = true;
+                    return null;
+                case "isClosed":
+                    return closed || tx.connection.isClosed();
+                case "commit":
+                case "setAutoCommit":
+                    return null;
+                case "rollback":
+                    if (args == null) {
+                        tx.rollbackOnly = true;
+                        return null;
+                    }
+                    break;
+                default:
+                    break;
+            }
+            return TransactionManager.invoke(tx.connection, method, args);
+        }
+    }
+
+    /**
+     * Stand-alone connection that commits before returning to the pool, so single-statement DAO calls made
+     * outside a unit of work are not rolled back by the pool.
+     */
+    private static final class CommitOnCloseHandler implements InvocationHandler {
+        private final Connection target;
+
+        private CommitOnCloseHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if ("close".equals(method.getName())) {
+                if (target.isClosed()) {
+                    return null;
+                }
+                try {
+                    if (!target.getAutoCommit()) {
+                        target.commit();
+                    }
+                } finally {
+                    target.close();
+                }
+                return null;
+            }
+            return TransactionManager.invoke(target, method, args);
+        }
+    }
+}
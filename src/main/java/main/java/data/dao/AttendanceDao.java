@@ -10,10 +10,14 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class AttendanceDao extends BaseDao {
     private static final String SELECT_BY_SECTION = "SELECT section_code, attendance_date, student_code, present FROM attendance_records WHERE section_code = ?";
+    private static final String SELECT_BY_SECTIONS_PREFIX = "SELECT section_code, attendance_date, student_code, present FROM attendance_records WHERE section_code IN (";
     private static final String INSERT = "INSERT INTO attendance_records (section_code, attendance_date, student_code, present) VALUES (?, ?, ?, ?)";
     private static final String DELETE_SECTION = "DELETE FROM attendance_records WHERE section_code = ?";
     private static final String DELETE_SECTION_DATE = "DELETE FROM attendance_records WHERE section_code = ? AND attendance_date = ?";
@@ -43,6 +47,40 @@ public class AttendanceDao extends BaseDao {
         return list;
     }
 
+    /**
+     * Loads attendance for a batch of sections, grouped by section and date in a single pass.
+     */
+    public Map<String, List<AttendanceRecord>> findBySections(Collection<String> sectionCodes) {
+        Map<String, LinkedHashMap<LocalDate, AttendanceRecord>> bySection = new LinkedHashMap<>();
+        for (String code : sectionCodes) {
+            bySection.put(code, new LinkedHashMap<>());
+        }
+        for (List<String> chunk : partition(sectionCodes)) {
+            String sql = SELECT_BY_SECTIONS_PREFIX + placeholders(chunk.size()) + ") ORDER BY section_code, attendance_date";
+            try (Connection conn = getConnection();
+                 PreparedStatement ps = conn.prepareStatement(sql)) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    ps.setString(i + 1, chunk.get(i));
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        String sectionCode = rs.getString("section_code");
+                        LocalDate date = rs.getDate("attendance_date").toLocalDate();
+                        AttendanceRecord record = bySection
+                                .computeIfAbsent(sectionCode, k -> new LinkedHashMap<>())
+                                .computeIfAbsent(date, d -> new AttendanceRecord(sectionCode, d));
+                        record.getAttendanceByStudent().put(rs.getString("student_code"), rs.getBoolean("present"));
+                    }
+                }
+            } catch (SQLException ex) {
+                logger.error("Error loading attendance for {} sections: {}", chunk.size(), ex.getMessage(), ex);
+            }
+        }
+        Map<String, List<AttendanceRecord>> grouped = new LinkedHashMap<>();
+        bySection.forEach((code, byDate) -> grouped.put(code, new ArrayList<>(byDate.values())));
+        return grouped;
+    }
+
     public void insert(AttendanceRecord record) {
         try (Connection conn = getConnection();
              PreparedStatement ps = conn.prepareStatement(INSERT)) {
@@ -78,6 +116,7 @@ public class AttendanceDao extends BaseDao {
             ps.executeUpdate();
         } catch (SQLException ex) {
             logger.error("Error deleting attendance for section {}: {}", sectionCode, ex.getMessage(), ex);
+            throw new IllegalStateException("Unable to delete attendance for section", ex);
         }
     }
 }
@@ -7,24 +7,78 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.sql.Timestamp;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
+import java.util.StringJoiner;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 
 /**
  * DAO for persisting and querying audit events.
  */
 public class AuditLogDao extends BaseDao {
     private static final String INSERT_SQL =
-            "INSERT INTO audit_events (event_type, actor, details, created_at) VALUES (?, ?, ?, ?)";
-    private static final String SELECT_RECENT_SQL =
-            "SELECT id, event_type, actor, details, created_at FROM audit_events ORDER BY created_at DESC LIMIT ?";
-    private static final String SELECT_RANGE_SQL =
-            "SELECT id, event_type, actor, details, created_at " +
-            "FROM audit_events " +
-            "WHERE (? IS NULL OR created_at >= ?) AND (? IS NULL OR created_at <= ?) " +
-            "ORDER BY created_at DESC";
+            "INSERT INTO audit_events (event_type, actor, details, subject_type, subject_id, payload, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String SELECT_COLUMNS =
+            "SELECT id, event_type, actor, details, subject_type, subject_id, payload, created_at FROM audit_events";
+    private static final String ORDER_NEWEST_FIRST = " ORDER BY created_at DESC, id DESC";
+    private static final String SELECT_RECENT_SQL = SELECT_COLUMNS + ORDER_NEWEST_FIRST + " LIMIT ?";
+    private static final String SELECT_SUBJECT_SQL =
+            SELECT_COLUMNS + " WHERE subject_type = ? AND subject_id = ?" + ORDER_NEWEST_FIRST + " LIMIT ?";
+    private static final String SELECT_SUBJECT_AFTER_SQL =
+            SELECT_COLUMNS + " WHERE subject_type = ? AND subject_id = ? AND " + AFTER_CURSOR
+                    + ORDER_NEWEST_FIRST + " LIMIT ?";
+    private static final String SELECT_PARTITIONS_SQL =
+            "SELECT PARTITION_NAME, " +
+            "CASE WHEN PARTITION_DESCRIPTION = 'MAXVALUE' THEN NULL " +
+            "ELSE FROM_UNIXTIME(PARTITION_DESCRIPTION) END AS upper_bound, " +
+            "TABLE_ROWS " +
+            "FROM information_schema.PARTITIONS " +
+            "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'audit_events' AND PARTITION_NAME IS NOT NULL " +
+            "ORDER BY PARTITION_ORDINAL_POSITION";
+    private static final String FUTURE_PARTITION = "p_future";
+    /**
+     * Catch-all partition V11 created for every row written before partitioning; split by month on first
+     * maintenance.
+     */
+    public static final String HISTORY_PARTITION = "p_history";
+    private static final DateTimeFormatter BOUND_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    /**
+     * One monthly range partition of {@code audit_events}; {@code upperBound} is exclusive and {@code null} for
+     * the trailing {@code MAXVALUE} partition.
+     */
+    public static final class Partition {
+        private final String name;
+        private final LocalDateTime upperBound;
+        private final long estimatedRows;
+
+        Partition(String name, LocalDateTime upperBound, long estimatedRows) {
+            this.name = name;
+            this.upperBound = upperBound;
+            this.estimatedRows = estimatedRows;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public LocalDateTime getUpperBound() {
+            return upperBound;
+        }
+
+        public long getEstimatedRows() {
+            return estimatedRows;
+        }
+    }
 
     public AuditLogDao() {
         super(DataSourceRegistry.erpDataSource()
@@ -34,16 +88,41 @@ public class AuditLogDao extends BaseDao {
     public void insert(AuditLogService.AuditEvent event) {
         try (Connection conn = getConnection();
              PreparedStatement ps = conn.prepareStatement(INSERT_SQL)) {
-            ps.setString(1, event.getType().name());
-            ps.setString(2, event.getActor());
-            ps.setString(3, event.getDetails());
-            ps.setTimestamp(4, Timestamp.valueOf(event.getTimestamp()));
+            bindInsert(ps, event);
             ps.executeUpdate();
         } catch (SQLException ex) {
             logger.error("Unable to insert audit event {} - {}", event.getType(), ex.getMessage(), ex);
         }
     }
 
+    /**
+     * @return {@code false} if the batch could not be written
+     */
+    public boolean insertBatch(List<AuditLogService.AuditEvent> events) {
+        if (events.isEmpty()) {
+            return true;
+        }
+        try (Connection conn = getConnection();
+             PreparedStatement ps = conn.prepareStatement(INSERT_SQL)) {
+            int pending = 0;
+            for (AuditLogService.AuditEvent event : events) {
+                bindInsert(ps, event);
+                ps.addBatch();
+                if (++pending == JDBC_BATCH_SIZE) {
+                    ps.executeBatch();
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                ps.executeBatch();
+            }
+            return true;
+        } catch (SQLException ex) {
+            logger.error("Unable to insert {} audit events - {}", events.size(), ex.getMessage(), ex);
+            return false;
+        }
+    }
+
     public List<AuditLogService.AuditEvent> findRecent(int limit) {
         List<AuditLogService.AuditEvent> events = new ArrayList<>();
         try (Connection conn = getConnection();
@@ -60,35 +139,242 @@ public class AuditLogDao extends BaseDao {
         return events;
     }
 
-    public List<AuditLogService.AuditEvent> findRange(LocalDateTime from, LocalDateTime to) {
+    /**
+     * One page of events in {@code [from, to]}, newest first, starting after {@code after} ({@code null} for the
+     * first page). Only the bounds that are set become predicates, so the query stays a range scan on
+     * {@code idx_audit_events_created} and is pruned to the matching partitions.
+     */
+    public List<AuditLogService.AuditEvent> findRangePage(LocalDateTime from, LocalDateTime to, KeysetCursor after,
+                                                         int limit) {
         List<AuditLogService.AuditEvent> events = new ArrayList<>();
+        List<Timestamp> binds = new ArrayList<>(2);
+        String predicate = rangePredicate(from, to, binds);
+        if (after != null) {
+            predicate += (predicate.isEmpty() ? " WHERE " : " AND ") + AFTER_CURSOR;
+        }
         try (Connection conn = getConnection();
-             PreparedStatement ps = conn.prepareStatement(SELECT_RANGE_SQL)) {
-            if (from != null) {
-                ps.setTimestamp(1, Timestamp.valueOf(from));
-                ps.setTimestamp(2, Timestamp.valueOf(from));
-            } else {
-                ps.setNull(1, java.sql.Types.TIMESTAMP);
-                ps.setNull(2, java.sql.Types.TIMESTAMP);
+             PreparedStatement ps = conn.prepareStatement(SELECT_COLUMNS + predicate + ORDER_NEWEST_FIRST
+                     + " LIMIT ?")) {
+            int idx = 1;
+            for (Timestamp bind : binds) {
+                ps.setTimestamp(idx++, bind);
+            }
+            if (after != null) {
+                idx = bindCursor(ps, idx, after);
             }
-            if (to != null) {
-                ps.setTimestamp(3, Timestamp.valueOf(to));
-                ps.setTimestamp(4, Timestamp.valueOf(to));
-            } else {
-                ps.setNull(3, java.sql.Types.TIMESTAMP);
-                ps.setNull(4, java.sql.Types.TIMESTAMP);
+            ps.setInt(idx, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    events.add(map(rs));
+                }
             }
+        } catch (SQLException ex) {
+            logger.error("Error loading audit event page: {}", ex.getMessage(), ex);
+        }
+        return events;
+    }
+
+    /**
+     * One page of events about a subject, newest first, starting after {@code after} ({@code null} for the
+     * first page). Served by {@code idx_audit_events_subject}.
+     */
+    public List<AuditLogService.AuditEvent> findBySubject(AuditLogService.SubjectType subjectType, String subjectId,
+                                                         KeysetCursor after, int limit) {
+        List<AuditLogService.AuditEvent> events = new ArrayList<>();
+        try (Connection conn = getConnection();
+             PreparedStatement ps = conn.prepareStatement(after == null ? SELECT_SUBJECT_SQL
+                     : SELECT_SUBJECT_AFTER_SQL)) {
+            ps.setString(1, subjectType.name());
+            ps.setString(2, subjectId);
+            int idx = after == null ? 3 : bindCursor(ps, 3, after);
+            ps.setInt(idx, limit);
             try (ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) {
                     events.add(map(rs));
                 }
             }
         } catch (SQLException ex) {
-            logger.error("Error querying audit events: {}", ex.getMessage(), ex);
+            logger.error("Error loading audit history of {} {}: {}", subjectType, subjectId, ex.getMessage(), ex);
         }
         return events;
     }
 
+    /**
+     * Partitions in range order; empty when the table is not partitioned.
+     */
+    public List<Partition> findPartitions() {
+        List<Partition> partitions = new ArrayList<>();
+        try (Connection conn = getConnection();
+             PreparedStatement ps = conn.prepareStatement(SELECT_PARTITIONS_SQL);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                Timestamp bound = rs.getTimestamp("upper_bound");
+                partitions.add(new Partition(rs.getString("PARTITION_NAME"),
+                        bound != null ? bound.toLocalDateTime() : null,
+                        rs.getLong("TABLE_ROWS")));
+            }
+        } catch (SQLException ex) {
+            logger.error("Error listing audit partitions: {}", ex.getMessage(), ex);
+        }
+        return partitions;
+    }
+
+    /**
+     * Splits monthly partitions off the front of {@code p_future}, one per upper bound, each named after the
+     * month it ends.
+     */
+    public void addMonthlyPartitions(List<LocalDate> upperBounds) {
+        if (upperBounds.isEmpty()) {
+            return;
+        }
+        reorganize(FUTURE_PARTITION, upperBounds, ", PARTITION " + FUTURE_PARTITION + " VALUES LESS THAN MAXVALUE)");
+    }
+
+    /**
+     * Replaces {@link #HISTORY_PARTITION} with monthly partitions, one per upper bound. The last bound must be
+     * the history partition's own, so no row changes range.
+     */
+    public void splitHistoryPartition(List<LocalDate> upperBounds) {
+        reorganize(HISTORY_PARTITION, upperBounds, ")");
+    }
+
+    /**
+     * Oldest {@code created_at} in one partition, if it holds any rows.
+     */
+    public Optional<LocalDateTime> findEarliest(String partition) {
+        try (Connection conn = getConnection();
+             PreparedStatement ps = conn.prepareStatement(
+                     "SELECT MIN(created_at) FROM audit_events PARTITION (" + partition + ")");
+             ResultSet rs = ps.executeQuery()) {
+            Timestamp earliest = rs.next() ? rs.getTimestamp(1) : null;
+            return Optional.ofNullable(earliest).map(Timestamp::toLocalDateTime);
+        } catch (SQLException ex) {
+            logger.error("Error reading audit partition {}: {}", partition, ex.getMessage(), ex);
+            throw new IllegalStateException("Unable to read audit partition " + partition + ".", ex);
+        }
+    }
+
+    private void reorganize(String partition, List<LocalDate> upperBounds, String suffix) {
+        StringJoiner parts = new StringJoiner(", ",
+                "ALTER TABLE audit_events REORGANIZE PARTITION " + partition + " INTO (", suffix);
+        for (LocalDate bound : upperBounds) {
+            parts.add("PARTITION " + monthlyPartitionName(bound) + " VALUES LESS THAN (UNIX_TIMESTAMP('"
+                    + BOUND_FORMAT.format(bound.atStartOfDay()) + "'))");
+        }
+        try (Connection conn = getConnection();
+             Statement st = conn.createStatement()) {
+            st.execute(parts.toString());
+        } catch (SQLException ex) {
+            logger.error("Unable to reorganize audit partition {} into {} month(s): {}", partition,
+                    upperBounds.size(), ex.getMessage(), ex);
+            throw new IllegalStateException("Unable to reorganize audit partition " + partition + ".", ex);
+        }
+    }
+
+    /**
+     * Streams every event in one partition, newest first.
+     *
+     * @return number of events passed to {@code sink}
+     */
+    public long scanPartition(String partition, Consumer<AuditLogService.AuditEvent> sink) {
+        String sql = SELECT_COLUMNS + " PARTITION (" + partition + ")" + ORDER_NEWEST_FIRST;
+        try {
+            return stream(sql, Collections.emptyList(), sink, () -> false);
+        } catch (SQLException ex) {
+            logger.error("Error reading audit partition {}: {}", partition, ex.getMessage(), ex);
+            throw new IllegalStateException("Unable to read audit partition " + partition + ".", ex);
+        }
+    }
+
+    /**
+     * Streams the events in {@code [from, to]}, newest first, to {@code sink} from a forward-only cursor without
+     * holding more than one fetch in memory. The scan stops, and the server-side query is cancelled, as soon as
+     * {@code cancelled} reports {@code true}.
+     *
+     * @return number of events passed to {@code sink}
+     */
+    public long streamRange(LocalDateTime from, LocalDateTime to, Consumer<AuditLogService.AuditEvent> sink,
+                            BooleanSupplier cancelled) {
+        List<Timestamp> binds = new ArrayList<>(2);
+        String sql = SELECT_COLUMNS + rangePredicate(from, to, binds) + ORDER_NEWEST_FIRST;
+        try {
+            return stream(sql, binds, sink, cancelled);
+        } catch (SQLException ex) {
+            logger.error("Error streaming audit events: {}", ex.getMessage(), ex);
+            throw new IllegalStateException("Unable to read audit events.", ex);
+        }
+    }
+
+    public void dropPartition(String partition) {
+        try (Connection conn = getConnection();
+             Statement st = conn.createStatement()) {
+            st.execute("ALTER TABLE audit_events DROP PARTITION " + partition);
+        } catch (SQLException ex) {
+            logger.error("Unable to drop audit partition {}: {}", partition, ex.getMessage(), ex);
+            throw new IllegalStateException("Unable to drop audit partition " + partition + ".", ex);
+        }
+    }
+
+    /**
+     * {@code p<yyyyMM>} for the month that ends at {@code upperBound}.
+     */
+    private static String monthlyPartitionName(LocalDate upperBound) {
+        return "p" + DateTimeFormatter.ofPattern("yyyyMM").format(upperBound.minusMonths(1));
+    }
+
+    private long stream(String sql, List<Timestamp> binds, Consumer<AuditLogService.AuditEvent> sink,
+                        BooleanSupplier cancelled) throws SQLException {
+        long count = 0;
+        try (Connection conn = getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql,
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            ps.setFetchSize(STREAMING_FETCH_SIZE);
+            for (int i = 0; i < binds.size(); i++) {
+                ps.setTimestamp(i + 1, binds.get(i));
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    if (cancelled.getAsBoolean()) {
+                        // Otherwise closing the result set would read the remaining rows off the wire.
+                        ps.cancel();
+                        break;
+                    }
+                    sink.accept(map(rs));
+                    count++;
+                }
+            }
+        } catch (SQLException ex) {
+            if (!cancelled.getAsBoolean()) {
+                throw ex;
+            }
+        }
+        return count;
+    }
+
+    private static String rangePredicate(LocalDateTime from, LocalDateTime to, List<Timestamp> binds) {
+        StringJoiner where = new StringJoiner(" AND ", " WHERE ", "");
+        where.setEmptyValue("");
+        if (from != null) {
+            where.add("created_at >= ?");
+            binds.add(Timestamp.valueOf(from));
+        }
+        if (to != null) {
+            where.add("created_at <= ?");
+            binds.add(Timestamp.valueOf(to));
+        }
+        return where.toString();
+    }
+
+    private static void bindInsert(PreparedStatement ps, AuditLogService.AuditEvent event) throws SQLException {
+        ps.setString(1, event.getType().name());
+        ps.setString(2, event.getActor());
+        ps.setString(3, event.getDetails());
+        ps.setString(4, event.getSubjectType() != null ? event.getSubjectType().name() : null);
+        ps.setString(5, event.getSubjectId());
+        ps.setString(6, event.getEncodedPayload());
+        ps.setTimestamp(7, Timestamp.valueOf(event.getTimestamp()));
+    }
+
     private AuditLogService.AuditEvent map(ResultSet rs) throws SQLException {
         long id = rs.getLong("id");
         AuditLogService.EventType type = AuditLogService.EventType.valueOf(rs.getString("event_type"));
@@ -96,6 +382,10 @@ public class AuditLogDao extends BaseDao {
         String details = rs.getString("details");
         Timestamp created = rs.getTimestamp("created_at");
         LocalDateTime timestamp = created != null ? created.toLocalDateTime() : LocalDateTime.now();
-        return new AuditLogService.AuditEvent(id, type, actor, details, timestamp);
+        return new AuditLogService.AuditEvent(id, type, actor, details,
+                AuditLogService.AuditEvent.parseSubjectType(rs.getString("subject_type")),
+                rs.getString("subject_id"),
+                AuditLogService.AuditEvent.decodePayload(rs.getString("payload")),
+                timestamp);
     }
 }
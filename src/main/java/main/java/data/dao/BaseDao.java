@@ -1,11 +1,24 @@
 package main.java.data.dao;
 
+import main.java.data.TransactionManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.sql.DataSource;
 import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
 
 /**
  * Base DAO providing connection helpers.
@@ -14,11 +27,94 @@ public abstract class BaseDao {
     protected final Logger logger = LoggerFactory.getLogger(getClass());
     private final DataSource dataSource;
 
+    /**
+     * Upper bound for the number of bind parameters placed in a single {@code IN (...)} list.
+     */
+    protected static final int IN_CLAUSE_BATCH_SIZE = 500;
+
+    /**
+     * Fetch size used for forward-only scans; MariaDB Connector/J streams rows instead of buffering the
+     * whole result when a positive fetch size is set.
+     */
+    protected static final int STREAMING_FETCH_SIZE = 1_000;
+
+    /**
+     * Rows accumulated with {@code addBatch} before a batch is flushed to the server.
+     */
+    protected static final int JDBC_BATCH_SIZE = 500;
+
+    /**
+     * Keyset predicate for the page after a {@link KeysetCursor} in {@code created_at DESC, id DESC} order;
+     * bind it with {@link #bindCursor}.
+     */
+    protected static final String AFTER_CURSOR = "(created_at < ? OR (created_at = ? AND id < ?))";
+
     protected BaseDao(DataSource dataSource) {
         this.dataSource = dataSource;
     }
 
+    /**
+     * Joins the caller's {@link TransactionManager} unit of work when one is open; otherwise returns a pooled
+     * connection that commits on close.
+     */
     protected Connection getConnection() throws SQLException {
-        return dataSource.getConnection();
+        return TransactionManager.getConnection(dataSource);
+    }
+
+    /**
+     * Fails a compare-and-set update that matched no row, meaning the version it was based on is stale.
+     */
+    protected static void requireCurrentVersion(int updatedRows, String entity, String key) {
+        if (updatedRows == 0) {
+            throw new StaleDataException(entity, key);
+        }
+    }
+
+    /**
+     * {@code UPDATE table SET <assignment>, ..., version = version + 1 WHERE key = ? AND version = ?} for the
+     * given fields in declaration order. Callers cache the result per field set.
+     */
+    protected static <F extends Enum<F>> String versionedUpdate(String table, String keyColumn,
+                                                               Map<F, String> assignments, Set<F> fields) {
+        StringJoiner sql = new StringJoiner(", ", "UPDATE " + table + " SET ",
+                ", version = version + 1 WHERE " + keyColumn + " = ? AND version = ?");
+        for (F field : fields) {
+            sql.add(assignments.get(field));
+        }
+        return sql.toString();
+    }
+
+    protected static void setNullableDate(PreparedStatement ps, int idx, LocalDate date) throws SQLException {
+        if (date != null) {
+            ps.setDate(idx, Date.valueOf(date));
+        } else {
+            ps.setNull(idx, java.sql.Types.DATE);
+        }
+    }
+
+    /**
+     * Binds {@link #AFTER_CURSOR} starting at {@code idx}.
+     *
+     * @return the next parameter index
+     */
+    protected static int bindCursor(PreparedStatement ps, int idx, KeysetCursor cursor) throws SQLException {
+        Timestamp createdAt = Timestamp.valueOf(cursor.getCreatedAt());
+        ps.setTimestamp(idx, createdAt);
+        ps.setTimestamp(idx + 1, createdAt);
+        ps.setLong(idx + 2, cursor.getId());
+        return idx + 3;
+    }
+
+    protected static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    protected static List<List<String>> partition(Collection<String> keys) {
+        List<String> distinct = new ArrayList<>(new LinkedHashSet<>(keys));
+        List<List<String>> chunks = new ArrayList<>();
+        for (int i = 0; i < distinct.size(); i += IN_CLAUSE_BATCH_SIZE) {
+            chunks.add(distinct.subList(i, Math.min(distinct.size(), i + IN_CLAUSE_BATCH_SIZE)));
+        }
+        return chunks;
     }
 }
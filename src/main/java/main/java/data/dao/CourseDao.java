@@ -9,14 +9,31 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class CourseDao extends BaseDao {
-    private static final String SELECT_ALL = "SELECT id, course_code, course_name, department, duration_semesters, fees, description, total_seats, available_seats, credit_hours FROM courses";
+    private static final String SELECT_ALL = "SELECT id, course_code, course_name, department, duration_semesters, fees, description, total_seats, available_seats, credit_hours, version FROM courses";
     private static final String SELECT_BY_CODE = SELECT_ALL + " WHERE course_code = ?";
     private static final String INSERT = "INSERT INTO courses (course_code, course_name, department, duration_semesters, fees, description, total_seats, available_seats, credit_hours) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
-    private static final String UPDATE = "UPDATE courses SET course_name = ?, department = ?, duration_semesters = ?, fees = ?, description = ?, total_seats = ?, available_seats = ?, credit_hours = ? WHERE course_code = ?";
+    // available_seats is owned by the seat accounting statements below; an edit only shifts it by the change in
+    // total_seats. It is assigned before total_seats because MariaDB evaluates SET clauses left to right.
+    private static final Map<Course.Field, String> ASSIGNMENTS = new EnumMap<>(Map.of(
+            Course.Field.COURSE_NAME, "course_name = ?",
+            Course.Field.DEPARTMENT, "department = ?",
+            Course.Field.DURATION, "duration_semesters = ?",
+            Course.Field.FEES, "fees = ?",
+            Course.Field.DESCRIPTION, "description = ?",
+            Course.Field.TOTAL_SEATS, "available_seats = GREATEST(0, available_seats + (? - total_seats)), total_seats = ?",
+            Course.Field.CREDIT_HOURS, "credit_hours = ?"));
+    private static final Map<Set<Course.Field>, String> UPDATE_BY_FIELDS = new ConcurrentHashMap<>();
+    private static final String ADJUST_AVAILABLE = "UPDATE courses SET available_seats = LEAST(total_seats, GREATEST(0, available_seats + ?)) WHERE course_code = ?";
+    private static final String SELECT_AVAILABLE = "SELECT available_seats FROM courses WHERE course_code = ?";
     private static final String DELETE = "DELETE FROM courses WHERE course_code = ?";
 
     public CourseDao() {
@@ -66,31 +83,94 @@ public class CourseDao extends BaseDao {
             ps.setInt(8, course.getAvailableSeats());
             ps.setInt(9, course.getCreditHours());
             ps.executeUpdate();
+            course.markClean();
         } catch (SQLException ex) {
             logger.error("Error inserting course {}: {}", course.getCourseId(), ex.getMessage(), ex);
             throw new IllegalStateException("Unable to insert course", ex);
         }
     }
 
+    /**
+     * Writes only the columns changed since the course was loaded, guarded by its version. A course without
+     * changes is not written.
+     */
     public void update(Course course) {
+        Set<Course.Field> fields = course.getChangedFields();
+        if (fields.isEmpty()) {
+            return;
+        }
+        String sql = UPDATE_BY_FIELDS.computeIfAbsent(fields,
+                key -> versionedUpdate("courses", "course_code", ASSIGNMENTS, key));
         try (Connection conn = getConnection();
-             PreparedStatement ps = conn.prepareStatement(UPDATE)) {
-            ps.setString(1, course.getCourseName());
-            ps.setString(2, course.getDepartment());
-            ps.setInt(3, course.getDuration());
-            ps.setDouble(4, course.getFees());
-            ps.setString(5, course.getDescription());
-            ps.setInt(6, course.getTotalSeats());
-            ps.setInt(7, course.getAvailableSeats());
-            ps.setInt(8, course.getCreditHours());
-            ps.setString(9, course.getCourseId());
-            ps.executeUpdate();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            int idx = 1;
+            for (Course.Field field : fields) {
+                switch (field) {
+                    case COURSE_NAME:
+                        ps.setString(idx++, course.getCourseName());
+                        break;
+                    case DEPARTMENT:
+                        ps.setString(idx++, course.getDepartment());
+                        break;
+                    case DURATION:
+                        ps.setInt(idx++, course.getDuration());
+                        break;
+                    case FEES:
+                        ps.setDouble(idx++, course.getFees());
+                        break;
+                    case DESCRIPTION:
+                        ps.setString(idx++, course.getDescription());
+                        break;
+                    case TOTAL_SEATS:
+                        ps.setInt(idx++, course.getTotalSeats());
+                        ps.setInt(idx++, course.getTotalSeats());
+                        break;
+                    default:
+                        ps.setInt(idx++, course.getCreditHours());
+                        break;
+                }
+            }
+            ps.setString(idx++, course.getCourseId());
+            ps.setLong(idx, course.getVersion());
+            requireCurrentVersion(ps.executeUpdate(), "Course", course.getCourseId());
+            course.setVersion(course.getVersion() + 1);
+            course.markClean();
         } catch (SQLException ex) {
             logger.error("Error updating course {}: {}", course.getCourseId(), ex.getMessage(), ex);
             throw new IllegalStateException("Unable to update course", ex);
         }
     }
 
+    /**
+     * Atomically shifts {@code available_seats} by {@code delta}, clamped to {@code [0, total_seats]}.
+     */
+    public void adjustAvailableSeats(String courseCode, int delta) {
+        try (Connection conn = getConnection();
+             PreparedStatement ps = conn.prepareStatement(ADJUST_AVAILABLE)) {
+            ps.setInt(1, delta);
+            ps.setString(2, courseCode);
+            ps.executeUpdate();
+        } catch (SQLException ex) {
+            logger.error("Error adjusting seats for course {}: {}", courseCode, ex.getMessage(), ex);
+            throw new IllegalStateException("Unable to adjust course seats", ex);
+        }
+    }
+
+    public OptionalInt findAvailableSeats(String courseCode) {
+        try (Connection conn = getConnection();
+             PreparedStatement ps = conn.prepareStatement(SELECT_AVAILABLE)) {
+            ps.setString(1, courseCode);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    return OptionalInt.of(rs.getInt(1));
+                }
+            }
+        } catch (SQLException ex) {
+            logger.error("Error reading seats for course {}: {}", courseCode, ex.getMessage(), ex);
+        }
+        return OptionalInt.empty();
+    }
+
     public void delete(String courseCode) {
         try (Connection conn = getConnection();
              PreparedStatement ps = conn.prepareStatement(DELETE)) {
@@ -114,6 +194,8 @@ public class CourseDao extends BaseDao {
         course.setTotalSeats(total);
         course.setAvailableSeats(rs.getInt("available_seats"));
         course.setCreditHours(rs.getInt("credit_hours"));
+        course.setVersion(rs.getLong("version"));
+        course.markClean();
         return course;
     }
 }
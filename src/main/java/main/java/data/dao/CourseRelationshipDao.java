@@ -1,6 +1,7 @@
 package main.java.data.dao;
 
 import main.java.config.DataSourceRegistry;
+import main.java.models.CourseRequirement;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
@@ -10,40 +11,91 @@ import java.util.ArrayList;
 import java.util.List;
 
 /**
- * DAO for course co-requisite and anti-requisite relationships.
+ * DAO for course prerequisite, co-requisite and anti-requisite relationships.
  */
 public class CourseRelationshipDao extends BaseDao {
-    private static final String SELECT_COREQS =
-            "SELECT corequisite_code FROM course_corequisites WHERE course_code = ? ORDER BY corequisite_code";
-    private static final String SELECT_ANTIREQS =
-            "SELECT antirequisite_code FROM course_antirequisites WHERE course_code = ? ORDER BY antirequisite_code";
+    private static final String SELECT_ALL =
+            "SELECT 'PREREQUISITE' AS kind, course_code, prerequisite_code AS related_code FROM course_prerequisites "
+                    + "UNION ALL SELECT 'COREQUISITE', course_code, corequisite_code FROM course_corequisites "
+                    + "UNION ALL SELECT 'ANTIREQUISITE', course_code, antirequisite_code FROM course_antirequisites";
+    private static final String INSERT_PREREQ =
+            "INSERT INTO course_prerequisites (course_code, prerequisite_code) VALUES (?, ?)";
+    private static final String INSERT_COREQ =
+            "INSERT IGNORE INTO course_corequisites (course_code, corequisite_code) VALUES (?, ?)";
+    private static final String INSERT_ANTIREQ =
+            "INSERT IGNORE INTO course_antirequisites (course_code, antirequisite_code) VALUES (?, ?)";
+    private static final String DELETE_PREREQ =
+            "DELETE FROM course_prerequisites WHERE course_code = ? AND prerequisite_code = ?";
+    private static final String DELETE_COREQ =
+            "DELETE FROM course_corequisites WHERE course_code = ? AND corequisite_code = ?";
+    private static final String DELETE_ANTIREQ =
+            "DELETE FROM course_antirequisites WHERE course_code = ? AND antirequisite_code = ?";
 
     public CourseRelationshipDao() {
         super(DataSourceRegistry.erpDataSource()
                 .orElseThrow(() -> new IllegalStateException("ERP datasource not configured.")));
     }
 
-    public List<String> findCorequisites(String courseCode) {
-        return loadRelationships(SELECT_COREQS, courseCode);
+    /**
+     * Every relationship row from the three requirement tables, read in one round trip.
+     */
+    public List<CourseRequirement> findAll() {
+        List<CourseRequirement> results = new ArrayList<>();
+        try (Connection conn = getConnection();
+             PreparedStatement ps = conn.prepareStatement(SELECT_ALL);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                results.add(new CourseRequirement(
+                        CourseRequirement.Kind.valueOf(rs.getString("kind")),
+                        rs.getString("course_code"),
+                        rs.getString("related_code")));
+            }
+        } catch (SQLException ex) {
+            logger.error("Error loading course relationships: {}", ex.getMessage(), ex);
+            throw new IllegalStateException("Unable to load course relationships", ex);
+        }
+        return results;
+    }
+
+    public void insert(CourseRequirement requirement) {
+        execute(insertSql(requirement.getKind()), requirement);
     }
 
-    public List<String> findAntirequisites(String courseCode) {
-        return loadRelationships(SELECT_ANTIREQS, courseCode);
+    public void delete(CourseRequirement requirement) {
+        execute(deleteSql(requirement.getKind()), requirement);
     }
 
-    private List<String> loadRelationships(String sql, String courseCode) {
-        List<String> results = new ArrayList<>();
+    private void execute(String sql, CourseRequirement requirement) {
         try (Connection conn = getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, courseCode);
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    results.add(rs.getString(1));
-                }
-            }
+            ps.setString(1, requirement.getCourseId());
+            ps.setString(2, requirement.getRelatedCourseId());
+            ps.executeUpdate();
         } catch (SQLException ex) {
-            logger.error("Error loading course relationship for {}: {}", courseCode, ex.getMessage(), ex);
+            logger.error("Error updating course relationship {}: {}", requirement, ex.getMessage(), ex);
+            throw new IllegalStateException("Unable to update course relationship", ex);
+        }
+    }
+
+    private static String insertSql(CourseRequirement.Kind kind) {
+        switch (kind) {
+            case PREREQUISITE:
+                return INSERT_PREREQ;
+            case COREQUISITE:
+                return INSERT_COREQ;
+            default:
+                return INSERT_ANTIREQ;
+        }
+    }
+
+    private static String deleteSql(CourseRequirement.Kind kind) {
+        switch (kind) {
+            case PREREQUISITE:
+                return DELETE_PREREQ;
+            case COREQUISITE:
+                return DELETE_COREQ;
+            default:
+                return DELETE_ANTIREQ;
         }
-        return results;
     }
 }
@@ -9,13 +9,27 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 public class EnrollmentDao extends BaseDao {
-    private static final String SELECT_BY_STUDENT = "SELECT id, student_code, section_code, status, final_grade, updated_at FROM enrollments WHERE student_code = ?";
-    private static final String SELECT_BY_SECTION = "SELECT id, student_code, section_code, status, final_grade, updated_at FROM enrollments WHERE section_code = ?";
+    private static final String SELECT_BY_STUDENT = "SELECT id, student_code, section_code, status, final_grade, updated_at, version FROM enrollments WHERE student_code = ?";
+    private static final String SELECT_BY_SECTION = "SELECT id, student_code, section_code, status, final_grade, updated_at, version FROM enrollments WHERE section_code = ?";
+    private static final String SELECT_BY_STUDENT_AND_SECTION = "SELECT id, student_code, section_code, status, final_grade, updated_at, version FROM enrollments WHERE student_code = ? AND section_code = ?";
+    private static final String SELECT_BY_STUDENTS_PREFIX = "SELECT id, student_code, section_code, status, final_grade, updated_at, version FROM enrollments WHERE student_code IN (";
+    private static final String SELECT_ALL = "SELECT id, student_code, section_code, status, final_grade, updated_at, version FROM enrollments ORDER BY section_code, id";
+    private static final String SELECT_BY_SECTIONS_PREFIX = "SELECT id, student_code, section_code, status, final_grade, updated_at, version FROM enrollments WHERE section_code IN (";
     private static final String INSERT = "INSERT INTO enrollments (student_code, section_code, status, final_grade) VALUES (?, ?, ?, ?)";
-    private static final String UPDATE_STATUS = "UPDATE enrollments SET status = ?, final_grade = ?, updated_at = CURRENT_TIMESTAMP WHERE student_code = ? AND section_code = ?";
+    // A bulk row may revive a previously DROPPED enrollment, which still occupies the (student, section) key; any
+    // other existing row is left as it is. Assignments apply left to right, so status must be the last one.
+    private static final String UPSERT = INSERT + " ON DUPLICATE KEY UPDATE final_grade = IF(status = 'DROPPED', NULL, final_grade), updated_at = IF(status = 'DROPPED', CURRENT_TIMESTAMP, updated_at), version = IF(status = 'DROPPED', version + 1, version), status = IF(status = 'DROPPED', VALUES(status), status)";
+    private static final String UPDATE_STATUS = "UPDATE enrollments SET status = ?, final_grade = ?, updated_at = CURRENT_TIMESTAMP, version = version + 1 WHERE student_code = ? AND section_code = ? AND version = ?";
+    // Batch transitions are guarded by the status they expect to leave rather than a per-row version.
+    private static final String TRANSITION_STATUS = "UPDATE enrollments SET status = ?, final_grade = NULL, updated_at = CURRENT_TIMESTAMP, version = version + 1 WHERE student_code = ? AND section_code = ? AND status = ?";
     private static final String DELETE_BY_SECTION = "DELETE FROM enrollments WHERE section_code = ?";
 
     public EnrollmentDao() {
@@ -31,6 +45,135 @@ public class EnrollmentDao extends BaseDao {
         return fetchList(SELECT_BY_SECTION, sectionCode);
     }
 
+    public Optional<EnrollmentRecord> findByStudentAndSection(String studentCode, String sectionCode) {
+        try (Connection conn = getConnection();
+             PreparedStatement ps = conn.prepareStatement(SELECT_BY_STUDENT_AND_SECTION)) {
+            ps.setString(1, studentCode);
+            ps.setString(2, sectionCode);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    return Optional.of(mapRecord(rs));
+                }
+            }
+        } catch (SQLException ex) {
+            logger.error("Error fetching enrollment {}/{}: {}", studentCode, sectionCode, ex.getMessage(), ex);
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Streams every enrollment row through {@code consumer} using a forward-only cursor, so warming the
+     * section cache costs one query regardless of how many sections exist.
+     */
+    public void streamAll(Consumer<EnrollmentRecord> consumer) {
+        try (Connection conn = getConnection();
+             PreparedStatement ps = conn.prepareStatement(SELECT_ALL,
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            ps.setFetchSize(STREAMING_FETCH_SIZE);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    consumer.accept(mapRecord(rs));
+                }
+            }
+        } catch (SQLException ex) {
+            logger.error("Error streaming enrollments: {}", ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Loads enrollments for a batch of sections, grouped by section code in a single pass. Sections
+     * without rows map to an empty list.
+     */
+    public Map<String, List<EnrollmentRecord>> findBySections(Collection<String> sectionCodes) {
+        Map<String, List<EnrollmentRecord>> grouped = new LinkedHashMap<>();
+        for (String code : sectionCodes) {
+            grouped.put(code, new ArrayList<>());
+        }
+        for (List<String> chunk : partition(sectionCodes)) {
+            String sql = SELECT_BY_SECTIONS_PREFIX + placeholders(chunk.size()) + ") ORDER BY section_code, id";
+            try (Connection conn = getConnection();
+                 PreparedStatement ps = conn.prepareStatement(sql)) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    ps.setString(i + 1, chunk.get(i));
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        EnrollmentRecord record = mapRecord(rs);
+                        grouped.computeIfAbsent(record.getSectionId(), k -> new ArrayList<>()).add(record);
+                    }
+                }
+            } catch (SQLException ex) {
+                logger.error("Error loading enrollments for {} sections: {}", chunk.size(), ex.getMessage(), ex);
+            }
+        }
+        return grouped;
+    }
+
+    /**
+     * Loads enrollments for a batch of students, grouped by student code, and locks them ({@code FOR UPDATE})
+     * together with the key gaps, so no other client can add or change an enrollment of these students until
+     * the caller's transaction ends. Students without rows map to an empty list. Only meaningful inside a
+     * {@code TransactionManager} scope.
+     */
+    public Map<String, List<EnrollmentRecord>> lockByStudents(Collection<String> studentCodes) {
+        Map<String, List<EnrollmentRecord>> grouped = new LinkedHashMap<>();
+        for (String code : studentCodes) {
+            grouped.put(code, new ArrayList<>());
+        }
+        for (List<String> chunk : partition(studentCodes)) {
+            String sql = SELECT_BY_STUDENTS_PREFIX + placeholders(chunk.size())
+                    + ") ORDER BY student_code, section_code FOR UPDATE";
+            try (Connection conn = getConnection();
+                 PreparedStatement ps = conn.prepareStatement(sql)) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    ps.setString(i + 1, chunk.get(i));
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        EnrollmentRecord record = mapRecord(rs);
+                        grouped.computeIfAbsent(record.getStudentId(), k -> new ArrayList<>()).add(record);
+                    }
+                }
+            } catch (SQLException ex) {
+                logger.error("Error locking enrollments for {} students: {}", chunk.size(), ex.getMessage(), ex);
+                throw new IllegalStateException("Unable to lock enrollments", ex);
+            }
+        }
+        return grouped;
+    }
+
+    /**
+     * Writes many enrollments with JDBC batching, reviving DROPPED rows for the same student and section; an
+     * existing row in any other status is left untouched. Pair with {@link #lockByStudents(Collection)} so the
+     * caller knows which rows exist.
+     */
+    public void insertBatch(List<EnrollmentRecord> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        try (Connection conn = getConnection();
+             PreparedStatement ps = conn.prepareStatement(UPSERT)) {
+            int pending = 0;
+            for (EnrollmentRecord record : records) {
+                ps.setString(1, record.getStudentId());
+                ps.setString(2, record.getSectionId());
+                ps.setString(3, record.getStatus().name());
+                ps.setNull(4, java.sql.Types.DECIMAL);
+                ps.addBatch();
+                if (++pending == JDBC_BATCH_SIZE) {
+                    ps.executeBatch();
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                ps.executeBatch();
+            }
+        } catch (SQLException ex) {
+            logger.error("Error inserting {} enrollments: {}", records.size(), ex.getMessage(), ex);
+            throw new IllegalStateException("Unable to insert enrollments", ex);
+        }
+    }
+
     public void insert(EnrollmentRecord record) {
         try (Connection conn = getConnection();
              PreparedStatement ps = conn.prepareStatement(INSERT)) {
@@ -49,6 +192,11 @@ public class EnrollmentDao extends BaseDao {
         }
     }
 
+    /**
+     * Compare-and-set update of status and final grade on the record's version.
+     *
+     * @throws StaleDataException when the enrollment was changed or removed since it was read
+     */
     public void updateStatus(EnrollmentRecord record) {
         try (Connection conn = getConnection();
              PreparedStatement ps = conn.prepareStatement(UPDATE_STATUS)) {
@@ -60,13 +208,58 @@ public class EnrollmentDao extends BaseDao {
             }
             ps.setString(3, record.getStudentId());
             ps.setString(4, record.getSectionId());
-            ps.executeUpdate();
+            ps.setLong(5, record.getVersion());
+            requireCurrentVersion(ps.executeUpdate(), "Enrollment",
+                    record.getStudentId() + "/" + record.getSectionId());
+            record.setVersion(record.getVersion() + 1);
         } catch (SQLException ex) {
             logger.error("Error updating enrollment {}:{} - {}", record.getStudentId(), record.getSectionId(), ex.getMessage(), ex);
             throw new IllegalStateException("Unable to update enrollment", ex);
         }
     }
 
+    /**
+     * Moves many enrollments out of status {@code from} in one JDBC batch; final grades are cleared.
+     *
+     * @throws StaleDataException when any row was no longer in status {@code from}; run this inside a
+     *                            transaction so the rows already written roll back with it
+     */
+    public void updateStatusBatch(List<EnrollmentRecord> records, EnrollmentRecord.Status from) {
+        if (records.isEmpty()) {
+            return;
+        }
+        try (Connection conn = getConnection();
+             PreparedStatement ps = conn.prepareStatement(TRANSITION_STATUS)) {
+            List<EnrollmentRecord> pending = new ArrayList<>();
+            for (EnrollmentRecord record : records) {
+                ps.setString(1, record.getStatus().name());
+                ps.setString(2, record.getStudentId());
+                ps.setString(3, record.getSectionId());
+                ps.setString(4, from.name());
+                ps.addBatch();
+                pending.add(record);
+                if (pending.size() == JDBC_BATCH_SIZE) {
+                    executeTransitions(ps, pending);
+                }
+            }
+            if (!pending.isEmpty()) {
+                executeTransitions(ps, pending);
+            }
+        } catch (SQLException ex) {
+            logger.error("Error updating {} enrollments: {}", records.size(), ex.getMessage(), ex);
+            throw new IllegalStateException("Unable to update enrollments", ex);
+        }
+    }
+
+    private static void executeTransitions(PreparedStatement ps, List<EnrollmentRecord> pending) throws SQLException {
+        int[] counts = ps.executeBatch();
+        for (int i = 0; i < counts.length; i++) {
+            EnrollmentRecord record = pending.get(i);
+            requireCurrentVersion(counts[i], "Enrollment", record.getStudentId() + "/" + record.getSectionId());
+        }
+        pending.clear();
+    }
+
     public void deleteBySection(String sectionCode) {
         try (Connection conn = getConnection();
              PreparedStatement ps = conn.prepareStatement(DELETE_BY_SECTION)) {
@@ -74,6 +267,7 @@ public class EnrollmentDao extends BaseDao {
             ps.executeUpdate();
         } catch (SQLException ex) {
             logger.error("Error deleting enrollments for section {}: {}", sectionCode, ex.getMessage(), ex);
+            throw new IllegalStateException("Unable to delete enrollments for section", ex);
         }
     }
 
@@ -108,6 +302,7 @@ public class EnrollmentDao extends BaseDao {
         } else {
             record.setUpdatedAt(LocalDateTime.now());
         }
+        record.setVersion(rs.getLong("version"));
         return record;
     }
 }
@@ -11,7 +11,12 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * DAO for fee installment schedules.
@@ -22,20 +27,33 @@ public class FeeInstallmentDao extends BaseDao {
             (installment_id, student_id, due_date, amount, status, description, paid_on, last_reminder_sent)
             VALUES (?, ?, ?, ?, ?, ?, ?, ?)
             """;
-    private static final String UPDATE_SQL = """
-            UPDATE fee_installments
-            SET student_id = ?, due_date = ?, amount = ?, status = ?, description = ?, paid_on = ?, last_reminder_sent = ?
-            WHERE installment_id = ?
-            """;
+    private static final String INSERT_MISSING_SQL = INSERT_SQL.strip()
+            + " ON DUPLICATE KEY UPDATE installment_id = installment_id";
+    private static final Map<FeeInstallment.Field, String> ASSIGNMENTS = new EnumMap<>(Map.of(
+            FeeInstallment.Field.STUDENT_ID, "student_id = ?",
+            FeeInstallment.Field.DUE_DATE, "due_date = ?",
+            FeeInstallment.Field.AMOUNT, "amount = ?",
+            FeeInstallment.Field.STATUS, "status = ?",
+            FeeInstallment.Field.DESCRIPTION, "description = ?",
+            FeeInstallment.Field.PAID_ON, "paid_on = ?",
+            FeeInstallment.Field.LAST_REMINDER_SENT, "last_reminder_sent = ?"));
+    private static final Map<Set<FeeInstallment.Field>, String> UPDATE_BY_FIELDS = new ConcurrentHashMap<>();
+    private static final String EXISTS_SQL = "SELECT 1 FROM fee_installments WHERE installment_id = ?";
     private static final String DELETE_SQL = "DELETE FROM fee_installments WHERE installment_id = ?";
     private static final String FIND_BY_STUDENT_SQL = """
-            SELECT installment_id, student_id, due_date, amount, status, description, paid_on, last_reminder_sent
+            SELECT installment_id, student_id, due_date, amount, status, description, paid_on, last_reminder_sent, version
             FROM fee_installments
             WHERE student_id = ?
             ORDER BY due_date, installment_id
             """;
+    private static final String FIND_UNPAID_PREFIX = "SELECT installment_id, student_id, due_date, amount, status, "
+            + "description, paid_on, last_reminder_sent, version FROM fee_installments "
+            + "WHERE status <> 'PAID' AND student_id IN (";
+    private static final String FIND_UNPAID_SUFFIX = ") ORDER BY student_id, due_date IS NULL, due_date, installment_id";
+    private static final String MARK_PAID_PREFIX = "UPDATE fee_installments "
+            + "SET status = 'PAID', paid_on = ?, version = version + 1 WHERE status <> 'PAID' AND installment_id IN (";
     private static final String FIND_ALL_SQL = """
-            SELECT installment_id, student_id, due_date, amount, status, description, paid_on, last_reminder_sent
+            SELECT installment_id, student_id, due_date, amount, status, description, paid_on, last_reminder_sent, version
             FROM fee_installments
             ORDER BY due_date, installment_id
             """;
@@ -48,63 +66,128 @@ public class FeeInstallmentDao extends BaseDao {
     public void insert(FeeInstallment installment) {
         try (Connection conn = getConnection();
              PreparedStatement ps = conn.prepareStatement(INSERT_SQL)) {
-            ps.setString(1, installment.getInstallmentId());
-            ps.setString(2, installment.getStudentId());
-            if (installment.getDueDate() != null) {
-                ps.setDate(3, Date.valueOf(installment.getDueDate()));
-            } else {
-                ps.setNull(3, java.sql.Types.DATE);
-            }
-            ps.setDouble(4, installment.getAmount());
-            ps.setString(5, installment.getStatus().name());
-            ps.setString(6, installment.getDescription());
-            if (installment.getPaidOn() != null) {
-                ps.setDate(7, Date.valueOf(installment.getPaidOn()));
-            } else {
-                ps.setNull(7, java.sql.Types.DATE);
-            }
-            if (installment.getLastReminderSent() != null) {
-                ps.setDate(8, Date.valueOf(installment.getLastReminderSent()));
-            } else {
-                ps.setNull(8, java.sql.Types.DATE);
-            }
+            bindInsert(ps, installment);
             ps.executeUpdate();
+            installment.markClean();
         } catch (SQLException ex) {
             logger.error("Failed to insert installment {}: {}", installment.getInstallmentId(), ex.getMessage(), ex);
             throw new IllegalStateException("Unable to persist fee installment", ex);
         }
     }
 
-    public boolean update(FeeInstallment installment) {
+    /**
+     * Inserts installments in JDBC batches, skipping any whose id already exists. Callers that derive ids
+     * deterministically can therefore repeat a batch without creating duplicates.
+     */
+    public void insertMissing(List<FeeInstallment> installments) {
+        if (installments.isEmpty()) {
+            return;
+        }
         try (Connection conn = getConnection();
-             PreparedStatement ps = conn.prepareStatement(UPDATE_SQL)) {
-            ps.setString(1, installment.getStudentId());
-            if (installment.getDueDate() != null) {
-                ps.setDate(2, Date.valueOf(installment.getDueDate()));
-            } else {
-                ps.setNull(2, java.sql.Types.DATE);
+             PreparedStatement ps = conn.prepareStatement(INSERT_MISSING_SQL)) {
+            int pending = 0;
+            for (FeeInstallment installment : installments) {
+                bindInsert(ps, installment);
+                ps.addBatch();
+                if (++pending == JDBC_BATCH_SIZE) {
+                    ps.executeBatch();
+                    pending = 0;
+                }
             }
-            ps.setDouble(3, installment.getAmount());
-            ps.setString(4, installment.getStatus().name());
-            ps.setString(5, installment.getDescription());
-            if (installment.getPaidOn() != null) {
-                ps.setDate(6, Date.valueOf(installment.getPaidOn()));
-            } else {
-                ps.setNull(6, java.sql.Types.DATE);
+            if (pending > 0) {
+                ps.executeBatch();
+            }
+            installments.forEach(FeeInstallment::markClean);
+        } catch (SQLException ex) {
+            logger.error("Failed to insert {} installments: {}", installments.size(), ex.getMessage(), ex);
+            throw new IllegalStateException("Unable to persist fee installments", ex);
+        }
+    }
+
+    private static void bindInsert(PreparedStatement ps, FeeInstallment installment) throws SQLException {
+        ps.setString(1, installment.getInstallmentId());
+        ps.setString(2, installment.getStudentId());
+        setNullableDate(ps, 3, installment.getDueDate());
+        ps.setDouble(4, installment.getAmount());
+        ps.setString(5, installment.getStatus().name());
+        ps.setString(6, installment.getDescription());
+        setNullableDate(ps, 7, installment.getPaidOn());
+        setNullableDate(ps, 8, installment.getLastReminderSent());
+    }
+
+    /**
+     * Writes only the columns changed since the installment was loaded, guarded by its version.
+     *
+     * @return {@code false} when no such installment exists
+     * @throws StaleDataException when the installment exists but was changed since it was read
+     */
+    public boolean update(FeeInstallment installment) {
+        Set<FeeInstallment.Field> fields = installment.getChangedFields();
+        try (Connection conn = getConnection()) {
+            if (fields.isEmpty()) {
+                return exists(conn, installment.getInstallmentId());
             }
-            if (installment.getLastReminderSent() != null) {
-                ps.setDate(7, Date.valueOf(installment.getLastReminderSent()));
-            } else {
-                ps.setNull(7, java.sql.Types.DATE);
+            String sql = UPDATE_BY_FIELDS.computeIfAbsent(fields,
+                    key -> versionedUpdate("fee_installments", "installment_id", ASSIGNMENTS, key));
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                int idx = 1;
+                for (FeeInstallment.Field field : fields) {
+                    bindField(ps, idx++, installment, field);
+                }
+                ps.setString(idx++, installment.getInstallmentId());
+                ps.setLong(idx, installment.getVersion());
+                if (ps.executeUpdate() == 0) {
+                    if (exists(conn, installment.getInstallmentId())) {
+                        throw new StaleDataException("Fee installment", installment.getInstallmentId());
+                    }
+                    return false;
+                }
             }
-            ps.setString(8, installment.getInstallmentId());
-            return ps.executeUpdate() > 0;
+            installment.setVersion(installment.getVersion() + 1);
+            installment.markClean();
+            return true;
         } catch (SQLException ex) {
             logger.error("Failed to update installment {}: {}", installment.getInstallmentId(), ex.getMessage(), ex);
             throw new IllegalStateException("Unable to update fee installment", ex);
         }
     }
 
+    private static void bindField(PreparedStatement ps, int idx, FeeInstallment installment,
+                                  FeeInstallment.Field field) throws SQLException {
+        switch (field) {
+            case STUDENT_ID:
+                ps.setString(idx, installment.getStudentId());
+                break;
+            case DUE_DATE:
+                setNullableDate(ps, idx, installment.getDueDate());
+                break;
+            case AMOUNT:
+                ps.setDouble(idx, installment.getAmount());
+                break;
+            case STATUS:
+                ps.setString(idx, installment.getStatus().name());
+                break;
+            case DESCRIPTION:
+                ps.setString(idx, installment.getDescription());
+                break;
+            case PAID_ON:
+                setNullableDate(ps, idx, installment.getPaidOn());
+                break;
+            default:
+                setNullableDate(ps, idx, installment.getLastReminderSent());
+                break;
+        }
+    }
+
+    private boolean exists(Connection conn, String installmentId) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(EXISTS_SQL)) {
+            ps.setString(1, installmentId);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
     public void delete(String installmentId) {
         try (Connection conn = getConnection();
              PreparedStatement ps = conn.prepareStatement(DELETE_SQL)) {
@@ -129,6 +212,49 @@ public class FeeInstallmentDao extends BaseDao {
         }
     }
 
+    /**
+     * Unpaid installments of many students, per student in due order with undated ones last.
+     */
+    public List<FeeInstallment> findUnpaidByStudents(Collection<String> studentIds) {
+        List<FeeInstallment> installments = new ArrayList<>();
+        for (List<String> chunk : partition(studentIds)) {
+            try (Connection conn = getConnection();
+                 PreparedStatement ps = conn.prepareStatement(
+                         FIND_UNPAID_PREFIX + placeholders(chunk.size()) + FIND_UNPAID_SUFFIX)) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    ps.setString(i + 1, chunk.get(i));
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    installments.addAll(mapResult(rs));
+                }
+            } catch (SQLException ex) {
+                logger.error("Failed to load unpaid installments for {} students: {}", chunk.size(),
+                        ex.getMessage(), ex);
+                throw new IllegalStateException("Unable to load fee installments", ex);
+            }
+        }
+        return installments;
+    }
+
+    /**
+     * Marks installments paid with one UPDATE per chunk of ids; installments already paid are left alone.
+     */
+    public void markPaid(Collection<String> installmentIds, LocalDate paidOn) {
+        for (List<String> chunk : partition(installmentIds)) {
+            try (Connection conn = getConnection();
+                 PreparedStatement ps = conn.prepareStatement(MARK_PAID_PREFIX + placeholders(chunk.size()) + ")")) {
+                ps.setDate(1, Date.valueOf(paidOn));
+                for (int i = 0; i < chunk.size(); i++) {
+                    ps.setString(i + 2, chunk.get(i));
+                }
+                ps.executeUpdate();
+            } catch (SQLException ex) {
+                logger.error("Failed to mark {} installments paid: {}", chunk.size(), ex.getMessage(), ex);
+                throw new IllegalStateException("Unable to update fee installments", ex);
+            }
+        }
+    }
+
     public List<FeeInstallment> findAll() {
         try (Connection conn = getConnection();
              PreparedStatement ps = conn.prepareStatement(FIND_ALL_SQL);
@@ -155,6 +281,8 @@ public class FeeInstallmentDao extends BaseDao {
             installment.setPaidOn(paid != null ? paid.toLocalDate() : null);
             Date reminder = rs.getDate("last_reminder_sent");
             installment.setLastReminderSent(reminder != null ? reminder.toLocalDate() : null);
+            installment.setVersion(rs.getLong("version"));
+            installment.markClean();
             list.add(installment);
         }
         return list;
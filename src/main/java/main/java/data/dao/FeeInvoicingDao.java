@@ -0,0 +1,226 @@
+package main.java.data.dao;
+
+import main.java.config.DataSourceRegistry;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Term invoicing runs and the student rows they bill. Candidates are read in {@code student_code} pages with
+ * each student's term fee and the part of their balance no unpaid installment covers yet, so a page needs no
+ * further lookups to be planned.
+ */
+public class FeeInvoicingDao extends BaseDao {
+    private static final String SELECT_CANDIDATES = "SELECT s.student_code, s.course_code, "
+            + "COALESCE(c.fees, 0) / GREATEST(COALESCE(c.duration_semesters, 1), 1) AS term_fee, "
+            + "GREATEST(0, COALESCE(s.total_fees, 0) - COALESCE(s.fees_paid, 0) "
+            + "- COALESCE((SELECT SUM(fi.amount) FROM fee_installments fi "
+            + "WHERE fi.student_id = s.student_code AND fi.status IN ('DUE', 'OVERDUE')), 0)) AS unscheduled "
+            + "FROM students s JOIN courses c ON c.course_code = s.course_code "
+            + "WHERE s.student_code > ? AND s.status = 'Active' "
+            + "ORDER BY s.student_code LIMIT ?";
+    private static final String REQUEST = "INSERT IGNORE INTO fee_invoicing_runs (term_code, term_start, status, requested_by) "
+            + "VALUES (?, ?, 'PENDING', ?)";
+    private static final String SELECT_UNFINISHED = "SELECT term_code, term_start, status, last_student_id, "
+            + "students_invoiced, installments_scheduled FROM fee_invoicing_runs "
+            + "WHERE status <> 'COMPLETED' ORDER BY requested_at, term_code";
+    private static final String CHECKPOINT = "UPDATE fee_invoicing_runs SET status = 'RUNNING', "
+            + "last_student_id = ?, students_invoiced = students_invoiced + ?, "
+            + "installments_scheduled = installments_scheduled + ? WHERE term_code = ?";
+    private static final String COMPLETE = "UPDATE fee_invoicing_runs SET status = 'COMPLETED', finished_at = NOW() "
+            + "WHERE term_code = ?";
+
+    public enum Status {
+        PENDING,
+        RUNNING,
+        COMPLETED
+    }
+
+    /**
+     * A requested invoicing run and how far it has got.
+     */
+    public static final class Run {
+        private final String termCode;
+        private final LocalDate termStart;
+        private final Status status;
+        private final String lastStudentId;
+        private final int studentsInvoiced;
+        private final int installmentsScheduled;
+
+        Run(String termCode, LocalDate termStart, Status status, String lastStudentId, int studentsInvoiced,
+            int installmentsScheduled) {
+            this.termCode = termCode;
+            this.termStart = termStart;
+            this.status = status;
+            this.lastStudentId = lastStudentId;
+            this.studentsInvoiced = studentsInvoiced;
+            this.installmentsScheduled = installmentsScheduled;
+        }
+
+        public String getTermCode() {
+            return termCode;
+        }
+
+        public LocalDate getTermStart() {
+            return termStart;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        /**
+         * Last student of the most recent checkpoint, or {@code null} when the run has not checkpointed yet.
+         */
+        public String getLastStudentId() {
+            return lastStudentId;
+        }
+
+        public int getStudentsInvoiced() {
+            return studentsInvoiced;
+        }
+
+        public int getInstallmentsScheduled() {
+            return installmentsScheduled;
+        }
+    }
+
+    /**
+     * An active student with their program's per-term fee.
+     */
+    public static final class Candidate {
+        private final String studentId;
+        private final String courseCode;
+        private final double termFee;
+        private final double unscheduled;
+
+        Candidate(String studentId, String courseCode, double termFee, double unscheduled) {
+            this.studentId = studentId;
+            this.courseCode = courseCode;
+            this.termFee = termFee;
+            this.unscheduled = unscheduled;
+        }
+
+        public String getStudentId() {
+            return studentId;
+        }
+
+        public String getCourseCode() {
+            return courseCode;
+        }
+
+        public double getTermFee() {
+            return termFee;
+        }
+
+        /**
+         * Outstanding balance not yet covered by a due or overdue installment.
+         */
+        public double getUnscheduled() {
+            return unscheduled;
+        }
+    }
+
+    public FeeInvoicingDao() {
+        super(DataSourceRegistry.erpDataSource()
+                .orElseThrow(() -> new IllegalStateException("ERP datasource not configured.")));
+    }
+
+    /**
+     * Active students after {@code afterStudentId} ({@code null} for the first page) in student code order.
+     */
+    public List<Candidate> findCandidates(String afterStudentId, int limit) {
+        List<Candidate> candidates = new ArrayList<>();
+        try (Connection conn = getConnection();
+             PreparedStatement ps = conn.prepareStatement(SELECT_CANDIDATES)) {
+            ps.setString(1, afterStudentId != null ? afterStudentId : "");
+            ps.setInt(2, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    candidates.add(new Candidate(
+                            rs.getString("student_code"),
+                            rs.getString("course_code"),
+                            rs.getDouble("term_fee"),
+                            rs.getDouble("unscheduled")));
+                }
+            }
+        } catch (SQLException ex) {
+            logger.error("Error loading invoicing candidates after {}: {}", afterStudentId, ex.getMessage(), ex);
+            throw new IllegalStateException("Unable to load invoicing candidates", ex);
+        }
+        return candidates;
+    }
+
+    /**
+     * Records a pending run for {@code termCode}.
+     *
+     * @return {@code false} when the term has already been requested
+     */
+    public boolean request(String termCode, LocalDate termStart, String requestedBy) {
+        try (Connection conn = getConnection();
+             PreparedStatement ps = conn.prepareStatement(REQUEST)) {
+            ps.setString(1, termCode);
+            ps.setDate(2, Date.valueOf(termStart));
+            ps.setString(3, requestedBy);
+            return ps.executeUpdate() == 1;
+        } catch (SQLException ex) {
+            logger.error("Error requesting invoicing for term {}: {}", termCode, ex.getMessage(), ex);
+            throw new IllegalStateException("Unable to request term invoicing", ex);
+        }
+    }
+
+    /**
+     * Pending and interrupted runs, oldest request first.
+     */
+    public List<Run> findUnfinished() {
+        List<Run> runs = new ArrayList<>();
+        try (Connection conn = getConnection();
+             PreparedStatement ps = conn.prepareStatement(SELECT_UNFINISHED);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                runs.add(new Run(
+                        rs.getString("term_code"),
+                        rs.getDate("term_start").toLocalDate(),
+                        Status.valueOf(rs.getString("status")),
+                        rs.getString("last_student_id"),
+                        rs.getInt("students_invoiced"),
+                        rs.getInt("installments_scheduled")));
+            }
+        } catch (SQLException ex) {
+            logger.error("Error loading invoicing runs: {}", ex.getMessage(), ex);
+            throw new IllegalStateException("Unable to load invoicing runs", ex);
+        }
+        return runs;
+    }
+
+    public void checkpoint(String termCode, String lastStudentId, int students, int installments) {
+        try (Connection conn = getConnection();
+             PreparedStatement ps = conn.prepareStatement(CHECKPOINT)) {
+            ps.setString(1, lastStudentId);
+            ps.setInt(2, students);
+            ps.setInt(3, installments);
+            ps.setString(4, termCode);
+            ps.executeUpdate();
+        } catch (SQLException ex) {
+            logger.error("Error checkpointing invoicing for term {}: {}", termCode, ex.getMessage(), ex);
+            throw new IllegalStateException("Unable to checkpoint term invoicing", ex);
+        }
+    }
+
+    public void complete(String termCode) {
+        try (Connection conn = getConnection();
+             PreparedStatement ps = conn.prepareStatement(COMPLETE)) {
+            ps.setString(1, termCode);
+            ps.executeUpdate();
+        } catch (SQLException ex) {
+            logger.error("Error completing invoicing for term {}: {}", termCode, ex.getMessage(), ex);
+            throw new IllegalStateException("Unable to complete term invoicing", ex);
+        }
+    }
+}
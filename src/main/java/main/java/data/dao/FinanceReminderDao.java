@@ -0,0 +1,184 @@
+package main.java.data.dao;
+
+import main.java.config.DataSourceRegistry;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Set-based reads and writes for the finance reminder cycle: every due reminder and every digest candidate
+ * comes back from one query, and reminder dates are stamped with multi-row UPDATEs.
+ */
+public class FinanceReminderDao extends BaseDao {
+    private static final String SELECT_DUE_REMINDERS = "SELECT fi.installment_id, fi.student_id, fi.due_date, "
+            + "fi.amount, GREATEST(0, COALESCE(s.total_fees, 0) - COALESCE(s.fees_paid, 0)) AS outstanding "
+            + "FROM fee_installments fi JOIN students s ON s.student_code = fi.student_id "
+            + "WHERE fi.status IN ('DUE', 'OVERDUE') AND fi.due_date <= ? "
+            + "AND (fi.last_reminder_sent IS NULL OR fi.last_reminder_sent < ?) "
+            + "ORDER BY fi.student_id, fi.due_date";
+    private static final String SELECT_DIGEST_CANDIDATES = "SELECT s.student_code AS student_id, "
+            + "COALESCE(s.total_fees, 0) - COALESCE(s.fees_paid, 0) AS outstanding, "
+            + "(SELECT MIN(fi.due_date) FROM fee_installments fi "
+            + "WHERE fi.student_id = s.student_code AND fi.status IN ('DUE', 'OVERDUE')) AS next_due "
+            + "FROM students s "
+            + "LEFT JOIN notification_delivery_state d "
+            + "ON d.student_id = s.student_code AND d.channel = 'FINANCE_DIGEST' "
+            + "WHERE COALESCE(s.total_fees, 0) - COALESCE(s.fees_paid, 0) > 0 "
+            + "AND (d.last_sent_on IS NULL OR d.last_sent_on < ?) "
+            + "ORDER BY s.student_code";
+    private static final String MARK_SENT_PREFIX = "UPDATE fee_installments "
+            + "SET last_reminder_sent = ?, version = version + 1 WHERE installment_id IN (";
+
+    /**
+     * An unpaid installment due within the lookahead window that has not been reminded about today.
+     */
+    public static final class DueReminder {
+        private final String installmentId;
+        private final String studentId;
+        private final LocalDate dueDate;
+        private final double amount;
+        private final double outstanding;
+
+        DueReminder(String installmentId, String studentId, LocalDate dueDate, double amount, double outstanding) {
+            this.installmentId = installmentId;
+            this.studentId = studentId;
+            this.dueDate = dueDate;
+            this.amount = amount;
+            this.outstanding = outstanding;
+        }
+
+        public String getInstallmentId() {
+            return installmentId;
+        }
+
+        public String getStudentId() {
+            return studentId;
+        }
+
+        public LocalDate getDueDate() {
+            return dueDate;
+        }
+
+        public double getAmount() {
+            return amount;
+        }
+
+        public double getOutstanding() {
+            return outstanding;
+        }
+    }
+
+    /**
+     * A student with an outstanding balance and the earliest due date among their unpaid installments.
+     */
+    public static final class DigestCandidate {
+        private final String studentId;
+        private final double outstanding;
+        private final LocalDate nextDue;
+
+        DigestCandidate(String studentId, double outstanding, LocalDate nextDue) {
+            this.studentId = studentId;
+            this.outstanding = outstanding;
+            this.nextDue = nextDue;
+        }
+
+        public String getStudentId() {
+            return studentId;
+        }
+
+        public double getOutstanding() {
+            return outstanding;
+        }
+
+        public LocalDate getNextDue() {
+            return nextDue;
+        }
+    }
+
+    public FinanceReminderDao() {
+        super(DataSourceRegistry.erpDataSource()
+                .orElseThrow(() -> new IllegalStateException("ERP datasource not configured.")));
+    }
+
+    /**
+     * Unpaid installments due on or before {@code threshold}, overdue ones included, whose reminder was last
+     * sent before {@code today}.
+     */
+    public List<DueReminder> findDueReminders(LocalDate today, LocalDate threshold) {
+        List<DueReminder> reminders = new ArrayList<>();
+        try (Connection conn = getConnection();
+             PreparedStatement ps = conn.prepareStatement(SELECT_DUE_REMINDERS,
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            ps.setFetchSize(STREAMING_FETCH_SIZE);
+            ps.setDate(1, Date.valueOf(threshold));
+            ps.setDate(2, Date.valueOf(today));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    reminders.add(new DueReminder(
+                            rs.getString("installment_id"),
+                            rs.getString("student_id"),
+                            rs.getDate("due_date").toLocalDate(),
+                            rs.getDouble("amount"),
+                            rs.getDouble("outstanding")));
+                }
+            }
+        } catch (SQLException ex) {
+            logger.error("Error loading due finance reminders: {}", ex.getMessage(), ex);
+            throw new IllegalStateException("Unable to load due finance reminders", ex);
+        }
+        return reminders;
+    }
+
+    /**
+     * Students with an outstanding balance whose finance digest was last sent before {@code today}.
+     */
+    public List<DigestCandidate> findDigestCandidates(LocalDate today) {
+        List<DigestCandidate> candidates = new ArrayList<>();
+        try (Connection conn = getConnection();
+             PreparedStatement ps = conn.prepareStatement(SELECT_DIGEST_CANDIDATES,
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            ps.setFetchSize(STREAMING_FETCH_SIZE);
+            ps.setDate(1, Date.valueOf(today));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Date nextDue = rs.getDate("next_due");
+                    candidates.add(new DigestCandidate(
+                            rs.getString("student_id"),
+                            rs.getDouble("outstanding"),
+                            nextDue != null ? nextDue.toLocalDate() : null));
+                }
+            }
+        } catch (SQLException ex) {
+            logger.error("Error loading finance digest candidates: {}", ex.getMessage(), ex);
+            throw new IllegalStateException("Unable to load finance digest candidates", ex);
+        }
+        return candidates;
+    }
+
+    /**
+     * Stamps {@code last_reminder_sent} on many installments with one UPDATE per chunk of ids.
+     * The version is bumped so copies read earlier fail their compare-and-set instead of overwriting the date.
+     */
+    public void markRemindersSent(Collection<String> installmentIds, LocalDate sentOn) {
+        for (List<String> chunk : partition(installmentIds)) {
+            try (Connection conn = getConnection();
+                 PreparedStatement ps = conn.prepareStatement(MARK_SENT_PREFIX + placeholders(chunk.size()) + ")")) {
+                ps.setDate(1, Date.valueOf(sentOn));
+                for (int i = 0; i < chunk.size(); i++) {
+                    ps.setString(i + 2, chunk.get(i));
+                }
+                ps.executeUpdate();
+            } catch (SQLException ex) {
+                logger.error("Error stamping {} finance reminders: {}", chunk.size(), ex.getMessage(), ex);
+                throw new IllegalStateException("Unable to record finance reminders", ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package main.java.data.dao;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Position in a {@code created_at DESC, id DESC} listing: the last row of the previous page. The next page
+ * starts strictly after it, which an index on {@code (..., created_at, id)} answers with a seek instead of
+ * skipping {@code OFFSET} rows.
+ */
+public final class KeysetCursor {
+    private final LocalDateTime createdAt;
+    private final long id;
+
+    public KeysetCursor(LocalDateTime createdAt, long id) {
+        this.createdAt = Objects.requireNonNull(createdAt, "createdAt");
+        this.id = id;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public long getId() {
+        return id;
+    }
+}
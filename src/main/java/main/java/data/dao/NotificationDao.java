@@ -12,6 +12,7 @@ import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.StringJoiner;
 
 /**
  * DAO for persisting system notifications.
@@ -27,6 +28,12 @@ public class NotificationDao extends BaseDao {
             "ORDER BY created_at DESC";
     private static final String SELECT_BY_ID_SQL =
             "SELECT id, audience, target_id, message, category, created_at, is_read, read_at FROM notifications WHERE id = ?";
+    private static final String SELECT_COLUMNS =
+            "SELECT id, audience, target_id, message, category, created_at, is_read, read_at FROM notifications";
+    private static final String ORDER_NEWEST_FIRST = " ORDER BY created_at DESC, id DESC";
+    private static final String SELECT_PAGE_SQL = SELECT_COLUMNS + ORDER_NEWEST_FIRST + " LIMIT ?";
+    private static final String SELECT_PAGE_AFTER_SQL =
+            SELECT_COLUMNS + " WHERE " + AFTER_CURSOR + ORDER_NEWEST_FIRST + " LIMIT ?";
     private static final String UPDATE_READ_SQL =
             "UPDATE notifications SET is_read = ?, read_at = ? WHERE id = ?";
 
@@ -84,6 +91,43 @@ public class NotificationDao extends BaseDao {
         return notification;
     }
 
+    /**
+     * Inserts many notifications with JDBC batching. Unlike {@link #insert(NotificationMessage)} the generated
+     * ids are not read back.
+     */
+    public void insertBatch(List<NotificationMessage> notifications) {
+        if (notifications.isEmpty()) {
+            return;
+        }
+        try (Connection conn = getConnection();
+             PreparedStatement ps = conn.prepareStatement(INSERT_SQL)) {
+            int pending = 0;
+            for (NotificationMessage notification : notifications) {
+                ps.setString(1, notification.getAudience().name());
+                if (notification.getTargetId() != null) {
+                    ps.setString(2, notification.getTargetId());
+                } else {
+                    ps.setNull(2, java.sql.Types.VARCHAR);
+                }
+                ps.setString(3, notification.getMessage());
+                ps.setString(4, notification.getCategory());
+                ps.setBoolean(5, false);
+                ps.setNull(6, java.sql.Types.TIMESTAMP);
+                ps.addBatch();
+                if (++pending == JDBC_BATCH_SIZE) {
+                    ps.executeBatch();
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                ps.executeBatch();
+            }
+        } catch (SQLException ex) {
+            logger.error("Error inserting {} notifications: {}", notifications.size(), ex.getMessage(), ex);
+            throw new IllegalStateException("Unable to persist notifications", ex);
+        }
+    }
+
     public List<NotificationMessage> findAll() {
         List<NotificationMessage> list = new ArrayList<>();
         try (Connection conn = getConnection();
@@ -119,6 +163,72 @@ public class NotificationDao extends BaseDao {
         return list;
     }
 
+    /**
+     * One page of all notifications, newest first, starting after {@code after} ({@code null} for the first
+     * page).
+     */
+    public List<NotificationMessage> findAllPage(KeysetCursor after, int limit) {
+        List<NotificationMessage> list = new ArrayList<>();
+        try (Connection conn = getConnection();
+             PreparedStatement ps = conn.prepareStatement(after == null ? SELECT_PAGE_SQL : SELECT_PAGE_AFTER_SQL)) {
+            int idx = after == null ? 1 : bindCursor(ps, 1, after);
+            ps.setInt(idx, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    list.add(mapNotification(rs));
+                }
+            }
+        } catch (SQLException ex) {
+            logger.error("Error loading notification page: {}", ex.getMessage(), ex);
+        }
+        return list;
+    }
+
+    /**
+     * One page of {@link #findVisible}. Each audience condition is its own {@code UNION} branch so that it
+     * seeks its own {@code (..., created_at, id)} index and stops after {@code limit} rows, rather than one
+     * {@code OR} scan that sorts every visible row.
+     */
+    public List<NotificationMessage> findVisiblePage(NotificationMessage.Audience audience, String targetId,
+                                                     KeysetCursor after, int limit) {
+        StringJoiner union = new StringJoiner(" UNION ", "SELECT * FROM (",
+                ") page" + ORDER_NEWEST_FIRST + " LIMIT ?");
+        List<String> filterValues = new ArrayList<>(3);
+        union.add(visibleBranch("audience = 'ALL'", after));
+        filterValues.add(null);
+        if (audience != NotificationMessage.Audience.ALL) {
+            union.add(visibleBranch("audience = ?", after));
+            filterValues.add(audience.name());
+        }
+        if (targetId != null) {
+            union.add(visibleBranch("target_id = ? AND audience = 'USER'", after));
+            filterValues.add(targetId);
+        }
+        List<NotificationMessage> list = new ArrayList<>();
+        try (Connection conn = getConnection();
+             PreparedStatement ps = conn.prepareStatement(union.toString())) {
+            int idx = 1;
+            for (String value : filterValues) {
+                if (value != null) {
+                    ps.setString(idx++, value);
+                }
+                if (after != null) {
+                    idx = bindCursor(ps, idx, after);
+                }
+                ps.setInt(idx++, limit);
+            }
+            ps.setInt(idx, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    list.add(mapNotification(rs));
+                }
+            }
+        } catch (SQLException ex) {
+            logger.error("Error loading notification page for {}:{} - {}", audience, targetId, ex.getMessage(), ex);
+        }
+        return list;
+    }
+
     public void markRead(long id, boolean read) {
         try (Connection conn = getConnection();
              PreparedStatement ps = conn.prepareStatement(UPDATE_READ_SQL)) {
@@ -136,6 +246,11 @@ public class NotificationDao extends BaseDao {
         }
     }
 
+    private static String visibleBranch(String filter, KeysetCursor after) {
+        return "(" + SELECT_COLUMNS + " WHERE " + filter + (after != null ? " AND " + AFTER_CURSOR : "")
+                + ORDER_NEWEST_FIRST + " LIMIT ?)";
+    }
+
     private NotificationMessage fetchById(Connection conn, long id) throws SQLException {
         try (PreparedStatement ps = conn.prepareStatement(SELECT_BY_ID_SQL)) {
             ps.setLong(1, id);
@@ -0,0 +1,56 @@
+package main.java.data.dao;
+
+import main.java.config.DataSourceRegistry;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * When each student last received a scheduled notification, per channel. Rows are written in bulk by the
+ * schedulers and read by joining {@code notification_delivery_state} into their candidate queries.
+ */
+public class NotificationDeliveryStateDao extends BaseDao {
+    private static final String UPSERT_PREFIX =
+            "INSERT INTO notification_delivery_state (student_id, channel, last_sent_on) VALUES ";
+    private static final String UPSERT_SUFFIX =
+            " ON DUPLICATE KEY UPDATE last_sent_on = VALUES(last_sent_on)";
+
+    public enum Channel {
+        FINANCE_DIGEST
+    }
+
+    public NotificationDeliveryStateDao() {
+        super(DataSourceRegistry.erpDataSource()
+                .orElseThrow(() -> new IllegalStateException("ERP datasource not configured.")));
+    }
+
+    /**
+     * Records {@code sentOn} for every student with one multi-row upsert per chunk.
+     */
+    public void recordSent(Channel channel, Collection<String> studentIds, LocalDate sentOn) {
+        for (List<String> chunk : partition(studentIds)) {
+            String sql = UPSERT_PREFIX + String.join(", ", Collections.nCopies(chunk.size(), "(?, ?, ?)"))
+                    + UPSERT_SUFFIX;
+            try (Connection conn = getConnection();
+                 PreparedStatement ps = conn.prepareStatement(sql)) {
+                int idx = 1;
+                for (String studentId : chunk) {
+                    ps.setString(idx++, studentId);
+                    ps.setString(idx++, channel.name());
+                    ps.setDate(idx++, Date.valueOf(sentOn));
+                }
+                ps.executeUpdate();
+            } catch (SQLException ex) {
+                logger.error("Error recording {} delivery for {} students: {}", channel, chunk.size(),
+                        ex.getMessage(), ex);
+                throw new IllegalStateException("Unable to record notification delivery", ex);
+            }
+        }
+    }
+}
@@ -10,7 +10,11 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * DAO for reading and persisting payment transactions.
@@ -21,11 +25,18 @@ public class PaymentTransactionDao extends BaseDao {
             (transaction_id, student_id, amount, paid_on, method, reference, notes)
             VALUES (?, ?, ?, ?, ?, ?, ?)
             """;
+    // A row whose non-blank reference is already on file is skipped rather than failing the batch.
+    private static final String INSERT_NEW_SQL = INSERT_SQL
+            + "ON DUPLICATE KEY UPDATE transaction_id = transaction_id";
+    private static final String SELECT_IDS_PREFIX =
+            "SELECT transaction_id FROM payment_transactions WHERE transaction_id IN (";
     private static final String UPDATE_SQL = """
             UPDATE payment_transactions
             SET student_id = ?, amount = ?, paid_on = ?, method = ?, reference = ?, notes = ?
             WHERE transaction_id = ?
             """;
+    private static final String SELECT_REFERENCES = "SELECT reference FROM payment_transactions "
+            + "WHERE reference IS NOT NULL AND reference <> ''";
     private static final String DELETE_SQL = "DELETE FROM payment_transactions WHERE transaction_id = ?";
     private static final String FIND_BY_STUDENT_SQL = """
             SELECT transaction_id, student_id, amount, paid_on, method, reference, notes
@@ -47,13 +58,7 @@ public class PaymentTransactionDao extends BaseDao {
     public void insert(PaymentTransaction transaction) {
         try (Connection conn = getConnection();
              PreparedStatement ps = conn.prepareStatement(INSERT_SQL)) {
-            ps.setString(1, transaction.getTransactionId());
-            ps.setString(2, transaction.getStudentId());
-            ps.setDouble(3, transaction.getAmount());
-            ps.setDate(4, Date.valueOf(transaction.getPaidOn()));
-            ps.setString(5, transaction.getMethod());
-            ps.setString(6, transaction.getReference());
-            ps.setString(7, transaction.getNotes());
+            bindInsert(ps, transaction);
             ps.executeUpdate();
         } catch (SQLException ex) {
             logger.error("Failed to insert payment transaction {}: {}", transaction.getTransactionId(), ex.getMessage(), ex);
@@ -61,6 +66,93 @@ public class PaymentTransactionDao extends BaseDao {
         }
     }
 
+    /**
+     * Inserts the transactions in JDBC batches, skipping any whose reference is already recorded; the unique
+     * key on the reference decides, so concurrent imports of one statement cannot both record a payment. Run
+     * inside a {@code TransactionManager} scope.
+     *
+     * @return the transactions actually inserted, in input order
+     */
+    public List<PaymentTransaction> insertNew(List<PaymentTransaction> transactions) {
+        if (transactions.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Set<String> stored = new HashSet<>();
+        try (Connection conn = getConnection()) {
+            try (PreparedStatement ps = conn.prepareStatement(INSERT_NEW_SQL)) {
+                int pending = 0;
+                for (PaymentTransaction transaction : transactions) {
+                    bindInsert(ps, transaction);
+                    ps.addBatch();
+                    if (++pending == JDBC_BATCH_SIZE) {
+                        ps.executeBatch();
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    ps.executeBatch();
+                }
+            }
+            // Transaction ids are fresh UUIDs, so the ones now on file are exactly the rows just inserted.
+            List<String> ids = new ArrayList<>(transactions.size());
+            transactions.forEach(transaction -> ids.add(transaction.getTransactionId()));
+            for (List<String> chunk : partition(ids)) {
+                try (PreparedStatement ps = conn.prepareStatement(
+                        SELECT_IDS_PREFIX + placeholders(chunk.size()) + ")")) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        ps.setString(i + 1, chunk.get(i));
+                    }
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            stored.add(rs.getString(1));
+                        }
+                    }
+                }
+            }
+        } catch (SQLException ex) {
+            logger.error("Failed to insert {} payment transactions: {}", transactions.size(), ex.getMessage(), ex);
+            throw new IllegalStateException("Unable to persist payment transactions", ex);
+        }
+        List<PaymentTransaction> inserted = new ArrayList<>(stored.size());
+        for (PaymentTransaction transaction : transactions) {
+            if (stored.contains(transaction.getTransactionId())) {
+                inserted.add(transaction);
+            }
+        }
+        return inserted;
+    }
+
+    private static void bindInsert(PreparedStatement ps, PaymentTransaction transaction) throws SQLException {
+        ps.setString(1, transaction.getTransactionId());
+        ps.setString(2, transaction.getStudentId());
+        ps.setDouble(3, transaction.getAmount());
+        ps.setDate(4, Date.valueOf(transaction.getPaidOn()));
+        ps.setString(5, transaction.getMethod());
+        ps.setString(6, transaction.getReference());
+        ps.setString(7, transaction.getNotes());
+    }
+
+    /**
+     * Every non-blank payment reference on file, read in one streaming scan.
+     */
+    public Set<String> findAllReferences() {
+        Set<String> references = new HashSet<>();
+        try (Connection conn = getConnection();
+             PreparedStatement ps = conn.prepareStatement(SELECT_REFERENCES,
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            ps.setFetchSize(STREAMING_FETCH_SIZE);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    references.add(rs.getString(1));
+                }
+            }
+        } catch (SQLException ex) {
+            logger.error("Failed to load payment references: {}", ex.getMessage(), ex);
+            throw new IllegalStateException("Unable to load payment references", ex);
+        }
+        return references;
+    }
+
     public void update(PaymentTransaction transaction) {
         try (Connection conn = getConnection();
              PreparedStatement ps = conn.prepareStatement(UPDATE_SQL)) {
@@ -89,6 +181,26 @@ public class PaymentTransactionDao extends BaseDao {
         }
     }
 
+    /**
+     * Deletes several transactions in a single batch.
+     */
+    public void deleteBatch(Collection<String> transactionIds) {
+        if (transactionIds.isEmpty()) {
+            return;
+        }
+        try (Connection conn = getConnection();
+             PreparedStatement ps = conn.prepareStatement(DELETE_SQL)) {
+            for (String transactionId : transactionIds) {
+                ps.setString(1, transactionId);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        } catch (SQLException ex) {
+            logger.error("Failed to delete {} payment transactions: {}", transactionIds.size(), ex.getMessage(), ex);
+            throw new IllegalStateException("Unable to delete payment transactions", ex);
+        }
+    }
+
     public List<PaymentTransaction> findByStudent(String studentId) {
         try (Connection conn = getConnection();
              PreparedStatement ps = conn.prepareStatement(FIND_BY_STUDENT_SQL)) {
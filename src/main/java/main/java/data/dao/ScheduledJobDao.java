@@ -0,0 +1,250 @@
+package main.java.data.dao;
+
+import main.java.config.DataSourceRegistry;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Persisted background job definitions and their lease. A client runs a job only after claiming its lease with
+ * a conditional UPDATE, so however many clients poll, one of them wins each due run. Every time comparison uses
+ * the database clock.
+ */
+public class ScheduledJobDao extends BaseDao {
+    private static final String DEFINE = "INSERT INTO scheduled_jobs (job_name, interval_seconds) VALUES (?, ?) "
+            + "ON DUPLICATE KEY UPDATE "
+            + "next_run_at = LEAST(next_run_at, NOW() + INTERVAL VALUES(interval_seconds) SECOND), "
+            + "interval_seconds = VALUES(interval_seconds)";
+    private static final String ACQUIRE = "UPDATE scheduled_jobs "
+            + "SET lease_owner = ?, lease_expires_at = NOW() + INTERVAL ? SECOND, last_started_at = NOW() "
+            + "WHERE job_name = ? AND enabled = TRUE AND next_run_at <= NOW() "
+            + "AND (lease_owner IS NULL OR lease_expires_at < NOW())";
+    private static final String RUN_SOON = "UPDATE scheduled_jobs SET next_run_at = LEAST(next_run_at, NOW()) "
+            + "WHERE job_name = ?";
+    private static final String RENEW = "UPDATE scheduled_jobs SET lease_expires_at = NOW() + INTERVAL ? SECOND "
+            + "WHERE job_name = ? AND lease_owner = ?";
+    // Missed runs collapse into the one that just finished: the next run keeps the cadence when that slot is
+    // still ahead, otherwise it is a full interval from now.
+    private static final String COMPLETE = "UPDATE scheduled_jobs SET "
+            + "next_run_at = CASE WHEN next_run_at + INTERVAL interval_seconds SECOND > NOW() "
+            + "THEN next_run_at + INTERVAL interval_seconds SECOND "
+            + "ELSE NOW() + INTERVAL interval_seconds SECOND END, "
+            + "lease_owner = NULL, lease_expires_at = NULL, last_finished_at = NOW(), last_status = ?, "
+            + "last_error = ?, last_duration_ms = ?, run_count = run_count + 1, failure_count = failure_count + ? "
+            + "WHERE job_name = ? AND lease_owner = ?";
+    private static final String SELECT_ALL = "SELECT job_name, interval_seconds, enabled, next_run_at, "
+            + "lease_owner, last_finished_at, last_status, last_error, last_duration_ms, run_count, failure_count "
+            + "FROM scheduled_jobs ORDER BY job_name";
+    private static final int MAX_ERROR_LENGTH = 512;
+
+    public enum RunStatus {
+        SUCCEEDED,
+        FAILED
+    }
+
+    /**
+     * Definition and last-run state of one job as stored in {@code scheduled_jobs}.
+     */
+    public static final class JobState {
+        private final String name;
+        private final long intervalSeconds;
+        private final boolean enabled;
+        private final LocalDateTime nextRunAt;
+        private final String leaseOwner;
+        private final LocalDateTime lastFinishedAt;
+        private final String lastStatus;
+        private final String lastError;
+        private final Long lastDurationMillis;
+        private final long runCount;
+        private final long failureCount;
+
+        JobState(String name, long intervalSeconds, boolean enabled, LocalDateTime nextRunAt, String leaseOwner,
+                 LocalDateTime lastFinishedAt, String lastStatus, String lastError, Long lastDurationMillis,
+                 long runCount, long failureCount) {
+            this.name = name;
+            this.intervalSeconds = intervalSeconds;
+            this.enabled = enabled;
+            this.nextRunAt = nextRunAt;
+            this.leaseOwner = leaseOwner;
+            this.lastFinishedAt = lastFinishedAt;
+            this.lastStatus = lastStatus;
+            this.lastError = lastError;
+            this.lastDurationMillis = lastDurationMillis;
+            this.runCount = runCount;
+            this.failureCount = failureCount;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getIntervalSeconds() {
+            return intervalSeconds;
+        }
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public LocalDateTime getNextRunAt() {
+            return nextRunAt;
+        }
+
+        public String getLeaseOwner() {
+            return leaseOwner;
+        }
+
+        public LocalDateTime getLastFinishedAt() {
+            return lastFinishedAt;
+        }
+
+        public String getLastStatus() {
+            return lastStatus;
+        }
+
+        public String getLastError() {
+            return lastError;
+        }
+
+        public Long getLastDurationMillis() {
+            return lastDurationMillis;
+        }
+
+        public long getRunCount() {
+            return runCount;
+        }
+
+        public long getFailureCount() {
+            return failureCount;
+        }
+    }
+
+    public ScheduledJobDao() {
+        super(DataSourceRegistry.erpDataSource()
+                .orElseThrow(() -> new IllegalStateException("ERP datasource not configured.")));
+    }
+
+    /**
+     * Creates the job, due immediately, or updates the interval of an existing one without losing its state.
+     */
+    public void define(String jobName, long intervalSeconds) {
+        try (Connection conn = getConnection();
+             PreparedStatement ps = conn.prepareStatement(DEFINE)) {
+            ps.setString(1, jobName);
+            ps.setLong(2, intervalSeconds);
+            ps.executeUpdate();
+        } catch (SQLException ex) {
+            logger.error("Error defining job {}: {}", jobName, ex.getMessage(), ex);
+            throw new IllegalStateException("Unable to define job " + jobName, ex);
+        }
+    }
+
+    /**
+     * Makes the job due now; a running job is due again as soon as it finishes.
+     */
+    public void runSoon(String jobName) {
+        try (Connection conn = getConnection();
+             PreparedStatement ps = conn.prepareStatement(RUN_SOON)) {
+            ps.setString(1, jobName);
+            ps.executeUpdate();
+        } catch (SQLException ex) {
+            logger.error("Error bringing job {} forward: {}", jobName, ex.getMessage(), ex);
+            throw new IllegalStateException("Unable to bring job " + jobName + " forward", ex);
+        }
+    }
+
+    /**
+     * Claims the lease on a due, enabled job for {@code leaseSeconds}.
+     *
+     * @return {@code true} when this owner now holds the lease and should run the job
+     */
+    public boolean tryAcquire(String jobName, String owner, long leaseSeconds) {
+        try (Connection conn = getConnection();
+             PreparedStatement ps = conn.prepareStatement(ACQUIRE)) {
+            ps.setString(1, owner);
+            ps.setLong(2, leaseSeconds);
+            ps.setString(3, jobName);
+            return ps.executeUpdate() == 1;
+        } catch (SQLException ex) {
+            logger.error("Error acquiring lease on job {}: {}", jobName, ex.getMessage(), ex);
+            throw new IllegalStateException("Unable to acquire job lease", ex);
+        }
+    }
+
+    /**
+     * Extends a lease still held by {@code owner}.
+     *
+     * @return {@code false} when the lease expired and was taken over by another owner
+     */
+    public boolean renewLease(String jobName, String owner, long leaseSeconds) {
+        try (Connection conn = getConnection();
+             PreparedStatement ps = conn.prepareStatement(RENEW)) {
+            ps.setLong(1, leaseSeconds);
+            ps.setString(2, jobName);
+            ps.setString(3, owner);
+            return ps.executeUpdate() == 1;
+        } catch (SQLException ex) {
+            logger.error("Error renewing lease on job {}: {}", jobName, ex.getMessage(), ex);
+            throw new IllegalStateException("Unable to renew job lease", ex);
+        }
+    }
+
+    /**
+     * Records the outcome of a run, schedules the next one and releases the lease.
+     *
+     * @return {@code false} when {@code owner} no longer held the lease, in which case nothing was recorded
+     */
+    public boolean complete(String jobName, String owner, RunStatus status, String error, long durationMillis) {
+        try (Connection conn = getConnection();
+             PreparedStatement ps = conn.prepareStatement(COMPLETE)) {
+            ps.setString(1, status.name());
+            ps.setString(2, error != null && error.length() > MAX_ERROR_LENGTH
+                    ? error.substring(0, MAX_ERROR_LENGTH) : error);
+            ps.setLong(3, durationMillis);
+            ps.setInt(4, status == RunStatus.FAILED ? 1 : 0);
+            ps.setString(5, jobName);
+            ps.setString(6, owner);
+            return ps.executeUpdate() == 1;
+        } catch (SQLException ex) {
+            logger.error("Error completing job {}: {}", jobName, ex.getMessage(), ex);
+            throw new IllegalStateException("Unable to record job completion", ex);
+        }
+    }
+
+    public List<JobState> findAll() {
+        List<JobState> jobs = new ArrayList<>();
+        try (Connection conn = getConnection();
+             PreparedStatement ps = conn.prepareStatement(SELECT_ALL);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                long duration = rs.getLong("last_duration_ms");
+                Long lastDuration = rs.wasNull() ? null : duration;
+                jobs.add(new JobState(
+                        rs.getString("job_name"),
+                        rs.getLong("interval_seconds"),
+                        rs.getBoolean("enabled"),
+                        toLocalDateTime(rs.getTimestamp("next_run_at")),
+                        rs.getString("lease_owner"),
+                        toLocalDateTime(rs.getTimestamp("last_finished_at")),
+                        rs.getString("last_status"),
+                        rs.getString("last_error"),
+                        lastDuration,
+                        rs.getLong("run_count"),
+                        rs.getLong("failure_count")));
+            }
+        } catch (SQLException ex) {
+            logger.error("Error loading scheduled jobs: {}", ex.getMessage(), ex);
+        }
+        return jobs;
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+}
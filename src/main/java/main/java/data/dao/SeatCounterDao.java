@@ -0,0 +1,209 @@
+package main.java.data.dao;
+
+import main.java.config.DataSourceRegistry;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-section seat counters. Reservations are single conditional UPDATEs, so the capacity check and the
+ * increment happen atomically in the database and hold across every client sharing the schema.
+ */
+public class SeatCounterDao extends BaseDao {
+    private static final String UPSERT = "INSERT INTO section_seat_counters (section_code, capacity, enrolled) "
+            + "SELECT ?, ?, (SELECT COUNT(*) FROM enrollments WHERE section_code = ? AND status = 'ENROLLED') "
+            + "ON DUPLICATE KEY UPDATE capacity = VALUES(capacity)";
+    private static final String RESERVE = "UPDATE section_seat_counters SET enrolled = enrolled + 1 "
+            + "WHERE section_code = ? AND enrolled < capacity";
+    private static final String RELEASE = "UPDATE section_seat_counters SET enrolled = enrolled - 1 "
+            + "WHERE section_code = ? AND enrolled > 0";
+    private static final String LOCK_PREFIX = "SELECT section_code, capacity, enrolled FROM section_seat_counters "
+            + "WHERE section_code IN (";
+    private static final String ADD_ENROLLED = "UPDATE section_seat_counters SET enrolled = enrolled + ? "
+            + "WHERE section_code = ?";
+    private static final String INSERT_MISSING = "INSERT INTO section_seat_counters (section_code, capacity, enrolled) "
+            + "SELECT s.section_code, COALESCE(s.capacity, 0), 0 FROM sections s "
+            + "LEFT JOIN section_seat_counters c ON c.section_code = s.section_code WHERE c.section_code IS NULL";
+    private static final String ACTUAL_ENROLLED = "SELECT COUNT(*) FROM enrollments e "
+            + "WHERE e.section_code = c.section_code AND e.status = 'ENROLLED'";
+    private static final String SELECT_DRIFTED = "SELECT c.section_code FROM section_seat_counters c "
+            + "JOIN sections s ON s.section_code = c.section_code "
+            + "WHERE c.capacity <> COALESCE(s.capacity, 0) OR c.enrolled <> (" + ACTUAL_ENROLLED + ")";
+    private static final String REPAIR = "UPDATE section_seat_counters c "
+            + "JOIN sections s ON s.section_code = c.section_code "
+            + "SET c.capacity = COALESCE(s.capacity, 0), c.enrolled = (" + ACTUAL_ENROLLED + ") "
+            + "WHERE c.section_code = ?";
+    private static final String REPAIR_COURSE_SEATS = "UPDATE courses c "
+            + "SET c.available_seats = GREATEST(0, c.total_seats - (SELECT COUNT(*) FROM enrollments e "
+            + "JOIN sections s ON s.section_code = e.section_code "
+            + "WHERE s.course_code = c.course_code AND e.status = 'ENROLLED')) "
+            + "WHERE c.available_seats <> GREATEST(0, c.total_seats - (SELECT COUNT(*) FROM enrollments e "
+            + "JOIN sections s ON s.section_code = e.section_code "
+            + "WHERE s.course_code = c.course_code AND e.status = 'ENROLLED'))";
+
+    public SeatCounterDao() {
+        super(DataSourceRegistry.erpDataSource()
+                .orElseThrow(() -> new IllegalStateException("ERP datasource not configured.")));
+    }
+
+    /**
+     * Creates the counter for a section, or updates its capacity when it already exists.
+     */
+    public void upsert(String sectionCode, int capacity) {
+        try (Connection conn = getConnection();
+             PreparedStatement ps = conn.prepareStatement(UPSERT)) {
+            ps.setString(1, sectionCode);
+            ps.setInt(2, capacity);
+            ps.setString(3, sectionCode);
+            ps.executeUpdate();
+        } catch (SQLException ex) {
+            logger.error("Error saving seat counter for {}: {}", sectionCode, ex.getMessage(), ex);
+            throw new IllegalStateException("Unable to save seat counter", ex);
+        }
+    }
+
+    /**
+     * Takes one seat if the section still has room.
+     *
+     * @return {@code true} when a seat was reserved, {@code false} when the section is full
+     */
+    public boolean tryReserve(String sectionCode) {
+        try (Connection conn = getConnection();
+             PreparedStatement ps = conn.prepareStatement(RESERVE)) {
+            ps.setString(1, sectionCode);
+            return ps.executeUpdate() == 1;
+        } catch (SQLException ex) {
+            logger.error("Error reserving seat in {}: {}", sectionCode, ex.getMessage(), ex);
+            throw new IllegalStateException("Unable to reserve seat", ex);
+        }
+    }
+
+    /**
+     * Returns one seat to the section; never drives the counter below zero.
+     */
+    public void release(String sectionCode) {
+        try (Connection conn = getConnection();
+             PreparedStatement ps = conn.prepareStatement(RELEASE)) {
+            ps.setString(1, sectionCode);
+            if (ps.executeUpdate() == 0) {
+                logger.warn("Seat counter for {} was already at zero on release", sectionCode);
+            }
+        } catch (SQLException ex) {
+            logger.error("Error releasing seat in {}: {}", sectionCode, ex.getMessage(), ex);
+            throw new IllegalStateException("Unable to release seat", ex);
+        }
+    }
+
+    /**
+     * Locks the counters of the given sections ({@code FOR UPDATE}) until the caller's transaction ends and
+     * returns the free seats of each. Only meaningful inside a {@code TransactionManager} scope.
+     */
+    public Map<String, Integer> lockRemainingSeats(Collection<String> sectionCodes) {
+        Map<String, Integer> remaining = new HashMap<>();
+        for (List<String> chunk : partition(sectionCodes)) {
+            String sql = LOCK_PREFIX + placeholders(chunk.size()) + ") ORDER BY section_code FOR UPDATE";
+            try (Connection conn = getConnection();
+                 PreparedStatement ps = conn.prepareStatement(sql)) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    ps.setString(i + 1, chunk.get(i));
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        remaining.put(rs.getString(1), Math.max(0, rs.getInt(2) - rs.getInt(3)));
+                    }
+                }
+            } catch (SQLException ex) {
+                logger.error("Error locking seat counters: {}", ex.getMessage(), ex);
+                throw new IllegalStateException("Unable to lock seat counters", ex);
+            }
+        }
+        return remaining;
+    }
+
+    /**
+     * Adds seats taken per section in one batch; pair with {@link #lockRemainingSeats(Collection)}.
+     */
+    public void addEnrolled(Map<String, Integer> takenBySection) {
+        if (takenBySection.isEmpty()) {
+            return;
+        }
+        try (Connection conn = getConnection();
+             PreparedStatement ps = conn.prepareStatement(ADD_ENROLLED)) {
+            for (Map.Entry<String, Integer> entry : takenBySection.entrySet()) {
+                ps.setInt(1, entry.getValue());
+                ps.setString(2, entry.getKey());
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        } catch (SQLException ex) {
+            logger.error("Error updating seat counters: {}", ex.getMessage(), ex);
+            throw new IllegalStateException("Unable to update seat counters", ex);
+        }
+    }
+
+    /**
+     * Creates zeroed counters for sections that have none; the next repair pass fills in their counts.
+     */
+    public int insertMissing() {
+        try (Connection conn = getConnection();
+             PreparedStatement ps = conn.prepareStatement(INSERT_MISSING)) {
+            return ps.executeUpdate();
+        } catch (SQLException ex) {
+            logger.error("Error creating missing seat counters: {}", ex.getMessage(), ex);
+            return 0;
+        }
+    }
+
+    /**
+     * Sections whose counter disagrees with {@code sections.capacity} or the ENROLLED rows in {@code enrollments}.
+     */
+    public List<String> findDrifted() {
+        List<String> drifted = new ArrayList<>();
+        try (Connection conn = getConnection();
+             PreparedStatement ps = conn.prepareStatement(SELECT_DRIFTED);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                drifted.add(rs.getString(1));
+            }
+        } catch (SQLException ex) {
+            logger.error("Error scanning seat counters: {}", ex.getMessage(), ex);
+        }
+        return drifted;
+    }
+
+    /**
+     * Recomputes one section's counter from the source tables in a single statement.
+     */
+    public void repair(String sectionCode) {
+        try (Connection conn = getConnection();
+             PreparedStatement ps = conn.prepareStatement(REPAIR)) {
+            ps.setString(1, sectionCode);
+            ps.executeUpdate();
+        } catch (SQLException ex) {
+            logger.error("Error repairing seat counter for {}: {}", sectionCode, ex.getMessage(), ex);
+            throw new IllegalStateException("Unable to repair seat counter", ex);
+        }
+    }
+
+    /**
+     * Recomputes {@code courses.available_seats} for every course whose value has drifted.
+     *
+     * @return number of courses corrected
+     */
+    public int repairCourseAvailability() {
+        try (Connection conn = getConnection();
+             PreparedStatement ps = conn.prepareStatement(REPAIR_COURSE_SEATS)) {
+            return ps.executeUpdate();
+        } catch (SQLException ex) {
+            logger.error("Error repairing course seat availability: {}", ex.getMessage(), ex);
+            return 0;
+        }
+    }
+}
@@ -13,15 +13,32 @@ import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class SectionDao extends BaseDao {
-    private static final String BASE_SELECT = "SELECT id, section_code, course_code, title, instructor_code, day_of_week, start_time, end_time, location, capacity, enrollment_deadline, drop_deadline, semester, year FROM sections";
+    private static final String BASE_SELECT = "SELECT id, section_code, course_code, title, instructor_code, day_of_week, start_time, end_time, location, capacity, enrollment_deadline, drop_deadline, semester, year, version FROM sections";
     private static final String SELECT_ALL = BASE_SELECT + " ORDER BY section_code";
     private static final String SELECT_BY_CODE = BASE_SELECT + " WHERE section_code = ?";
     private static final String INSERT = "INSERT INTO sections (section_code, course_code, title, instructor_code, day_of_week, start_time, end_time, location, capacity, enrollment_deadline, drop_deadline, semester, year) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-    private static final String UPDATE = "UPDATE sections SET course_code = ?, title = ?, instructor_code = ?, day_of_week = ?, start_time = ?, end_time = ?, location = ?, capacity = ?, enrollment_deadline = ?, drop_deadline = ?, semester = ?, year = ? WHERE section_code = ?";
+    private static final Map<Section.Field, String> ASSIGNMENTS = new EnumMap<>(Map.ofEntries(
+            Map.entry(Section.Field.COURSE_ID, "course_code = ?"),
+            Map.entry(Section.Field.TITLE, "title = ?"),
+            Map.entry(Section.Field.FACULTY_ID, "instructor_code = ?"),
+            Map.entry(Section.Field.DAY_OF_WEEK, "day_of_week = ?"),
+            Map.entry(Section.Field.START_TIME, "start_time = ?"),
+            Map.entry(Section.Field.END_TIME, "end_time = ?"),
+            Map.entry(Section.Field.LOCATION, "location = ?"),
+            Map.entry(Section.Field.CAPACITY, "capacity = ?"),
+            Map.entry(Section.Field.ENROLLMENT_DEADLINE, "enrollment_deadline = ?"),
+            Map.entry(Section.Field.DROP_DEADLINE, "drop_deadline = ?"),
+            Map.entry(Section.Field.SEMESTER, "semester = ?"),
+            Map.entry(Section.Field.YEAR, "year = ?")));
+    private static final Map<Set<Section.Field>, String> UPDATE_BY_FIELDS = new ConcurrentHashMap<>();
     private static final String DELETE = "DELETE FROM sections WHERE section_code = ?";
 
     public SectionDao() {
@@ -61,20 +78,37 @@ public class SectionDao extends BaseDao {
     public void insert(Section section) {
         try (Connection conn = getConnection();
              PreparedStatement ps = conn.prepareStatement(INSERT)) {
-            bind(ps, section, true);
+            bindInsert(ps, section);
             ps.executeUpdate();
+            section.markClean();
         } catch (SQLException ex) {
             logger.error("Error inserting section {}: {}", section.getSectionId(), ex.getMessage(), ex);
             throw new IllegalStateException("Unable to insert section", ex);
         }
     }
 
+    /**
+     * Writes only the columns changed since the section was loaded, guarded by its version. A section without
+     * changes is not written.
+     */
     public void update(Section section) {
+        Set<Section.Field> fields = section.getChangedFields();
+        if (fields.isEmpty()) {
+            return;
+        }
+        String sql = UPDATE_BY_FIELDS.computeIfAbsent(fields,
+                key -> versionedUpdate("sections", "section_code", ASSIGNMENTS, key));
         try (Connection conn = getConnection();
-             PreparedStatement ps = conn.prepareStatement(UPDATE)) {
-            bind(ps, section, false);
-            ps.setString(13, section.getSectionId());
-            ps.executeUpdate();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            int idx = 1;
+            for (Section.Field field : fields) {
+                bindField(ps, idx++, section, field);
+            }
+            ps.setString(idx++, section.getSectionId());
+            ps.setLong(idx, section.getVersion());
+            requireCurrentVersion(ps.executeUpdate(), "Section", section.getSectionId());
+            section.setVersion(section.getVersion() + 1);
+            section.markClean();
         } catch (SQLException ex) {
             logger.error("Error updating section {}: {}", section.getSectionId(), ex.getMessage(), ex);
             throw new IllegalStateException("Unable to update section", ex);
@@ -122,45 +156,70 @@ public class SectionDao extends BaseDao {
         }
         section.setSemester(rs.getString("semester"));
         section.setYear(rs.getInt("year"));
+        section.setVersion(rs.getLong("version"));
+        section.markClean();
         return section;
     }
 
-    private void bind(PreparedStatement ps, Section section, boolean includeCode) throws SQLException {
-        int idx = 1;
-        if (includeCode) {
-            ps.setString(idx++, section.getSectionId());
-        }
-        ps.setString(idx++, section.getCourseId());
-        ps.setString(idx++, section.getTitle());
-        ps.setString(idx++, section.getFacultyId());
-        if (section.getDayOfWeek() != null) {
-            ps.setString(idx++, section.getDayOfWeek().name());
-        } else {
-            ps.setNull(idx++, java.sql.Types.VARCHAR);
-        }
-        if (section.getStartTime() != null) {
-            ps.setTime(idx++, Time.valueOf(section.getStartTime()));
-        } else {
-            ps.setNull(idx++, java.sql.Types.TIME);
+    private static void bindInsert(PreparedStatement ps, Section section) throws SQLException {
+        ps.setString(1, section.getSectionId());
+        int idx = 2;
+        for (Section.Field field : Section.Field.values()) {
+            bindField(ps, idx++, section, field);
         }
-        if (section.getEndTime() != null) {
-            ps.setTime(idx++, Time.valueOf(section.getEndTime()));
-        } else {
-            ps.setNull(idx++, java.sql.Types.TIME);
-        }
-        ps.setString(idx++, section.getLocation());
-        ps.setInt(idx++, section.getCapacity());
-        if (section.getEnrollmentDeadline() != null) {
-            ps.setDate(idx++, Date.valueOf(section.getEnrollmentDeadline()));
-        } else {
-            ps.setNull(idx++, java.sql.Types.DATE);
+    }
+
+    private static void bindField(PreparedStatement ps, int idx, Section section, Section.Field field)
+            throws SQLException {
+        switch (field) {
+            case COURSE_ID:
+                ps.setString(idx, section.getCourseId());
+                break;
+            case TITLE:
+                ps.setString(idx, section.getTitle());
+                break;
+            case FACULTY_ID:
+                ps.setString(idx, section.getFacultyId());
+                break;
+            case DAY_OF_WEEK:
+                if (section.getDayOfWeek() != null) {
+                    ps.setString(idx, section.getDayOfWeek().name());
+                } else {
+                    ps.setNull(idx, java.sql.Types.VARCHAR);
+                }
+                break;
+            case START_TIME:
+                setNullableTime(ps, idx, section.getStartTime());
+                break;
+            case END_TIME:
+                setNullableTime(ps, idx, section.getEndTime());
+                break;
+            case LOCATION:
+                ps.setString(idx, section.getLocation());
+                break;
+            case CAPACITY:
+                ps.setInt(idx, section.getCapacity());
+                break;
+            case ENROLLMENT_DEADLINE:
+                setNullableDate(ps, idx, section.getEnrollmentDeadline());
+                break;
+            case DROP_DEADLINE:
+                setNullableDate(ps, idx, section.getDropDeadline());
+                break;
+            case SEMESTER:
+                ps.setString(idx, section.getSemester());
+                break;
+            default:
+                ps.setInt(idx, section.getYear());
+                break;
         }
-        if (section.getDropDeadline() != null) {
-            ps.setDate(idx++, Date.valueOf(section.getDropDeadline()));
+    }
+
+    private static void setNullableTime(PreparedStatement ps, int idx, LocalTime time) throws SQLException {
+        if (time != null) {
+            ps.setTime(idx, Time.valueOf(time));
         } else {
-            ps.setNull(idx++, java.sql.Types.DATE);
+            ps.setNull(idx, java.sql.Types.TIME);
         }
-        ps.setString(idx++, section.getSemester());
-        ps.setInt(idx, section.getYear());
     }
 }
@@ -0,0 +1,26 @@
+package main.java.data.dao;
+
+/**
+ * Thrown by a compare-and-set update when the row's version no longer matches the one that was read, i.e.
+ * another client changed or deleted it in the meantime. Nothing was written.
+ */
+public class StaleDataException extends IllegalStateException {
+    private static final long serialVersionUID = 1L;
+
+    private final String entity;
+    private final String key;
+
+    public StaleDataException(String entity, String key) {
+        super(entity + " " + key + " was changed by another user. Reload it and try again.");
+        this.entity = entity;
+        this.key = key;
+    }
+
+    public String getEntity() {
+        return entity;
+    }
+
+    public String getKey() {
+        return key;
+    }
+}
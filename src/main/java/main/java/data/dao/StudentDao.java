@@ -11,16 +11,64 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class StudentDao extends BaseDao {
-    private static final String BASE_SELECT = "SELECT id, student_code, auth_username, first_name, last_name, email, phone, date_of_birth, address, course_code, semester, status, fees_paid, total_fees, cgpa, credits_completed, credits_in_progress, next_fee_due, advisor_id, academic_standing FROM students";
+    private static final String BASE_SELECT = "SELECT id, student_code, auth_username, first_name, last_name, email, phone, date_of_birth, address, course_code, semester, status, fees_paid, total_fees, cgpa, credits_completed, credits_in_progress, next_fee_due, advisor_id, academic_standing, version FROM students";
     private static final String SELECT_ALL = BASE_SELECT + " ORDER BY student_code";
     private static final String SELECT_BY_CODE = BASE_SELECT + " WHERE student_code = ?";
     private static final String SELECT_BY_USERNAME = BASE_SELECT + " WHERE auth_username = ?";
     private static final String INSERT = "INSERT INTO students (student_code, auth_username, first_name, last_name, email, phone, date_of_birth, address, course_code, semester, status, fees_paid, total_fees, cgpa, credits_completed, credits_in_progress, next_fee_due, advisor_id, academic_standing) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-    private static final String UPDATE = "UPDATE students SET auth_username = ?, first_name = ?, last_name = ?, email = ?, phone = ?, date_of_birth = ?, address = ?, course_code = ?, semester = ?, status = ?, fees_paid = ?, total_fees = ?, cgpa = ?, credits_completed = ?, credits_in_progress = ?, next_fee_due = ?, advisor_id = ?, academic_standing = ? WHERE student_code = ?";
+    private static final String ADD_CREDITS_WITHIN_CAP = "UPDATE students SET credits_in_progress = credits_in_progress + ? "
+            + "WHERE student_code = ? AND credits_in_progress + ? <= ?";
+    private static final String ADJUST_CREDITS = "UPDATE students SET credits_in_progress = GREATEST(0, credits_in_progress + ?) "
+            + "WHERE student_code = ?";
+    private static final String ENROLLED_CREDITS = "SELECT COALESCE(SUM(CASE WHEN c.credit_hours > 0 THEN c.credit_hours ELSE 3 END), 0) "
+            + "FROM enrollments e JOIN sections sec ON sec.section_code = e.section_code "
+            + "JOIN courses c ON c.course_code = sec.course_code "
+            + "WHERE e.student_code = s.student_code AND e.status = 'ENROLLED'";
+    private static final String SELECT_CREDIT_DRIFT = "SELECT s.student_code FROM students s "
+            + "WHERE s.credits_in_progress <> (" + ENROLLED_CREDITS + ")";
+    private static final String REPAIR_CREDITS = "UPDATE students s SET s.credits_in_progress = (" + ENROLLED_CREDITS + ") "
+            + "WHERE s.student_code = ?";
+    private static final String SELECT_OUTSTANDING = "SELECT student_code, "
+            + "GREATEST(0, COALESCE(total_fees, 0) - COALESCE(fees_paid, 0)) AS outstanding FROM students";
+    private static final String LOCK_OUTSTANDING_PREFIX = "SELECT student_code, "
+            + "GREATEST(0, COALESCE(total_fees, 0) - COALESCE(fees_paid, 0)) AS outstanding FROM students "
+            + "WHERE student_code IN (";
+    // Relative, so it composes with concurrent payments; the version bump makes cached copies fail their CAS.
+    private static final String ADD_FEES_PAID = "UPDATE students "
+            + "SET fees_paid = COALESCE(fees_paid, 0) + ?, version = version + 1 WHERE student_code = ?";
+    private static final String LOCK_CREDITS_PREFIX = "SELECT student_code, credits_in_progress FROM students "
+            + "WHERE student_code IN (";
+    private static final String SELECT_CREDITS = "SELECT credits_in_progress FROM students WHERE student_code = ?";
+    // credits_in_progress is a counter owned by enrollment transitions and is deliberately not written here.
+    private static final Map<Student.Field, String> ASSIGNMENTS = new EnumMap<>(Map.ofEntries(
+            Map.entry(Student.Field.USERNAME, "auth_username = ?"),
+            Map.entry(Student.Field.FIRST_NAME, "first_name = ?"),
+            Map.entry(Student.Field.LAST_NAME, "last_name = ?"),
+            Map.entry(Student.Field.EMAIL, "email = ?"),
+            Map.entry(Student.Field.PHONE, "phone = ?"),
+            Map.entry(Student.Field.DATE_OF_BIRTH, "date_of_birth = ?"),
+            Map.entry(Student.Field.ADDRESS, "address = ?"),
+            Map.entry(Student.Field.COURSE, "course_code = ?"),
+            Map.entry(Student.Field.SEMESTER, "semester = ?"),
+            Map.entry(Student.Field.STATUS, "status = ?"),
+            Map.entry(Student.Field.FEES_PAID, "fees_paid = ?"),
+            Map.entry(Student.Field.TOTAL_FEES, "total_fees = ?"),
+            Map.entry(Student.Field.CGPA, "cgpa = ?"),
+            Map.entry(Student.Field.CREDITS_COMPLETED, "credits_completed = ?"),
+            Map.entry(Student.Field.NEXT_FEE_DUE_DATE, "next_fee_due = ?"),
+            Map.entry(Student.Field.ADVISOR_ID, "advisor_id = ?"),
+            Map.entry(Student.Field.ACADEMIC_STANDING, "academic_standing = ?")));
+    private static final Map<Set<Student.Field>, String> UPDATE_BY_FIELDS = new ConcurrentHashMap<>();
     private static final String DELETE = "DELETE FROM students WHERE student_code = ?";
 
     public StudentDao() {
@@ -96,49 +144,287 @@ public class StudentDao extends BaseDao {
             ps.setString(18, student.getAdvisorId());
             ps.setString(19, student.getAcademicStanding());
             ps.executeUpdate();
+            student.markClean();
         } catch (SQLException ex) {
             logger.error("Error inserting student {}: {}", student.getStudentId(), ex.getMessage(), ex);
             throw new IllegalStateException("Unable to insert student", ex);
         }
     }
 
+    /**
+     * Writes only the columns changed since the student was loaded, guarded by its version. A student without
+     * changes is not written.
+     */
     public void update(Student student) {
+        Set<Student.Field> fields = student.getChangedFields();
+        if (fields.isEmpty()) {
+            return;
+        }
+        String sql = UPDATE_BY_FIELDS.computeIfAbsent(fields,
+                key -> versionedUpdate("students", "student_code", ASSIGNMENTS, key));
         try (Connection conn = getConnection();
-             PreparedStatement ps = conn.prepareStatement(UPDATE)) {
-            ps.setString(1, student.getUsername());
-            ps.setString(2, student.getFirstName());
-            ps.setString(3, student.getLastName());
-            ps.setString(4, student.getEmail());
-            ps.setString(5, student.getPhone());
-            if (student.getDateOfBirth() != null) {
-                ps.setDate(6, Date.valueOf(student.getDateOfBirth()));
-            } else {
-                ps.setNull(6, java.sql.Types.DATE);
-            }
-            ps.setString(7, student.getAddress());
-            ps.setString(8, student.getCourse());
-            ps.setInt(9, student.getSemester());
-            ps.setString(10, student.getStatus());
-            ps.setDouble(11, student.getFeesPaid());
-            ps.setDouble(12, student.getTotalFees());
-            ps.setDouble(13, student.getCgpa());
-            ps.setInt(14, student.getCreditsCompleted());
-            ps.setInt(15, student.getCreditsInProgress());
-            if (student.getNextFeeDueDate() != null) {
-                ps.setDate(16, Date.valueOf(student.getNextFeeDueDate()));
-            } else {
-                ps.setNull(16, java.sql.Types.DATE);
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            int idx = 1;
+            for (Student.Field field : fields) {
+                bindField(ps, idx++, student, field);
             }
-            ps.setString(17, student.getAdvisorId());
-            ps.setString(18, student.getAcademicStanding());
-            ps.setString(19, student.getStudentId());
-            ps.executeUpdate();
+            ps.setString(idx++, student.getStudentId());
+            ps.setLong(idx, student.getVersion());
+            requireCurrentVersion(ps.executeUpdate(), "Student", student.getStudentId());
+            student.setVersion(student.getVersion() + 1);
+            student.markClean();
         } catch (SQLException ex) {
             logger.error("Error updating student {}: {}", student.getStudentId(), ex.getMessage(), ex);
             throw new IllegalStateException("Unable to update student", ex);
         }
     }
 
+    private static void bindField(PreparedStatement ps, int idx, Student student, Student.Field field)
+            throws SQLException {
+        switch (field) {
+            case USERNAME:
+                ps.setString(idx, student.getUsername());
+                break;
+            case FIRST_NAME:
+                ps.setString(idx, student.getFirstName());
+                break;
+            case LAST_NAME:
+                ps.setString(idx, student.getLastName());
+                break;
+            case EMAIL:
+                ps.setString(idx, student.getEmail());
+                break;
+            case PHONE:
+                ps.setString(idx, student.getPhone());
+                break;
+            case DATE_OF_BIRTH:
+                setNullableDate(ps, idx, student.getDateOfBirth());
+                break;
+            case ADDRESS:
+                ps.setString(idx, student.getAddress());
+                break;
+            case COURSE:
+                ps.setString(idx, student.getCourse());
+                break;
+            case SEMESTER:
+                ps.setInt(idx, student.getSemester());
+                break;
+            case STATUS:
+                ps.setString(idx, student.getStatus());
+                break;
+            case FEES_PAID:
+                ps.setDouble(idx, student.getFeesPaid());
+                break;
+            case TOTAL_FEES:
+                ps.setDouble(idx, student.getTotalFees());
+                break;
+            case CGPA:
+                ps.setDouble(idx, student.getCgpa());
+                break;
+            case CREDITS_COMPLETED:
+                ps.setInt(idx, student.getCreditsCompleted());
+                break;
+            case NEXT_FEE_DUE_DATE:
+                setNullableDate(ps, idx, student.getNextFeeDueDate());
+                break;
+            case ADVISOR_ID:
+                ps.setString(idx, student.getAdvisorId());
+                break;
+            default:
+                ps.setString(idx, student.getAcademicStanding());
+                break;
+        }
+    }
+
+    /**
+     * Adds {@code credits} to the student's load only if the result stays within {@code cap}; the check and the
+     * increment are one conditional UPDATE.
+     *
+     * @return {@code false} when the cap would be exceeded
+     */
+    public boolean tryAddCredits(String studentCode, int credits, int cap) {
+        try (Connection conn = getConnection();
+             PreparedStatement ps = conn.prepareStatement(ADD_CREDITS_WITHIN_CAP)) {
+            ps.setInt(1, credits);
+            ps.setString(2, studentCode);
+            ps.setInt(3, credits);
+            ps.setInt(4, cap);
+            return ps.executeUpdate() == 1;
+        } catch (SQLException ex) {
+            logger.error("Error adding credits for {}: {}", studentCode, ex.getMessage(), ex);
+            throw new IllegalStateException("Unable to update student credits", ex);
+        }
+    }
+
+    /**
+     * Locks the given students' rows ({@code FOR UPDATE}) until the caller's transaction ends and returns the
+     * credits in progress of each. Only meaningful inside a {@code TransactionManager} scope.
+     */
+    public Map<String, Integer> lockCreditsInProgress(Collection<String> studentCodes) {
+        Map<String, Integer> credits = new HashMap<>();
+        for (List<String> chunk : partition(studentCodes)) {
+            String sql = LOCK_CREDITS_PREFIX + placeholders(chunk.size()) + ") ORDER BY student_code FOR UPDATE";
+            try (Connection conn = getConnection();
+                 PreparedStatement ps = conn.prepareStatement(sql)) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    ps.setString(i + 1, chunk.get(i));
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        credits.put(rs.getString("student_code"), rs.getInt("credits_in_progress"));
+                    }
+                }
+            } catch (SQLException ex) {
+                logger.error("Error locking student credits: {}", ex.getMessage(), ex);
+                throw new IllegalStateException("Unable to lock student credits", ex);
+            }
+        }
+        return credits;
+    }
+
+    /**
+     * Shifts {@code credits_in_progress} by a signed delta per student in one batch, never below zero; pair with
+     * {@link #lockCreditsInProgress(Collection)} when the result must respect a cap.
+     */
+    public void adjustCreditsInProgress(Map<String, Integer> deltasByStudent) {
+        if (deltasByStudent.isEmpty()) {
+            return;
+        }
+        try (Connection conn = getConnection();
+             PreparedStatement ps = conn.prepareStatement(ADJUST_CREDITS)) {
+            int pending = 0;
+            for (Map.Entry<String, Integer> entry : deltasByStudent.entrySet()) {
+                ps.setInt(1, entry.getValue());
+                ps.setString(2, entry.getKey());
+                ps.addBatch();
+                if (++pending == JDBC_BATCH_SIZE) {
+                    ps.executeBatch();
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                ps.executeBatch();
+            }
+        } catch (SQLException ex) {
+            logger.error("Error adjusting credits for {} students: {}", deltasByStudent.size(), ex.getMessage(), ex);
+            throw new IllegalStateException("Unable to update student credits", ex);
+        }
+    }
+
+    /**
+     * Outstanding balance of every student by student code, read in one streaming scan.
+     */
+    public Map<String, Double> findOutstandingBalances() {
+        Map<String, Double> balances = new HashMap<>();
+        try (Connection conn = getConnection();
+             PreparedStatement ps = conn.prepareStatement(SELECT_OUTSTANDING,
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            ps.setFetchSize(STREAMING_FETCH_SIZE);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    balances.put(rs.getString("student_code"), rs.getDouble("outstanding"));
+                }
+            }
+        } catch (SQLException ex) {
+            logger.error("Error loading student balances: {}", ex.getMessage(), ex);
+            throw new IllegalStateException("Unable to load student balances", ex);
+        }
+        return balances;
+    }
+
+    /**
+     * Locks the given students' rows ({@code FOR UPDATE}) until the caller's transaction ends and returns the
+     * outstanding balance of each. Only meaningful inside a {@code TransactionManager} scope.
+     */
+    public Map<String, Double> lockOutstandingBalances(Collection<String> studentCodes) {
+        Map<String, Double> balances = new HashMap<>();
+        for (List<String> chunk : partition(studentCodes)) {
+            String sql = LOCK_OUTSTANDING_PREFIX + placeholders(chunk.size()) + ") ORDER BY student_code FOR UPDATE";
+            try (Connection conn = getConnection();
+                 PreparedStatement ps = conn.prepareStatement(sql)) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    ps.setString(i + 1, chunk.get(i));
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        balances.put(rs.getString("student_code"), rs.getDouble("outstanding"));
+                    }
+                }
+            } catch (SQLException ex) {
+                logger.error("Error locking student balances: {}", ex.getMessage(), ex);
+                throw new IllegalStateException("Unable to lock student balances", ex);
+            }
+        }
+        return balances;
+    }
+
+    /**
+     * Adds a payment amount to {@code fees_paid} per student in one batch; pair with
+     * {@link #lockOutstandingBalances(Collection)} so the amounts are known to fit.
+     */
+    public void addFeesPaid(Map<String, Double> amountsByStudent) {
+        if (amountsByStudent.isEmpty()) {
+            return;
+        }
+        try (Connection conn = getConnection();
+             PreparedStatement ps = conn.prepareStatement(ADD_FEES_PAID)) {
+            int pending = 0;
+            for (Map.Entry<String, Double> entry : amountsByStudent.entrySet()) {
+                ps.setDouble(1, entry.getValue());
+                ps.setString(2, entry.getKey());
+                ps.addBatch();
+                if (++pending == JDBC_BATCH_SIZE) {
+                    ps.executeBatch();
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                ps.executeBatch();
+            }
+        } catch (SQLException ex) {
+            logger.error("Error adding payments for {} students: {}", amountsByStudent.size(), ex.getMessage(), ex);
+            throw new IllegalStateException("Unable to update student payments", ex);
+        }
+    }
+
+    /**
+     * Students whose stored credit load differs from the sum over their ENROLLED sections.
+     */
+    public List<String> findCreditDrift() {
+        List<String> drifted = new ArrayList<>();
+        try (Connection conn = getConnection();
+             PreparedStatement ps = conn.prepareStatement(SELECT_CREDIT_DRIFT);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                drifted.add(rs.getString(1));
+            }
+        } catch (SQLException ex) {
+            logger.error("Error scanning credit loads: {}", ex.getMessage(), ex);
+        }
+        return drifted;
+    }
+
+    /**
+     * Recomputes one student's credit load from enrollments and returns the stored value.
+     */
+    public int repairCredits(String studentCode) {
+        try (Connection conn = getConnection()) {
+            try (PreparedStatement ps = conn.prepareStatement(REPAIR_CREDITS)) {
+                ps.setString(1, studentCode);
+                ps.executeUpdate();
+            }
+            try (PreparedStatement ps = conn.prepareStatement(SELECT_CREDITS)) {
+                ps.setString(1, studentCode);
+                try (ResultSet rs = ps.executeQuery()) {
+                    return rs.next() ? rs.getInt(1) : 0;
+                }
+            }
+        } catch (SQLException ex) {
+            logger.error("Error repairing credits for {}: {}", studentCode, ex.getMessage(), ex);
+            throw new IllegalStateException("Unable to repair student credits", ex);
+        }
+    }
+
     public void delete(String studentCode) {
         try (Connection conn = getConnection();
              PreparedStatement ps = conn.prepareStatement(DELETE)) {
@@ -177,6 +463,8 @@ public class StudentDao extends BaseDao {
         }
         student.setAdvisorId(rs.getString("advisor_id"));
         student.setAcademicStanding(rs.getString("academic_standing"));
+        student.setVersion(rs.getLong("version"));
+        student.markClean();
         return student;
     }
 
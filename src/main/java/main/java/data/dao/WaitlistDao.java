@@ -6,14 +6,51 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.LinkedList;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
+/**
+ * Database-backed FIFO per section.
+ * <p>
+ * Positions come from a per-section row in {@code section_waitlist_sequences}, advanced with one atomic
+ * {@code UPDATE}, so concurrent clients never hand out the same number. Deletes leave gaps; a student's place in
+ * line is the count of entries at or before their position, answered from the {@code (section_code, position)}
+ * index without reading the list. {@link #compact(String)} closes the gaps.
+ */
 public class WaitlistDao extends BaseDao {
     private static final String SELECT_BY_SECTION = "SELECT student_code FROM section_waitlist WHERE section_code = ? ORDER BY position";
+    private static final String SELECT_ALL = "SELECT section_code, student_code FROM section_waitlist ORDER BY section_code, position";
+    private static final String SELECT_BY_SECTIONS_PREFIX = "SELECT section_code, student_code FROM section_waitlist WHERE section_code IN (";
+    private static final String COUNT_BY_SECTIONS_PREFIX = "SELECT section_code, COUNT(*) FROM section_waitlist WHERE section_code IN (";
+    private static final String RANK = "SELECT COUNT(*) FROM section_waitlist a JOIN section_waitlist w "
+            + "ON w.section_code = a.section_code AND a.position <= w.position "
+            + "WHERE w.section_code = ? AND w.student_code = ?";
+    private static final String RANKS_FOR_STUDENT = "SELECT w.section_code, "
+            + "(SELECT COUNT(*) FROM section_waitlist a WHERE a.section_code = w.section_code AND a.position <= w.position) "
+            + "FROM section_waitlist w WHERE w.student_code = ?";
+    private static final String RANK_OF_POSITION = "SELECT COUNT(*) FROM section_waitlist WHERE section_code = ? AND position <= ?";
+    private static final String ENSURE_SEQUENCE = "INSERT IGNORE INTO section_waitlist_sequences (section_code, next_position) "
+            + "SELECT ?, COALESCE(MAX(position), 0) + 1 FROM section_waitlist WHERE section_code = ?";
+    private static final String ADVANCE_SEQUENCE = "UPDATE section_waitlist_sequences "
+            + "SET next_position = LAST_INSERT_ID(next_position + ?) WHERE section_code = ?";
+    private static final String LAST_ALLOCATED = "SELECT LAST_INSERT_ID()";
+    private static final String LOCK_SEQUENCE = "SELECT next_position FROM section_waitlist_sequences WHERE section_code = ? FOR UPDATE";
+    private static final String RESET_SEQUENCE = "UPDATE section_waitlist_sequences SET next_position = ? WHERE section_code = ?";
     private static final String INSERT = "INSERT INTO section_waitlist (section_code, student_code, position) VALUES (?, ?, ?)";
     private static final String DELETE = "DELETE FROM section_waitlist WHERE section_code = ? AND student_code = ?";
     private static final String DELETE_SECTION = "DELETE FROM section_waitlist WHERE section_code = ?";
+    private static final String PARK_POSITIONS = "UPDATE section_waitlist SET position = -position WHERE section_code = ?";
+    private static final String SET_POSITION = "UPDATE section_waitlist SET position = ? WHERE section_code = ? AND student_code = ?";
+    private static final String RESET_RANK_VARIABLE = "SET @waitlist_rank := 0";
+    // Renumbering in ascending order only ever moves a row to a smaller, already vacated position.
+    private static final String RENUMBER = "UPDATE section_waitlist SET position = (@waitlist_rank := @waitlist_rank + 1) "
+            + "WHERE section_code = ? ORDER BY position";
+    private static final String SELECT_WITH_GAPS = "SELECT section_code FROM section_waitlist "
+            + "GROUP BY section_code HAVING MAX(position) <> COUNT(*)";
 
     public WaitlistDao() {
         super(DataSourceRegistry.erpDataSource()
@@ -21,7 +58,7 @@ public class WaitlistDao extends BaseDao {
     }
 
     public List<String> findWaitlist(String sectionCode) {
-        List<String> list = new LinkedList<>();
+        List<String> list = new ArrayList<>();
         try (Connection conn = getConnection();
              PreparedStatement ps = conn.prepareStatement(SELECT_BY_SECTION)) {
             ps.setString(1, sectionCode);
@@ -36,15 +73,147 @@ public class WaitlistDao extends BaseDao {
         return list;
     }
 
-    public void insert(String sectionCode, String studentCode, int position) {
+    /**
+     * Loads every waitlist in one ordered scan, grouped by section code.
+     */
+    public Map<String, List<String>> findAllWaitlists() {
+        Map<String, List<String>> grouped = new LinkedHashMap<>();
         try (Connection conn = getConnection();
-             PreparedStatement ps = conn.prepareStatement(INSERT)) {
+             PreparedStatement ps = conn.prepareStatement(SELECT_ALL,
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            ps.setFetchSize(STREAMING_FETCH_SIZE);
+            try (ResultSet rs = ps.executeQuery()) {
+                collect(rs, grouped);
+            }
+        } catch (SQLException ex) {
+            logger.error("Error loading waitlists: {}", ex.getMessage(), ex);
+        }
+        return grouped;
+    }
+
+    public Map<String, List<String>> findWaitlists(Collection<String> sectionCodes) {
+        Map<String, List<String>> grouped = new LinkedHashMap<>();
+        for (String code : sectionCodes) {
+            grouped.put(code, new ArrayList<>());
+        }
+        for (List<String> chunk : partition(sectionCodes)) {
+            String sql = SELECT_BY_SECTIONS_PREFIX + placeholders(chunk.size()) + ") ORDER BY section_code, position";
+            try (Connection conn = getConnection();
+                 PreparedStatement ps = conn.prepareStatement(sql)) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    ps.setString(i + 1, chunk.get(i));
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    collect(rs, grouped);
+                }
+            } catch (SQLException ex) {
+                logger.error("Error loading waitlists for {} sections: {}", chunk.size(), ex.getMessage(), ex);
+            }
+        }
+        return grouped;
+    }
+
+    /**
+     * Waitlist length per section; sections without entries map to 0.
+     */
+    public Map<String, Integer> countBySections(Collection<String> sectionCodes) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (String code : sectionCodes) {
+            counts.put(code, 0);
+        }
+        for (List<String> chunk : partition(sectionCodes)) {
+            String sql = COUNT_BY_SECTIONS_PREFIX + placeholders(chunk.size()) + ") GROUP BY section_code";
+            try (Connection conn = getConnection();
+                 PreparedStatement ps = conn.prepareStatement(sql)) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    ps.setString(i + 1, chunk.get(i));
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        counts.put(rs.getString(1), rs.getInt(2));
+                    }
+                }
+            } catch (SQLException ex) {
+                logger.error("Error counting waitlists for {} sections: {}", chunk.size(), ex.getMessage(), ex);
+                throw new IllegalStateException("Unable to count waitlists", ex);
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * 1-based place of the student in the section's line, or 0 when they are not waitlisted there.
+     */
+    public int findRank(String sectionCode, String studentCode) {
+        try (Connection conn = getConnection();
+             PreparedStatement ps = conn.prepareStatement(RANK)) {
             ps.setString(1, sectionCode);
             ps.setString(2, studentCode);
-            ps.setInt(3, position);
-            ps.executeUpdate();
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
         } catch (SQLException ex) {
-            logger.error("Error inserting waitlist entry {}:{} - {}", sectionCode, studentCode, ex.getMessage(), ex);
+            logger.error("Error loading waitlist rank {}:{} - {}", sectionCode, studentCode, ex.getMessage(), ex);
+            return 0;
+        }
+    }
+
+    /**
+     * The student's place in every waitlist they are on, keyed by section code.
+     */
+    public Map<String, Integer> findRanksForStudent(String studentCode) {
+        Map<String, Integer> ranks = new LinkedHashMap<>();
+        try (Connection conn = getConnection();
+             PreparedStatement ps = conn.prepareStatement(RANKS_FOR_STUDENT)) {
+            ps.setString(1, studentCode);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    ranks.put(rs.getString(1), rs.getInt(2));
+                }
+            }
+        } catch (SQLException ex) {
+            logger.error("Error loading waitlist ranks for {}: {}", studentCode, ex.getMessage(), ex);
+        }
+        return ranks;
+    }
+
+    /**
+     * Adds the student to the end of the line and returns their 1-based place in it.
+     */
+    public int append(String sectionCode, String studentCode) {
+        return appendBatch(sectionCode, List.of(studentCode));
+    }
+
+    /**
+     * Appends students in order with positions from one sequence allocation and returns the place of the
+     * first of them.
+     */
+    public int appendBatch(String sectionCode, List<String> studentCodes) {
+        if (studentCodes.isEmpty()) {
+            return 0;
+        }
+        try (Connection conn = getConnection()) {
+            int first = allocate(conn, sectionCode, studentCodes.size());
+            try (PreparedStatement ps = conn.prepareStatement(INSERT)) {
+                int position = first;
+                for (String studentCode : studentCodes) {
+                    ps.setString(1, sectionCode);
+                    ps.setString(2, studentCode);
+                    ps.setInt(3, position++);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+            try (PreparedStatement ps = conn.prepareStatement(RANK_OF_POSITION)) {
+                ps.setString(1, sectionCode);
+                ps.setInt(2, first);
+                try (ResultSet rs = ps.executeQuery()) {
+                    return rs.next() ? rs.getInt(1) : 0;
+                }
+            }
+        } catch (SQLException ex) {
+            logger.error("Error appending {} waitlist entries to {}: {}", studentCodes.size(), sectionCode, ex.getMessage(), ex);
+            throw new IllegalStateException("Unable to append waitlist entries", ex);
         }
     }
 
@@ -56,6 +225,28 @@ public class WaitlistDao extends BaseDao {
             ps.executeUpdate();
         } catch (SQLException ex) {
             logger.error("Error deleting waitlist entry {}:{} - {}", sectionCode, studentCode, ex.getMessage(), ex);
+            throw new IllegalStateException("Unable to delete waitlist entry", ex);
+        }
+    }
+
+    /**
+     * Removes several students from one section's waitlist in a single batch.
+     */
+    public void deleteBatch(String sectionCode, List<String> studentCodes) {
+        if (studentCodes.isEmpty()) {
+            return;
+        }
+        try (Connection conn = getConnection();
+             PreparedStatement ps = conn.prepareStatement(DELETE)) {
+            for (String studentCode : studentCodes) {
+                ps.setString(1, sectionCode);
+                ps.setString(2, studentCode);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        } catch (SQLException ex) {
+            logger.error("Error removing {} waitlist entries from {}: {}", studentCodes.size(), sectionCode, ex.getMessage(), ex);
+            throw new IllegalStateException("Unable to remove waitlist entries", ex);
         }
     }
 
@@ -66,6 +257,133 @@ public class WaitlistDao extends BaseDao {
             ps.executeUpdate();
         } catch (SQLException ex) {
             logger.error("Error clearing waitlist for section {}: {}", sectionCode, ex.getMessage(), ex);
+            throw new IllegalStateException("Unable to clear waitlist", ex);
+        }
+    }
+
+    /**
+     * Rewrites the section's positions as 1..n in the given order. {@code orderedStudentCodes} must list every
+     * waitlisted student exactly once. Run inside a {@code TransactionManager} scope.
+     */
+    public void reorder(String sectionCode, List<String> orderedStudentCodes) {
+        try (Connection conn = getConnection()) {
+            lockSequence(conn, sectionCode);
+            try (PreparedStatement ps = conn.prepareStatement(PARK_POSITIONS)) {
+                ps.setString(1, sectionCode);
+                ps.executeUpdate();
+            }
+            try (PreparedStatement ps = conn.prepareStatement(SET_POSITION)) {
+                int position = 1;
+                for (String studentCode : orderedStudentCodes) {
+                    ps.setInt(1, position++);
+                    ps.setString(2, sectionCode);
+                    ps.setString(3, studentCode);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+            resetSequence(conn, sectionCode, orderedStudentCodes.size() + 1);
+        } catch (SQLException ex) {
+            logger.error("Error reordering waitlist for {}: {}", sectionCode, ex.getMessage(), ex);
+            throw new IllegalStateException("Unable to reorder waitlist", ex);
+        }
+    }
+
+    /**
+     * Renumbers the section's positions densely from 1, keeping their order, and rewinds its sequence.
+     * Run inside a {@code TransactionManager} scope.
+     *
+     * @return the number of entries on the waitlist
+     */
+    public int compact(String sectionCode) {
+        try (Connection conn = getConnection()) {
+            lockSequence(conn, sectionCode);
+            try (Statement st = conn.createStatement()) {
+                st.execute(RESET_RANK_VARIABLE);
+            }
+            try (PreparedStatement ps = conn.prepareStatement(RENUMBER)) {
+                ps.setString(1, sectionCode);
+                ps.executeUpdate();
+            }
+            int rows;
+            try (PreparedStatement ps = conn.prepareStatement(RANK_OF_POSITION)) {
+                ps.setString(1, sectionCode);
+                ps.setInt(2, Integer.MAX_VALUE);
+                try (ResultSet rs = ps.executeQuery()) {
+                    rows = rs.next() ? rs.getInt(1) : 0;
+                }
+            }
+            resetSequence(conn, sectionCode, rows + 1);
+            return rows;
+        } catch (SQLException ex) {
+            logger.error("Error compacting waitlist for {}: {}", sectionCode, ex.getMessage(), ex);
+            throw new IllegalStateException("Unable to compact waitlist", ex);
+        }
+    }
+
+    /**
+     * Sections whose positions are no longer 1..n.
+     */
+    public List<String> findSectionsWithGaps() {
+        List<String> sections = new ArrayList<>();
+        try (Connection conn = getConnection();
+             PreparedStatement ps = conn.prepareStatement(SELECT_WITH_GAPS);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                sections.add(rs.getString(1));
+            }
+        } catch (SQLException ex) {
+            logger.error("Error scanning waitlists for gaps: {}", ex.getMessage(), ex);
+        }
+        return sections;
+    }
+
+    /**
+     * Reserves {@code count} consecutive positions and returns the first. {@code LAST_INSERT_ID(expr)} is
+     * per-connection, so the read-back sees this allocation even with other clients advancing the sequence.
+     */
+    private int allocate(Connection conn, String sectionCode, int count) throws SQLException {
+        ensureSequence(conn, sectionCode);
+        try (PreparedStatement ps = conn.prepareStatement(ADVANCE_SEQUENCE)) {
+            ps.setInt(1, count);
+            ps.setString(2, sectionCode);
+            ps.executeUpdate();
+        }
+        try (PreparedStatement ps = conn.prepareStatement(LAST_ALLOCATED);
+             ResultSet rs = ps.executeQuery()) {
+            rs.next();
+            return rs.getInt(1) - count;
+        }
+    }
+
+    private void lockSequence(Connection conn, String sectionCode) throws SQLException {
+        ensureSequence(conn, sectionCode);
+        try (PreparedStatement ps = conn.prepareStatement(LOCK_SEQUENCE)) {
+            ps.setString(1, sectionCode);
+            ps.executeQuery().close();
+        }
+    }
+
+    private void ensureSequence(Connection conn, String sectionCode) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(ENSURE_SEQUENCE)) {
+            ps.setString(1, sectionCode);
+            ps.setString(2, sectionCode);
+            ps.executeUpdate();
+        }
+    }
+
+    private void resetSequence(Connection conn, String sectionCode, int nextPosition) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(RESET_SEQUENCE)) {
+            ps.setInt(1, nextPosition);
+            ps.setString(2, sectionCode);
+            ps.executeUpdate();
+        }
+    }
+
+    private void collect(ResultSet rs, Map<String, List<String>> grouped) throws SQLException {
+        while (rs.next()) {
+            grouped.computeIfAbsent(rs.getString("section_code"), k -> new ArrayList<>())
+                    .add(rs.getString("student_code"));
         }
     }
 }
@@ -26,9 +26,11 @@ import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Imports legacy {@code .dat} snapshot files into the SQL-backed schema.
@@ -120,6 +122,7 @@ public final class LegacyDataMigrator {
             }
             Optional<Course> existing = courseDao.findByCode(course.getCourseId());
             if (existing.isPresent()) {
+                course.setVersion(existing.get().getVersion());
                 courseDao.update(course);
             } else {
                 courseDao.insert(course);
@@ -156,6 +159,7 @@ public final class LegacyDataMigrator {
             }
             Optional<Student> existing = studentDao.findByCode(student.getStudentId());
             if (existing.isPresent()) {
+                student.setVersion(existing.get().getVersion());
                 studentDao.update(student);
             } else {
                 studentDao.insert(student);
@@ -174,6 +178,7 @@ public final class LegacyDataMigrator {
             }
             Optional<Section> existing = sectionDao.findByCode(section.getSectionId());
             if (existing.isPresent()) {
+                section.setVersion(existing.get().getVersion());
                 sectionDao.update(section);
             } else {
                 sectionDao.insert(section);
@@ -193,11 +198,22 @@ public final class LegacyDataMigrator {
         boolean changed = false;
         Map<String, Integer> enrolledByCourse = new HashMap<>();
 
+        // Existing enrollments and waitlists of every section in the file, loaded in batches up front.
+        Set<String> sectionIds = new LinkedHashSet<>();
+        for (EnrollmentRecord record : records) {
+            if (record != null && record.getStudentId() != null && record.getSectionId() != null) {
+                sectionIds.add(record.getSectionId());
+            }
+        }
+        Map<String, List<EnrollmentRecord>> enrollmentsBySection = enrollmentDao.findBySections(sectionIds);
+        Map<String, List<String>> waitlists = waitlistDao.findWaitlists(sectionIds);
+
         for (EnrollmentRecord record : records) {
             if (record == null || record.getStudentId() == null || record.getSectionId() == null) {
                 continue;
             }
-            List<EnrollmentRecord> existing = enrollmentDao.findBySection(record.getSectionId());
+            List<EnrollmentRecord> existing =
+                    enrollmentsBySection.computeIfAbsent(record.getSectionId(), k -> new ArrayList<>());
             Optional<EnrollmentRecord> match = existing.stream()
                     .filter(enrollment -> record.getStudentId().equals(enrollment.getStudentId()))
                     .findFirst();
@@ -208,12 +224,14 @@ public final class LegacyDataMigrator {
                 enrollmentDao.updateStatus(current);
             } else {
                 enrollmentDao.insert(record);
+                existing.add(record);
                 changed = true;
             }
             if (record.getStatus() == EnrollmentRecord.Status.WAITLISTED) {
-                List<String> waitlist = waitlistDao.findWaitlist(record.getSectionId());
+                List<String> waitlist = waitlists.computeIfAbsent(record.getSectionId(), k -> new ArrayList<>());
                 if (!waitlist.contains(record.getStudentId())) {
-                    waitlistDao.insert(record.getSectionId(), record.getStudentId(), waitlist.size() + 1);
+                    waitlistDao.append(record.getSectionId(), record.getStudentId());
+                    waitlist.add(record.getStudentId());
                 }
             }
             if (record.getStatus() == EnrollmentRecord.Status.ENROLLED) {
@@ -226,11 +244,7 @@ public final class LegacyDataMigrator {
             }
         }
 
-        enrolledByCourse.forEach((courseId, enrolledCount) -> courseDao.findByCode(courseId).ifPresent(course -> {
-            int available = Math.max(0, course.getTotalSeats() - enrolledCount);
-            course.setAvailableSeats(available);
-            courseDao.update(course);
-        }));
+        // Course availability and section seat counters are recomputed by SeatReconciler after the import.
         return changed || !enrolledByCourse.isEmpty();
     }
 
@@ -202,32 +202,32 @@ public class MainFrame extends JFrame {
     }
 
     private void notifyMaintenanceAware(boolean maintenance) {
-        if (studentPanel instanceof MaintenanceAware aware) {
-            aware.onMaintenanceModeChanged(maintenance);
+        if (studentPanel != null) {
+            studentPanel.onMaintenanceModeChanged(maintenance);
         }
-        if (facultyPanel instanceof MaintenanceAware aware) {
-            aware.onMaintenanceModeChanged(maintenance);
+        if (facultyPanel != null) {
+            facultyPanel.onMaintenanceModeChanged(maintenance);
         }
-        if (coursePanel instanceof MaintenanceAware aware) {
-            aware.onMaintenanceModeChanged(maintenance);
+        if (coursePanel != null) {
+            coursePanel.onMaintenanceModeChanged(maintenance);
         }
-        if (feesPanel instanceof MaintenanceAware aware) {
-            aware.onMaintenanceModeChanged(maintenance);
+        if (feesPanel != null) {
+            feesPanel.onMaintenanceModeChanged(maintenance);
         }
-        if (sectionPanel instanceof MaintenanceAware aware) {
-            aware.onMaintenanceModeChanged(maintenance);
+        if (sectionPanel != null) {
+            sectionPanel.onMaintenanceModeChanged(maintenance);
         }
-        if (enrollmentPanel instanceof MaintenanceAware aware) {
-            aware.onMaintenanceModeChanged(maintenance);
+        if (enrollmentPanel != null) {
+            enrollmentPanel.onMaintenanceModeChanged(maintenance);
         }
-        if (attendancePanel instanceof MaintenanceAware aware) {
-            aware.onMaintenanceModeChanged(maintenance);
+        if (attendancePanel != null) {
+            attendancePanel.onMaintenanceModeChanged(maintenance);
         }
-        if (notificationsPanel instanceof MaintenanceAware aware) {
-            aware.onMaintenanceModeChanged(maintenance);
+        if (notificationsPanel != null) {
+            notificationsPanel.onMaintenanceModeChanged(maintenance);
         }
-        if (userManagementPanel instanceof MaintenanceAware aware) {
-            aware.onMaintenanceModeChanged(maintenance);
+        if (userManagementPanel != null) {
+            userManagementPanel.onMaintenanceModeChanged(maintenance);
         }
     }
 
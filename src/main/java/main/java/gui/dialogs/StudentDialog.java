@@ -89,6 +89,8 @@ public class StudentDialog extends JDialog {
         cgpaField = new JTextField(5);
         creditsCompletedField = new JTextField(5);
         creditsInProgressField = new JTextField(5);
+        creditsInProgressField.setEditable(false);
+        creditsInProgressField.setToolTipText("Maintained automatically from enrolled sections.");
         nextFeeDueField = new JTextField(10);
         nextFeeDueField.setToolTipText("Format: yyyy-MM-dd");
         advisorField = new JTextField(15);
@@ -1,5 +1,6 @@
 package main.java.gui.panels;
 
+import main.java.data.dao.KeysetCursor;
 import main.java.utils.AuditLogService;
 
 import javax.swing.*;
@@ -10,17 +11,32 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.BiFunction;
 
 /**
  * Administrative view for security audit events with CSV export.
  */
 public class AuditLogPanel extends JPanel {
     private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final int PAGE_SIZE = 200;
 
     private final JComboBox<String> rangeCombo;
+    private final JCheckBox archivedCheck;
+    private final JComboBox<AuditLogService.SubjectType> subjectTypeCombo;
+    private final JTextField subjectIdField;
     private final DefaultTableModel tableModel;
-    private List<AuditLogService.AuditEvent> currentEvents;
+    private List<AuditLogService.AuditEvent> currentEvents = new ArrayList<>();
+    private LocalDateTime currentFrom;
+    private LocalDateTime currentTo;
+    private boolean rangeView;
+    private BiFunction<KeysetCursor, Integer, List<AuditLogService.AuditEvent>> pageSource;
+    private KeysetCursor nextPage;
+    private boolean exhausted = true;
+    private boolean archivePending;
 
     public AuditLogPanel() {
         setLayout(new BorderLayout());
@@ -33,8 +49,10 @@ public class AuditLogPanel extends JPanel {
                 "Last 24 Hours",
                 "Last 7 Days",
                 "Last 30 Days",
-                "All (latest 250)"
+                "Last 12 Months",
+                "All"
         });
+        archivedCheck = new JCheckBox("Include archived");
 
         JButton refreshButton = new JButton("Refresh");
         refreshButton.addActionListener(e -> loadEvents());
@@ -45,14 +63,32 @@ public class AuditLogPanel extends JPanel {
         JPanel controls = new JPanel(new FlowLayout(FlowLayout.RIGHT));
         controls.add(new JLabel("Range:"));
         controls.add(rangeCombo);
+        controls.add(archivedCheck);
         controls.add(refreshButton);
         controls.add(exportButton);
 
+        subjectTypeCombo = new JComboBox<>(AuditLogService.SubjectType.values());
+        subjectTypeCombo.setSelectedItem(AuditLogService.SubjectType.STUDENT);
+        subjectIdField = new JTextField(12);
+        subjectIdField.addActionListener(e -> loadHistory());
+        JButton historyButton = new JButton("History");
+        historyButton.addActionListener(e -> loadHistory());
+
+        JPanel subjectControls = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        subjectControls.add(new JLabel("Subject:"));
+        subjectControls.add(subjectTypeCombo);
+        subjectControls.add(subjectIdField);
+        subjectControls.add(historyButton);
+
+        JPanel controlRows = new JPanel(new GridLayout(2, 1));
+        controlRows.add(controls);
+        controlRows.add(subjectControls);
+
         JPanel header = new JPanel(new BorderLayout());
         header.add(title, BorderLayout.WEST);
-        header.add(controls, BorderLayout.EAST);
+        header.add(controlRows, BorderLayout.EAST);
 
-        tableModel = new DefaultTableModel(new Object[]{"Timestamp", "Type", "Actor", "Details"}, 0) {
+        tableModel = new DefaultTableModel(new Object[]{"Timestamp", "Type", "Actor", "Subject", "Details"}, 0) {
             @Override
             public boolean isCellEditable(int row, int column) {
                 return false;
@@ -63,10 +99,13 @@ public class AuditLogPanel extends JPanel {
         table.getColumnModel().getColumn(0).setPreferredWidth(160);
         table.getColumnModel().getColumn(1).setPreferredWidth(120);
         table.getColumnModel().getColumn(2).setPreferredWidth(140);
-        table.getColumnModel().getColumn(3).setPreferredWidth(480);
+        table.getColumnModel().getColumn(3).setPreferredWidth(140);
+        table.getColumnModel().getColumn(4).setPreferredWidth(480);
 
         add(header, BorderLayout.NORTH);
-        add(new JScrollPane(table), BorderLayout.CENTER);
+        JScrollPane tableScroll = new JScrollPane(table);
+        InfiniteScroll.install(tableScroll, this::loadNextPage);
+        add(tableScroll, BorderLayout.CENTER);
 
         loadEvents();
     }
@@ -78,30 +117,80 @@ public class AuditLogPanel extends JPanel {
             case "Last 24 Hours" -> from = now.minusHours(24);
             case "Last 7 Days" -> from = now.minusDays(7);
             case "Last 30 Days" -> from = now.minusDays(30);
+            case "Last 12 Months" -> from = now.minusMonths(12);
             default -> from = null;
         }
-        currentEvents = from == null
-                ? AuditLogService.recentEvents()
-                : AuditLogService.findBetween(from, now);
+        currentFrom = from;
+        currentTo = now;
+        rangeView = true;
+        pageSource = (after, limit) -> AuditLogService.pageBetween(from, now, after, limit);
+        startPaging(archivedCheck.isSelected());
+    }
+
+    /**
+     * Newest events about one entity; an index seek on the subject columns rather than a range scan.
+     */
+    private void loadHistory() {
+        String subjectId = subjectIdField.getText().trim();
+        if (subjectId.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "Enter an ID to show its history.", "History",
+                    JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        AuditLogService.SubjectType subjectType = (AuditLogService.SubjectType) subjectTypeCombo.getSelectedItem();
+        rangeView = false;
+        pageSource = (after, limit) -> AuditLogService.historyOf(subjectType, subjectId, after, limit);
+        startPaging(false);
+    }
 
+    private void startPaging(boolean includeArchived) {
         tableModel.setRowCount(0);
-        for (AuditLogService.AuditEvent event : currentEvents) {
+        currentEvents = new ArrayList<>();
+        nextPage = null;
+        exhausted = false;
+        archivePending = includeArchived;
+        loadNextPage();
+    }
+
+    /**
+     * Appends the next keyset page of the current view. Archived events are older than every live row, so
+     * they are appended once, after the last live page.
+     */
+    private void loadNextPage() {
+        if (exhausted) {
+            return;
+        }
+        List<AuditLogService.AuditEvent> page = pageSource.apply(nextPage, PAGE_SIZE);
+        exhausted = page.size() < PAGE_SIZE;
+        if (!page.isEmpty()) {
+            AuditLogService.AuditEvent last = page.get(page.size() - 1);
+            nextPage = new KeysetCursor(last.getTimestamp(), last.getId());
+        }
+        if (exhausted && archivePending) {
+            archivePending = false;
+            page = new ArrayList<>(page);
+            page.addAll(AuditLogService.findArchived(currentFrom, currentTo));
+        }
+        currentEvents.addAll(page);
+        for (AuditLogService.AuditEvent event : page) {
             tableModel.addRow(new Object[]{
                     FORMATTER.format(event.getTimestamp()),
                     event.getType().name(),
                     event.getActor(),
+                    event.getSubjectType() == null ? "" : event.getSubjectType() + " " + event.getSubjectId(),
                     event.getDetails()
             });
         }
     }
 
     private void exportCsv() {
-        if (currentEvents == null || currentEvents.isEmpty()) {
+        if (currentEvents.isEmpty()) {
             JOptionPane.showMessageDialog(this, "No audit events to export.", "Export", JOptionPane.INFORMATION_MESSAGE);
             return;
         }
         JFileChooser chooser = new JFileChooser();
         chooser.setDialogTitle("Export Audit Trail");
+        // A name ending in .gz produces a compressed export.
         chooser.setSelectedFile(new java.io.File("audit-log.csv"));
         int option = chooser.showSaveDialog(this);
         if (option != JFileChooser.APPROVE_OPTION) {
@@ -121,12 +210,60 @@ public class AuditLogPanel extends JPanel {
             }
         }
 
-        try {
-            AuditLogService.exportToCsv(target, currentEvents);
-            JOptionPane.showMessageDialog(this, "Audit log exported to " + target.toAbsolutePath());
-        } catch (IOException ex) {
-            JOptionPane.showMessageDialog(this, "Unable to export audit log: " + ex.getMessage(),
-                    "Export Error", JOptionPane.ERROR_MESSAGE);
+        if (!rangeView) {
+            try {
+                AuditLogService.exportToCsv(target, currentEvents);
+                JOptionPane.showMessageDialog(this, "Audit log exported to " + target.toAbsolutePath());
+            } catch (IOException ex) {
+                JOptionPane.showMessageDialog(this, "Unable to export audit log: " + ex.getMessage(),
+                        "Export Error", JOptionPane.ERROR_MESSAGE);
+            }
+            return;
         }
+        exportRange(target, currentFrom, currentTo);
+    }
+
+    /**
+     * Streams the whole selected range to disk on a worker thread; the table only shows what was loaded, which
+     * may be a small part of it.
+     */
+    private void exportRange(Path target, LocalDateTime from, LocalDateTime to) {
+        ProgressMonitor monitor = new ProgressMonitor(this, "Exporting audit events...", "", 0, 1);
+        monitor.setMillisToDecideToPopup(250);
+        SwingWorker<Long, Long> worker = new SwingWorker<>() {
+            @Override
+            protected Long doInBackground() throws IOException {
+                return AuditLogService.exportRange(target, from, to, this::publish, monitor::isCanceled);
+            }
+
+            @Override
+            protected void process(List<Long> counts) {
+                // The total is unknown; progress 0 only lets the monitor decide to pop up.
+                monitor.setProgress(0);
+                monitor.setNote(counts.get(counts.size() - 1) + " events written");
+            }
+
+            @Override
+            protected void done() {
+                monitor.close();
+                try {
+                    long rows = get();
+                    JOptionPane.showMessageDialog(AuditLogPanel.this,
+                            rows + " audit events exported to " + target.toAbsolutePath());
+                } catch (CancellationException ex) {
+                    // the user cancelled; nothing to report
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException ex) {
+                    if (ex.getCause() instanceof CancellationException) {
+                        return;
+                    }
+                    JOptionPane.showMessageDialog(AuditLogPanel.this,
+                            "Unable to export audit log: " + ex.getCause().getMessage(),
+                            "Export Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        };
+        worker.execute();
     }
 }
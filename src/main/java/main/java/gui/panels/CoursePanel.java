@@ -1,5 +1,6 @@
 package main.java.gui.panels;
 
+import main.java.data.dao.StaleDataException;
 import main.java.models.Course;
 import main.java.utils.DatabaseUtil;
 import main.java.gui.panels.MaintenanceAware;
@@ -207,7 +208,13 @@ public class CoursePanel extends JPanel implements MaintenanceAware {
         }
         Course edited = showCourseDialog(existing);
         if (edited != null) {
-            DatabaseUtil.updateCourse(edited);
+            try {
+                DatabaseUtil.updateCourse(edited);
+            } catch (StaleDataException ex) {
+                loadCourseData();
+                JOptionPane.showMessageDialog(this, ex.getMessage(), "Edit conflict", JOptionPane.WARNING_MESSAGE);
+                return;
+            }
             loadCourseData();
             JOptionPane.showMessageDialog(this, "Course updated.");
         }
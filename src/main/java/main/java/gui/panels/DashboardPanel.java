@@ -5,6 +5,8 @@ import main.java.models.*;
 import javax.swing.*;
 import java.awt.*;
 import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * Dashboard panel showing system overview and statistics
@@ -169,8 +171,11 @@ public class DashboardPanel extends JPanel {
                 .sum();
         waitlistLabel.setText(String.valueOf(waitlistedTotal));
 
-        double avgAttendance = DatabaseUtil.getAllSections().stream()
-                .mapToDouble(section -> DatabaseUtil.getAverageAttendanceForSection(section.getSectionId()))
+        List<String> sectionIds = DatabaseUtil.getAllSections().stream()
+                .map(Section::getSectionId)
+                .collect(Collectors.toList());
+        double avgAttendance = DatabaseUtil.getAverageAttendanceForSections(sectionIds).values().stream()
+                .mapToDouble(Double::doubleValue)
                 .average()
                 .orElse(100.0);
         attendanceLabel.setText(String.format("%.0f%%", avgAttendance));
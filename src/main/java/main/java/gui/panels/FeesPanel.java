@@ -4,6 +4,8 @@ import main.java.models.FeeInstallment;
 import main.java.models.PaymentTransaction;
 import main.java.models.Student;
 import main.java.utils.DatabaseUtil;
+import main.java.utils.PaymentReconciler;
+import main.java.utils.TermInvoicer;
 import main.java.gui.panels.MaintenanceAware;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVPrinter;
@@ -17,13 +19,16 @@ import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Locale;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
 
 /**
  * Panel for managing student finance operations.
@@ -39,6 +44,8 @@ public class FeesPanel extends JPanel implements MaintenanceAware {
     private final JButton exportStatementButton;
     private final JButton exportSummaryButton;
     private final JButton configureInstallmentsButton;
+    private final JButton invoiceTermButton;
+    private final JButton importStatementButton;
     private final JButton refreshButton;
     private final JLabel totalOutstandingLabel;
     private boolean maintenanceMode;
@@ -59,6 +66,8 @@ public class FeesPanel extends JPanel implements MaintenanceAware {
         this.exportStatementButton = new JButton("Export Statement");
         this.exportSummaryButton = new JButton("Export Summary");
         this.configureInstallmentsButton = new JButton("Configure Installments");
+        this.invoiceTermButton = new JButton("Invoice Term");
+        this.importStatementButton = new JButton("Import Bank Statement");
         this.refreshButton = new JButton("Refresh");
         this.totalOutstandingLabel = new JLabel();
 
@@ -81,6 +90,8 @@ public class FeesPanel extends JPanel implements MaintenanceAware {
         stylePrimaryButton(exportStatementButton, new Color(37, 99, 235));
         stylePrimaryButton(exportSummaryButton, new Color(59, 130, 246));
         stylePrimaryButton(configureInstallmentsButton, new Color(249, 115, 22));
+        stylePrimaryButton(invoiceTermButton, new Color(124, 58, 237));
+        stylePrimaryButton(importStatementButton, new Color(13, 148, 136));
         stylePrimaryButton(refreshButton, new Color(107, 114, 128));
 
         paymentButton.setEnabled(false);
@@ -118,6 +129,8 @@ public class FeesPanel extends JPanel implements MaintenanceAware {
         controls.add(configureInstallmentsButton);
         controls.add(exportStatementButton);
         controls.add(exportSummaryButton);
+        controls.add(invoiceTermButton);
+        controls.add(importStatementButton);
         controls.add(refreshButton);
 
         JPanel summaryPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
@@ -164,6 +177,8 @@ public class FeesPanel extends JPanel implements MaintenanceAware {
         configureInstallmentsButton.addActionListener(e -> openInstallmentDialog());
         exportStatementButton.addActionListener(e -> exportStatement());
         exportSummaryButton.addActionListener(e -> exportSummary());
+        invoiceTermButton.addActionListener(e -> invoiceTerm());
+        importStatementButton.addActionListener(e -> importBankStatement());
         refreshButton.addActionListener(e -> loadFeesData());
     }
 
@@ -286,6 +301,103 @@ public class FeesPanel extends JPanel implements MaintenanceAware {
         }
     }
 
+    private void invoiceTerm() {
+        if (maintenanceMode) {
+            JOptionPane.showMessageDialog(this, "Changes are disabled during maintenance mode.");
+            return;
+        }
+        JPanel panel = new JPanel(new GridLayout(0, 2, 8, 8));
+        JTextField termCodeField = new JTextField();
+        JTextField termStartField = new JTextField(INPUT_DATE_FORMAT.format(LocalDate.now()));
+        panel.add(new JLabel("Term Code:"));
+        panel.add(termCodeField);
+        panel.add(new JLabel("Term Start (yyyy-MM-dd):"));
+        panel.add(termStartField);
+
+        int result = JOptionPane.showConfirmDialog(this, panel, "Invoice Term", JOptionPane.OK_CANCEL_OPTION);
+        if (result != JOptionPane.OK_OPTION) {
+            return;
+        }
+        try {
+            LocalDate termStart = LocalDate.parse(termStartField.getText().trim(), INPUT_DATE_FORMAT);
+            if (TermInvoicer.request("finance-panel", termCodeField.getText(), termStart)) {
+                JOptionPane.showMessageDialog(this,
+                        "Invoicing requested. Installment schedules will be generated in the background.");
+            } else {
+                JOptionPane.showMessageDialog(this, "This term has already been invoiced or is in progress.");
+            }
+        } catch (DateTimeParseException ex) {
+            JOptionPane.showMessageDialog(this, "Invalid date format.", "Error", JOptionPane.ERROR_MESSAGE);
+        } catch (Exception ex) {
+            JOptionPane.showMessageDialog(this, ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    /**
+     * Reconciles a bank statement on a worker thread; lines that could not be applied are written to a report
+     * next to the statement.
+     */
+    private void importBankStatement() {
+        if (maintenanceMode) {
+            JOptionPane.showMessageDialog(this, "Changes are disabled during maintenance mode.");
+            return;
+        }
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Select Bank Statement");
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        Path statement = chooser.getSelectedFile().toPath();
+        String name = statement.getFileName().toString();
+        String baseName = name.toLowerCase(Locale.ROOT).endsWith(".csv") ? name.substring(0, name.length() - 4) : name;
+        Path report = statement.resolveSibling(baseName + "-exceptions.csv");
+
+        importStatementButton.setEnabled(false);
+        setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        SwingWorker<PaymentReconciler.Summary, Long> worker = new SwingWorker<>() {
+            @Override
+            protected PaymentReconciler.Summary doInBackground() throws IOException {
+                return DatabaseUtil.reconcileBankStatement("finance-panel", statement, report, this::publish);
+            }
+
+            @Override
+            protected void process(List<Long> linesRead) {
+                // The totals label is repainted by loadFeesData() once the import finishes.
+                totalOutstandingLabel.setText(String.format(Locale.ENGLISH,
+                        "Importing bank statement: %,d line(s) read", linesRead.get(linesRead.size() - 1)));
+            }
+
+            @Override
+            protected void done() {
+                setCursor(Cursor.getDefaultCursor());
+                updateActionButtons();
+                loadFeesData();
+                try {
+                    PaymentReconciler.Summary summary = get();
+                    StringBuilder message = new StringBuilder(String.format(Locale.ENGLISH,
+                            "%d line(s) read, %d payment(s) applied totalling %s.",
+                            summary.getLines(), summary.getApplied(), formatCurrency(summary.getAppliedAmount())));
+                    if (summary.getExceptions() > 0) {
+                        summary.getIssues().forEach((issue, count) ->
+                                message.append("\n").append(issue).append(": ").append(count));
+                        message.append("\nExceptions written to ").append(report.toAbsolutePath());
+                    }
+                    JOptionPane.showMessageDialog(FeesPanel.this, message.toString(), "Bank Statement Imported",
+                            JOptionPane.INFORMATION_MESSAGE);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException ex) {
+                    JOptionPane.showMessageDialog(FeesPanel.this,
+                            "Unable to import bank statement: " + ex.getCause().getMessage()
+                                    + "\nPayments applied before the failure are kept; importing the statement "
+                                    + "again skips them as duplicates.",
+                            "Import Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        };
+        worker.execute();
+    }
+
     private void exportSummary() {
         JFileChooser chooser = new JFileChooser();
         chooser.setSelectedFile(new java.io.File("finance_summary.csv"));
@@ -535,5 +647,7 @@ public class FeesPanel extends JPanel implements MaintenanceAware {
         paymentButton.setEnabled(hasSelection && !maintenanceMode);
         configureInstallmentsButton.setEnabled(hasSelection && !maintenanceMode);
         exportStatementButton.setEnabled(hasSelection);
+        invoiceTermButton.setEnabled(!maintenanceMode);
+        importStatementButton.setEnabled(!maintenanceMode);
     }
 }
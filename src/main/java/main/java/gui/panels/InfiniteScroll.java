@@ -0,0 +1,32 @@
+package main.java.gui.panels;
+
+import javax.swing.BoundedRangeModel;
+import javax.swing.JScrollPane;
+import javax.swing.SwingUtilities;
+
+/**
+ * Asks a table for its next keyset page when its scroll pane nears the bottom, or while the loaded rows do
+ * not fill the viewport yet. The loader runs on the event thread after the current event, so it may append
+ * rows freely; it should do nothing once its source is exhausted.
+ */
+final class InfiniteScroll {
+    private static final int PREFETCH_PIXELS = 200;
+
+    private InfiniteScroll() {
+    }
+
+    static void install(JScrollPane scrollPane, Runnable loadNextPage) {
+        boolean[] pending = {false};
+        scrollPane.getVerticalScrollBar().addAdjustmentListener(e -> {
+            BoundedRangeModel range = scrollPane.getVerticalScrollBar().getModel();
+            if (pending[0] || range.getValue() + range.getExtent() < range.getMaximum() - PREFETCH_PIXELS) {
+                return;
+            }
+            pending[0] = true;
+            SwingUtilities.invokeLater(() -> {
+                pending[0] = false;
+                loadNextPage.run();
+            });
+        });
+    }
+}
@@ -1,5 +1,6 @@
 package main.java.gui.panels;
 
+import main.java.data.dao.KeysetCursor;
 import main.java.models.NotificationMessage;
 import main.java.utils.DatabaseUtil;
 import main.java.gui.panels.MaintenanceAware;
@@ -15,12 +16,16 @@ import java.util.List;
  */
 public class NotificationsPanel extends JPanel implements MaintenanceAware {
     private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    private static final int PAGE_SIZE = 100;
 
     private JComboBox<String> audienceFilter;
     private JTable notificationTable;
     private DefaultTableModel tableModel;
     private JButton broadcastButton;
     private boolean maintenanceMode;
+    private NotificationMessage.Audience currentAudience = NotificationMessage.Audience.ALL;
+    private KeysetCursor nextPage;
+    private boolean exhausted = true;
 
     public NotificationsPanel() {
         initializeComponents();
@@ -71,6 +76,7 @@ public class NotificationsPanel extends JPanel implements MaintenanceAware {
         header.add(controls, BorderLayout.EAST);
 
         JScrollPane tableScroll = new JScrollPane(notificationTable);
+        InfiniteScroll.install(tableScroll, this::loadNextPage);
 
         add(header, BorderLayout.NORTH);
         add(tableScroll, BorderLayout.CENTER);
@@ -99,8 +105,26 @@ public class NotificationsPanel extends JPanel implements MaintenanceAware {
                 break;
         }
 
-        List<NotificationMessage> notifications = DatabaseUtil.getNotifications(audience, null);
-        notifications.sort((a, b) -> b.getCreatedAt().compareTo(a.getCreatedAt()));
+        currentAudience = audience;
+        nextPage = null;
+        exhausted = false;
+        loadNextPage();
+    }
+
+    /**
+     * Appends the next keyset page; only the rows that are scrolled to are ever read.
+     */
+    private void loadNextPage() {
+        if (exhausted) {
+            return;
+        }
+        List<NotificationMessage> notifications =
+                DatabaseUtil.getNotificationsPage(currentAudience, null, nextPage, PAGE_SIZE);
+        exhausted = notifications.size() < PAGE_SIZE;
+        if (!notifications.isEmpty()) {
+            NotificationMessage last = notifications.get(notifications.size() - 1);
+            nextPage = new KeysetCursor(last.getCreatedAt(), last.getId());
+        }
         for (NotificationMessage message : notifications) {
             tableModel.addRow(new Object[]{
                     message.getCreatedAt().format(FORMATTER),
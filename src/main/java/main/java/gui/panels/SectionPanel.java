@@ -1,5 +1,6 @@
 package main.java.gui.panels;
 
+import main.java.data.dao.StaleDataException;
 import main.java.gui.dialogs.SectionDialog;
 import main.java.models.Course;
 import main.java.models.Faculty;
@@ -33,6 +34,7 @@ public class SectionPanel extends JPanel implements MaintenanceAware {
     private JButton editButton;
     private JButton deleteButton;
     private JButton assignButton;
+    private JButton promoteButton;
     private JButton refreshButton;
     private final User adminUser;
     private boolean maintenanceMode;
@@ -82,11 +84,13 @@ public class SectionPanel extends JPanel implements MaintenanceAware {
         editButton = createButton("Edit Section", new Color(37, 99, 235));
         deleteButton = createButton("Delete Section", new Color(220, 38, 38));
         assignButton = createButton("Assign Instructor", new Color(8, 145, 178));
+        promoteButton = createButton("Promote Waitlist", new Color(124, 58, 237));
         refreshButton = createButton("Refresh", new Color(107, 114, 128));
 
         editButton.setEnabled(false);
         deleteButton.setEnabled(false);
         assignButton.setEnabled(false);
+        promoteButton.setEnabled(false);
     }
 
     private JButton createButton(String text, Color color) {
@@ -119,6 +123,7 @@ public class SectionPanel extends JPanel implements MaintenanceAware {
         buttonPanel.add(editButton);
         buttonPanel.add(deleteButton);
         buttonPanel.add(assignButton);
+        buttonPanel.add(promoteButton);
         buttonPanel.add(Box.createHorizontalStrut(20));
         buttonPanel.add(refreshButton);
 
@@ -197,6 +202,29 @@ public class SectionPanel extends JPanel implements MaintenanceAware {
         }
     }
 
+    private void promoteWaitlist() {
+        if (maintenanceMode) {
+            JOptionPane.showMessageDialog(this, "Changes are disabled during maintenance mode.");
+            return;
+        }
+        int viewRow = sectionTable.getSelectedRow();
+        if (viewRow == -1) {
+            JOptionPane.showMessageDialog(this, "Select a section first.");
+            return;
+        }
+        String sectionId = (String) tableModel.getValueAt(sectionTable.convertRowIndexToModel(viewRow), 0);
+        try {
+            String actor = adminUser != null ? adminUser.getUsername() : "system";
+            List<String> promoted = DatabaseUtil.promoteWaitlist(actor, sectionId);
+            loadData();
+            JOptionPane.showMessageDialog(this, promoted.isEmpty()
+                    ? "No seats could be filled from the waitlist."
+                    : "Enrolled from waitlist: " + String.join(", ", promoted));
+        } catch (Exception ex) {
+            JOptionPane.showMessageDialog(this, ex.getMessage(), "Promotion Failed", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
     private void setupHandlers() {
         sectionTable.getSelectionModel().addListSelectionListener(e -> {
             if (!e.getValueIsAdjusting()) {
@@ -210,6 +238,7 @@ public class SectionPanel extends JPanel implements MaintenanceAware {
         editButton.addActionListener(e -> editSection());
         deleteButton.addActionListener(e -> deleteSection());
         assignButton.addActionListener(e -> assignInstructor());
+        promoteButton.addActionListener(e -> promoteWaitlist());
         refreshButton.addActionListener(e -> loadData());
     }
 
@@ -217,6 +246,8 @@ public class SectionPanel extends JPanel implements MaintenanceAware {
         tableModel.setRowCount(0);
 
         Collection<Section> sections = DatabaseUtil.getAllSections();
+        Map<String, Double> attendance = DatabaseUtil.getAverageAttendanceForSections(
+                sections.stream().map(Section::getSectionId).collect(Collectors.toList()));
         for (Section section : sections) {
             Course course = DatabaseUtil.getCourse(section.getCourseId());
             Faculty faculty = DatabaseUtil.getFaculty(section.getFacultyId());
@@ -242,7 +273,7 @@ public class SectionPanel extends JPanel implements MaintenanceAware {
                 section.getCapacity(),
                 section.getEnrolledStudentIds().size(),
                 section.getWaitlistedStudentIds().size(),
-                String.format("%.0f%%", DatabaseUtil.getAverageAttendanceForSection(section.getSectionId()))
+                String.format("%.0f%%", attendance.getOrDefault(section.getSectionId(), 100.0))
             };
             tableModel.addRow(row);
         }
@@ -306,7 +337,13 @@ public class SectionPanel extends JPanel implements MaintenanceAware {
         dialog.setVisible(true);
 
         if (dialog.isConfirmed()) {
-            DatabaseUtil.updateSection(dialog.getSection());
+            try {
+                DatabaseUtil.updateSection(dialog.getSection());
+            } catch (StaleDataException ex) {
+                loadData();
+                JOptionPane.showMessageDialog(this, ex.getMessage(), "Edit conflict", JOptionPane.WARNING_MESSAGE);
+                return;
+            }
             loadData();
             JOptionPane.showMessageDialog(this, "Section updated successfully.");
         }
@@ -352,5 +389,6 @@ public class SectionPanel extends JPanel implements MaintenanceAware {
         editButton.setEnabled(allowMutations);
         deleteButton.setEnabled(allowMutations);
         assignButton.setEnabled(allowMutations);
+        promoteButton.setEnabled(allowMutations);
     }
 }
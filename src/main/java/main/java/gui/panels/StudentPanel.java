@@ -1,5 +1,6 @@
 package main.java.gui.panels;
 
+import main.java.data.dao.StaleDataException;
 import main.java.models.Student;
 import main.java.models.User;
 import main.java.utils.DatabaseUtil;
@@ -297,7 +298,13 @@ public class StudentPanel extends JPanel implements MaintenanceAware {
                             JOptionPane.ERROR_MESSAGE);
                     return;
                 }
-                DatabaseUtil.updateStudent(updatedStudent);
+                try {
+                    DatabaseUtil.updateStudent(updatedStudent);
+                } catch (StaleDataException ex) {
+                    loadStudentData();
+                    JOptionPane.showMessageDialog(this, ex.getMessage(), "Edit conflict", JOptionPane.WARNING_MESSAGE);
+                    return;
+                }
                 loadStudentData();
                 JOptionPane.showMessageDialog(this, "Student updated successfully!");
             }
@@ -1,5 +1,6 @@
 package main.java.gui.panels;
 
+import main.java.data.dao.KeysetCursor;
 import main.java.models.Course;
 import main.java.models.EnrollmentRecord;
 import main.java.models.Faculty;
@@ -9,9 +10,12 @@ import main.java.models.FeeInstallment;
 import main.java.models.PaymentTransaction;
 import main.java.models.User;
 import main.java.models.NotificationMessage;
+import main.java.models.SectionEligibility;
 import main.java.service.EnrollmentService;
+import main.java.service.RegistrationQueue;
 import main.java.service.StudentService;
 import main.java.utils.DatabaseUtil;
+import main.java.utils.EligibilityEngine;
 import main.java.gui.dialogs.ChangePasswordDialog;
 
 import javax.swing.*;
@@ -37,6 +41,8 @@ import java.util.Map;
 import java.time.Instant;
 import java.time.ZoneOffset;
 import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.common.PDRectangle;
@@ -50,6 +56,7 @@ public class StudentSelfServicePanel extends JPanel {
     private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("HH:mm");
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd MMM yyyy");
     private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("dd MMM yyyy HH:mm");
+    private static final int NOTIFICATION_PAGE_SIZE = 100;
 
     private final User currentUser;
     private Student studentProfile;
@@ -100,6 +107,8 @@ public class StudentSelfServicePanel extends JPanel {
     private final JButton markUnreadButton;
     private final JButton refreshNotificationsButton;
     private List<NotificationMessage> notificationsCache = new ArrayList<>();
+    private KeysetCursor nextNotificationPage;
+    private boolean notificationsExhausted = true;
     private final List<NotificationMessage> filteredNotifications = new ArrayList<>();
     private FeeInstallment nextDueInstallment;
 
@@ -405,7 +414,9 @@ public class StudentSelfServicePanel extends JPanel {
         controls.add(markUnreadButton);
         controls.add(refreshNotificationsButton);
         panel.add(controls, BorderLayout.NORTH);
-        panel.add(new JScrollPane(notificationsTable), BorderLayout.CENTER);
+        JScrollPane scroll = new JScrollPane(notificationsTable);
+        InfiniteScroll.install(scroll, this::loadNotificationPage);
+        panel.add(scroll, BorderLayout.CENTER);
         return panel;
     }
 
@@ -538,6 +549,7 @@ public class StudentSelfServicePanel extends JPanel {
             updateSummary();
             updateFinanceSummary();
             notificationsCache = new ArrayList<>();
+            notificationsExhausted = true;
             notificationCategoryFilter.setModel(new DefaultComboBoxModel<>(new String[]{"All"}));
             unreadOnlyCheck.setSelected(false);
             updateNotificationActions();
@@ -576,6 +588,11 @@ public class StudentSelfServicePanel extends JPanel {
         String search = catalogSearchField.getText().trim().toLowerCase(Locale.ENGLISH);
         DayOfWeek selectedDay = resolveSelectedDay();
         boolean onlyOpen = openOnlyCheck.isSelected();
+        Map<String, SectionEligibility> eligibility =
+                EligibilityEngine.evaluate(studentProfile.getStudentId(), catalogSections);
+        Map<String, Integer> waitlistPositions = enrollmentStatusBySection.containsValue(EnrollmentRecord.Status.WAITLISTED)
+                ? DatabaseUtil.getWaitlistPositions(studentProfile.getStudentId())
+                : Collections.emptyMap();
 
         for (Section section : catalogSections) {
             if (selectedDay != null && section.getDayOfWeek() != selectedDay) {
@@ -602,15 +619,25 @@ public class StudentSelfServicePanel extends JPanel {
             }
 
             List<String> prereqs = DatabaseUtil.getCoursePrerequisites(section.getCourseId());
-            List<String> missing = DatabaseUtil.getMissingPrerequisites(studentProfile.getStudentId(), section.getCourseId());
+            SectionEligibility.Status eligibilityStatus = eligibility.get(section.getSectionId()).getStatus();
+            List<String> missing = eligibility.get(section.getSectionId()).getMissingPrerequisites();
 
             String statusText;
             if (status == EnrollmentRecord.Status.ENROLLED) {
                 statusText = "Enrolled";
             } else if (status == EnrollmentRecord.Status.WAITLISTED) {
-                statusText = "Waitlisted";
-            } else if (!missing.isEmpty()) {
+                Integer position = waitlistPositions.get(section.getSectionId());
+                statusText = position != null ? "Waitlisted (#" + position + ")" : "Waitlisted";
+            } else if (eligibilityStatus == SectionEligibility.Status.MISSING_PREREQUISITES) {
                 statusText = "Blocked (prereqs)";
+            } else if (eligibilityStatus == SectionEligibility.Status.MISSING_COREQUISITES) {
+                statusText = "Needs co-requisite";
+            } else if (eligibilityStatus == SectionEligibility.Status.ANTIREQUISITE_CONFLICT) {
+                statusText = "Excluded (anti-requisite)";
+            } else if (eligibilityStatus == SectionEligibility.Status.SCHEDULE_CONFLICT) {
+                statusText = "Time clash";
+            } else if (eligibilityStatus == SectionEligibility.Status.CREDIT_LIMIT) {
+                statusText = "Over credit cap";
             } else if (sectionFull) {
                 statusText = "Full";
             } else {
@@ -753,6 +780,9 @@ public class StudentSelfServicePanel extends JPanel {
     private void populateNotifications() {
         notificationsModel.setRowCount(0);
         filteredNotifications.clear();
+        notificationsCache = new ArrayList<>();
+        nextNotificationPage = null;
+        notificationsExhausted = studentProfile == null;
         if (studentProfile == null) {
             notificationCategoryFilter.setModel(new DefaultComboBoxModel<>(new String[]{"All"}));
             unreadOnlyCheck.setSelected(false);
@@ -760,7 +790,7 @@ public class StudentSelfServicePanel extends JPanel {
             return;
         }
         String previousSelection = (String) notificationCategoryFilter.getSelectedItem();
-        notificationsCache = DatabaseUtil.getNotificationsForStudent(studentProfile.getStudentId());
+        fetchNotificationPage();
         LinkedHashSet<String> categories = new LinkedHashSet<>();
         categories.add("All");
         for (NotificationMessage message : notificationsCache) {
@@ -776,20 +806,54 @@ public class StudentSelfServicePanel extends JPanel {
         applyNotificationFilters();
     }
 
+    /**
+     * Appends the next keyset page when the table is scrolled to its end. Filters apply to the rows loaded so
+     * far; categories first seen on this page are added to the filter without changing the selection.
+     */
+    private void loadNotificationPage() {
+        if (notificationsExhausted) {
+            return;
+        }
+        List<NotificationMessage> page = fetchNotificationPage();
+        DefaultComboBoxModel<String> categories =
+                (DefaultComboBoxModel<String>) notificationCategoryFilter.getModel();
+        for (NotificationMessage message : page) {
+            String category = normalizeCategory(message.getCategory());
+            if (categories.getIndexOf(category) < 0) {
+                categories.addElement(category);
+            }
+        }
+        appendNotificationRows(page);
+        updateNotificationActions();
+    }
+
+    private List<NotificationMessage> fetchNotificationPage() {
+        List<NotificationMessage> page = DatabaseUtil.getNotificationsForStudentPage(
+                studentProfile.getStudentId(), nextNotificationPage, NOTIFICATION_PAGE_SIZE);
+        notificationsExhausted = page.size() < NOTIFICATION_PAGE_SIZE;
+        if (!page.isEmpty()) {
+            NotificationMessage last = page.get(page.size() - 1);
+            nextNotificationPage = new KeysetCursor(last.getCreatedAt(), last.getId());
+        }
+        notificationsCache.addAll(page);
+        return page;
+    }
+
     private void applyNotificationFilters() {
         notificationsModel.setRowCount(0);
         filteredNotifications.clear();
         notificationsTable.clearSelection();
-        if (notificationsCache.isEmpty()) {
-            updateNotificationActions();
-            return;
-        }
+        appendNotificationRows(notificationsCache);
+        updateNotificationActions();
+    }
+
+    private void appendNotificationRows(List<NotificationMessage> messages) {
         String selectedCategory = (String) notificationCategoryFilter.getSelectedItem();
         if (selectedCategory == null) {
             selectedCategory = "All";
         }
         boolean unreadOnly = unreadOnlyCheck.isSelected();
-        for (NotificationMessage message : notificationsCache) {
+        for (NotificationMessage message : messages) {
             String category = normalizeCategory(message.getCategory());
             if (!"All".equalsIgnoreCase(selectedCategory) && !category.equalsIgnoreCase(selectedCategory)) {
                 continue;
@@ -805,7 +869,6 @@ public class StudentSelfServicePanel extends JPanel {
                     message.getMessage()
             });
         }
-        updateNotificationActions();
     }
 
     private void updateNotificationActions() {
@@ -1023,13 +1086,46 @@ public class StudentSelfServicePanel extends JPanel {
         }
         int modelRow = catalogTable.convertRowIndexToModel(row);
         String sectionId = (String) catalogModel.getValueAt(modelRow, 0);
+        RegistrationQueue.Ticket ticket;
         try {
-            EnrollmentService.registerSection(currentUser, studentProfile.getStudentId(), sectionId);
-            JOptionPane.showMessageDialog(this, "Registration request processed.");
-            refreshProfile();
+            ticket = RegistrationQueue.submit(currentUser, studentProfile.getStudentId(), sectionId);
         } catch (Exception ex) {
             JOptionPane.showMessageDialog(this, ex.getMessage(), "Unable to register", JOptionPane.ERROR_MESSAGE);
+            return;
         }
+        registerButton.setEnabled(false);
+        Timer positionTimer = new Timer(500, e -> showQueuePosition(ticket));
+        showQueuePosition(ticket);
+        positionTimer.start();
+        ticket.result().whenComplete((record, error) -> SwingUtilities.invokeLater(() -> {
+            positionTimer.stop();
+            if (error == null) {
+                JOptionPane.showMessageDialog(this, "Registration request processed.");
+            } else {
+                JOptionPane.showMessageDialog(this, unwrap(error).getMessage(), "Unable to register",
+                        JOptionPane.ERROR_MESSAGE);
+            }
+            refreshProfile();
+        }));
+    }
+
+    /**
+     * The exception the registration itself threw, so queued requests report the same message as a direct call.
+     */
+    private static Throwable unwrap(Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    private void showQueuePosition(RegistrationQueue.Ticket ticket) {
+        int position = ticket.position();
+        catalogAdvisoryLabel.setText(position > 0
+                ? "Registration queued for " + ticket.getSectionId() + " - position " + position + "."
+                : "Processing registration for " + ticket.getSectionId() + "...");
     }
 
     private void performDrop() {
@@ -1072,7 +1168,10 @@ public class StudentSelfServicePanel extends JPanel {
         if (status == EnrollmentRecord.Status.ENROLLED || status == EnrollmentRecord.Status.WAITLISTED) {
             dropButton.setEnabled(true);
             if (status == EnrollmentRecord.Status.WAITLISTED) {
-                warnings.add("You are currently waitlisted for this section.");
+                int position = DatabaseUtil.getWaitlistPosition(studentProfile.getStudentId(), sectionId);
+                warnings.add(position > 0
+                        ? "You are #" + position + " on the waitlist for this section."
+                        : "You are currently waitlisted for this section.");
             } else {
                 warnings.add("Already enrolled in this section.");
             }
@@ -1086,13 +1185,30 @@ public class StudentSelfServicePanel extends JPanel {
                 canRegister = false;
             }
 
-            List<String> missing = DatabaseUtil.getMissingPrerequisites(studentProfile.getStudentId(), section.getCourseId());
+            SectionEligibility eligibility = EligibilityEngine.evaluate(studentProfile.getStudentId(),
+                    Collections.singletonList(section)).get(sectionId);
+            List<String> missing = eligibility.getMissingPrerequisites();
             if (!missing.isEmpty()) {
                 warnings.add("Missing prerequisites: " + String.join(", ", missing));
                 canRegister = false;
             }
 
-            int projectedCredits = calculateProjectedCredits(section);
+            if (eligibility.getStatus() == SectionEligibility.Status.MISSING_COREQUISITES) {
+                warnings.add("Co-requisites required: "
+                        + String.join(", ", DatabaseUtil.getCourseCorequisites(section.getCourseId())) + ".");
+                canRegister = false;
+            } else if (eligibility.getStatus() == SectionEligibility.Status.ANTIREQUISITE_CONFLICT) {
+                warnings.add("Cannot be taken together with "
+                        + String.join(", ", DatabaseUtil.getCourseAntirequisites(section.getCourseId())) + ".");
+                canRegister = false;
+            }
+
+            if (eligibility.getStatus() == SectionEligibility.Status.SCHEDULE_CONFLICT) {
+                warnings.add("Clashes with a section in your timetable.");
+                canRegister = false;
+            }
+
+            int projectedCredits = eligibility.getProjectedCredits();
             if (projectedCredits > DatabaseUtil.getMaxTermCredits()) {
                 warnings.add("Credit load would exceed " + DatabaseUtil.getMaxTermCredits() + " hours.");
                 canRegister = false;
@@ -1109,19 +1225,6 @@ public class StudentSelfServicePanel extends JPanel {
         }
     }
 
-    private int calculateProjectedCredits(Section target) {
-        int currentCredits = 0;
-        for (Section enrolled : DatabaseUtil.getScheduleForStudent(studentProfile.getStudentId())) {
-            Course enrolledCourse = DatabaseUtil.getCourse(enrolled.getCourseId());
-            currentCredits += enrolledCourse != null ? Math.max(1, enrolledCourse.getCreditHours()) : 3;
-        }
-        if (target != null) {
-            Course targetCourse = DatabaseUtil.getCourse(target.getCourseId());
-            currentCredits += targetCourse != null ? Math.max(1, targetCourse.getCreditHours()) : 3;
-        }
-        return currentCredits;
-    }
-
     private void exportSchedulePdf() {
         if (studentProfile == null) {
             JOptionPane.showMessageDialog(this, "Student profile unavailable.");
@@ -2,12 +2,27 @@ package main.java.models;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Course model class representing course information
  */
 public class Course implements java.io.Serializable {
     private static final long serialVersionUID = 1L;
+
+    /**
+     * Fields persisted by the DAO update, tracked by {@link #getChangedFields()}.
+     */
+    public enum Field {
+        COURSE_NAME,
+        DEPARTMENT,
+        DURATION,
+        FEES,
+        DESCRIPTION,
+        TOTAL_SEATS,
+        CREDIT_HOURS
+    }
+
     private String courseId;
     private String courseName;
     private String department;
@@ -19,6 +34,8 @@ public class Course implements java.io.Serializable {
     private int availableSeats;
     private String status;
     private int creditHours;
+    private long version;
+    private transient FieldChanges<Field> changes;
     
     public Course() {
         this.subjects = new ArrayList<>();
@@ -45,25 +62,41 @@ public class Course implements java.io.Serializable {
     public void setCourseId(String courseId) { this.courseId = courseId; }
     
     public String getCourseName() { return courseName; }
-    public void setCourseName(String courseName) { this.courseName = courseName; }
+    public void setCourseName(String courseName) {
+        changes().record(Field.COURSE_NAME, this.courseName, courseName);
+        this.courseName = courseName;
+    }
     
     public String getDepartment() { return department; }
-    public void setDepartment(String department) { this.department = department; }
+    public void setDepartment(String department) {
+        changes().record(Field.DEPARTMENT, this.department, department);
+        this.department = department;
+    }
     
     public int getDuration() { return duration; }
-    public void setDuration(int duration) { this.duration = duration; }
+    public void setDuration(int duration) {
+        changes().record(Field.DURATION, this.duration, duration);
+        this.duration = duration;
+    }
     
     public double getFees() { return fees; }
-    public void setFees(double fees) { this.fees = fees; }
+    public void setFees(double fees) {
+        changes().record(Field.FEES, this.fees, fees);
+        this.fees = fees;
+    }
     
     public String getDescription() { return description; }
-    public void setDescription(String description) { this.description = description; }
+    public void setDescription(String description) {
+        changes().record(Field.DESCRIPTION, this.description, description);
+        this.description = description;
+    }
     
     public List<String> getSubjects() { return subjects; }
     public void setSubjects(List<String> subjects) { this.subjects = subjects; }
     
     public int getTotalSeats() { return totalSeats; }
     public void setTotalSeats(int totalSeats) {
+        changes().record(Field.TOTAL_SEATS, this.totalSeats, totalSeats);
         this.totalSeats = totalSeats;
         if (this.availableSeats > totalSeats) {
             this.availableSeats = totalSeats;
@@ -79,5 +112,30 @@ public class Course implements java.io.Serializable {
     public int getEnrolledStudents() { return totalSeats - availableSeats; }
 
     public int getCreditHours() { return creditHours; }
-    public void setCreditHours(int creditHours) { this.creditHours = creditHours; }
+    public void setCreditHours(int creditHours) {
+        changes().record(Field.CREDIT_HOURS, this.creditHours, creditHours);
+        this.creditHours = creditHours;
+    }
+
+    /**
+     * Persisted fields changed since this instance was loaded or last saved.
+     */
+    public Set<Field> getChangedFields() {
+        return changes().snapshot();
+    }
+
+    public void markClean() {
+        changes().clear();
+    }
+
+    private FieldChanges<Field> changes() {
+        if (changes == null) {
+            changes = new FieldChanges<>(Field.class);
+        }
+        return changes;
+    }
+
+    // Row version read from the database; updates only apply while it still matches.
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
 }
@@ -0,0 +1,64 @@
+package main.java.models;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * One edge of the course requirement graph: {@code courseId} requires, needs alongside, or excludes
+ * {@code relatedCourseId}.
+ */
+public class CourseRequirement implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public enum Kind {
+        PREREQUISITE,
+        COREQUISITE,
+        ANTIREQUISITE
+    }
+
+    private final Kind kind;
+    private final String courseId;
+    private final String relatedCourseId;
+
+    public CourseRequirement(Kind kind, String courseId, String relatedCourseId) {
+        this.kind = Objects.requireNonNull(kind, "kind");
+        this.courseId = courseId;
+        this.relatedCourseId = relatedCourseId;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public String getCourseId() {
+        return courseId;
+    }
+
+    public String getRelatedCourseId() {
+        return relatedCourseId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CourseRequirement)) {
+            return false;
+        }
+        CourseRequirement that = (CourseRequirement) o;
+        return kind == that.kind
+                && Objects.equals(courseId, that.courseId)
+                && Objects.equals(relatedCourseId, that.relatedCourseId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(kind, courseId, relatedCourseId);
+    }
+
+    @Override
+    public String toString() {
+        return courseId + " " + kind + " " + relatedCourseId;
+    }
+}
@@ -25,6 +25,7 @@ public class EnrollmentRecord implements Serializable {
     private Map<String, Double> componentScores;
     private double finalGrade;
     private Map<String, Double> weighting;
+    private long version;
 
     public EnrollmentRecord() {
         this.componentScores = new LinkedHashMap<>();
@@ -104,4 +105,15 @@ public class EnrollmentRecord implements Serializable {
         this.weighting = new LinkedHashMap<>(weighting);
         this.updatedAt = LocalDateTime.now();
     }
+
+    /**
+     * Row version read from the database; updates only apply while it still matches.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
 }
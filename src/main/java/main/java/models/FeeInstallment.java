@@ -3,6 +3,7 @@ package main.java.models;
 import java.io.Serializable;
 import java.time.LocalDate;
 import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
 
 /**
@@ -11,6 +12,19 @@ import java.util.UUID;
 public class FeeInstallment implements Serializable {
     private static final long serialVersionUID = 1L;
 
+    /**
+     * Fields persisted by the DAO update, tracked by {@link #getChangedFields()}.
+     */
+    public enum Field {
+        STUDENT_ID,
+        DUE_DATE,
+        AMOUNT,
+        STATUS,
+        DESCRIPTION,
+        PAID_ON,
+        LAST_REMINDER_SENT
+    }
+
     public enum Status {
         DUE,
         PAID,
@@ -25,6 +39,8 @@ public class FeeInstallment implements Serializable {
     private String description;
     private LocalDate paidOn;
     private LocalDate lastReminderSent;
+    private long version;
+    private transient FieldChanges<Field> changes;
 
     public FeeInstallment() {
         this(UUID.randomUUID().toString());
@@ -65,6 +81,8 @@ public class FeeInstallment implements Serializable {
         copy.description = source.description;
         copy.paidOn = source.paidOn;
         copy.lastReminderSent = source.lastReminderSent;
+        copy.version = source.version;
+        copy.changes = source.changes != null ? source.changes.copy() : null;
         return copy;
     }
 
@@ -81,6 +99,7 @@ public class FeeInstallment implements Serializable {
     }
 
     public void setStudentId(String studentId) {
+        changes().record(Field.STUDENT_ID, this.studentId, studentId);
         this.studentId = studentId;
     }
 
@@ -89,6 +108,7 @@ public class FeeInstallment implements Serializable {
     }
 
     public void setDueDate(LocalDate dueDate) {
+        changes().record(Field.DUE_DATE, this.dueDate, dueDate);
         this.dueDate = dueDate;
     }
 
@@ -97,6 +117,7 @@ public class FeeInstallment implements Serializable {
     }
 
     public void setAmount(double amount) {
+        changes().record(Field.AMOUNT, this.amount, amount);
         this.amount = amount;
     }
 
@@ -105,6 +126,7 @@ public class FeeInstallment implements Serializable {
     }
 
     public void setStatus(Status status) {
+        changes().record(Field.STATUS, this.status, status);
         this.status = status;
     }
 
@@ -113,6 +135,7 @@ public class FeeInstallment implements Serializable {
     }
 
     public void setDescription(String description) {
+        changes().record(Field.DESCRIPTION, this.description, description);
         this.description = description;
     }
 
@@ -121,6 +144,7 @@ public class FeeInstallment implements Serializable {
     }
 
     public void setPaidOn(LocalDate paidOn) {
+        changes().record(Field.PAID_ON, this.paidOn, paidOn);
         this.paidOn = paidOn;
     }
 
@@ -129,9 +153,39 @@ public class FeeInstallment implements Serializable {
     }
 
     public void setLastReminderSent(LocalDate lastReminderSent) {
+        changes().record(Field.LAST_REMINDER_SENT, this.lastReminderSent, lastReminderSent);
         this.lastReminderSent = lastReminderSent;
     }
 
+    /**
+     * Persisted fields changed since this instance was loaded or last saved.
+     */
+    public Set<Field> getChangedFields() {
+        return changes().snapshot();
+    }
+
+    public void markClean() {
+        changes().clear();
+    }
+
+    private FieldChanges<Field> changes() {
+        if (changes == null) {
+            changes = new FieldChanges<>(Field.class);
+        }
+        return changes;
+    }
+
+    /**
+     * Row version read from the database; updates only apply while it still matches.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     public boolean isOverdue(LocalDate today) {
         return status != Status.PAID && dueDate != null && dueDate.isBefore(today);
     }
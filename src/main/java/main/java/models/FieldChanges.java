@@ -0,0 +1,44 @@
+package main.java.models;
+
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Persistent fields changed on a model since it was loaded or last saved, so DAOs can update only those
+ * columns. Until {@link #clear()} is first called, i.e. for a model built by hand or read from a legacy file
+ * rather than loaded by a DAO, every field counts as changed.
+ */
+public final class FieldChanges<F extends Enum<F>> {
+    private final Class<F> type;
+    private EnumSet<F> changed;
+
+    public FieldChanges(Class<F> type) {
+        this.type = type;
+    }
+
+    public void record(F field, Object before, Object after) {
+        if (changed != null && !Objects.equals(before, after)) {
+            changed.add(field);
+        }
+    }
+
+    /**
+     * Snapshot of the changed fields, in declaration order.
+     */
+    public Set<F> snapshot() {
+        return changed == null ? EnumSet.allOf(type) : EnumSet.copyOf(changed);
+    }
+
+    public void clear() {
+        changed = EnumSet.noneOf(type);
+    }
+
+    public FieldChanges<F> copy() {
+        FieldChanges<F> copy = new FieldChanges<>(type);
+        if (changed != null) {
+            copy.changed = EnumSet.copyOf(changed);
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,73 @@
+package main.java.models;
+
+import java.io.Serializable;
+
+/**
+ * Result of a single {@link RegistrationRequest} within a bulk registration.
+ */
+public class RegistrationOutcome implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public enum Status {
+        ENROLLED,
+        WAITLISTED,
+        REJECTED
+    }
+
+    private final RegistrationRequest request;
+    private final Status status;
+    private final String message;
+    private final int waitlistPosition;
+
+    private RegistrationOutcome(RegistrationRequest request, Status status, String message, int waitlistPosition) {
+        this.request = request;
+        this.status = status;
+        this.message = message;
+        this.waitlistPosition = waitlistPosition;
+    }
+
+    public static RegistrationOutcome enrolled(RegistrationRequest request) {
+        return new RegistrationOutcome(request, Status.ENROLLED, "Enrolled", 0);
+    }
+
+    public static RegistrationOutcome waitlisted(RegistrationRequest request, int position) {
+        return new RegistrationOutcome(request, Status.WAITLISTED, "Waitlisted at position " + position, position);
+    }
+
+    public static RegistrationOutcome rejected(RegistrationRequest request, String reason) {
+        return new RegistrationOutcome(request, Status.REJECTED, reason, 0);
+    }
+
+    public RegistrationRequest getRequest() {
+        return request;
+    }
+
+    public String getStudentId() {
+        return request.getStudentId();
+    }
+
+    public String getSectionId() {
+        return request.getSectionId();
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean isAccepted() {
+        return status != Status.REJECTED;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public int getWaitlistPosition() {
+        return waitlistPosition;
+    }
+
+    @Override
+    public String toString() {
+        return request + ": " + status + " (" + message + ")";
+    }
+}
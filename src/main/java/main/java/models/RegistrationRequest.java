@@ -0,0 +1,49 @@
+package main.java.models;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * One row of a bulk registration: place a student into a section.
+ */
+public class RegistrationRequest implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final String studentId;
+    private final String sectionId;
+
+    public RegistrationRequest(String studentId, String sectionId) {
+        this.studentId = studentId;
+        this.sectionId = sectionId;
+    }
+
+    public String getStudentId() {
+        return studentId;
+    }
+
+    public String getSectionId() {
+        return sectionId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof RegistrationRequest)) {
+            return false;
+        }
+        RegistrationRequest that = (RegistrationRequest) o;
+        return Objects.equals(studentId, that.studentId) && Objects.equals(sectionId, that.sectionId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(studentId, sectionId);
+    }
+
+    @Override
+    public String toString() {
+        return studentId + " -> " + sectionId;
+    }
+}
@@ -4,11 +4,12 @@ import java.io.Serializable;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalTime;
-import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Represents a scheduled teaching section of a course.
@@ -16,6 +17,24 @@ import java.util.Objects;
 public class Section implements Serializable {
     private static final long serialVersionUID = 1L;
 
+    /**
+     * Fields persisted by the DAO update, tracked by {@link #getChangedFields()}.
+     */
+    public enum Field {
+        COURSE_ID,
+        TITLE,
+        FACULTY_ID,
+        DAY_OF_WEEK,
+        START_TIME,
+        END_TIME,
+        LOCATION,
+        CAPACITY,
+        ENROLLMENT_DEADLINE,
+        DROP_DEADLINE,
+        SEMESTER,
+        YEAR
+    }
+
     private String sectionId;
     private String courseId;
     private String title;
@@ -29,14 +48,16 @@ public class Section implements Serializable {
     private LocalDate dropDeadline;
     private String semester;
     private int year;
+    private long version;
+    private transient FieldChanges<Field> changes;
 
     private final List<String> enrolledStudentIds;
     private final List<String> waitlistedStudentIds;
     private final Map<String, Double> assessmentWeights;
 
     public Section() {
-        this.enrolledStudentIds = new ArrayList<>();
-        this.waitlistedStudentIds = new ArrayList<>();
+        this.enrolledStudentIds = new CopyOnWriteArrayList<>();
+        this.waitlistedStudentIds = new CopyOnWriteArrayList<>();
         this.assessmentWeights = new LinkedHashMap<>();
     }
 
@@ -56,8 +77,8 @@ public class Section implements Serializable {
         this.dropDeadline = LocalDate.now().plusDays(28);
         this.semester = "Fall";
         this.year = LocalDate.now().getYear();
-        this.enrolledStudentIds = new ArrayList<>();
-        this.waitlistedStudentIds = new ArrayList<>();
+        this.enrolledStudentIds = new CopyOnWriteArrayList<>();
+        this.waitlistedStudentIds = new CopyOnWriteArrayList<>();
         this.assessmentWeights = new LinkedHashMap<>();
     }
 
@@ -74,6 +95,7 @@ public class Section implements Serializable {
     }
 
     public void setCourseId(String courseId) {
+        changes().record(Field.COURSE_ID, this.courseId, courseId);
         this.courseId = courseId;
     }
 
@@ -82,6 +104,7 @@ public class Section implements Serializable {
     }
 
     public void setTitle(String title) {
+        changes().record(Field.TITLE, this.title, title);
         this.title = title;
     }
 
@@ -90,6 +113,7 @@ public class Section implements Serializable {
     }
 
     public void setFacultyId(String facultyId) {
+       changes().record(Field.FACULTY_ID, this.facultyId, facultyId);
        this.facultyId = facultyId;
     }
 
@@ -98,6 +122,7 @@ public class Section implements Serializable {
     }
 
     public void setDayOfWeek(DayOfWeek dayOfWeek) {
+        changes().record(Field.DAY_OF_WEEK, this.dayOfWeek, dayOfWeek);
         this.dayOfWeek = dayOfWeek;
     }
 
@@ -106,6 +131,7 @@ public class Section implements Serializable {
     }
 
     public void setStartTime(LocalTime startTime) {
+        changes().record(Field.START_TIME, this.startTime, startTime);
         this.startTime = startTime;
     }
 
@@ -114,6 +140,7 @@ public class Section implements Serializable {
     }
 
     public void setEndTime(LocalTime endTime) {
+        changes().record(Field.END_TIME, this.endTime, endTime);
         this.endTime = endTime;
     }
 
@@ -122,6 +149,7 @@ public class Section implements Serializable {
     }
 
     public void setLocation(String location) {
+        changes().record(Field.LOCATION, this.location, location);
         this.location = location;
     }
 
@@ -130,6 +158,7 @@ public class Section implements Serializable {
     }
 
     public void setCapacity(int capacity) {
+        changes().record(Field.CAPACITY, this.capacity, capacity);
         this.capacity = capacity;
     }
 
@@ -138,6 +167,7 @@ public class Section implements Serializable {
     }
 
     public void setEnrollmentDeadline(LocalDate enrollmentDeadline) {
+        changes().record(Field.ENROLLMENT_DEADLINE, this.enrollmentDeadline, enrollmentDeadline);
         this.enrollmentDeadline = enrollmentDeadline;
     }
 
@@ -146,6 +176,7 @@ public class Section implements Serializable {
     }
 
     public void setDropDeadline(LocalDate dropDeadline) {
+        changes().record(Field.DROP_DEADLINE, this.dropDeadline, dropDeadline);
         this.dropDeadline = dropDeadline;
     }
 
@@ -154,6 +185,7 @@ public class Section implements Serializable {
     }
 
     public void setSemester(String semester) {
+        changes().record(Field.SEMESTER, this.semester, semester);
         this.semester = semester;
     }
 
@@ -162,9 +194,39 @@ public class Section implements Serializable {
     }
 
     public void setYear(int year) {
+        changes().record(Field.YEAR, this.year, year);
         this.year = year;
     }
 
+    /**
+     * Persisted fields changed since this instance was loaded or last saved.
+     */
+    public Set<Field> getChangedFields() {
+        return changes().snapshot();
+    }
+
+    public void markClean() {
+        changes().clear();
+    }
+
+    private FieldChanges<Field> changes() {
+        if (changes == null) {
+            changes = new FieldChanges<>(Field.class);
+        }
+        return changes;
+    }
+
+    /**
+     * Row version read from the database; updates only apply while it still matches.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     public List<String> getEnrolledStudentIds() {
         return enrolledStudentIds;
     }
@@ -0,0 +1,58 @@
+package main.java.models;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Whether a student may register for a section, and if not, why.
+ */
+public class SectionEligibility {
+    public enum Status {
+        ENROLLED,
+        WAITLISTED,
+        ELIGIBLE,
+        ENROLLMENT_CLOSED,
+        MISSING_PREREQUISITES,
+        MISSING_COREQUISITES,
+        ANTIREQUISITE_CONFLICT,
+        SCHEDULE_CONFLICT,
+        CREDIT_LIMIT
+    }
+
+    private final String sectionId;
+    private final Status status;
+    private final List<String> missingPrerequisites;
+    private final int projectedCredits;
+
+    public SectionEligibility(String sectionId, Status status, List<String> missingPrerequisites, int projectedCredits) {
+        this.sectionId = sectionId;
+        this.status = status;
+        this.missingPrerequisites = missingPrerequisites == null
+                ? Collections.emptyList()
+                : Collections.unmodifiableList(missingPrerequisites);
+        this.projectedCredits = projectedCredits;
+    }
+
+    public String getSectionId() {
+        return sectionId;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean canRegister() {
+        return status == Status.ELIGIBLE;
+    }
+
+    public List<String> getMissingPrerequisites() {
+        return missingPrerequisites;
+    }
+
+    /**
+     * Enrolled credit hours including this section's course.
+     */
+    public int getProjectedCredits() {
+        return projectedCredits;
+    }
+}
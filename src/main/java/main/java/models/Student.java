@@ -1,12 +1,37 @@
 package main.java.models;
 
 import java.time.LocalDate;
+import java.util.Set;
 
 /**
  * Student model class representing student information
  */
 public class Student implements java.io.Serializable {
     private static final long serialVersionUID = 1L;
+
+    /**
+     * Fields persisted by the DAO update, tracked by {@link #getChangedFields()}.
+     */
+    public enum Field {
+        USERNAME,
+        FIRST_NAME,
+        LAST_NAME,
+        EMAIL,
+        PHONE,
+        DATE_OF_BIRTH,
+        ADDRESS,
+        COURSE,
+        SEMESTER,
+        STATUS,
+        FEES_PAID,
+        TOTAL_FEES,
+        CGPA,
+        CREDITS_COMPLETED,
+        NEXT_FEE_DUE_DATE,
+        ADVISOR_ID,
+        ACADEMIC_STANDING
+    }
+
     private String studentId;
     private String firstName;
     private String lastName;
@@ -27,6 +52,8 @@ public class Student implements java.io.Serializable {
     private String advisorId;
     private String academicStanding;
     private String username;
+    private long version;
+    private transient FieldChanges<Field> changes;
     
     public Student() {}
     
@@ -59,42 +86,75 @@ public class Student implements java.io.Serializable {
     public void setStudentId(String studentId) { this.studentId = studentId; }
     
     public String getFirstName() { return firstName; }
-    public void setFirstName(String firstName) { this.firstName = firstName; }
+    public void setFirstName(String firstName) {
+        changes().record(Field.FIRST_NAME, this.firstName, firstName);
+        this.firstName = firstName;
+    }
     
     public String getLastName() { return lastName; }
-    public void setLastName(String lastName) { this.lastName = lastName; }
+    public void setLastName(String lastName) {
+        changes().record(Field.LAST_NAME, this.lastName, lastName);
+        this.lastName = lastName;
+    }
     
     public String getFullName() { return firstName + " " + lastName; }
     
     public String getEmail() { return email; }
-    public void setEmail(String email) { this.email = email; }
+    public void setEmail(String email) {
+        changes().record(Field.EMAIL, this.email, email);
+        this.email = email;
+    }
     
     public String getPhone() { return phone; }
-    public void setPhone(String phone) { this.phone = phone; }
+    public void setPhone(String phone) {
+        changes().record(Field.PHONE, this.phone, phone);
+        this.phone = phone;
+    }
     
     public LocalDate getDateOfBirth() { return dateOfBirth; }
-    public void setDateOfBirth(LocalDate dateOfBirth) { this.dateOfBirth = dateOfBirth; }
+    public void setDateOfBirth(LocalDate dateOfBirth) {
+        changes().record(Field.DATE_OF_BIRTH, this.dateOfBirth, dateOfBirth);
+        this.dateOfBirth = dateOfBirth;
+    }
     
     public String getAddress() { return address; }
-    public void setAddress(String address) { this.address = address; }
+    public void setAddress(String address) {
+        changes().record(Field.ADDRESS, this.address, address);
+        this.address = address;
+    }
     
     public String getCourse() { return course; }
-    public void setCourse(String course) { this.course = course; }
+    public void setCourse(String course) {
+        changes().record(Field.COURSE, this.course, course);
+        this.course = course;
+    }
     
     public int getSemester() { return semester; }
-    public void setSemester(int semester) { this.semester = semester; }
+    public void setSemester(int semester) {
+        changes().record(Field.SEMESTER, this.semester, semester);
+        this.semester = semester;
+    }
     
     public LocalDate getAdmissionDate() { return admissionDate; }
     public void setAdmissionDate(LocalDate admissionDate) { this.admissionDate = admissionDate; }
     
     public String getStatus() { return status; }
-    public void setStatus(String status) { this.status = status; }
+    public void setStatus(String status) {
+        changes().record(Field.STATUS, this.status, status);
+        this.status = status;
+    }
     
     public double getFeesPaid() { return feesPaid; }
-    public void setFeesPaid(double feesPaid) { this.feesPaid = feesPaid; }
+    public void setFeesPaid(double feesPaid) {
+        changes().record(Field.FEES_PAID, this.feesPaid, feesPaid);
+        this.feesPaid = feesPaid;
+    }
     
     public double getTotalFees() { return totalFees; }
-    public void setTotalFees(double totalFees) { this.totalFees = totalFees; }
+    public void setTotalFees(double totalFees) {
+        changes().record(Field.TOTAL_FEES, this.totalFees, totalFees);
+        this.totalFees = totalFees;
+    }
     
     public double getOutstandingFees() { return totalFees - feesPaid; }
 
@@ -103,6 +163,7 @@ public class Student implements java.io.Serializable {
     }
 
     public void setCgpa(double cgpa) {
+        changes().record(Field.CGPA, this.cgpa, cgpa);
         this.cgpa = cgpa;
     }
 
@@ -111,6 +172,7 @@ public class Student implements java.io.Serializable {
     }
 
     public void setCreditsCompleted(int creditsCompleted) {
+        changes().record(Field.CREDITS_COMPLETED, this.creditsCompleted, creditsCompleted);
         this.creditsCompleted = creditsCompleted;
     }
 
@@ -127,6 +189,7 @@ public class Student implements java.io.Serializable {
     }
 
     public void setNextFeeDueDate(LocalDate nextFeeDueDate) {
+        changes().record(Field.NEXT_FEE_DUE_DATE, this.nextFeeDueDate, nextFeeDueDate);
         this.nextFeeDueDate = nextFeeDueDate;
     }
 
@@ -135,6 +198,7 @@ public class Student implements java.io.Serializable {
     }
 
     public void setAdvisorId(String advisorId) {
+        changes().record(Field.ADVISOR_ID, this.advisorId, advisorId);
         this.advisorId = advisorId;
     }
 
@@ -143,6 +207,7 @@ public class Student implements java.io.Serializable {
     }
 
     public void setAcademicStanding(String academicStanding) {
+        changes().record(Field.ACADEMIC_STANDING, this.academicStanding, academicStanding);
         this.academicStanding = academicStanding;
     }
 
@@ -151,9 +216,39 @@ public class Student implements java.io.Serializable {
     }
 
     public void setUsername(String username) {
+        changes().record(Field.USERNAME, this.username, username);
         this.username = username;
     }
 
+    /**
+     * Persisted fields changed since this instance was loaded or last saved.
+     */
+    public Set<Field> getChangedFields() {
+        return changes().snapshot();
+    }
+
+    public void markClean() {
+        changes().clear();
+    }
+
+    private FieldChanges<Field> changes() {
+        if (changes == null) {
+            changes = new FieldChanges<>(Field.class);
+        }
+        return changes;
+    }
+
+    /**
+     * Row version read from the database; updates only apply while it still matches.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     public double getProgressPercent() {
         int total = creditsCompleted + creditsInProgress;
         if (total <= 0) {
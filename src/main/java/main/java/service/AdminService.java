@@ -32,9 +32,12 @@ public final class AdminService {
         if (studentProfile.getAdmissionDate() == null) {
             studentProfile.setAdmissionDate(LocalDate.now());
         }
-        if (DatabaseUtil.getStudent(studentProfile.getStudentId()) == null) {
+        Student existing = DatabaseUtil.getStudent(studentProfile.getStudentId());
+        if (existing == null) {
             DatabaseUtil.addStudent(studentProfile);
         } else {
+            // Linking deliberately replaces the stored profile, so it is based on the current version.
+            studentProfile.setVersion(existing.getVersion());
             DatabaseUtil.updateStudent(studentProfile);
         }
     }
@@ -1,12 +1,17 @@
 package main.java.service;
 
 import main.java.models.EnrollmentRecord;
+import main.java.models.RegistrationOutcome;
+import main.java.models.RegistrationRequest;
 import main.java.models.Section;
 import main.java.models.Student;
 import main.java.models.User;
 import main.java.utils.DatabaseUtil;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * Coordinates registration and drop flows with access-rule enforcement.
@@ -26,9 +31,9 @@ public final class EnrollmentService {
             throw new IllegalStateException("Enrollment deadline has passed for this section.");
         }
 
-        List<String> missingPrereqs = DatabaseUtil.getMissingPrerequisites(studentId, section.getCourseId());
-        if (!missingPrereqs.isEmpty()) {
-            throw new IllegalStateException("Missing prerequisite(s): " + String.join(", ", missingPrereqs));
+        String violation = DatabaseUtil.findRequirementViolation(studentId, section.getCourseId());
+        if (violation != null) {
+            throw new IllegalStateException(violation);
         }
 
         if (isStudent(actor)) {
@@ -38,6 +43,39 @@ public final class EnrollmentService {
         return DatabaseUtil.registerStudentToSection(actor.getUsername(), studentId, sectionId);
     }
 
+    /**
+     * Block enrollment for registrars. Rows past their section's enrollment deadline are rejected up front;
+     * the rest go through {@link DatabaseUtil#registerBatch(String, List)}.
+     */
+    public static List<RegistrationOutcome> registerBatch(User actor, List<RegistrationRequest> requests) {
+        ensureCanMutate(actor);
+        if (!"Admin".equalsIgnoreCase(actor.getRole())) {
+            throw new SecurityException("Only administrators may run bulk registration.");
+        }
+
+        LocalDate today = LocalDate.now();
+        List<RegistrationRequest> eligible = new ArrayList<>();
+        List<Integer> eligibleIndexes = new ArrayList<>();
+        RegistrationOutcome[] results = new RegistrationOutcome[requests.size()];
+        for (int i = 0; i < requests.size(); i++) {
+            RegistrationRequest request = requests.get(i);
+            Section section = request == null ? null : DatabaseUtil.getSection(request.getSectionId());
+            if (section != null && section.getEnrollmentDeadline() != null
+                    && today.isAfter(section.getEnrollmentDeadline())) {
+                results[i] = RegistrationOutcome.rejected(request, "Enrollment deadline has passed for this section.");
+            } else {
+                eligible.add(request);
+                eligibleIndexes.add(i);
+            }
+        }
+
+        List<RegistrationOutcome> outcomes = DatabaseUtil.registerBatch(actor.getUsername(), eligible);
+        for (int i = 0; i < outcomes.size(); i++) {
+            results[eligibleIndexes.get(i)] = outcomes.get(i);
+        }
+        return Arrays.asList(results);
+    }
+
     public static void dropSection(User actor, String studentId, String sectionId) {
         ensureCanMutate(actor);
 
@@ -12,6 +12,7 @@ import java.time.LocalDateTime;
 import java.util.DoubleSummaryStatistics;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.stream.Collectors;
@@ -32,6 +33,8 @@ public final class GradebookService {
         DatabaseUtil.updateSection(section);
         AuditLogService.log(AuditLogService.EventType.GRADE_EDIT,
                 instructor.getUsername(),
+                AuditLogService.SubjectType.SECTION, sectionId,
+                Map.of("components", String.valueOf(weights.size())),
                 String.format("Defined assessments for %s (%d components)", sectionId, weights.size()));
     }
 
@@ -42,6 +45,9 @@ public final class GradebookService {
         DatabaseUtil.saveData();
         AuditLogService.log(AuditLogService.EventType.GRADE_EDIT,
                 instructor.getUsername(),
+                AuditLogService.SubjectType.STUDENT, studentId,
+                Map.of("section", sectionId, "component", component,
+                        "score", String.format(Locale.ENGLISH, "%.2f", score)),
                 String.format("Recorded %s=%.2f for %s in %s", component, score, studentId, sectionId));
     }
 
@@ -53,9 +59,11 @@ public final class GradebookService {
         record.setFinalGrade(finalGrade);
         record.setWeighting(new HashMap<>(section.getAssessmentWeights()));
         record.setUpdatedAt(LocalDateTime.now());
-        DatabaseUtil.saveData();
+        DatabaseUtil.saveFinalGrade(record);
         AuditLogService.log(AuditLogService.EventType.GRADE_EDIT,
                 instructor.getUsername(),
+                AuditLogService.SubjectType.STUDENT, studentId,
+                Map.of("section", sectionId, "finalGrade", String.format(Locale.ENGLISH, "%.2f", finalGrade)),
                 String.format("Computed final grade %.2f for %s in %s", finalGrade, studentId, sectionId));
         return finalGrade;
     }
@@ -0,0 +1,268 @@
+package main.java.service;
+
+import main.java.config.ConfigLoader;
+import main.java.models.EnrollmentRecord;
+import main.java.models.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Admission control in front of {@link EnrollmentService#registerSection(User, String, String)}.
+ * <p>
+ * Requests wait in a bounded FIFO queue served by a fixed set of workers sized below the ERP connection pool,
+ * so a registration-open spike queues in memory instead of exhausting connections. Each student may have one
+ * request in flight, which keeps ordering fair between students. When the queue is full new requests are
+ * rejected at once with an {@link IllegalStateException} rather than left to time out.
+ */
+public final class RegistrationQueue {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RegistrationQueue.class);
+    private static final int WORKERS = intConfig("registration.queue.workers", 6);
+    private static final int CAPACITY = intConfig("registration.queue.capacity", 500);
+
+    private static final AtomicInteger WORKER_IDS = new AtomicInteger();
+    private static final ThreadPoolExecutor EXECUTOR = new ThreadPoolExecutor(
+            WORKERS, WORKERS, 0L, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(CAPACITY),
+            r -> {
+                Thread t = new Thread(r, "registration-worker-" + WORKER_IDS.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+    private static final Map<String, Ticket> PENDING = new ConcurrentHashMap<>();
+    private static final Object SUBMIT_LOCK = new Object();
+
+    private static long submittedSequence;
+    private static final AtomicLong startedSequence = new AtomicLong();
+    private static final AtomicInteger maxDepth = new AtomicInteger();
+    private static final LongAdder accepted = new LongAdder();
+    private static final LongAdder rejected = new LongAdder();
+    private static final LongAdder completed = new LongAdder();
+    private static final LongAdder failed = new LongAdder();
+    private static final LongAdder totalWaitNanos = new LongAdder();
+    private static final LongAdder totalServiceNanos = new LongAdder();
+    private static final AtomicLong maxWaitNanos = new AtomicLong();
+    private static final AtomicLong maxServiceNanos = new AtomicLong();
+
+    private RegistrationQueue() {
+    }
+
+    /**
+     * Queues a registration for {@code studentId}.
+     *
+     * @throws IllegalStateException when the student already has a request queued or the queue is full
+     */
+    public static Ticket submit(User actor, String studentId, String sectionId) {
+        Ticket ticket = new Ticket(studentId, sectionId);
+        if (PENDING.putIfAbsent(studentId, ticket) != null) {
+            rejected.increment();
+            throw new IllegalStateException("A registration request for this student is already being processed.");
+        }
+        synchronized (SUBMIT_LOCK) {
+            ticket.sequence = ++submittedSequence;
+            try {
+                EXECUTOR.execute(() -> process(ticket, actor));
+            } catch (RejectedExecutionException ex) {
+                submittedSequence--;
+                PENDING.remove(studentId, ticket);
+                rejected.increment();
+                throw new IllegalStateException("Registration is at capacity right now. Please try again shortly.");
+            }
+        }
+        accepted.increment();
+        maxDepth.accumulateAndGet(EXECUTOR.getQueue().size(), Math::max);
+        return ticket;
+    }
+
+    public static Metrics metrics() {
+        long done = completed.sum() + failed.sum();
+        return new Metrics(
+                EXECUTOR.getQueue().size(),
+                maxDepth.get(),
+                EXECUTOR.getActiveCount(),
+                accepted.sum(),
+                rejected.sum(),
+                completed.sum(),
+                failed.sum(),
+                done == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.sum() / done),
+                TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get()),
+                done == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalServiceNanos.sum() / done),
+                TimeUnit.NANOSECONDS.toMillis(maxServiceNanos.get()));
+    }
+
+    public static void shutdown() {
+        EXECUTOR.shutdown();
+        try {
+            if (!EXECUTOR.awaitTermination(10, TimeUnit.SECONDS)) {
+                EXECUTOR.shutdownNow();
+            }
+        } catch (InterruptedException ex) {
+            EXECUTOR.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        LOGGER.info("Registration queue stopped: {}", metrics());
+    }
+
+    private static void process(Ticket ticket, User actor) {
+        startedSequence.incrementAndGet();
+        long started = System.nanoTime();
+        long waited = started - ticket.enqueuedAt;
+        totalWaitNanos.add(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+        try {
+            EnrollmentRecord record = EnrollmentService.registerSection(actor, ticket.studentId, ticket.sectionId);
+            completed.increment();
+            ticket.result.complete(record);
+        } catch (RuntimeException ex) {
+            failed.increment();
+            ticket.result.completeExceptionally(ex);
+        } finally {
+            long service = System.nanoTime() - started;
+            totalServiceNanos.add(service);
+            maxServiceNanos.accumulateAndGet(service, Math::max);
+            PENDING.remove(ticket.studentId, ticket);
+        }
+    }
+
+    private static int intConfig(String key, int defaultValue) {
+        String value = ConfigLoader.get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Math.max(1, Integer.parseInt(value.trim()));
+        } catch (NumberFormatException ex) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Handle for a queued registration.
+     */
+    public static final class Ticket {
+        private final String studentId;
+        private final String sectionId;
+        private final long enqueuedAt = System.nanoTime();
+        private final CompletableFuture<EnrollmentRecord> result = new CompletableFuture<>();
+        private volatile long sequence;
+
+        private Ticket(String studentId, String sectionId) {
+            this.studentId = studentId;
+            this.sectionId = sectionId;
+        }
+
+        public String getSectionId() {
+            return sectionId;
+        }
+
+        /**
+         * Requests ahead of this one, or 0 once it is being processed.
+         */
+        public int position() {
+            if (result.isDone()) {
+                return 0;
+            }
+            return (int) Math.max(0, sequence - startedSequence.get());
+        }
+
+        public CompletableFuture<EnrollmentRecord> result() {
+            return result;
+        }
+    }
+
+    /**
+     * Point-in-time queue statistics; times are in milliseconds.
+     */
+    public static final class Metrics {
+        private final int depth;
+        private final int maxDepth;
+        private final int inService;
+        private final long accepted;
+        private final long rejected;
+        private final long completed;
+        private final long failed;
+        private final long averageWaitMillis;
+        private final long maxWaitMillis;
+        private final long averageServiceMillis;
+        private final long maxServiceMillis;
+
+        private Metrics(int depth, int maxDepth, int inService, long accepted, long rejected, long completed,
+                        long failed, long averageWaitMillis, long maxWaitMillis, long averageServiceMillis,
+                        long maxServiceMillis) {
+            this.depth = depth;
+            this.maxDepth = maxDepth;
+            this.inService = inService;
+            this.accepted = accepted;
+            this.rejected = rejected;
+            this.completed = completed;
+            this.failed = failed;
+            this.averageWaitMillis = averageWaitMillis;
+            this.maxWaitMillis = maxWaitMillis;
+            this.averageServiceMillis = averageServiceMillis;
+            this.maxServiceMillis = maxServiceMillis;
+        }
+
+        public int getDepth() {
+            return depth;
+        }
+
+        public int getMaxDepth() {
+            return maxDepth;
+        }
+
+        public int getInService() {
+            return inService;
+        }
+
+        public long getAccepted() {
+            return accepted;
+        }
+
+        public long getRejected() {
+            return rejected;
+        }
+
+        public long getCompleted() {
+            return completed;
+        }
+
+        public long getFailed() {
+            return failed;
+        }
+
+        public long getAverageWaitMillis() {
+            return averageWaitMillis;
+        }
+
+        public long getMaxWaitMillis() {
+            return maxWaitMillis;
+        }
+
+        public long getAverageServiceMillis() {
+            return averageServiceMillis;
+        }
+
+        public long getMaxServiceMillis() {
+            return maxServiceMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("depth=%d (max %d), inService=%d, accepted=%d, rejected=%d, completed=%d, "
+                            + "failed=%d, wait avg/max=%d/%d ms, service avg/max=%d/%d ms",
+                    depth, maxDepth, inService, accepted, rejected, completed, failed,
+                    averageWaitMillis, maxWaitMillis, averageServiceMillis, maxServiceMillis);
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package main.java.utils;
+
+import main.java.config.ConfigLoader;
+import main.java.data.dao.AuditLogDao;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVPrinter;
+import org.apache.commons.csv.CSVRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps {@code audit_events} partitioned by month: splits the catch-all history partition into months on the
+ * first run, creates partitions a few months ahead and moves partitions older than the retention window into
+ * gzip-compressed CSV files under {@code audit.archive.dir} before dropping them. Archive files are named after
+ * the exclusive upper bound of the partition they hold, so a file covers the time between the previous file's
+ * bound and its own; {@link #search} reads only the files that overlap the requested range. Maintenance runs as
+ * a {@link JobScheduler} job, so only one client issues the partition DDL.
+ */
+public final class AuditArchiver {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AuditArchiver.class);
+    private static final AuditLogDao AUDIT_LOG_DAO = new AuditLogDao();
+    private static final String FILE_PREFIX = "audit-until-";
+    private static final String FILE_SUFFIX = ".csv.gz";
+    private static final CSVFormat ARCHIVE_FORMAT = CSVFormat.DEFAULT;
+    private static final String JOB_NAME = "audit-archive";
+
+    private AuditArchiver() {
+    }
+
+    public static void register() {
+        JobScheduler.register(JOB_NAME, Duration.ofHours(longConfig("audit.archive.intervalHours", 24)),
+                AuditArchiver::maintain);
+    }
+
+    /**
+     * Adds missing future partitions, then archives and drops expired ones.
+     *
+     * @return number of partitions archived
+     */
+    public static int maintain() {
+        List<AuditLogDao.Partition> partitions = AUDIT_LOG_DAO.findPartitions();
+        if (partitions.isEmpty()) {
+            return 0;
+        }
+        if (splitHistory(partitions.get(0))) {
+            partitions = AUDIT_LOG_DAO.findPartitions();
+        }
+        LocalDate currentMonth = LocalDate.now().withDayOfMonth(1);
+        addPartitionsAhead(partitions, currentMonth.plusMonths(longConfig("audit.partitionsAhead", 3) + 1));
+
+        LocalDateTime cutoff = currentMonth.minusMonths(longConfig("audit.retentionMonths", 12)).atStartOfDay();
+        int archived = 0;
+        for (AuditLogDao.Partition partition : partitions) {
+            if (partition.getUpperBound() == null || partition.getUpperBound().isAfter(cutoff)) {
+                break;
+            }
+            long rows = archive(partition);
+            AUDIT_LOG_DAO.dropPartition(partition.getName());
+            LOGGER.info("Archived audit partition {} ({} event(s)).", partition.getName(), rows);
+            archived++;
+        }
+        return archived;
+    }
+
+    /**
+     * Archived events in {@code [from, to]}, newest first, stopping after {@code limit} events. Either bound
+     * may be {@code null}.
+     */
+    public static List<AuditLogService.AuditEvent> search(LocalDateTime from, LocalDateTime to, int limit) {
+        List<AuditLogService.AuditEvent> events = new ArrayList<>();
+        List<LocalDate> bounds = archivedBounds();
+        for (int i = bounds.size() - 1; i >= 0 && events.size() < limit; i--) {
+            LocalDateTime upper = bounds.get(i).atStartOfDay();
+            LocalDateTime lower = i > 0 ? bounds.get(i - 1).atStartOfDay() : null;
+            if (from != null && !upper.isAfter(from)) {
+                break;
+            }
+            if (to != null && lower != null && lower.isAfter(to)) {
+                continue;
+            }
+            readArchive(archiveFile(bounds.get(i)), from, to, limit, events);
+        }
+        return events;
+    }
+
+    /**
+     * Replaces the history partition with one partition per month from its oldest row, so history ages out of
+     * the retention window a month at a time instead of all at once.
+     *
+     * @return {@code true} when the partition layout changed
+     */
+    private static boolean splitHistory(AuditLogDao.Partition first) {
+        if (!AuditLogDao.HISTORY_PARTITION.equals(first.getName()) || first.getUpperBound() == null) {
+            return false;
+        }
+        LocalDate end = first.getUpperBound().toLocalDate();
+        LocalDate bound = AUDIT_LOG_DAO.findEarliest(first.getName())
+                .map(earliest -> earliest.toLocalDate().withDayOfMonth(1).plusMonths(1))
+                .orElse(end);
+        List<LocalDate> bounds = new ArrayList<>();
+        for (; bound.isBefore(end.withDayOfMonth(1)); bound = bound.plusMonths(1)) {
+            bounds.add(bound);
+        }
+        bounds.add(end);
+        AUDIT_LOG_DAO.splitHistoryPartition(bounds);
+        LOGGER.info("Split audit partition {} into {} monthly partition(s).", first.getName(), bounds.size());
+        return true;
+    }
+
+    private static void addPartitionsAhead(List<AuditLogDao.Partition> partitions, LocalDate horizon) {
+        LocalDateTime lastBound = null;
+        for (AuditLogDao.Partition partition : partitions) {
+            if (partition.getUpperBound() != null) {
+                lastBound = partition.getUpperBound();
+            }
+        }
+        LocalDate bound = lastBound != null
+                ? lastBound.toLocalDate().withDayOfMonth(1).plusMonths(1)
+                : LocalDate.now().withDayOfMonth(1).plusMonths(1);
+        List<LocalDate> bounds = new ArrayList<>();
+        for (; !bound.isAfter(horizon); bound = bound.plusMonths(1)) {
+            bounds.add(bound);
+        }
+        if (!bounds.isEmpty()) {
+            AUDIT_LOG_DAO.addMonthlyPartitions(bounds);
+            LOGGER.info("Added {} audit partition(s) up to {}.", bounds.size(), bounds.get(bounds.size() - 1));
+        }
+    }
+
+    /**
+     * Streams a partition into its archive file. The file is written under a temporary name and moved into
+     * place only once complete, so a failed run never leaves a truncated archive next to a dropped partition.
+     */
+    private static long archive(AuditLogDao.Partition partition) {
+        Path target = archiveFile(partition.getUpperBound().toLocalDate());
+        Path temp = target.resolveSibling(target.getFileName() + ".part");
+        try {
+            Files.createDirectories(archiveDir());
+            long rows;
+            try (Writer writer = new OutputStreamWriter(new GZIPOutputStream(Files.newOutputStream(temp)),
+                    StandardCharsets.UTF_8);
+                 CSVPrinter printer = new CSVPrinter(writer, ARCHIVE_FORMAT)) {
+                rows = AUDIT_LOG_DAO.scanPartition(partition.getName(), event -> {
+                    try {
+                        printer.printRecord(event.getId(), event.getTimestamp(), event.getType().name(),
+                                event.getActor(), event.getDetails(), event.getSubjectType(),
+                                event.getSubjectId(), event.getEncodedPayload());
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return rows;
+        } catch (IOException | UncheckedIOException ex) {
+            throw new IllegalStateException("Unable to archive audit partition " + partition.getName() + ".", ex);
+        }
+    }
+
+    private static void readArchive(Path file, LocalDateTime from, LocalDateTime to, int limit,
+                                    List<AuditLogService.AuditEvent> sink) {
+        try (Reader reader = new InputStreamReader(new GZIPInputStream(Files.newInputStream(file)),
+                StandardCharsets.UTF_8);
+             CSVParser parser = ARCHIVE_FORMAT.parse(reader)) {
+            for (CSVRecord record : parser) {
+                LocalDateTime timestamp = LocalDateTime.parse(record.get(1));
+                if (to != null && timestamp.isAfter(to)) {
+                    continue;
+                }
+                if (from != null && timestamp.isBefore(from)) {
+                    // Rows are newest first, so nothing older in this file can match.
+                    break;
+                }
+                sink.add(new AuditLogService.AuditEvent(Long.parseLong(record.get(0)),
+                        AuditLogService.EventType.valueOf(record.get(2)),
+                        emptyToNull(record.get(3)),
+                        emptyToNull(record.get(4)),
+                        AuditLogService.AuditEvent.parseSubjectType(optional(record, 5)),
+                        optional(record, 6),
+                        AuditLogService.AuditEvent.decodePayload(optional(record, 7)),
+                        timestamp));
+                if (sink.size() >= limit) {
+                    break;
+                }
+            }
+        } catch (IOException | RuntimeException ex) {
+            LOGGER.error("Unable to read audit archive {}: {}", file, ex.getMessage(), ex);
+        }
+    }
+
+    private static List<LocalDate> archivedBounds() {
+        List<LocalDate> bounds = new ArrayList<>();
+        Path dir = archiveDir();
+        if (!Files.isDirectory(dir)) {
+            return bounds;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, FILE_PREFIX + "*" + FILE_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    bounds.add(LocalDate.parse(
+                            name.substring(FILE_PREFIX.length(), name.length() - FILE_SUFFIX.length())));
+                } catch (RuntimeException ex) {
+                    LOGGER.warn("Ignoring unrecognised audit archive {}.", file);
+                }
+            }
+        } catch (IOException ex) {
+            LOGGER.error("Unable to list audit archives in {}: {}", dir, ex.getMessage(), ex);
+        }
+        bounds.sort(Comparator.naturalOrder());
+        return bounds;
+    }
+
+    private static Path archiveFile(LocalDate upperBound) {
+        return archiveDir().resolve(FILE_PREFIX + upperBound + FILE_SUFFIX);
+    }
+
+    private static Path archiveDir() {
+        String value = ConfigLoader.get("audit.archive.dir");
+        return Paths.get(value == null || value.isBlank() ? "data/audit-archive" : value.trim());
+    }
+
+    /**
+     * Column {@code index}, or {@code null} for files archived before it existed.
+     */
+    private static String optional(CSVRecord record, int index) {
+        return index < record.size() ? emptyToNull(record.get(index)) : null;
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+
+    private static long longConfig(String key, long defaultValue) {
+        String value = ConfigLoader.get(key);
+        if (value != null) {
+            try {
+                return Math.max(1, Long.parseLong(value.trim()));
+            } catch (NumberFormatException ignored) {
+                // keep default
+            }
+        }
+        return defaultValue;
+    }
+}
@@ -1,20 +1,37 @@
 package main.java.utils;
 
+import main.java.data.TransactionManager;
 import main.java.data.dao.AuditLogDao;
+import main.java.data.dao.KeysetCursor;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVPrinter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
 import java.io.Writer;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.StringJoiner;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongConsumer;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Captures security-sensitive events for auditing.
@@ -30,7 +47,19 @@ public final class AuditLogService {
         ENROLLMENT_CHANGE,
         SECTION_ASSIGNMENT,
         GRADE_EDIT,
-        FINANCE_PAYMENT
+        FINANCE_PAYMENT,
+        FINANCE_INVOICING
+    }
+
+    /**
+     * Kind of entity an event is about; with the subject id it is indexed for per-entity history.
+     */
+    public enum SubjectType {
+        USER,
+        STUDENT,
+        SECTION,
+        COURSE,
+        INSTRUCTOR
     }
 
     public static final class AuditEvent {
@@ -38,17 +67,35 @@ public final class AuditLogService {
         private final EventType type;
         private final String actor;
         private final String details;
+        private final SubjectType subjectType;
+        private final String subjectId;
+        private final Map<String, String> payload;
         private final LocalDateTime timestamp;
 
         public AuditEvent(EventType type, String actor, String details) {
             this(0L, type, actor, details, LocalDateTime.now());
         }
 
+        public AuditEvent(EventType type, String actor, SubjectType subjectType, String subjectId,
+                          Map<String, String> payload, String details) {
+            this(0L, type, actor, details, subjectType, subjectId, payload, LocalDateTime.now());
+        }
+
         public AuditEvent(long id, EventType type, String actor, String details, LocalDateTime timestamp) {
+            this(id, type, actor, details, null, null, null, timestamp);
+        }
+
+        public AuditEvent(long id, EventType type, String actor, String details, SubjectType subjectType,
+                          String subjectId, Map<String, String> payload, LocalDateTime timestamp) {
             this.id = id;
             this.type = Objects.requireNonNull(type, "type");
             this.actor = actor;
             this.details = details;
+            this.subjectType = subjectId == null ? null : subjectType;
+            this.subjectId = subjectType == null ? null : subjectId;
+            this.payload = payload == null || payload.isEmpty()
+                    ? Collections.emptyMap()
+                    : Collections.unmodifiableMap(new LinkedHashMap<>(payload));
             this.timestamp = timestamp == null ? LocalDateTime.now() : timestamp;
         }
 
@@ -68,50 +115,217 @@ public final class AuditLogService {
             return details;
         }
 
+        public SubjectType getSubjectType() {
+            return subjectType;
+        }
+
+        public String getSubjectId() {
+            return subjectId;
+        }
+
+        public Map<String, String> getPayload() {
+            return payload;
+        }
+
         public LocalDateTime getTimestamp() {
             return timestamp;
         }
+
+        /**
+         * The payload as {@code key=value&...} with URL-encoded keys and values, or {@code null} when empty.
+         */
+        public String getEncodedPayload() {
+            if (payload.isEmpty()) {
+                return null;
+            }
+            StringJoiner encoded = new StringJoiner("&");
+            payload.forEach((key, value) -> encoded.add(URLEncoder.encode(key, StandardCharsets.UTF_8) + "="
+                    + URLEncoder.encode(value == null ? "" : value, StandardCharsets.UTF_8)));
+            return encoded.toString();
+        }
+
+        public static Map<String, String> decodePayload(String encoded) {
+            if (encoded == null || encoded.isEmpty()) {
+                return Collections.emptyMap();
+            }
+            Map<String, String> payload = new LinkedHashMap<>();
+            for (String pair : encoded.split("&")) {
+                int eq = pair.indexOf('=');
+                String key = eq < 0 ? pair : pair.substring(0, eq);
+                String value = eq < 0 ? "" : pair.substring(eq + 1);
+                payload.put(URLDecoder.decode(key, StandardCharsets.UTF_8),
+                        URLDecoder.decode(value, StandardCharsets.UTF_8));
+            }
+            return payload;
+        }
+
+        public static SubjectType parseSubjectType(String value) {
+            return value == null || value.isEmpty() ? null : SubjectType.valueOf(value);
+        }
     }
 
     private static final Logger LOGGER = LoggerFactory.getLogger("AUDIT");
     private static final AuditLogDao AUDIT_LOG_DAO = new AuditLogDao();
     private static final int DEFAULT_RECENT_LIMIT = 250;
+    private static final long READ_FLUSH_TIMEOUT_MILLIS = 500;
+    private static final int ARCHIVE_SEARCH_LIMIT = 10_000;
+    private static final int EXPORT_PROGRESS_INTERVAL = 5_000;
+    private static final CSVFormat EXPORT_FORMAT = CSVFormat.Builder.create(CSVFormat.DEFAULT)
+            .setHeader("Timestamp", "Type", "Actor", "Details", "Subject Type", "Subject", "Payload")
+            .build();
 
     private AuditLogService() {
     }
 
+    /**
+     * Queues the event for the background {@link AuditWriter}; inside a transaction it is queued only once the
+     * transaction commits.
+     */
     public static void log(EventType type, String actor, String details) {
         AuditEvent event = new AuditEvent(type, actor, details);
         LOGGER.info("[{}] {} - {}", type, actor, details);
-        AUDIT_LOG_DAO.insert(event);
+        TransactionManager.afterCommit(() -> AuditWriter.enqueue(event));
+    }
+
+    /**
+     * Like {@link #log(EventType, String, String)} for an event about one entity, so it shows up in
+     * {@link #historyOf}.
+     */
+    public static void log(EventType type, String actor, SubjectType subjectType, String subjectId,
+                           Map<String, String> payload, String details) {
+        AuditEvent event = new AuditEvent(type, actor, subjectType, subjectId, payload, details);
+        LOGGER.info("[{}] {} - {}", type, actor, details);
+        TransactionManager.afterCommit(() -> AuditWriter.enqueue(event));
+    }
+
+    /**
+     * Records many events at once; they are written in the writer's batches.
+     */
+    public static void logAll(List<AuditEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        AuditEvent first = events.get(0);
+        LOGGER.info("[{}] {} - {} event(s)", first.getType(), first.getActor(), events.size());
+        List<AuditEvent> queued = new ArrayList<>(events);
+        TransactionManager.afterCommit(() -> queued.forEach(AuditWriter::enqueue));
     }
 
     public static List<AuditEvent> recentEvents() {
+        AuditWriter.flush(READ_FLUSH_TIMEOUT_MILLIS);
         return AUDIT_LOG_DAO.findRecent(DEFAULT_RECENT_LIMIT);
     }
 
-    public static List<AuditEvent> findBetween(LocalDateTime from, LocalDateTime to) {
-        return AUDIT_LOG_DAO.findRange(from, to);
+    /**
+     * One page of events in {@code [from, to]}, newest first; either bound may be {@code null}. Pass the cursor
+     * of the last event of the previous page, or {@code null} for the first page.
+     */
+    public static List<AuditEvent> pageBetween(LocalDateTime from, LocalDateTime to, KeysetCursor after,
+                                               int limit) {
+        if (after == null) {
+            AuditWriter.flush(READ_FLUSH_TIMEOUT_MILLIS);
+        }
+        return AUDIT_LOG_DAO.findRangePage(from, to, after, limit);
+    }
+
+    /**
+     * Archived events in {@code [from, to]}, newest first; all of them are older than the live table.
+     */
+    public static List<AuditEvent> findArchived(LocalDateTime from, LocalDateTime to) {
+        return AuditArchiver.search(from, to, ARCHIVE_SEARCH_LIMIT);
+    }
+
+    /**
+     * One page of an entity's history, newest first. Pass the cursor of the last event of the previous page,
+     * or {@code null} for the first page.
+     */
+    public static List<AuditEvent> historyOf(SubjectType subjectType, String subjectId, KeysetCursor after,
+                                             int limit) {
+        if (after == null) {
+            AuditWriter.flush(READ_FLUSH_TIMEOUT_MILLIS);
+        }
+        return AUDIT_LOG_DAO.findBySubject(subjectType, subjectId, after, limit);
+    }
+
+    public static AuditWriter.Metrics metrics() {
+        return AuditWriter.metrics();
+    }
+
+    /**
+     * Writes out buffered events and stops the background writer.
+     */
+    public static void shutdown() {
+        AuditWriter.shutdown();
     }
 
     public static void exportToCsv(Path path, List<AuditEvent> events) throws IOException {
         List<AuditEvent> source = events != null ? events : Collections.emptyList();
         try (Writer writer = Files.newBufferedWriter(path);
-             CSVPrinter printer = new CSVPrinter(writer,
-                     CSVFormat.Builder.create(CSVFormat.DEFAULT)
-                             .setHeader("Timestamp", "Type", "Actor", "Details")
-                             .build())) {
+             CSVPrinter printer = new CSVPrinter(writer, EXPORT_FORMAT)) {
             for (AuditEvent event : source) {
-                printer.printRecord(
-                        event.getTimestamp(),
-                        event.getType().name(),
-                        event.getActor(),
-                        event.getDetails()
-                );
+                printRecord(printer, event);
             }
         }
     }
 
+    /**
+     * Streams every event in {@code [from, to]} from a database cursor into a CSV file, gzip-compressed when
+     * the file name ends in {@code .gz}, so memory use does not depend on the size of the range.
+     * {@code progress} periodically receives the running row count. A cancelled
+     * export deletes the partial file and throws {@link CancellationException}.
+     *
+     * @return number of events exported
+     */
+    public static long exportRange(Path path, LocalDateTime from, LocalDateTime to, LongConsumer progress,
+                                   BooleanSupplier cancelled) throws IOException {
+        AuditWriter.flush(READ_FLUSH_TIMEOUT_MILLIS);
+        long exported;
+        try (OutputStream out = openExport(path);
+             Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+             CSVPrinter printer = new CSVPrinter(writer, EXPORT_FORMAT)) {
+            long[] count = {0};
+            exported = AUDIT_LOG_DAO.streamRange(from, to, event -> {
+                try {
+                    printRecord(printer, event);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+                if (++count[0] % EXPORT_PROGRESS_INTERVAL == 0) {
+                    progress.accept(count[0]);
+                }
+            }, cancelled);
+        } catch (UncheckedIOException ex) {
+            Files.deleteIfExists(path);
+            throw ex.getCause();
+        } catch (RuntimeException ex) {
+            Files.deleteIfExists(path);
+            throw ex;
+        }
+        if (cancelled.getAsBoolean()) {
+            Files.deleteIfExists(path);
+            throw new CancellationException("Audit export cancelled.");
+        }
+        progress.accept(exported);
+        return exported;
+    }
+
+    private static OutputStream openExport(Path path) throws IOException {
+        OutputStream out = new BufferedOutputStream(Files.newOutputStream(path));
+        return path.getFileName().toString().endsWith(".gz") ? new GZIPOutputStream(out) : out;
+    }
+
+    private static void printRecord(CSVPrinter printer, AuditEvent event) throws IOException {
+        printer.printRecord(
+                event.getTimestamp(),
+                event.getType().name(),
+                event.getActor(),
+                event.getDetails(),
+                event.getSubjectType(),
+                event.getSubjectId(),
+                event.getEncodedPayload()
+        );
+    }
+
     public static String toDisplayString(List<AuditEvent> events) {
         return events.stream()
                 .map(event -> String.format("[%s] %-18s %-12s %s",
@@ -0,0 +1,460 @@
+package main.java.utils;
+
+import main.java.config.ConfigLoader;
+import main.java.data.dao.AuditLogDao;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVPrinter;
+import org.apache.commons.csv.CSVRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Write-behind pipeline behind {@link AuditLogService}.
+ * <p>
+ * Events go into a bounded {@link RingBuffer} and a single daemon thread writes them with JDBC batching, once
+ * a batch is full or the oldest buffered event has waited for the flush interval. When the buffer is full the
+ * configured overflow policy applies: {@code BLOCK} waits for room, {@code DROP} discards the event and
+ * {@code SPILL} appends it to a local CSV file. Batches the database rejects are spilled as well, and the
+ * spill file is replayed once the writer is idle. After {@link #shutdown()} events are written synchronously.
+ */
+public final class AuditWriter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AuditWriter.class);
+
+    enum OverflowPolicy {
+        BLOCK,
+        DROP,
+        SPILL
+    }
+
+    private static final int CAPACITY = intConfig("audit.buffer.capacity", 8192);
+    private static final int BATCH_SIZE = intConfig("audit.batch.size", 200);
+    private static final long FLUSH_INTERVAL_NANOS =
+            TimeUnit.MILLISECONDS.toNanos(intConfig("audit.flush.intervalMillis", 250));
+    private static final long REPLAY_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(30);
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+    private static final OverflowPolicy POLICY = policyConfig();
+    private static final Path SPILL_FILE = Paths.get(stringConfig("audit.spill.file", "data/audit-spill.csv"));
+    private static final Path REPLAY_FILE = SPILL_FILE.resolveSibling(SPILL_FILE.getFileName() + ".replay");
+    private static final CSVFormat SPILL_FORMAT = CSVFormat.DEFAULT;
+
+    private static final AuditLogDao AUDIT_LOG_DAO = new AuditLogDao();
+    private static final RingBuffer<AuditLogService.AuditEvent> BUFFER = new RingBuffer<>(CAPACITY);
+    private static final Object SPILL_LOCK = new Object();
+
+    private static final AtomicLong accepted = new AtomicLong();
+    private static final AtomicLong processed = new AtomicLong();
+    private static final AtomicInteger maxDepth = new AtomicInteger();
+    private static final LongAdder written = new LongAdder();
+    private static final LongAdder dropped = new LongAdder();
+    private static final LongAdder spilled = new LongAdder();
+    private static final LongAdder failedBatches = new LongAdder();
+    private static final LongAdder flushes = new LongAdder();
+    private static final LongAdder totalFlushNanos = new LongAdder();
+    private static final AtomicLong maxFlushNanos = new AtomicLong();
+
+    private static volatile boolean running = true;
+    private static volatile boolean flushRequested;
+    private static volatile boolean spillPending = true;
+    private static final Thread WRITER = startWriter();
+
+    private AuditWriter() {
+    }
+
+    static void enqueue(AuditLogService.AuditEvent event) {
+        if (!running) {
+            writeBatch(Collections.singletonList(event));
+            return;
+        }
+        while (!BUFFER.offer(event)) {
+            if (POLICY == OverflowPolicy.DROP) {
+                dropped.increment();
+                if (dropped.sum() % 1_000 == 1) {
+                    LOGGER.warn("Audit buffer full; dropped {} event(s) so far.", dropped.sum());
+                }
+                return;
+            }
+            if (POLICY == OverflowPolicy.SPILL) {
+                spill(Collections.singletonList(event));
+                return;
+            }
+            LockSupport.unpark(WRITER);
+            LockSupport.parkNanos(BLOCK_PARK_NANOS);
+            if (!running) {
+                writeBatch(Collections.singletonList(event));
+                return;
+            }
+        }
+        accepted.incrementAndGet();
+        int depth = BUFFER.size();
+        maxDepth.accumulateAndGet(depth, Math::max);
+        if (depth >= BATCH_SIZE) {
+            LockSupport.unpark(WRITER);
+        }
+    }
+
+    /**
+     * Waits until every event accepted so far has been written or spilled.
+     *
+     * @return {@code false} if that did not happen within {@code timeoutMillis}
+     */
+    public static boolean flush(long timeoutMillis) {
+        long target = accepted.get();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (processed.get() < target) {
+            if (!WRITER.isAlive() || System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+            flushRequested = true;
+            LockSupport.unpark(WRITER);
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        return true;
+    }
+
+    /**
+     * Stops the writer after it has drained the buffer; later events are written synchronously.
+     */
+    public static void shutdown() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(WRITER);
+        try {
+            WRITER.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        List<AuditLogService.AuditEvent> rest = new ArrayList<>();
+        BUFFER.drainTo(rest, Integer.MAX_VALUE);
+        if (!rest.isEmpty()) {
+            writeBatch(rest);
+            processed.addAndGet(rest.size());
+        }
+        LOGGER.info("Audit writer stopped: {}", metrics());
+    }
+
+    public static Metrics metrics() {
+        long flushCount = flushes.sum();
+        return new Metrics(
+                BUFFER.size(),
+                maxDepth.get(),
+                BUFFER.capacity(),
+                accepted.get(),
+                written.sum(),
+                dropped.sum(),
+                spilled.sum(),
+                failedBatches.sum(),
+                flushCount,
+                flushCount == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalFlushNanos.sum() / flushCount),
+                TimeUnit.NANOSECONDS.toMillis(maxFlushNanos.get()));
+    }
+
+    private static Thread startWriter() {
+        Thread thread = new Thread(AuditWriter::runWriter, "audit-writer");
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    private static void runWriter() {
+        List<AuditLogService.AuditEvent> batch = new ArrayList<>(BATCH_SIZE);
+        long batchStarted = 0L;
+        long nextReplay = System.nanoTime();
+        while (true) {
+            try {
+                boolean wasEmpty = batch.isEmpty();
+                BUFFER.drainTo(batch, BATCH_SIZE - batch.size());
+                long now = System.nanoTime();
+                if (wasEmpty && !batch.isEmpty()) {
+                    batchStarted = now;
+                }
+                boolean stopping = !running;
+                if (!batch.isEmpty() && (batch.size() >= BATCH_SIZE || stopping || flushRequested
+                        || now - batchStarted >= FLUSH_INTERVAL_NANOS)) {
+                    writeBatch(batch);
+                    processed.addAndGet(batch.size());
+                    batch.clear();
+                    continue;
+                }
+                if (batch.isEmpty()) {
+                    flushRequested = false;
+                    if (stopping) {
+                        return;
+                    }
+                    if (spillPending && now - nextReplay >= 0 && !replaySpill()) {
+                        nextReplay = now + REPLAY_BACKOFF_NANOS;
+                    }
+                    LockSupport.parkNanos(FLUSH_INTERVAL_NANOS);
+                } else {
+                    LockSupport.parkNanos(batchStarted + FLUSH_INTERVAL_NANOS - now);
+                }
+            } catch (RuntimeException ex) {
+                LOGGER.error("Audit writer error: {}", ex.getMessage(), ex);
+                if (!batch.isEmpty()) {
+                    // Same fate as a batch the database rejected: keep it for replay rather than lose it.
+                    failedBatches.increment();
+                    spill(batch);
+                }
+                processed.addAndGet(batch.size());
+                batch.clear();
+            }
+        }
+    }
+
+    private static void writeBatch(List<AuditLogService.AuditEvent> batch) {
+        long started = System.nanoTime();
+        boolean stored = AUDIT_LOG_DAO.insertBatch(batch);
+        long elapsed = System.nanoTime() - started;
+        flushes.increment();
+        totalFlushNanos.add(elapsed);
+        maxFlushNanos.accumulateAndGet(elapsed, Math::max);
+        if (stored) {
+            written.add(batch.size());
+        } else {
+            failedBatches.increment();
+            spill(batch);
+        }
+    }
+
+    private static void spill(List<AuditLogService.AuditEvent> events) {
+        synchronized (SPILL_LOCK) {
+            try {
+                Path parent = SPILL_FILE.toAbsolutePath().getParent();
+                if (parent != null) {
+                    Files.createDirectories(parent);
+                }
+                try (Writer writer = Files.newBufferedWriter(SPILL_FILE,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                     CSVPrinter printer = new CSVPrinter(writer, SPILL_FORMAT)) {
+                    for (AuditLogService.AuditEvent event : events) {
+                        printSpillRecord(printer, event);
+                    }
+                }
+                spilled.add(events.size());
+                spillPending = true;
+            } catch (IOException | RuntimeException ex) {
+                dropped.add(events.size());
+                LOGGER.error("Unable to spill {} audit event(s) to {}: {}", events.size(), SPILL_FILE,
+                        ex.getMessage(), ex);
+            }
+        }
+    }
+
+    /**
+     * Moves the spill file aside and writes its events to the database.
+     *
+     * @return {@code false} when the database rejected them; the file is kept for a later attempt
+     */
+    private static boolean replaySpill() {
+        synchronized (SPILL_LOCK) {
+            spillPending = false;
+            try {
+                if (Files.notExists(REPLAY_FILE)) {
+                    if (Files.notExists(SPILL_FILE)) {
+                        return true;
+                    }
+                    Files.move(SPILL_FILE, REPLAY_FILE, StandardCopyOption.ATOMIC_MOVE);
+                }
+            } catch (IOException ex) {
+                LOGGER.error("Unable to rotate audit spill file {}: {}", SPILL_FILE, ex.getMessage(), ex);
+                spillPending = true;
+                return false;
+            }
+        }
+        List<AuditLogService.AuditEvent> events = new ArrayList<>();
+        try (Reader reader = Files.newBufferedReader(REPLAY_FILE);
+             CSVParser parser = SPILL_FORMAT.parse(reader)) {
+            for (CSVRecord record : parser) {
+                events.add(new AuditLogService.AuditEvent(0L,
+                        AuditLogService.EventType.valueOf(record.get(1)),
+                        emptyToNull(record.get(2)),
+                        emptyToNull(record.get(3)),
+                        AuditLogService.AuditEvent.parseSubjectType(optional(record, 4)),
+                        optional(record, 5),
+                        AuditLogService.AuditEvent.decodePayload(optional(record, 6)),
+                        LocalDateTime.parse(record.get(0))));
+            }
+        } catch (IOException | RuntimeException ex) {
+            LOGGER.error("Unable to read audit spill file {}: {}", REPLAY_FILE, ex.getMessage(), ex);
+            spillPending = true;
+            return false;
+        }
+        for (int start = 0; start < events.size(); start += BATCH_SIZE) {
+            if (!AUDIT_LOG_DAO.insertBatch(events.subList(start, Math.min(events.size(), start + BATCH_SIZE)))) {
+                // Rows from earlier chunks are already stored; keep only the rest for the next attempt.
+                rewriteReplayFile(events.subList(start, events.size()));
+                spillPending = true;
+                return false;
+            }
+        }
+        try {
+            Files.deleteIfExists(REPLAY_FILE);
+        } catch (IOException ex) {
+            LOGGER.error("Unable to delete replayed audit spill file {}: {}", REPLAY_FILE, ex.getMessage(), ex);
+        }
+        if (!events.isEmpty()) {
+            LOGGER.info("Replayed {} spilled audit event(s).", events.size());
+        }
+        return true;
+    }
+
+    private static void rewriteReplayFile(List<AuditLogService.AuditEvent> remaining) {
+        try (Writer writer = Files.newBufferedWriter(REPLAY_FILE);
+             CSVPrinter printer = new CSVPrinter(writer, SPILL_FORMAT)) {
+            for (AuditLogService.AuditEvent event : remaining) {
+                printSpillRecord(printer, event);
+            }
+        } catch (IOException ex) {
+            LOGGER.error("Unable to rewrite audit spill file {}: {}", REPLAY_FILE, ex.getMessage(), ex);
+        }
+    }
+
+    private static void printSpillRecord(CSVPrinter printer, AuditLogService.AuditEvent event) throws IOException {
+        printer.printRecord(event.getTimestamp(), event.getType().name(), event.getActor(), event.getDetails(),
+                event.getSubjectType(), event.getSubjectId(), event.getEncodedPayload());
+    }
+
+    /**
+     * Column {@code index}, or {@code null} for records spilled before it existed.
+     */
+    private static String optional(CSVRecord record, int index) {
+        return index < record.size() ? emptyToNull(record.get(index)) : null;
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+
+    private static int intConfig(String key, int defaultValue) {
+        String value = ConfigLoader.get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Math.max(1, Integer.parseInt(value.trim()));
+        } catch (NumberFormatException ex) {
+            return defaultValue;
+        }
+    }
+
+    private static String stringConfig(String key, String defaultValue) {
+        String value = ConfigLoader.get(key);
+        return value == null || value.isBlank() ? defaultValue : value.trim();
+    }
+
+    private static OverflowPolicy policyConfig() {
+        String value = stringConfig("audit.overflowPolicy", OverflowPolicy.BLOCK.name());
+        try {
+            return OverflowPolicy.valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            LOGGER.warn("Unknown audit.overflowPolicy '{}'; using BLOCK.", value);
+            return OverflowPolicy.BLOCK;
+        }
+    }
+
+    /**
+     * Point-in-time pipeline statistics; times are in milliseconds.
+     */
+    public static final class Metrics {
+        private final int depth;
+        private final int maxDepth;
+        private final int capacity;
+        private final long accepted;
+        private final long written;
+        private final long dropped;
+        private final long spilled;
+        private final long failedBatches;
+        private final long flushes;
+        private final long averageFlushMillis;
+        private final long maxFlushMillis;
+
+        private Metrics(int depth, int maxDepth, int capacity, long accepted, long written, long dropped,
+                        long spilled, long failedBatches, long flushes, long averageFlushMillis,
+                        long maxFlushMillis) {
+            this.depth = depth;
+            this.maxDepth = maxDepth;
+            this.capacity = capacity;
+            this.accepted = accepted;
+            this.written = written;
+            this.dropped = dropped;
+            this.spilled = spilled;
+            this.failedBatches = failedBatches;
+            this.flushes = flushes;
+            this.averageFlushMillis = averageFlushMillis;
+            this.maxFlushMillis = maxFlushMillis;
+        }
+
+        public int getDepth() {
+            return depth;
+        }
+
+        public int getMaxDepth() {
+            return maxDepth;
+        }
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        public long getAccepted() {
+            return accepted;
+        }
+
+        public long getWritten() {
+            return written;
+        }
+
+        public long getDropped() {
+            return dropped;
+        }
+
+        public long getSpilled() {
+            return spilled;
+        }
+
+        public long getFailedBatches() {
+            return failedBatches;
+        }
+
+        public long getFlushes() {
+            return flushes;
+        }
+
+        public long getAverageFlushMillis() {
+            return averageFlushMillis;
+        }
+
+        public long getMaxFlushMillis() {
+            return maxFlushMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("depth=%d/%d (max %d), accepted=%d, written=%d, dropped=%d, spilled=%d, "
+                            + "failedBatches=%d, flushes=%d, flush avg/max=%d/%d ms",
+                    depth, capacity, maxDepth, accepted, written, dropped, spilled, failedBatches, flushes,
+                    averageFlushMillis, maxFlushMillis);
+        }
+    }
+}
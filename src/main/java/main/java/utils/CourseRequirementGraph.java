@@ -0,0 +1,265 @@
+package main.java.utils;
+
+import main.java.models.CourseRequirement;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Immutable snapshot of every course relationship, built once from
+ * {@link main.java.data.dao.CourseRelationshipDao#findAll()} and swapped as a whole when anything changes.
+ * <p>
+ * Direct edges are kept sorted per course and the transitive prerequisite closure is computed up front, so
+ * registration checks are set lookups. Anti-requisites are symmetric: excluding B from A also excludes A from B.
+ */
+public final class CourseRequirementGraph {
+    private static final CourseRequirementGraph EMPTY = new CourseRequirementGraph(Collections.emptyList());
+
+    private final List<CourseRequirement> edges;
+    private final Map<String, List<String>> prerequisites = new HashMap<>();
+    private final Map<String, List<String>> corequisites = new HashMap<>();
+    private final Map<String, Set<String>> antirequisites = new HashMap<>();
+    private final Map<String, Set<String>> prerequisiteClosure = new HashMap<>();
+    private final List<String> prerequisiteCycle;
+    private final List<String> corequisiteCycle;
+
+    private CourseRequirementGraph(Collection<CourseRequirement> edges) {
+        this.edges = List.copyOf(new LinkedHashSet<>(edges));
+        Map<String, Set<String>> prereqs = new HashMap<>();
+        Map<String, Set<String>> coreqs = new HashMap<>();
+        for (CourseRequirement edge : this.edges) {
+            String course = edge.getCourseId();
+            String related = edge.getRelatedCourseId();
+            switch (edge.getKind()) {
+                case PREREQUISITE:
+                    prereqs.computeIfAbsent(course, k -> new TreeSet<>()).add(related);
+                    break;
+                case COREQUISITE:
+                    coreqs.computeIfAbsent(course, k -> new TreeSet<>()).add(related);
+                    break;
+                default:
+                    antirequisites.computeIfAbsent(course, k -> new TreeSet<>()).add(related);
+                    antirequisites.computeIfAbsent(related, k -> new TreeSet<>()).add(course);
+                    break;
+            }
+        }
+        prereqs.forEach((course, set) -> prerequisites.put(course, List.copyOf(set)));
+        coreqs.forEach((course, set) -> corequisites.put(course, List.copyOf(set)));
+        antirequisites.replaceAll((course, set) -> Collections.unmodifiableSet(set));
+        this.prerequisiteCycle = findCycle(prerequisites);
+        this.corequisiteCycle = findCycle(corequisites);
+        for (String course : prerequisites.keySet()) {
+            prerequisiteClosure.put(course, Collections.unmodifiableSet(closureOf(course)));
+        }
+    }
+
+    public static CourseRequirementGraph empty() {
+        return EMPTY;
+    }
+
+    public static CourseRequirementGraph of(Collection<CourseRequirement> edges) {
+        return edges.isEmpty() ? EMPTY : new CourseRequirementGraph(edges);
+    }
+
+    public CourseRequirementGraph with(CourseRequirement edge) {
+        List<CourseRequirement> next = new ArrayList<>(edges);
+        next.add(edge);
+        return new CourseRequirementGraph(next);
+    }
+
+    public boolean contains(CourseRequirement edge) {
+        return edges.contains(edge);
+    }
+
+    public List<String> prerequisitesOf(String courseId) {
+        return prerequisites.getOrDefault(courseId, Collections.emptyList());
+    }
+
+    public List<String> corequisitesOf(String courseId) {
+        return corequisites.getOrDefault(courseId, Collections.emptyList());
+    }
+
+    public Set<String> antirequisitesOf(String courseId) {
+        return antirequisites.getOrDefault(courseId, Collections.emptySet());
+    }
+
+    /**
+     * Every course reachable through prerequisite edges, direct or indirect.
+     */
+    public Set<String> allPrerequisitesOf(String courseId) {
+        return prerequisiteClosure.getOrDefault(courseId, Collections.emptySet());
+    }
+
+    /**
+     * Direct prerequisites not in {@code satisfied}; completing a prerequisite implies its own chain was met.
+     */
+    public List<String> missingPrerequisites(String courseId, Set<String> satisfied) {
+        return missing(prerequisitesOf(courseId), satisfied);
+    }
+
+    public List<String> missingCorequisites(String courseId, Set<String> satisfied) {
+        return missing(corequisitesOf(courseId), satisfied);
+    }
+
+    public List<String> conflictingAntirequisites(String courseId, Set<String> taken) {
+        return present(antirequisitesOf(courseId), taken);
+    }
+
+    /**
+     * Why a student with the given completed and in-progress courses may not take {@code courseId}, or
+     * {@code null} when every requirement is met.
+     */
+    public String findViolation(String courseId, Set<String> completed, Set<String> active) {
+        Set<String> taken = union(completed, active);
+        List<String> missingPrereqs = missingPrerequisites(courseId, taken);
+        if (!missingPrereqs.isEmpty()) {
+            return "Missing prerequisite(s): " + String.join(", ", missingPrereqs);
+        }
+        List<String> missingCoreqs = missingCorequisites(courseId, taken);
+        if (!missingCoreqs.isEmpty()) {
+            return "Must also take co-requisite(s): " + String.join(", ", missingCoreqs);
+        }
+        List<String> excluded = conflictingAntirequisites(courseId, taken);
+        if (!excluded.isEmpty()) {
+            return "Cannot be combined with anti-requisite(s): " + String.join(", ", excluded);
+        }
+        return null;
+    }
+
+    /**
+     * The first structural problem that would make some course impossible to take, if any: a self-reference,
+     * a prerequisite cycle, a co-requisite cycle (each course would need the other already active, so none of
+     * them could be registered first), or a course that requires a course it also excludes.
+     */
+    public Optional<String> findInconsistency() {
+        for (CourseRequirement edge : edges) {
+            if (edge.getCourseId() == null || edge.getCourseId().equals(edge.getRelatedCourseId())) {
+                return Optional.of("Course cannot reference itself: " + edge);
+            }
+        }
+        if (!prerequisiteCycle.isEmpty()) {
+            return Optional.of("Prerequisite cycle: " + String.join(" -> ", prerequisiteCycle));
+        }
+        if (!corequisiteCycle.isEmpty()) {
+            return Optional.of("Co-requisite cycle: " + String.join(" -> ", corequisiteCycle));
+        }
+        for (Map.Entry<String, Set<String>> entry : antirequisites.entrySet()) {
+            String course = entry.getKey();
+            for (String excluded : entry.getValue()) {
+                if (allPrerequisitesOf(course).contains(excluded) || corequisitesOf(course).contains(excluded)) {
+                    return Optional.of(course + " both requires and excludes " + excluded);
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    public int size() {
+        return edges.size();
+    }
+
+    private Set<String> closureOf(String courseId) {
+        Set<String> seen = new TreeSet<>();
+        Deque<String> pending = new ArrayDeque<>(prerequisitesOf(courseId));
+        while (!pending.isEmpty()) {
+            String next = pending.pop();
+            if (seen.add(next)) {
+                Set<String> known = prerequisiteClosure.get(next);
+                if (known != null) {
+                    seen.addAll(known);
+                } else {
+                    pending.addAll(prerequisitesOf(next));
+                }
+            }
+        }
+        return seen;
+    }
+
+    /**
+     * Iterative three-colour DFS over one kind of edge; returns the cycle path, or an empty list.
+     */
+    private static List<String> findCycle(Map<String, List<String>> adjacency) {
+        Map<String, Integer> state = new HashMap<>();
+        for (String root : adjacency.keySet()) {
+            if (state.containsKey(root)) {
+                continue;
+            }
+            Deque<String> path = new ArrayDeque<>();
+            Deque<Integer> nextChild = new ArrayDeque<>();
+            path.push(root);
+            nextChild.push(0);
+            state.put(root, 1);
+            while (!path.isEmpty()) {
+                String course = path.peek();
+                List<String> children = adjacency.getOrDefault(course, Collections.emptyList());
+                int index = nextChild.pop();
+                if (index >= children.size()) {
+                    state.put(course, 2);
+                    path.pop();
+                    continue;
+                }
+                nextChild.push(index + 1);
+                String child = children.get(index);
+                Integer childState = state.get(child);
+                if (childState == null) {
+                    state.put(child, 1);
+                    path.push(child);
+                    nextChild.push(0);
+                } else if (childState == 1) {
+                    List<String> cycle = new ArrayList<>();
+                    for (String step : (Iterable<String>) path::descendingIterator) {
+                        if (!cycle.isEmpty() || step.equals(child)) {
+                            cycle.add(step);
+                        }
+                    }
+                    cycle.add(child);
+                    return cycle;
+                }
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    private static List<String> missing(Collection<String> required, Set<String> satisfied) {
+        List<String> result = new ArrayList<>();
+        for (String course : required) {
+            if (!satisfied.contains(course)) {
+                result.add(course);
+            }
+        }
+        return result;
+    }
+
+    private static List<String> present(Collection<String> candidates, Set<String> taken) {
+        List<String> result = new ArrayList<>();
+        for (String course : candidates) {
+            if (taken.contains(course)) {
+                result.add(course);
+            }
+        }
+        return result;
+    }
+
+    private static Set<String> union(Set<String> a, Set<String> b) {
+        if (b.isEmpty()) {
+            return a;
+        }
+        if (a.isEmpty()) {
+            return b;
+        }
+        Set<String> all = new HashSet<>(a);
+        all.addAll(b);
+        return all;
+    }
+}
@@ -1,6 +1,8 @@
+package main.java.utils;
 
 import main.java.config.ConfigLoader;
 import main.java.data.AuthUserDao;
+import main.java.data.TransactionManager;
 import main.java.data.dao.CourseDao;
 import main.java.data.dao.StudentDao;
 import main.java.data.dao.InstructorDao;
@@ -10,16 +12,19 @@ import main.java.data.dao.WaitlistDao;
 import main.java.data.dao.AttendanceDao;
 import main.java.data.dao.NotificationDao;
 import main.java.data.dao.SettingsDao;
-import main.java.data.dao.CoursePrerequisiteDao;
 import main.java.data.dao.CourseRelationshipDao;
 import main.java.data.dao.PaymentTransactionDao;
 import main.java.data.dao.FeeInstallmentDao;
+import main.java.data.dao.SeatCounterDao;
+import main.java.data.dao.StaleDataException;
+import main.java.data.dao.KeysetCursor;
 import main.java.data.migration.LegacyDataMigrator;
 import main.java.utils.PasswordPolicy;
 import main.java.utils.AuditLogService;
 
 import main.java.models.*;
 import java.io.*;
+import java.nio.file.Path;
 import java.sql.Connection;
 import java.sql.Date;
 import java.sql.PreparedStatement;
@@ -31,7 +36,11 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * Database utility facade exposing high-level operations backed by the DAO layer.
@@ -45,13 +54,15 @@ public class DatabaseUtil {
     private static Map<String, Student> students = new ConcurrentHashMap<>();
     private static Map<String, Faculty> faculty = new ConcurrentHashMap<>();
     private static Map<String, Course> courses = new ConcurrentHashMap<>();
-    private static Map<String, Section> sections = new ConcurrentHashMap<>();
+    private static volatile Map<String, Section> sections = new ConcurrentHashMap<>();
     private static Map<String, String> settings = new ConcurrentHashMap<>();
 
     private static final int MAX_FAILED_ATTEMPTS = parseIntConfig("security.maxFailedAttempts", 5);
     private static final int LOCKOUT_MINUTES = parseIntConfig("security.lockoutMinutes", 15);
     private static final int PASSWORD_HISTORY_SIZE = parseIntConfig("security.passwordHistorySize", PasswordPolicy.historySize());
     private static final int MAX_TERM_CREDITS = parseIntConfig("registration.maxCredits", 24);
+    private static final int BULK_REGISTRATION_CHUNK = Math.max(1, parseIntConfig("registration.batchChunkSize", 500));
+    private static final int OPTIMISTIC_ATTEMPTS = Math.max(1, parseIntConfig("concurrency.optimisticAttempts", 3));
     private static final AuthUserDao authUserDao = new AuthUserDao();
     private static final StudentDao studentDao = new StudentDao();
     private static final CourseDao courseDao = new CourseDao();
@@ -62,15 +73,16 @@ public class DatabaseUtil {
     private static final AttendanceDao attendanceDao = new AttendanceDao();
     private static final NotificationDao notificationDao = new NotificationDao();
     private static final SettingsDao settingsDao = new SettingsDao();
-    private static final CoursePrerequisiteDao coursePrerequisiteDao = new CoursePrerequisiteDao();
     private static final CourseRelationshipDao courseRelationshipDao = new CourseRelationshipDao();
     private static final PaymentTransactionDao paymentTransactionDao = new PaymentTransactionDao();
     private static final FeeInstallmentDao feeInstallmentDao = new FeeInstallmentDao();
+    private static final SeatCounterDao seatCounterDao = new SeatCounterDao();
 
-    private static final Map<String, List<String>> coursePrerequisiteCache = new ConcurrentHashMap<>();
-    private static final Map<String, List<String>> courseCorequisiteCache = new ConcurrentHashMap<>();
-    private static final Map<String, List<String>> courseAntirequisiteCache = new ConcurrentHashMap<>();
-    private static final double PASSING_GRADE_THRESHOLD = 40.0;
+    private static final Object REQUIREMENT_EDIT_LOCK = new Object();
+    private static volatile CourseRequirementGraph requirementGraph = CourseRequirementGraph.empty();
+    private static final Map<String, WeeklySlotMask> sectionSlotMasks = new ConcurrentHashMap<>();
+    private static final Map<String, StudentTimetable> studentTimetables = new ConcurrentHashMap<>();
+    static final double PASSING_GRADE_THRESHOLD = 40.0;
 
     private static int parseIntConfig(String key, int defaultValue) {
         String value = ConfigLoader.get(key);
@@ -84,6 +96,25 @@ public class DatabaseUtil {
         }
     }
 
+    /**
+     * Runs {@code attempt} again, up to the configured number of attempts, when it loses a version check to
+     * another client. Only for operations that re-read everything they decide on inside the attempt and roll
+     * back on failure, so a retry cannot overwrite the other client's change; {@code beforeRetry} discards
+     * stale cached state.
+     */
+    private static <T> T retryOnConflict(Supplier<T> attempt, Runnable beforeRetry) {
+        for (int tries = 1; ; tries++) {
+            try {
+                return attempt.get();
+            } catch (StaleDataException ex) {
+                if (tries >= OPTIMISTIC_ATTEMPTS) {
+                    throw ex;
+                }
+                beforeRetry.run();
+            }
+        }
+    }
+
     private static void seedFinanceData(Student... sampleStudents) {
         LocalDate today = LocalDate.now();
         for (Student student : sampleStudents) {
@@ -178,7 +209,8 @@ public class DatabaseUtil {
         refreshStudentCache();
         refreshInstructorCache();
         refreshSectionCache();
-        coursePrerequisiteCache.clear();
+        refreshRequirementGraph();
+        SeatReconciler.insertMissingCounters();
 
     }
 
@@ -238,13 +270,6 @@ public class DatabaseUtil {
 
         seedFinanceData(s1, s2);
         
-        Course course1 = getCourse("CSE101");
-        course1.setAvailableSeats(course1.getAvailableSeats() - 1);
-        updateCourse(course1);
-        Course course2 = getCourse("MATH101");
-        course2.setAvailableSeats(course2.getAvailableSeats() - 1);
-        updateCourse(course2);
-
         Section sec1 = new Section(
             "SEC101A",
             c1.getCourseId(),
@@ -299,7 +324,7 @@ public class DatabaseUtil {
         enrollmentDao.insert(er2);
         EnrollmentRecord er3 = new EnrollmentRecord(s2.getStudentId(), sec2.getSectionId(), EnrollmentRecord.Status.WAITLISTED);
         enrollmentDao.insert(er3);
-        waitlistDao.insert(sec2.getSectionId(), s2.getStudentId(), 1);
+        waitlistDao.append(sec2.getSectionId(), s2.getStudentId());
 
         // Seed welcome notifications
         addNotification(new NotificationMessage(
@@ -333,57 +358,60 @@ public class DatabaseUtil {
     }
     
     // User operations
-    public static synchronized User authenticateUser(String username, String password) {
-        LocalDateTime now = LocalDateTime.now();
-        Optional<User> optionalUser = authUserDao.findByUsername(username);
-        if (optionalUser.isEmpty()) {
-            AuditLogService.log(AuditLogService.EventType.LOGIN_FAILURE, username, "Unknown user");
-            return null;
-        }
-        User user = optionalUser.get();
-        if (!user.isActive()) {
-            AuditLogService.log(AuditLogService.EventType.LOGIN_FAILURE, username, "Inactive account");
-            return null;
-        }
+    @SuppressWarnings("try")
+    public static User authenticateUser(String username, String password) {
+        try (StripedLockManager.LockScope ignored = StripedLockManager.lockUser(username)) {
+            LocalDateTime now = LocalDateTime.now();
+            Optional<User> optionalUser = authUserDao.findByUsername(username);
+            if (optionalUser.isEmpty()) {
+                auditUser(AuditLogService.EventType.LOGIN_FAILURE, username, "Unknown user");
+                return null;
+            }
+            User user = optionalUser.get();
+            if (!user.isActive()) {
+                auditUser(AuditLogService.EventType.LOGIN_FAILURE, username, "Inactive account");
+                return null;
+            }
 
-        if (user.getLockedUntil() != null && now.isBefore(user.getLockedUntil())) {
-            AuditLogService.log(AuditLogService.EventType.ACCOUNT_LOCKED, username,
-                    "Account locked until " + user.getLockedUntil());
-            return null;
-        }
+            if (user.getLockedUntil() != null && now.isBefore(user.getLockedUntil())) {
+                auditUser(AuditLogService.EventType.ACCOUNT_LOCKED, username,
+                        "Account locked until " + user.getLockedUntil());
+                return null;
+            }
 
-        boolean matched;
-        String salt = user.getSalt();
-        String hash = user.getPasswordHash();
-        if (salt == null || hash == null) {
-            matched = false;
-        } else {
-            matched = PasswordUtil.verifyPassword(password.toCharArray(), salt, hash);
-        }
+            boolean matched;
+            String salt = user.getSalt();
+            String hash = user.getPasswordHash();
+            if (salt == null || hash == null) {
+                matched = false;
+            } else {
+                matched = PasswordUtil.verifyPassword(password.toCharArray(), salt, hash);
+            }
 
-        if (matched) {
-            user.resetFailedAttempts();
-            user.setLockedUntil(null);
-            user.setLastLogin(now);
-            authUserDao.recordLoginSuccess(user);
-            AuditLogService.log(AuditLogService.EventType.LOGIN_SUCCESS, username, "Login successful");
-            return user;
-        } else {
-            int failedAttempts = user.getFailedAttempts() + 1;
-            LocalDateTime lockUntil = null;
-            if (failedAttempts >= MAX_FAILED_ATTEMPTS) {
-                lockUntil = now.plusMinutes(LOCKOUT_MINUTES);
-                AuditLogService.log(AuditLogService.EventType.ACCOUNT_LOCKED, username,
-                        "Exceeded failed login attempts");
-                failedAttempts = 0;
+            if (matched) {
+                user.resetFailedAttempts();
+                user.setLockedUntil(null);
+                user.setLastLogin(now);
+                authUserDao.recordLoginSuccess(user);
+                auditUser(AuditLogService.EventType.LOGIN_SUCCESS, username, "Login successful");
+                return user;
             } else {
-                AuditLogService.log(AuditLogService.EventType.LOGIN_FAILURE, username,
-                        "Invalid credentials (" + failedAttempts + "/" + MAX_FAILED_ATTEMPTS + ")");
+                int failedAttempts = user.getFailedAttempts() + 1;
+                LocalDateTime lockUntil = null;
+                if (failedAttempts >= MAX_FAILED_ATTEMPTS) {
+                    lockUntil = now.plusMinutes(LOCKOUT_MINUTES);
+                    auditUser(AuditLogService.EventType.ACCOUNT_LOCKED, username,
+                            "Exceeded failed login attempts");
+                    failedAttempts = 0;
+                } else {
+                    auditUser(AuditLogService.EventType.LOGIN_FAILURE, username,
+                            "Invalid credentials (" + failedAttempts + "/" + MAX_FAILED_ATTEMPTS + ")");
+                }
+                user.setFailedAttempts(failedAttempts);
+                user.setLockedUntil(lockUntil);
+                authUserDao.recordLoginFailure(user, failedAttempts, lockUntil);
+                return null;
             }
-            user.setFailedAttempts(failedAttempts);
-            user.setLockedUntil(lockUntil);
-            authUserDao.recordLoginFailure(user, failedAttempts, lockUntil);
-            return null;
         }
     }
     
@@ -395,41 +423,53 @@ public class DatabaseUtil {
         return authUserDao.findByUsername(username).orElse(null);
     }
 
-    public static synchronized User addUser(String username, String role, String fullName, String email, String rawPassword) {
-        PasswordPolicy.validateComplexity(rawPassword);
-        if (authUserDao.findByUsername(username).isPresent()) {
-            throw new IllegalArgumentException("Username already exists");
+    @SuppressWarnings("try")
+    public static User addUser(String username, String role, String fullName, String email, String rawPassword) {
+        try (StripedLockManager.LockScope ignored = StripedLockManager.lockUser(username)) {
+            PasswordPolicy.validateComplexity(rawPassword);
+            if (authUserDao.findByUsername(username).isPresent()) {
+                throw new IllegalArgumentException("Username already exists");
+            }
+            String salt = PasswordUtil.generateSalt();
+            String hash = PasswordUtil.hashPassword(rawPassword.toCharArray(), salt);
+            User user = new User(username, hash, salt, role, fullName, email);
+            user.setActive(true);
+            user.setMustChangePassword(true);
+            user.addPasswordHistory(salt, hash, PASSWORD_HISTORY_SIZE);
+            return authUserDao.insert(user);
         }
-        String salt = PasswordUtil.generateSalt();
-        String hash = PasswordUtil.hashPassword(rawPassword.toCharArray(), salt);
-        User user = new User(username, hash, salt, role, fullName, email);
-        user.setActive(true);
-        user.setMustChangePassword(true);
-        user.addPasswordHistory(salt, hash, PASSWORD_HISTORY_SIZE);
-        return authUserDao.insert(user);
     }
 
-    public static synchronized void updateUserProfile(String username, String fullName, String email, boolean active) {
-        User user = requireUser(username);
-        user.setFullName(fullName);
-        user.setEmail(email);
-        user.setActive(active);
-        authUserDao.updateProfile(user);
+    @SuppressWarnings("try")
+    public static void updateUserProfile(String username, String fullName, String email, boolean active) {
+        try (StripedLockManager.LockScope ignored = StripedLockManager.lockUser(username)) {
+            User user = requireUser(username);
+            user.setFullName(fullName);
+            user.setEmail(email);
+            user.setActive(active);
+            authUserDao.updateProfile(user);
+        }
     }
 
-    public static synchronized void changePasswordSelf(String username, String currentPassword, String newPassword) {
-        User user = requireUser(username);
-        if (!PasswordUtil.verifyPassword(currentPassword.toCharArray(), user.getSalt(), user.getPasswordHash())) {
-            throw new IllegalArgumentException("Current password is incorrect.");
+    @SuppressWarnings("try")
+    public static void changePasswordSelf(String username, String currentPassword, String newPassword) {
+        try (StripedLockManager.LockScope ignored = StripedLockManager.lockUser(username)) {
+            User user = requireUser(username);
+            if (!PasswordUtil.verifyPassword(currentPassword.toCharArray(), user.getSalt(), user.getPasswordHash())) {
+                throw new IllegalArgumentException("Current password is incorrect.");
+            }
+            applyNewPassword(user, newPassword, false, false);
+            auditUser(AuditLogService.EventType.PASSWORD_CHANGED, username, "User-initiated change");
         }
-        applyNewPassword(user, newPassword, false, false);
-        AuditLogService.log(AuditLogService.EventType.PASSWORD_CHANGED, username, "User-initiated change");
     }
 
-    public static synchronized void resetPasswordByAdmin(String username, String newPassword) {
-        User user = requireUser(username);
-        applyNewPassword(user, newPassword, true, false);
-        AuditLogService.log(AuditLogService.EventType.PASSWORD_RESET, username, "Admin reset password");
+    @SuppressWarnings("try")
+    public static void resetPasswordByAdmin(String username, String newPassword) {
+        try (StripedLockManager.LockScope ignored = StripedLockManager.lockUser(username)) {
+            User user = requireUser(username);
+            applyNewPassword(user, newPassword, true, false);
+            auditUser(AuditLogService.EventType.PASSWORD_RESET, username, "Admin reset password");
+        }
     }
     
     // Student operations
@@ -438,8 +478,18 @@ public class DatabaseUtil {
         students.put(student.getStudentId(), student);
     }
     
+    /**
+     * Saves an edited student if nobody else changed the row since it was read.
+     *
+     * @throws StaleDataException on a concurrent change; the cache then holds the stored row again
+     */
     public static void updateStudent(Student student) {
-        studentDao.update(student);
+        try {
+            studentDao.update(student);
+        } catch (StaleDataException ex) {
+            reloadStudent(student.getStudentId());
+            throw ex;
+        }
         students.put(student.getStudentId(), student);
     }
     
@@ -478,12 +528,31 @@ public class DatabaseUtil {
                 .collect(Collectors.toList());
     }
 
-    public static synchronized PaymentTransaction recordPayment(String actorUsername,
+    @SuppressWarnings("try")
+    public static PaymentTransaction recordPayment(String actorUsername,
                                                                 String studentId,
                                                                 double amount,
                                                                 String method,
                                                                 String reference,
                                                                 String notes) {
+        try (StripedLockManager.LockScope ignored = StripedLockManager.lockStudent(studentId)) {
+            try {
+                return retryOnConflict(() -> TransactionManager.inTransaction(() ->
+                                recordPaymentLocked(actorUsername, studentId, amount, method, reference, notes)),
+                        () -> reloadStudent(studentId));
+            } catch (RuntimeException ex) {
+                reloadStudent(studentId);
+                throw ex;
+            }
+        }
+    }
+
+    private static PaymentTransaction recordPaymentLocked(String actorUsername,
+                                                          String studentId,
+                                                          double amount,
+                                                          String method,
+                                                          String reference,
+                                                          String notes) {
         if (amount <= 0) {
             throw new IllegalArgumentException("Payment amount must be positive.");
         }
@@ -497,7 +566,7 @@ public class DatabaseUtil {
 
         double updatedPaid = Math.min(student.getTotalFees(), student.getFeesPaid() + amount);
         student.setFeesPaid(updatedPaid);
-        updateStudent(student);
+        studentDao.update(student);
 
         List<FeeInstallment> schedule = feeInstallmentDao.findByStudent(studentId);
         schedule.sort(Comparator.comparing(installment -> installment.getDueDate() == null
@@ -521,10 +590,27 @@ public class DatabaseUtil {
 
         AuditLogService.log(AuditLogService.EventType.FINANCE_PAYMENT,
                 actorUsername != null ? actorUsername : "system",
+                AuditLogService.SubjectType.STUDENT, studentId,
+                Map.of("amount", String.format(Locale.ENGLISH, "%.2f", amount),
+                        "transaction", transaction.getTransactionId()),
                 String.format(Locale.ENGLISH, "Recorded payment %.2f for %s", amount, studentId));
         return transaction;
     }
 
+    /**
+     * Imports a bank statement through {@link PaymentReconciler}, writing unapplied lines to {@code report}.
+     * The student cache is reloaded afterwards, also when a chunk failed after earlier ones committed.
+     */
+    public static PaymentReconciler.Summary reconcileBankStatement(String actorUsername, Path statement,
+                                                                   Path report, LongConsumer progress)
+            throws IOException {
+        try {
+            return PaymentReconciler.reconcile(actorUsername, statement, report, progress);
+        } finally {
+            refreshStudentCache();
+        }
+    }
+
     public static void upsertInstallment(String studentId, FeeInstallment installment) {
         installment.setStudentId(studentId);
         if (installment.getInstallmentId() == null || installment.getInstallmentId().isBlank()) {
@@ -540,14 +626,16 @@ public class DatabaseUtil {
     }
 
     public static void markInstallmentReminderSent(String studentId, String installmentId) {
-        List<FeeInstallment> schedule = feeInstallmentDao.findByStudent(studentId);
-        schedule.stream()
-                .filter(inst -> inst.getInstallmentId().equals(installmentId))
-                .findFirst()
-                .ifPresent(inst -> {
-                    inst.setLastReminderSent(LocalDate.now());
-                    feeInstallmentDao.update(inst);
-                });
+        retryOnConflict(() -> {
+            feeInstallmentDao.findByStudent(studentId).stream()
+                    .filter(inst -> inst.getInstallmentId().equals(installmentId))
+                    .findFirst()
+                    .ifPresent(inst -> {
+                        inst.setLastReminderSent(LocalDate.now());
+                        feeInstallmentDao.update(inst);
+                    });
+            return null;
+        }, () -> { });
     }
 
     public static FeeInstallment nextDueInstallment(String studentId) {
@@ -612,19 +700,31 @@ public class DatabaseUtil {
     public static void addCourse(Course course) {
         courseDao.insert(course);
         courses.put(course.getCourseId(), course);
-        coursePrerequisiteCache.remove(course.getCourseId());
+        refreshRequirementGraph();
     }
 
+    /**
+     * Saves an edited course if nobody else changed the row since it was read.
+     *
+     * @throws StaleDataException on a concurrent change; the cache then holds the stored row again
+     */
     public static void updateCourse(Course course) {
-        courseDao.update(course);
+        try {
+            courseDao.update(course);
+        } catch (StaleDataException ex) {
+            reloadCourse(course.getCourseId());
+            throw ex;
+        }
+        courseDao.findAvailableSeats(course.getCourseId()).ifPresent(course::setAvailableSeats);
         courses.put(course.getCourseId(), course);
-        coursePrerequisiteCache.remove(course.getCourseId());
+        refreshRequirementGraph();
     }
 
     public static void deleteCourse(String courseId) {
         courseDao.delete(courseId);
         courses.remove(courseId);
-        coursePrerequisiteCache.remove(courseId);
+        // Relationship rows cascade with the course.
+        refreshRequirementGraph();
     }
 
     public static Course getCourse(String courseId) {
@@ -672,14 +772,18 @@ public class DatabaseUtil {
     }
 
     public static Section getSection(String sectionId) {
+        if (sectionId == null) {
+            return null;
+        }
         Section section = sections.get(sectionId);
         if (section == null) {
             section = sectionDao.findByCode(sectionId).orElse(null);
             if (section != null) {
-                section.getEnrolledStudentIds().clear();
-                section.getWaitlistedStudentIds().clear();
-                sections.put(sectionId, section);
-                populateSectionEnrollmentState();
+                populateSectionEnrollmentState(section);
+                Section existing = sections.putIfAbsent(sectionId, section);
+                if (existing != null) {
+                    section = existing;
+                }
             }
         }
         return section;
@@ -687,47 +791,91 @@ public class DatabaseUtil {
 
     public static void addSection(Section section) {
         sectionDao.insert(section);
+        seatCounterDao.upsert(section.getSectionId(), section.getCapacity());
         sections.put(section.getSectionId(), section);
     }
 
+    /**
+     * Saves the section and, when it has a waitlist, fills any seats a capacity increase freed up.
+     *
+     * @throws StaleDataException when another client changed the section since it was read; the cache then
+     *                            holds the stored row again
+     */
     public static void updateSection(Section section) {
-        sectionDao.update(section);
-        sections.put(section.getSectionId(), section);
+        saveSection(section);
+        if (!section.getWaitlistedStudentIds().isEmpty()) {
+            promoteWaitlist(null, section.getSectionId());
+        }
+    }
+
+    private static void saveSection(Section section) {
+        try {
+            sectionDao.update(section);
+        } catch (StaleDataException ex) {
+            reloadSection(section.getSectionId());
+            throw ex;
+        }
+        seatCounterDao.upsert(section.getSectionId(), section.getCapacity());
+        // Cached histories map sections to courses; a section moved to another course invalidates them.
+        EligibilityEngine.invalidateAll();
+        Section cached = sections.put(section.getSectionId(), section);
+        if (cached != null && cached != section) {
+            // Callers may hand in a freshly built instance; keep the roster the cache already tracks.
+            section.getEnrolledStudentIds().clear();
+            section.getEnrolledStudentIds().addAll(cached.getEnrolledStudentIds());
+            section.getWaitlistedStudentIds().clear();
+            section.getWaitlistedStudentIds().addAll(cached.getWaitlistedStudentIds());
+        }
     }
 
     public static void deleteSection(String sectionId) {
-        sectionDao.delete(sectionId);
+        TransactionManager.runInTransaction(() -> {
+            enrollmentDao.deleteBySection(sectionId);
+            waitlistDao.deleteAll(sectionId);
+            attendanceDao.deleteBySection(sectionId);
+            sectionDao.delete(sectionId);
+        });
         sections.remove(sectionId);
-        enrollmentDao.deleteBySection(sectionId);
-        waitlistDao.deleteAll(sectionId);
-        attendanceDao.deleteBySection(sectionId);
+        sectionSlotMasks.remove(sectionId);
     }
 
-    public static synchronized void assignInstructorToSection(String sectionId, String facultyId, String performedBy) {
+    @SuppressWarnings("try")
+    public static void assignInstructorToSection(String sectionId, String facultyId, String performedBy) {
         if (sectionId == null || sectionId.isBlank()) {
             throw new IllegalArgumentException("Section ID is required.");
         }
         if (facultyId == null || facultyId.isBlank()) {
             throw new IllegalArgumentException("Instructor ID is required.");
         }
-        Section section = getSection(sectionId);
-        if (section == null) {
-            throw new IllegalArgumentException("Section not found: " + sectionId);
-        }
         Faculty instructor = getFaculty(facultyId);
         if (instructor == null) {
             throw new IllegalArgumentException("Instructor not found: " + facultyId);
         }
-        if (facultyId.equals(section.getFacultyId())) {
-            return;
+        try (StripedLockManager.LockScope ignored = StripedLockManager.lockSection(sectionId)) {
+            // Only the instructor column changes, so a concurrent edit elsewhere is re-read and kept.
+            boolean changed = retryOnConflict(() -> {
+                Section section = getSection(sectionId);
+                if (section == null) {
+                    throw new IllegalArgumentException("Section not found: " + sectionId);
+                }
+                if (facultyId.equals(section.getFacultyId())) {
+                    return false;
+                }
+                section.setFacultyId(facultyId);
+                // Capacity is unchanged, and promoting here would take student stripes under the section lock.
+                saveSection(section);
+                return true;
+            }, () -> { });
+            if (!changed) {
+                return;
+            }
         }
-        section.setFacultyId(facultyId);
-        updateSection(section);
-        refreshSectionCache();
 
         String actor = performedBy == null || performedBy.isBlank() ? "system" : performedBy;
         AuditLogService.log(AuditLogService.EventType.SECTION_ASSIGNMENT,
                 actor,
+                AuditLogService.SubjectType.SECTION, sectionId,
+                Map.of("instructor", facultyId),
                 String.format("Assigned %s to section %s", facultyId, sectionId));
     }
 
@@ -740,11 +888,45 @@ public class DatabaseUtil {
         return enrollmentDao.findBySection(sectionId);
     }
 
-    public static synchronized EnrollmentRecord registerStudentToSection(String studentId, String sectionId) {
+    /**
+     * Persists a computed final grade and invalidates the student's cached eligibility, since a passing grade
+     * can satisfy prerequisites.
+     */
+    public static void saveFinalGrade(EnrollmentRecord record) {
+        // The grade is derived from the component scores, so it may overwrite a concurrent grade write, but
+        // never a status change such as a drop.
+        retryOnConflict(() -> {
+            enrollmentDao.updateStatus(record);
+            return null;
+        }, () -> {
+            EnrollmentRecord stored = enrollmentDao.findByStudentAndSection(record.getStudentId(), record.getSectionId())
+                    .filter(current -> current.getStatus() == record.getStatus())
+                    .orElseThrow(() -> new StaleDataException("Enrollment",
+                            record.getStudentId() + "/" + record.getSectionId()));
+            record.setVersion(stored.getVersion());
+        });
+        EligibilityEngine.invalidate(record.getStudentId());
+    }
+
+    public static EnrollmentRecord registerStudentToSection(String studentId, String sectionId) {
         return registerStudentToSection(null, studentId, sectionId);
     }
 
-    public static synchronized EnrollmentRecord registerStudentToSection(String performedBy, String studentId, String sectionId) {
+    @SuppressWarnings("try")
+    public static EnrollmentRecord registerStudentToSection(String performedBy, String studentId, String sectionId) {
+        try (StripedLockManager.LockScope ignored =
+                     StripedLockManager.lockSectionAndStudents(sectionId, Collections.singleton(studentId))) {
+            try {
+                return TransactionManager.inTransaction(() ->
+                        registerStudentToSectionLocked(performedBy, studentId, sectionId));
+            } catch (RuntimeException ex) {
+                reloadStudent(studentId);
+                throw ex;
+            }
+        }
+    }
+
+    private static EnrollmentRecord registerStudentToSectionLocked(String performedBy, String studentId, String sectionId) {
         Section section = getSection(sectionId);
         if (section == null) {
             throw new IllegalArgumentException("Section not found");
@@ -754,15 +936,14 @@ public class DatabaseUtil {
             throw new IllegalArgumentException("Student not found");
         }
 
-        List<String> missingPrereqs = getMissingPrerequisites(studentId, section.getCourseId());
-        if (!missingPrereqs.isEmpty()) {
-            throw new IllegalStateException("Missing prerequisite(s): " + String.join(", ", missingPrereqs));
+        String violation = findRequirementViolation(studentId, section.getCourseId());
+        if (violation != null) {
+            throw new IllegalStateException(violation);
         }
 
-        List<EnrollmentRecord> existing = enrollmentDao.findBySection(sectionId);
-        boolean already = existing.stream()
-                .anyMatch(rec -> rec.getStudentId().equals(studentId)
-                        && rec.getStatus() != EnrollmentRecord.Status.DROPPED);
+        boolean already = enrollmentDao.findByStudentAndSection(studentId, sectionId)
+                .filter(rec -> rec.getStatus() != EnrollmentRecord.Status.DROPPED)
+                .isPresent();
         if (already) {
             throw new IllegalStateException("Student already enrolled or waitlisted in this section");
         }
@@ -771,39 +952,38 @@ public class DatabaseUtil {
             throw new IllegalStateException("Schedule conflict detected with another section");
         }
 
-        long enrolledCount = existing.stream()
-                .filter(rec -> rec.getStatus() == EnrollmentRecord.Status.ENROLLED)
-                .count();
-        boolean hasSeat = enrolledCount < section.getCapacity();
+        // The seat is claimed by a conditional UPDATE on the shared counter, so capacity holds across clients.
+        boolean hasSeat = seatCounterDao.tryReserve(sectionId);
 
+        // Credits are reserved the same way: one conditional UPDATE both checks the cap and adds the hours.
         int courseCredits = getCourseCreditHours(section.getCourseId());
-        if (hasSeat) {
-            int currentCredits = calculateEnrolledCredits(studentId);
-            if (currentCredits + courseCredits > MAX_TERM_CREDITS) {
-                throw new IllegalStateException("Credit load would exceed the maximum of "
-                        + MAX_TERM_CREDITS + " hours.");
-            }
+        if (hasSeat && !studentDao.tryAddCredits(studentId, courseCredits, MAX_TERM_CREDITS)) {
+            seatCounterDao.release(sectionId);
+            throw new IllegalStateException("Credit load would exceed the maximum of "
+                    + MAX_TERM_CREDITS + " hours.");
         }
 
         EnrollmentRecord record = new EnrollmentRecord(studentId, sectionId,
                 hasSeat ? EnrollmentRecord.Status.ENROLLED : EnrollmentRecord.Status.WAITLISTED);
-        enrollmentDao.insert(record);
+        try {
+            enrollmentDao.insert(record);
+        } catch (RuntimeException ex) {
+            if (hasSeat) {
+                seatCounterDao.release(sectionId);
+            }
+            throw ex;
+        }
 
         if (hasSeat) {
-            Course course = getCourse(section.getCourseId());
-            if (course != null) {
-                course.setAvailableSeats(Math.max(0, course.getAvailableSeats() - 1));
-                updateCourse(course);
-            }
+            adjustCourseAvailableSeats(section.getCourseId(), -1);
             addNotification(new NotificationMessage(
                     NotificationMessage.Audience.STUDENT,
                     studentId,
                     "You are enrolled in " + section.getTitle() + " (" + section.getSectionId() + ").",
                     "Registration"));
-            refreshStudentEnrollmentMetrics(studentId);
+            cacheCreditDeltas(Collections.singletonMap(studentId, courseCredits));
         } else {
-            int position = waitlistDao.findWaitlist(sectionId).size() + 1;
-            waitlistDao.insert(sectionId, studentId, position);
+            int position = waitlistDao.append(sectionId, studentId);
             addNotification(new NotificationMessage(
                     NotificationMessage.Audience.STUDENT,
                     studentId,
@@ -811,100 +991,567 @@ public class DatabaseUtil {
                     "Registration"));
         }
 
-        refreshSectionCache();
+        cacheEnrollmentStatus(sectionId, studentId, record.getStatus());
 
         String actor = performedBy == null ? "system" : performedBy;
         AuditLogService.log(AuditLogService.EventType.ENROLLMENT_CHANGE, actor,
+                AuditLogService.SubjectType.STUDENT, studentId,
+                enrollmentPayload(sectionId, "REGISTER", record.getStatus()),
                 String.format("Registered %s in %s (%s)", studentId, section.getTitle(), record.getStatus()));
         return record;
     }
 
+    /**
+     * Registers many (student, section) pairs, returning one outcome per request in input order.
+     * <p>
+     * Requests are processed in chunks. Each chunk locks its sections and students, loads enrollments, seat
+     * counters and waitlists with a few set-based queries, validates every row in memory and writes the
+     * accepted rows with JDBC batching in one transaction. A chunk that fails to write is rolled back and its
+     * rows are reported as rejected; earlier chunks stay committed.
+     */
+    public static List<RegistrationOutcome> registerBatch(String performedBy, List<RegistrationRequest> requests) {
+        RegistrationOutcome[] results = new RegistrationOutcome[requests.size()];
+        for (int start = 0; start < requests.size(); start += BULK_REGISTRATION_CHUNK) {
+            int end = Math.min(requests.size(), start + BULK_REGISTRATION_CHUNK);
+            registerChunk(performedBy, requests, start, end, results);
+        }
+        return Arrays.asList(results);
+    }
+
+    @SuppressWarnings("try")
+    private static void registerChunk(String performedBy, List<RegistrationRequest> requests, int start, int end,
+                                      RegistrationOutcome[] results) {
+        Set<String> sectionIds = new HashSet<>();
+        Set<String> studentIds = new HashSet<>();
+        for (int i = start; i < end; i++) {
+            RegistrationRequest request = requests.get(i);
+            if (request != null && request.getSectionId() != null && request.getStudentId() != null) {
+                sectionIds.add(request.getSectionId());
+                studentIds.add(request.getStudentId());
+            }
+        }
+        try (StripedLockManager.LockScope ignored =
+                     StripedLockManager.lock(sectionIds, studentIds, Collections.emptySet())) {
+            try {
+                TransactionManager.runInTransaction(() ->
+                        registerChunkLocked(performedBy, requests, start, end, sectionIds, studentIds, results));
+            } catch (RuntimeException ex) {
+                studentIds.forEach(DatabaseUtil::reloadStudent);
+                for (int i = start; i < end; i++) {
+                    if (results[i] == null || results[i].isAccepted()) {
+                        results[i] = RegistrationOutcome.rejected(requests.get(i),
+                                "Batch write failed: " + ex.getMessage());
+                    }
+                }
+            }
+        }
+    }
+
+    private static void registerChunkLocked(String performedBy, List<RegistrationRequest> requests, int start, int end,
+                                            Set<String> sectionIds, Set<String> studentIds,
+                                            RegistrationOutcome[] results) {
+        // Seat counters, student rows, then enrollments: the order the single-row path takes its row locks in.
+        // Reading the students and their enrollments under lock keeps another client from registering them, or
+        // adding to their credit load, until the chunk commits, so the cap checked below is the stored one.
+        Map<String, Integer> remainingSeats = seatCounterDao.lockRemainingSeats(sectionIds);
+        Map<String, Integer> creditsInProgress = studentDao.lockCreditsInProgress(studentIds);
+        Map<String, List<EnrollmentRecord>> enrollmentsByStudent = enrollmentDao.lockByStudents(studentIds);
+        Map<String, Integer> waitlistLengths = waitlistDao.countBySections(sectionIds);
+        Map<String, BulkStudentState> states = new HashMap<>();
+        for (String studentId : studentIds) {
+            states.put(studentId, new BulkStudentState(enrollmentsByStudent.getOrDefault(studentId, List.of()),
+                    creditsInProgress.getOrDefault(studentId, 0)));
+        }
+
+        // Existence and prerequisite checks only read the snapshot, so they can run side by side.
+        String[] preChecks = new String[end - start];
+        IntStream.range(start, end).parallel()
+                .forEach(i -> preChecks[i - start] = preCheck(requests.get(i), states));
+
+        List<EnrollmentRecord> enrollments = new ArrayList<>();
+        Map<String, List<String>> waitlistAdditions = new LinkedHashMap<>();
+        Map<String, Integer> seatsTaken = new HashMap<>();
+        Map<String, Integer> courseSeatsTaken = new HashMap<>();
+        List<NotificationMessage> notifications = new ArrayList<>();
+        List<AuditLogService.AuditEvent> auditEvents = new ArrayList<>();
+        String actor = performedBy == null ? "system" : performedBy;
+
+        for (int i = start; i < end; i++) {
+            RegistrationRequest request = requests.get(i);
+            if (preChecks[i - start] != null) {
+                results[i] = RegistrationOutcome.rejected(request, preChecks[i - start]);
+                continue;
+            }
+            Section section = getSection(request.getSectionId());
+            BulkStudentState state = states.get(request.getStudentId());
+            if (state.activeSections.contains(section.getSectionId())) {
+                results[i] = RegistrationOutcome.rejected(request,
+                        "Student already enrolled or waitlisted in this section");
+                continue;
+            }
+            WeeklySlotMask sectionMask = getSectionSlotMask(section);
+            if (state.timetable.intersects(sectionMask)) {
+                results[i] = RegistrationOutcome.rejected(request, "Schedule conflict detected with another section");
+                continue;
+            }
+
+            int free = remainingSeats.getOrDefault(section.getSectionId(), 0);
+            int courseCredits = getCourseCreditHours(section.getCourseId());
+            if (free > 0 && state.credits + courseCredits > MAX_TERM_CREDITS) {
+                results[i] = RegistrationOutcome.rejected(request,
+                        "Credit load would exceed the maximum of " + MAX_TERM_CREDITS + " hours.");
+                continue;
+            }
+
+            state.activeSections.add(section.getSectionId());
+            state.activeCourses.add(section.getCourseId());
+            if (free > 0) {
+                remainingSeats.put(section.getSectionId(), free - 1);
+                seatsTaken.merge(section.getSectionId(), 1, Integer::sum);
+                courseSeatsTaken.merge(section.getCourseId(), 1, Integer::sum);
+                state.timetable = state.timetable.or(sectionMask);
+                state.credits += courseCredits;
+                state.creditsAdded += courseCredits;
+                enrollments.add(new EnrollmentRecord(request.getStudentId(), section.getSectionId(),
+                        EnrollmentRecord.Status.ENROLLED));
+                notifications.add(new NotificationMessage(
+                        NotificationMessage.Audience.STUDENT,
+                        request.getStudentId(),
+                        "You are enrolled in " + section.getTitle() + " (" + section.getSectionId() + ").",
+                        "Registration"));
+                results[i] = RegistrationOutcome.enrolled(request);
+            } else {
+                List<String> additions = waitlistAdditions.computeIfAbsent(section.getSectionId(), k -> new ArrayList<>());
+                additions.add(request.getStudentId());
+                int position = waitlistLengths.getOrDefault(section.getSectionId(), 0) + additions.size();
+                enrollments.add(new EnrollmentRecord(request.getStudentId(), section.getSectionId(),
+                        EnrollmentRecord.Status.WAITLISTED));
+                notifications.add(new NotificationMessage(
+                        NotificationMessage.Audience.STUDENT,
+                        request.getStudentId(),
+                        "Section " + section.getTitle() + " is full. You are #" + position + " on the waitlist.",
+                        "Registration"));
+                results[i] = RegistrationOutcome.waitlisted(request, position);
+            }
+            auditEvents.add(new AuditLogService.AuditEvent(AuditLogService.EventType.ENROLLMENT_CHANGE, actor,
+                    AuditLogService.SubjectType.STUDENT, request.getStudentId(),
+                    enrollmentPayload(section.getSectionId(), "REGISTER", results[i].getStatus()),
+                    String.format("Registered %s in %s (%s)", request.getStudentId(), section.getTitle(),
+                            results[i].getStatus())));
+        }
+
+        enrollmentDao.insertBatch(enrollments);
+        waitlistAdditions.forEach(waitlistDao::appendBatch);
+        seatCounterDao.addEnrolled(seatsTaken);
+        courseSeatsTaken.forEach((courseId, taken) -> adjustCourseAvailableSeats(courseId, -taken));
+        Map<String, Integer> creditDeltas = new HashMap<>();
+        states.forEach((studentId, state) -> {
+            if (state.creditsAdded != 0) {
+                creditDeltas.put(studentId, state.creditsAdded);
+            }
+        });
+        adjustCreditsInProgress(creditDeltas);
+        notificationDao.insertBatch(notifications);
+        AuditLogService.logAll(auditEvents);
+
+        for (EnrollmentRecord record : enrollments) {
+            cacheEnrollmentStatus(record.getSectionId(), record.getStudentId(), record.getStatus());
+        }
+    }
+
+    /**
+     * Shifts credits-in-progress by a signed delta per student in one batch and mirrors it into the cache on
+     * commit.
+     */
+    private static void adjustCreditsInProgress(Map<String, Integer> deltas) {
+        studentDao.adjustCreditsInProgress(deltas);
+        cacheCreditDeltas(deltas);
+    }
+
+    private static void cacheCreditDeltas(Map<String, Integer> deltas) {
+        TransactionManager.afterCommit(() -> deltas.forEach((studentId, delta) -> {
+            Student cached = students.get(studentId);
+            if (cached != null) {
+                cached.setCreditsInProgress(Math.max(0, cached.getCreditsInProgress() + delta));
+            }
+        }));
+    }
+
+    private static String preCheck(RegistrationRequest request, Map<String, BulkStudentState> states) {
+        if (request == null || request.getStudentId() == null || request.getSectionId() == null) {
+            return "Student and section are required";
+        }
+        Section section = getSection(request.getSectionId());
+        if (section == null) {
+            return "Section not found";
+        }
+        if (getStudent(request.getStudentId()) == null) {
+            return "Student not found";
+        }
+        BulkStudentState state = states.get(request.getStudentId());
+        return requirementGraph.findViolation(section.getCourseId(), state.completedCourses, state.activeCourses);
+    }
+
+    /**
+     * In-memory view of one student's registrations while a bulk chunk is validated.
+     */
+    private static final class BulkStudentState {
+        private final Set<String> activeSections = new HashSet<>();
+        private final Set<String> activeCourses = new HashSet<>();
+        private final Set<String> completedCourses = new HashSet<>();
+        private WeeklySlotMask timetable = WeeklySlotMask.empty();
+        private int credits;
+        private int creditsAdded;
+
+        private BulkStudentState(List<EnrollmentRecord> records, int creditsInProgress) {
+            credits = creditsInProgress;
+            for (EnrollmentRecord record : records) {
+                Section section = getSection(record.getSectionId());
+                if (section == null) {
+                    continue;
+                }
+                if (record.getFinalGrade() >= PASSING_GRADE_THRESHOLD) {
+                    completedCourses.add(section.getCourseId());
+                }
+                if (record.getStatus() == EnrollmentRecord.Status.DROPPED) {
+                    continue;
+                }
+                activeSections.add(section.getSectionId());
+                activeCourses.add(section.getCourseId());
+                if (record.getStatus() == EnrollmentRecord.Status.ENROLLED) {
+                    timetable = timetable.or(getSectionSlotMask(section));
+                }
+            }
+        }
+    }
+
+    private static void adjustCourseAvailableSeats(String courseId, int delta) {
+        courseDao.adjustAvailableSeats(courseId, delta);
+        TransactionManager.afterCommit(() -> {
+            Course cached = courses.get(courseId);
+            if (cached != null) {
+                courseDao.findAvailableSeats(courseId).ifPresent(cached::setAvailableSeats);
+            }
+        });
+    }
+
+    /**
+     * Replaces a cached student with the stored row, discarding in-memory edits of a rolled-back operation.
+     */
+    private static void reloadStudent(String studentId) {
+        Optional<Student> stored = studentDao.findByCode(studentId);
+        if (stored.isPresent()) {
+            students.put(studentId, stored.get());
+        } else {
+            students.remove(studentId);
+        }
+    }
+
+    private static void reloadCourse(String courseId) {
+        Optional<Course> stored = courseDao.findByCode(courseId);
+        if (stored.isPresent()) {
+            courses.put(courseId, stored.get());
+        } else {
+            courses.remove(courseId);
+        }
+    }
+
+    private static void reloadSection(String sectionId) {
+        Optional<Section> stored = sectionDao.findByCode(sectionId);
+        if (stored.isPresent()) {
+            populateSectionEnrollmentState(stored.get());
+            sections.put(sectionId, stored.get());
+        } else {
+            sections.remove(sectionId);
+        }
+    }
+
+    /**
+     * Recomputes drifted credit loads from enrollments under each student's stripe and updates the cache.
+     *
+     * @return number of students repaired
+     */
+    @SuppressWarnings("try")
+    static int reconcileCreditsInProgress() {
+        List<String> drifted = studentDao.findCreditDrift();
+        for (String studentId : drifted) {
+            try (StripedLockManager.LockScope ignored = StripedLockManager.lockStudent(studentId)) {
+                int repaired = studentDao.repairCredits(studentId);
+                Student cached = students.get(studentId);
+                if (cached != null) {
+                    cached.setCreditsInProgress(repaired);
+                }
+            }
+        }
+        return drifted.size();
+    }
+
+    /**
+     * Re-reads {@code available_seats} into the cached courses after a reconciliation pass.
+     */
+    static void refreshCourseAvailability() {
+        for (Course fresh : courseDao.findAll()) {
+            Course cached = courses.get(fresh.getCourseId());
+            if (cached != null) {
+                cached.setAvailableSeats(fresh.getAvailableSeats());
+            }
+        }
+    }
+
+    /**
+     * Authoritative check used while registering: the timetable is rebuilt from the database, since another
+     * client may have enrolled the student since it was cached.
+     */
     private static boolean hasScheduleConflict(String studentId, Section targetSection) {
-        return enrollmentDao.findByStudent(studentId).stream()
-                .filter(rec -> rec.getStatus() == EnrollmentRecord.Status.ENROLLED)
-                .map(rec -> getSection(rec.getSectionId()))
-                .filter(Objects::nonNull)
-                .anyMatch(existing -> overlaps(existing, targetSection));
+        StudentTimetable timetable = loadTimetable(studentId);
+        studentTimetables.put(studentId, timetable);
+        return timetable.mask.intersects(getSectionSlotMask(targetSection));
+    }
+
+    /**
+     * Sections from {@code candidates} that clash with the student's enrolled timetable, checked against the
+     * cached bitmap with one AND per candidate.
+     */
+    public static Set<String> findScheduleConflicts(String studentId, Collection<Section> candidates) {
+        WeeklySlotMask timetable = getTimetableMask(studentId);
+        Set<String> conflicts = new HashSet<>();
+        if (timetable.isEmpty()) {
+            return conflicts;
+        }
+        for (Section candidate : candidates) {
+            if (timetable.intersects(getSectionSlotMask(candidate))) {
+                conflicts.add(candidate.getSectionId());
+            }
+        }
+        return conflicts;
+    }
+
+    public static WeeklySlotMask getTimetableMask(String studentId) {
+        StudentTimetable cached = studentTimetables.get(studentId);
+        if (cached == null) {
+            cached = loadTimetable(studentId);
+            studentTimetables.put(studentId, cached);
+        } else if (!cached.isCurrent()) {
+            cached = buildTimetable(cached.sectionIds);
+            studentTimetables.put(studentId, cached);
+        }
+        return cached.mask;
+    }
+
+    /**
+     * Slot mask for a section, rebuilt whenever its day or times no longer match, so in-place edits through
+     * the section dialog are picked up without explicit invalidation.
+     */
+    static WeeklySlotMask getSectionSlotMask(Section section) {
+        WeeklySlotMask cached = sectionSlotMasks.get(section.getSectionId());
+        if (cached == null || !cached.matches(section)) {
+            cached = WeeklySlotMask.forSection(section);
+            sectionSlotMasks.put(section.getSectionId(), cached);
+        }
+        return cached;
     }
 
-    private static boolean overlaps(Section a, Section b) {
-        if (a.getDayOfWeek() != b.getDayOfWeek()) {
-            return false;
+    private static StudentTimetable loadTimetable(String studentId) {
+        List<String> enrolled = new ArrayList<>();
+        for (EnrollmentRecord record : enrollmentDao.findByStudent(studentId)) {
+            if (record.getStatus() == EnrollmentRecord.Status.ENROLLED) {
+                enrolled.add(record.getSectionId());
+            }
         }
-        return !(b.getEndTime().isBefore(a.getStartTime()) || b.getStartTime().isAfter(a.getEndTime()));
+        return buildTimetable(enrolled);
     }
 
-    public static synchronized void dropStudentFromSection(String studentId, String sectionId) {
+    private static StudentTimetable buildTimetable(List<String> sectionIds) {
+        List<String> present = new ArrayList<>();
+        List<WeeklySlotMask> masks = new ArrayList<>();
+        for (String sectionId : sectionIds) {
+            Section section = getSection(sectionId);
+            if (section != null) {
+                present.add(sectionId);
+                masks.add(getSectionSlotMask(section));
+            }
+        }
+        return new StudentTimetable(present, masks);
+    }
+
+    /**
+     * A student's enrolled sections with the union of their slot masks; the component masks are kept so the
+     * union can be detected as stale when one of the sections is rescheduled.
+     */
+    private static final class StudentTimetable {
+        private final List<String> sectionIds;
+        private final List<WeeklySlotMask> components;
+        private final WeeklySlotMask mask;
+
+        private StudentTimetable(List<String> sectionIds, List<WeeklySlotMask> components) {
+            this.sectionIds = sectionIds;
+            this.components = components;
+            this.mask = WeeklySlotMask.union(components);
+        }
+
+        private boolean isCurrent() {
+            for (int i = 0; i < sectionIds.size(); i++) {
+                Section section = sections.get(sectionIds.get(i));
+                if (section == null || getSectionSlotMask(section) != components.get(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    public static void dropStudentFromSection(String studentId, String sectionId) {
         dropStudentFromSection(null, studentId, sectionId);
     }
 
-    public static synchronized void dropStudentFromSection(String performedBy, String studentId, String sectionId) {
+    public static void dropStudentFromSection(String performedBy, String studentId, String sectionId) {
+        withWaitlistLocked(sectionId, studentId, waitlist ->
+                dropStudentFromSectionLocked(performedBy, studentId, sectionId, waitlist));
+    }
+
+    /**
+     * Fills every free seat of the section from its waitlist in one pass. Safe to call at any time; it does
+     * nothing when the section is full or nobody is waiting.
+     *
+     * @return the students who were enrolled, in waitlist order
+     */
+    public static List<String> promoteWaitlist(String performedBy, String sectionId) {
+        List<String> promoted = new ArrayList<>();
+        withWaitlistLocked(sectionId, null, waitlist -> {
+            promoted.clear();
+            promoted.addAll(promoteWaitlistLocked(performedBy, getSection(sectionId), waitlist));
+        });
+        return promoted;
+    }
+
+    /**
+     * The student's 1-based place in the section's waitlist, or 0 when not waitlisted there.
+     */
+    public static int getWaitlistPosition(String studentId, String sectionId) {
+        return waitlistDao.findRank(sectionId, studentId);
+    }
+
+    /**
+     * The student's place in every waitlist they are on, keyed by section, from one query.
+     */
+    public static Map<String, Integer> getWaitlistPositions(String studentId) {
+        return waitlistDao.findRanksForStudent(studentId);
+    }
+
+    /**
+     * Rewrites a section's waitlist order. Students named in {@code priorityOrder} move to the front in that
+     * order; everyone else keeps their relative order behind them.
+     */
+    public static void reorderWaitlist(String performedBy, String sectionId, List<String> priorityOrder) {
+        withWaitlistLocked(sectionId, null, waitlist -> {
+            Set<String> remaining = new LinkedHashSet<>(waitlist);
+            List<String> ordered = new ArrayList<>();
+            for (String studentId : priorityOrder) {
+                if (remaining.remove(studentId)) {
+                    ordered.add(studentId);
+                }
+            }
+            ordered.addAll(remaining);
+            waitlistDao.reorder(sectionId, ordered);
+            TransactionManager.afterCommit(() -> {
+                Section cached = getSection(sectionId);
+                if (cached != null) {
+                    cached.getWaitlistedStudentIds().clear();
+                    applyWaitlist(cached, ordered);
+                }
+            });
+            AuditLogService.log(AuditLogService.EventType.ENROLLMENT_CHANGE,
+                    performedBy == null ? "system" : performedBy,
+                    AuditLogService.SubjectType.SECTION, sectionId,
+                    Map.of("action", "REORDER_WAITLIST", "entries", String.valueOf(ordered.size())),
+                    String.format("Reordered waitlist of %s (%d entries)", sectionId, ordered.size()));
+        });
+    }
+
+    /**
+     * Renumbers every waitlist that has gaps left by promotions and drops. Order is unchanged, so no section
+     * stripes are needed; the sequence row lock serialises against concurrent appends.
+     *
+     * @return number of waitlists compacted
+     */
+    public static int compactWaitlists() {
+        List<String> gapped = waitlistDao.findSectionsWithGaps();
+        for (String sectionId : gapped) {
+            TransactionManager.runInTransaction(() -> waitlistDao.compact(sectionId));
+        }
+        return gapped.size();
+    }
+
+    /**
+     * Runs {@code work} in one transaction while holding the stripes of the section, every waitlisted student
+     * and {@code extraStudentId}, since a promotion may touch any of them. If the stored waitlist names students
+     * outside the locked set, because it grew or the cached copy is stale, releases and retries with those
+     * students added rather than locking out of order. A version conflict with another client is retried the
+     * same way, after reloading the students and the section's roster from the database.
+     */
+    @SuppressWarnings("try")
+    private static void withWaitlistLocked(String sectionId, String extraStudentId, Consumer<List<String>> work) {
+        int conflicts = 0;
+        Set<String> storedWaitlist = new HashSet<>();
+        while (true) {
+            Section cached = getSection(sectionId);
+            if (cached == null) {
+                throw new IllegalArgumentException("Section not found");
+            }
+            Set<String> lockedStudents = new HashSet<>(cached.getWaitlistedStudentIds());
+            lockedStudents.addAll(storedWaitlist);
+            if (extraStudentId != null) {
+                lockedStudents.add(extraStudentId);
+            }
+            try (StripedLockManager.LockScope ignored =
+                         StripedLockManager.lockSectionAndStudents(sectionId, lockedStudents)) {
+                List<String> waitlist = waitlistDao.findWaitlist(sectionId);
+                if (lockedStudents.containsAll(waitlist)) {
+                    try {
+                        TransactionManager.runInTransaction(() -> work.accept(waitlist));
+                    } catch (StaleDataException ex) {
+                        lockedStudents.forEach(DatabaseUtil::reloadStudent);
+                        reloadSection(sectionId);
+                        if (++conflicts >= OPTIMISTIC_ATTEMPTS) {
+                            throw ex;
+                        }
+                        continue;
+                    } catch (RuntimeException ex) {
+                        lockedStudents.forEach(DatabaseUtil::reloadStudent);
+                        throw ex;
+                    }
+                    return;
+                }
+                storedWaitlist = new HashSet<>(waitlist);
+            }
+        }
+    }
+
+    private static void dropStudentFromSectionLocked(String performedBy, String studentId, String sectionId,
+                                                     List<String> lockedWaitlist) {
         Section section = getSection(sectionId);
         if (section == null) {
             throw new IllegalArgumentException("Section not found");
         }
 
-        List<EnrollmentRecord> sectionEnrollments = enrollmentDao.findBySection(sectionId);
-        EnrollmentRecord record = sectionEnrollments.stream()
-                .filter(rec -> rec.getStudentId().equals(studentId)
-                        && rec.getStatus() != EnrollmentRecord.Status.DROPPED)
-                .findFirst()
+        EnrollmentRecord record = enrollmentDao.findByStudentAndSection(studentId, sectionId)
+                .filter(rec -> rec.getStatus() != EnrollmentRecord.Status.DROPPED)
                 .orElseThrow(() -> new IllegalStateException("Student not enrolled in the section"));
 
         EnrollmentRecord.Status previousStatus = record.getStatus();
         record.setStatus(EnrollmentRecord.Status.DROPPED);
         enrollmentDao.updateStatus(record);
         waitlistDao.delete(sectionId, studentId);
+        cacheEnrollmentStatus(sectionId, studentId, EnrollmentRecord.Status.DROPPED);
 
-        String promotedStudent = null;
+        List<String> promoted = Collections.emptyList();
         if (previousStatus == EnrollmentRecord.Status.ENROLLED) {
-            int courseCredits = getCourseCreditHours(section.getCourseId());
-            List<String> waitlist = new ArrayList<>(waitlistDao.findWaitlist(sectionId));
-            for (String candidate : waitlist) {
-                int candidateCredits = calculateEnrolledCredits(candidate);
-                if (candidateCredits + courseCredits <= MAX_TERM_CREDITS) {
-                    promotedStudent = candidate;
-                    waitlistDao.delete(sectionId, promotedStudent);
-                    EnrollmentRecord promotedRecord = sectionEnrollments.stream()
-                            .filter(rec -> rec.getStudentId().equals(promotedStudent))
-                            .findFirst()
-                            .orElse(null);
-                    if (promotedRecord != null) {
-                        promotedRecord.setStatus(EnrollmentRecord.Status.ENROLLED);
-                        enrollmentDao.updateStatus(promotedRecord);
-                    }
-                    addNotification(new NotificationMessage(
-                            NotificationMessage.Audience.STUDENT,
-                            promotedStudent,
-                            "Great news! A seat opened up in " + section.getTitle() + " and you are now enrolled.",
-                            "Registration"));
-                    break;
-                } else {
-                    waitlistDao.delete(sectionId, candidate);
-                    EnrollmentRecord candidateRecord = sectionEnrollments.stream()
-                            .filter(rec -> rec.getStudentId().equals(candidate))
-                            .findFirst()
-                            .orElse(null);
-                    if (candidateRecord != null) {
-                        candidateRecord.setStatus(EnrollmentRecord.Status.DROPPED);
-                        enrollmentDao.updateStatus(candidateRecord);
-                    }
-                    addNotification(new NotificationMessage(
-                            NotificationMessage.Audience.STUDENT,
-                            candidate,
-                            "A seat opened in " + section.getTitle()
-                                    + " but your current credit load exceeds the limit (" + MAX_TERM_CREDITS + ").",
-                            "Registration"));
-                }
-            }
-
-            if (promotedStudent == null) {
-                Course course = getCourse(section.getCourseId());
-                if (course != null) {
-                    course.setAvailableSeats(Math.min(course.getTotalSeats(), course.getAvailableSeats() + 1));
-                    updateCourse(course);
-                }
-            }
+            seatCounterDao.release(sectionId);
+            adjustCourseAvailableSeats(section.getCourseId(), 1);
+            adjustCreditsInProgress(Collections.singletonMap(studentId, -getCourseCreditHours(section.getCourseId())));
+            List<String> waitlist = new ArrayList<>(lockedWaitlist);
+            waitlist.remove(studentId);
+            promoted = promoteWaitlistLocked(performedBy, section, waitlist);
         }
 
         addNotification(new NotificationMessage(
@@ -913,16 +1560,92 @@ public class DatabaseUtil {
                 "You dropped " + section.getTitle() + " (" + section.getSectionId() + ").",
                 "Registration"));
 
-        refreshSectionCache();
-        refreshStudentEnrollmentMetrics(studentId);
-        if (promotedStudent != null) {
-            refreshStudentEnrollmentMetrics(promotedStudent);
-        }
-
         String actor = performedBy == null ? "system" : performedBy;
         AuditLogService.log(AuditLogService.EventType.ENROLLMENT_CHANGE, actor,
+                AuditLogService.SubjectType.STUDENT, studentId,
+                enrollmentPayload(section.getSectionId(), "DROP", EnrollmentRecord.Status.DROPPED),
                 String.format("Dropped %s from %s (promoted: %s)", studentId, section.getTitle(),
-                        promotedStudent == null ? "none" : promotedStudent));
+                        promoted.isEmpty() ? "none" : String.join(", ", promoted)));
+    }
+
+    /**
+     * Promotion pass over a locked waitlist. Candidates are taken in FIFO order until the free seats are
+     * filled; a candidate whose credit load would exceed the limit is removed from the waitlist, as before.
+     * An entry whose enrollment is no longer waitlisted is an orphan left by an interrupted drop or import; it
+     * is removed without a transition and does not take a seat.
+     * Each candidate's credits are claimed with the same conditional UPDATE as a direct registration, so the
+     * limit holds against the stored load rather than the cached one; the remaining writes are batched.
+     */
+    private static List<String> promoteWaitlistLocked(String performedBy, Section section, List<String> waitlist) {
+        if (section == null || waitlist.isEmpty()) {
+            return Collections.emptyList();
+        }
+        String sectionId = section.getSectionId();
+        int free = seatCounterDao.lockRemainingSeats(Collections.singleton(sectionId)).getOrDefault(sectionId, 0);
+        if (free <= 0) {
+            return Collections.emptyList();
+        }
+
+        Map<String, EnrollmentRecord.Status> statuses = new HashMap<>();
+        for (EnrollmentRecord record : enrollmentDao.findBySection(sectionId)) {
+            statuses.put(record.getStudentId(), record.getStatus());
+        }
+        int courseCredits = getCourseCreditHours(section.getCourseId());
+        List<String> promoted = new ArrayList<>();
+        List<String> processed = new ArrayList<>();
+        List<EnrollmentRecord> statusChanges = new ArrayList<>();
+        Map<String, Integer> creditDeltas = new HashMap<>();
+        List<NotificationMessage> notifications = new ArrayList<>();
+        for (String candidate : waitlist) {
+            if (promoted.size() == free) {
+                break;
+            }
+            processed.add(candidate);
+            EnrollmentRecord.Status stored = statuses.get(candidate);
+            if (stored != EnrollmentRecord.Status.WAITLISTED) {
+                cacheEnrollmentStatus(sectionId, candidate, stored);
+                continue;
+            }
+            if (studentDao.tryAddCredits(candidate, courseCredits, MAX_TERM_CREDITS)) {
+                promoted.add(candidate);
+                creditDeltas.put(candidate, courseCredits);
+                statusChanges.add(new EnrollmentRecord(candidate, sectionId, EnrollmentRecord.Status.ENROLLED));
+                notifications.add(new NotificationMessage(
+                        NotificationMessage.Audience.STUDENT,
+                        candidate,
+                        "Great news! A seat opened up in " + section.getTitle() + " and you are now enrolled.",
+                        "Registration"));
+            } else {
+                statusChanges.add(new EnrollmentRecord(candidate, sectionId, EnrollmentRecord.Status.DROPPED));
+                notifications.add(new NotificationMessage(
+                        NotificationMessage.Audience.STUDENT,
+                        candidate,
+                        "A seat opened in " + section.getTitle()
+                                + " but your current credit load exceeds the limit (" + MAX_TERM_CREDITS + ").",
+                        "Registration"));
+            }
+        }
+
+        waitlistDao.deleteBatch(sectionId, processed);
+        enrollmentDao.updateStatusBatch(statusChanges, EnrollmentRecord.Status.WAITLISTED);
+        if (!promoted.isEmpty()) {
+            seatCounterDao.addEnrolled(Collections.singletonMap(sectionId, promoted.size()));
+            adjustCourseAvailableSeats(section.getCourseId(), -promoted.size());
+        }
+        cacheCreditDeltas(creditDeltas);
+        notificationDao.insertBatch(notifications);
+        for (EnrollmentRecord change : statusChanges) {
+            cacheEnrollmentStatus(sectionId, change.getStudentId(), change.getStatus());
+        }
+        if (!promoted.isEmpty()) {
+            AuditLogService.log(AuditLogService.EventType.ENROLLMENT_CHANGE,
+                    performedBy == null ? "system" : performedBy,
+                    AuditLogService.SubjectType.SECTION, sectionId,
+                    Map.of("action", "PROMOTE", "students", String.join(",", promoted)),
+                    String.format("Promoted %d from the %s waitlist: %s", promoted.size(), section.getTitle(),
+                            String.join(", ", promoted)));
+        }
+        return promoted;
     }
 
     public static List<Section> getScheduleForStudent(String studentId) {
@@ -957,6 +1680,22 @@ public class DatabaseUtil {
         return getNotifications(NotificationMessage.Audience.STUDENT, studentId);
     }
 
+    /**
+     * One page of {@link #getNotifications}, newest first, starting after {@code after} ({@code null} for the
+     * first page).
+     */
+    public static List<NotificationMessage> getNotificationsPage(NotificationMessage.Audience audience,
+                                                                 String targetId, KeysetCursor after, int limit) {
+        NotificationMessage.Audience resolvedAudience =
+                audience == null ? NotificationMessage.Audience.ALL : audience;
+        return notificationDao.findVisiblePage(resolvedAudience, targetId, after, limit);
+    }
+
+    public static List<NotificationMessage> getNotificationsForStudentPage(String studentId, KeysetCursor after,
+                                                                           int limit) {
+        return getNotificationsPage(NotificationMessage.Audience.STUDENT, studentId, after, limit);
+    }
+
     public static void addNotification(NotificationMessage notification) {
         notificationDao.insert(notification);
     }
@@ -974,10 +1713,89 @@ public class DatabaseUtil {
     }
 
     public static List<String> getCoursePrerequisites(String courseId) {
-        if (courseId == null) {
-            return Collections.emptyList();
+        return requirementGraph.prerequisitesOf(courseId);
+    }
+
+    public static List<String> getCourseCorequisites(String courseId) {
+        return requirementGraph.corequisitesOf(courseId);
+    }
+
+    public static Set<String> getCourseAntirequisites(String courseId) {
+        return requirementGraph.antirequisitesOf(courseId);
+    }
+
+    /**
+     * Every course in the prerequisite chain of {@code courseId}, direct or indirect.
+     */
+    public static Set<String> getAllCoursePrerequisites(String courseId) {
+        return requirementGraph.allPrerequisitesOf(courseId);
+    }
+
+    /**
+     * Current requirement snapshot; callers evaluating many courses should read it once and reuse it.
+     */
+    static CourseRequirementGraph getRequirementGraph() {
+        return requirementGraph;
+    }
+
+    /**
+     * Reloads every prerequisite, co-requisite and anti-requisite in one query and swaps the graph in whole,
+     * so readers never see a half-built snapshot. Inconsistent data already in the tables is logged, not fatal.
+     */
+    public static void refreshRequirementGraph() {
+        synchronized (REQUIREMENT_EDIT_LOCK) {
+            CourseRequirementGraph graph = CourseRequirementGraph.of(courseRelationshipDao.findAll());
+            graph.findInconsistency().ifPresent(problem ->
+                    System.err.println("Course requirement data is inconsistent: " + problem));
+            requirementGraph = graph;
         }
-        return coursePrerequisiteCache.computeIfAbsent(courseId, coursePrerequisiteDao::findPrerequisites);
+        EligibilityEngine.invalidateAll();
+    }
+
+    /**
+     * Adds a relationship after checking that it would not create a self-reference, a prerequisite cycle or a
+     * course that both requires and excludes another.
+     *
+     * @throws IllegalArgumentException when the edit would leave the graph inconsistent
+     */
+    public static void addCourseRequirement(CourseRequirement requirement) {
+        synchronized (REQUIREMENT_EDIT_LOCK) {
+            if (getCourse(requirement.getCourseId()) == null || getCourse(requirement.getRelatedCourseId()) == null) {
+                throw new IllegalArgumentException("Course not found");
+            }
+            if (requirementGraph.contains(requirement)) {
+                return;
+            }
+            Optional<String> problem = requirementGraph.with(requirement).findInconsistency();
+            if (problem.isPresent()) {
+                throw new IllegalArgumentException(problem.get());
+            }
+            courseRelationshipDao.insert(requirement);
+            refreshRequirementGraph();
+        }
+    }
+
+    public static void removeCourseRequirement(CourseRequirement requirement) {
+        synchronized (REQUIREMENT_EDIT_LOCK) {
+            courseRelationshipDao.delete(requirement);
+            refreshRequirementGraph();
+        }
+    }
+
+    /**
+     * Why the student may not register for {@code courseId}, or {@code null} when prerequisites, co-requisites
+     * and anti-requisites all allow it. Loads the student's history with one query.
+     */
+    public static String findRequirementViolation(String studentId, String courseId) {
+        CourseRequirementGraph graph = requirementGraph;
+        if (graph.prerequisitesOf(courseId).isEmpty() && graph.corequisitesOf(courseId).isEmpty()
+                && graph.antirequisitesOf(courseId).isEmpty()) {
+            return null;
+        }
+        Set<String> completed = new HashSet<>();
+        Set<String> active = new HashSet<>();
+        collectCourseHistory(studentId, completed, active);
+        return graph.findViolation(courseId, completed, active);
     }
 
     public static Set<String> getCompletedCourseIds(String studentId) {
@@ -1015,19 +1833,29 @@ public class DatabaseUtil {
     }
 
     public static List<String> getMissingPrerequisites(String studentId, String courseId) {
-        List<String> prereqs = getCoursePrerequisites(courseId);
-        if (prereqs.isEmpty()) {
+        CourseRequirementGraph graph = requirementGraph;
+        if (graph.prerequisitesOf(courseId).isEmpty()) {
             return Collections.emptyList();
         }
-        Set<String> completed = getCompletedCourseIds(studentId);
-        Set<String> active = getActiveCourseIds(studentId);
-        List<String> missing = new ArrayList<>();
-        for (String prereq : prereqs) {
-            if (!completed.contains(prereq) && !active.contains(prereq)) {
-                missing.add(prereq);
+        Set<String> taken = new HashSet<>();
+        collectCourseHistory(studentId, taken, taken);
+        return graph.missingPrerequisites(courseId, taken);
+    }
+
+    private static void collectCourseHistory(String studentId, Set<String> completed, Set<String> active) {
+        for (EnrollmentRecord record : getEnrollmentsForStudent(studentId)) {
+            Section section = getSection(record.getSectionId());
+            if (section == null) {
+                continue;
+            }
+            if (record.getFinalGrade() >= PASSING_GRADE_THRESHOLD) {
+                completed.add(section.getCourseId());
+            }
+            if (record.getStatus() == EnrollmentRecord.Status.ENROLLED
+                    || record.getStatus() == EnrollmentRecord.Status.WAITLISTED) {
+                active.add(section.getCourseId());
             }
         }
-        return missing;
     }
 
     public static int getCourseCreditHours(String courseId) {
@@ -1038,35 +1866,26 @@ public class DatabaseUtil {
         return course.getCreditHours();
     }
 
-    private static int calculateEnrolledCredits(String studentId) {
-        return enrollmentDao.findByStudent(studentId).stream()
-                .filter(rec -> rec.getStatus() == EnrollmentRecord.Status.ENROLLED)
-                .mapToInt(rec -> {
-                    Section section = getSection(rec.getSectionId());
-                    return section != null ? getCourseCreditHours(section.getCourseId()) : 0;
-                })
-                .sum();
-    }
-
     public static int getMaxTermCredits() {
         return MAX_TERM_CREDITS;
     }
 
-    private static void refreshStudentEnrollmentMetrics(String studentId) {
-        if (studentId == null) {
-            return;
-        }
-        Student student = getStudent(studentId);
-        if (student == null) {
-            return;
-        }
-        int creditsInProgress = calculateEnrolledCredits(studentId);
-        student.setCreditsInProgress(creditsInProgress);
-        updateStudent(student);
+    public static double getAverageAttendanceForSection(String sectionId) {
+        return averageAttendance(getAttendanceForSection(sectionId));
     }
 
-    public static double getAverageAttendanceForSection(String sectionId) {
-        List<AttendanceRecord> records = getAttendanceForSection(sectionId);
+    /**
+     * Average attendance for many sections at once, keyed by section code, loaded with one query per
+     * batch of sections rather than one per section.
+     */
+    public static Map<String, Double> getAverageAttendanceForSections(Collection<String> sectionIds) {
+        Map<String, Double> averages = new HashMap<>();
+        attendanceDao.findBySections(sectionIds)
+                .forEach((sectionId, records) -> averages.put(sectionId, averageAttendance(records)));
+        return averages;
+    }
+
+    private static double averageAttendance(List<AttendanceRecord> records) {
         if (records.isEmpty()) {
             return 100.0;
         }
@@ -1076,6 +1895,18 @@ public class DatabaseUtil {
                 .orElse(100.0);
     }
 
+    private static void auditUser(AuditLogService.EventType type, String username, String details) {
+        AuditLogService.log(type, username, AuditLogService.SubjectType.USER, username, null, details);
+    }
+
+    private static Map<String, String> enrollmentPayload(String sectionId, String action, Object status) {
+        Map<String, String> payload = new LinkedHashMap<>();
+        payload.put("section", sectionId);
+        payload.put("action", action);
+        payload.put("status", String.valueOf(status));
+        return payload;
+    }
+
     private static User requireUser(String username) {
         return authUserDao.findByUsername(username)
                 .orElseThrow(() -> new IllegalArgumentException("User not found: " + username));
@@ -1175,36 +2006,66 @@ public class DatabaseUtil {
     }
 
     private static void refreshSectionCache() {
-        sections = new ConcurrentHashMap<>();
+        Map<String, Section> rebuilt = new ConcurrentHashMap<>();
         for (Section section : sectionDao.findAll()) {
             section.getEnrolledStudentIds().clear();
             section.getWaitlistedStudentIds().clear();
-            sections.put(section.getSectionId(), section);
+            rebuilt.put(section.getSectionId(), section);
+        }
+        // One streaming scan of enrollments and one of waitlists, instead of two queries per section.
+        enrollmentDao.streamAll(record -> applyEnrollmentRecord(rebuilt.get(record.getSectionId()), record));
+        waitlistDao.findAllWaitlists().forEach((sectionCode, waitlist) ->
+                applyWaitlist(rebuilt.get(sectionCode), waitlist));
+        sections = rebuilt;
+    }
+
+    private static void populateSectionEnrollmentState(Section section) {
+        section.getEnrolledStudentIds().clear();
+        section.getWaitlistedStudentIds().clear();
+        for (EnrollmentRecord record : enrollmentDao.findBySection(section.getSectionId())) {
+            applyEnrollmentRecord(section, record);
         }
-        populateSectionEnrollmentState();
+        applyWaitlist(section, waitlistDao.findWaitlist(section.getSectionId()));
     }
 
-    private static void populateSectionEnrollmentState() {
-        for (Section section : sections.values()) {
-            section.getEnrolledStudentIds().clear();
-            section.getWaitlistedStudentIds().clear();
-            for (EnrollmentRecord record : enrollmentDao.findBySection(section.getSectionId())) {
-                if (record.getStatus() == EnrollmentRecord.Status.ENROLLED) {
-                    section.getEnrolledStudentIds().add(record.getStudentId());
-                } else if (record.getStatus() == EnrollmentRecord.Status.WAITLISTED) {
-                    section.getWaitlistedStudentIds().add(record.getStudentId());
-                }
-            }
-            List<String> waitlist = waitlistDao.findWaitlist(section.getSectionId());
-            for (String studentCode : waitlist) {
-                if (!section.getWaitlistedStudentIds().contains(studentCode)) {
-                    section.getWaitlistedStudentIds().add(studentCode);
-                }
-            }
+    private static void applyEnrollmentRecord(Section section, EnrollmentRecord record) {
+        if (section == null) {
+            return;
+        }
+        if (record.getStatus() == EnrollmentRecord.Status.ENROLLED) {
+            section.enrollStudent(record.getStudentId());
+        } else if (record.getStatus() == EnrollmentRecord.Status.WAITLISTED) {
+            section.waitlistStudent(record.getStudentId());
         }
     }
-}
-
-
 
+    private static void applyWaitlist(Section section, List<String> waitlist) {
+        if (section == null) {
+            return;
+        }
+        for (String studentCode : waitlist) {
+            section.waitlistStudent(studentCode);
+        }
+    }
 
+    /**
+     * Patches the cached roster of a single section after an enrollment status transition instead of
+     * rebuilding every section from the database. Callers hold the section's stripe lock.
+     */
+    private static void cacheEnrollmentStatus(String sectionId, String studentId, EnrollmentRecord.Status status) {
+        TransactionManager.afterCommit(() -> {
+            studentTimetables.remove(studentId);
+            EligibilityEngine.invalidate(studentId);
+            Section section = sections.get(sectionId);
+            if (section == null) {
+                return;
+            }
+            section.removeStudent(studentId);
+            if (status == EnrollmentRecord.Status.ENROLLED) {
+                section.enrollStudent(studentId);
+            } else if (status == EnrollmentRecord.Status.WAITLISTED) {
+                section.waitlistStudent(studentId);
+            }
+        });
+    }
+}
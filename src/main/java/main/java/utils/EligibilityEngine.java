@@ -0,0 +1,117 @@
+package main.java.utils;
+
+import main.java.models.EnrollmentRecord;
+import main.java.models.Section;
+import main.java.models.SectionEligibility;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Evaluates registration eligibility for a whole catalog in one call.
+ * <p>
+ * A student's history is loaded once with a single enrollment query and cached until an enrollment or grade
+ * event for that student calls {@link #invalidate(String)}. Evaluation is then in-memory: course requirements
+ * are set lookups against the {@link CourseRequirementGraph}, conflicts are slot-mask ANDs and credits are a
+ * running sum.
+ */
+public final class EligibilityEngine {
+    private static final Map<String, StudentHistory> HISTORIES = new ConcurrentHashMap<>();
+
+    private EligibilityEngine() {
+    }
+
+    public static Map<String, SectionEligibility> evaluate(String studentId, Collection<Section> sections) {
+        StudentHistory history = HISTORIES.computeIfAbsent(studentId, StudentHistory::load);
+        CourseRequirementGraph requirements = DatabaseUtil.getRequirementGraph();
+        List<WeeklySlotMask> enrolledMasks = new ArrayList<>();
+        int enrolledCredits = 0;
+        for (String sectionId : history.enrolledSections) {
+            Section enrolled = DatabaseUtil.getSection(sectionId);
+            if (enrolled != null) {
+                enrolledMasks.add(DatabaseUtil.getSectionSlotMask(enrolled));
+                enrolledCredits += DatabaseUtil.getCourseCreditHours(enrolled.getCourseId());
+            }
+        }
+        WeeklySlotMask timetable = WeeklySlotMask.union(enrolledMasks);
+        int maxCredits = DatabaseUtil.getMaxTermCredits();
+        LocalDate today = LocalDate.now();
+
+        Map<String, SectionEligibility> result = new HashMap<>();
+        for (Section section : sections) {
+            int projected = enrolledCredits + DatabaseUtil.getCourseCreditHours(section.getCourseId());
+            EnrollmentRecord.Status current = history.statusBySection.get(section.getSectionId());
+            List<String> missing = requirements.missingPrerequisites(section.getCourseId(), history.takenCourses);
+            SectionEligibility.Status status;
+            if (current == EnrollmentRecord.Status.ENROLLED) {
+                status = SectionEligibility.Status.ENROLLED;
+            } else if (current == EnrollmentRecord.Status.WAITLISTED) {
+                status = SectionEligibility.Status.WAITLISTED;
+            } else if (section.getEnrollmentDeadline() != null && today.isAfter(section.getEnrollmentDeadline())) {
+                status = SectionEligibility.Status.ENROLLMENT_CLOSED;
+            } else if (!missing.isEmpty()) {
+                status = SectionEligibility.Status.MISSING_PREREQUISITES;
+            } else if (!requirements.missingCorequisites(section.getCourseId(), history.takenCourses).isEmpty()) {
+                status = SectionEligibility.Status.MISSING_COREQUISITES;
+            } else if (!requirements.conflictingAntirequisites(section.getCourseId(), history.takenCourses).isEmpty()) {
+                status = SectionEligibility.Status.ANTIREQUISITE_CONFLICT;
+            } else if (timetable.intersects(DatabaseUtil.getSectionSlotMask(section))) {
+                status = SectionEligibility.Status.SCHEDULE_CONFLICT;
+            } else if (projected > maxCredits) {
+                status = SectionEligibility.Status.CREDIT_LIMIT;
+            } else {
+                status = SectionEligibility.Status.ELIGIBLE;
+            }
+            result.put(section.getSectionId(), new SectionEligibility(section.getSectionId(), status, missing, projected));
+        }
+        return result;
+    }
+
+    /**
+     * Drops the cached history so the next evaluation reloads it.
+     */
+    public static void invalidate(String studentId) {
+        if (studentId != null) {
+            HISTORIES.remove(studentId);
+        }
+    }
+
+    public static void invalidateAll() {
+        HISTORIES.clear();
+    }
+
+    private static final class StudentHistory {
+        private final Map<String, EnrollmentRecord.Status> statusBySection = new HashMap<>();
+        private final Set<String> enrolledSections = new HashSet<>();
+        private final Set<String> takenCourses = new HashSet<>();
+
+        private static StudentHistory load(String studentId) {
+            StudentHistory history = new StudentHistory();
+            for (EnrollmentRecord record : DatabaseUtil.getEnrollmentsForStudent(studentId)) {
+                Section section = DatabaseUtil.getSection(record.getSectionId());
+                if (section == null) {
+                    continue;
+                }
+                if (record.getFinalGrade() >= DatabaseUtil.PASSING_GRADE_THRESHOLD) {
+                    history.takenCourses.add(section.getCourseId());
+                }
+                if (record.getStatus() == EnrollmentRecord.Status.DROPPED) {
+                    continue;
+                }
+                history.statusBySection.put(section.getSectionId(), record.getStatus());
+                history.takenCourses.add(section.getCourseId());
+                if (record.getStatus() == EnrollmentRecord.Status.ENROLLED) {
+                    history.enrolledSections.add(section.getSectionId());
+                }
+            }
+            return history;
+        }
+    }
+}
@@ -1,126 +1,108 @@
 package main.java.utils;
 
-import main.java.models.FeeInstallment;
-import main.java.models.Student;
+import main.java.data.TransactionManager;
+import main.java.data.dao.FinanceReminderDao;
+import main.java.data.dao.NotificationDao;
+import main.java.data.dao.NotificationDeliveryStateDao;
 import main.java.models.NotificationMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 /**
- * Periodically inspects finance data to send payment reminders and daily digests.
+ * Hourly {@link JobScheduler} job that sends payment reminders and daily digests. Each cycle is a handful of
+ * set-based queries and batched writes, independent of how many students there are.
  */
 public final class FinanceReminderScheduler {
-    private static final ScheduledExecutorService EXECUTOR =
-            Executors.newSingleThreadScheduledExecutor(r -> {
-                Thread t = new Thread(r, "finance-reminder-scheduler");
-                t.setDaemon(true);
-                return t;
-            });
+    private static final Logger LOGGER = LoggerFactory.getLogger(FinanceReminderScheduler.class);
+    private static final FinanceReminderDao FINANCE_REMINDER_DAO = new FinanceReminderDao();
+    private static final NotificationDao NOTIFICATION_DAO = new NotificationDao();
+    private static final NotificationDeliveryStateDao DELIVERY_STATE_DAO = new NotificationDeliveryStateDao();
+    private static final String JOB_NAME = "finance-reminders";
     private static final int REMINDER_LOOKAHEAD_DAYS = 7;
+    private static final int CHUNK_SIZE = 1_000;
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd MMM yyyy");
-    private static volatile boolean started = false;
-
     private FinanceReminderScheduler() {
     }
 
-    public static synchronized void start() {
-        if (started) {
-            return;
-        }
-        started = true;
-        EXECUTOR.scheduleAtFixedRate(FinanceReminderScheduler::runCycle, 0, 1, TimeUnit.HOURS);
-    }
-
-    public static synchronized void stop() {
-        if (!started) {
-            return;
-        }
-        EXECUTOR.shutdownNow();
-        started = false;
+    public static void register() {
+        JobScheduler.register(JOB_NAME, Duration.ofHours(1), FinanceReminderScheduler::runCycle);
     }
 
     private static void runCycle() {
-        try {
-            LocalDate today = LocalDate.now();
-            LocalDate reminderThreshold = today.plusDays(REMINDER_LOOKAHEAD_DAYS);
-
-            for (Student student : DatabaseUtil.getAllStudents()) {
-                processInstallmentReminders(student, today, reminderThreshold);
-                processDailyDigest(student, today);
-            }
-        } catch (Exception ex) {
-            System.err.println("Finance reminder scheduler error: " + ex.getMessage());
-        }
+        long started = System.nanoTime();
+        LocalDate today = LocalDate.now();
+        int reminders = sendInstallmentReminders(today, today.plusDays(REMINDER_LOOKAHEAD_DAYS));
+        int digests = sendDailyDigests(today);
+        LOGGER.info("Finance reminder cycle sent {} reminder(s) and {} digest(s) in {} ms.", reminders, digests,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
     }
 
-    private static void processInstallmentReminders(Student student, LocalDate today, LocalDate threshold) {
-        List<FeeInstallment> installments = DatabaseUtil.getInstallmentsForStudent(student.getStudentId());
-        for (FeeInstallment installment : installments) {
-            if (installment.getStatus() == FeeInstallment.Status.PAID) {
-                continue;
-            }
-            LocalDate due = installment.getDueDate();
-            if (due == null) {
-                continue;
-            }
-            if (due.isBefore(today) || !due.isAfter(threshold)) {
-                LocalDate lastReminder = installment.getLastReminderSent();
-                if (lastReminder != null && !lastReminder.isBefore(today)) {
-                    continue;
-                }
-                double outstanding = Math.max(0.0, student.getTotalFees() - student.getFeesPaid());
+    /**
+     * Reads every due reminder with one query and, per chunk, inserts the notifications as a batch and stamps
+     * the installments with a multi-row UPDATE in the same transaction.
+     */
+    private static int sendInstallmentReminders(LocalDate today, LocalDate threshold) {
+        List<FinanceReminderDao.DueReminder> due = FINANCE_REMINDER_DAO.findDueReminders(today, threshold);
+        for (int start = 0; start < due.size(); start += CHUNK_SIZE) {
+            List<FinanceReminderDao.DueReminder> chunk = due.subList(start, Math.min(due.size(), start + CHUNK_SIZE));
+            List<NotificationMessage> notifications = new ArrayList<>(chunk.size());
+            List<String> installmentIds = new ArrayList<>(chunk.size());
+            for (FinanceReminderDao.DueReminder reminder : chunk) {
                 String message = String.format(Locale.ENGLISH,
                         "Upcoming installment of \u20B9%,.0f due by %s. Outstanding balance: \u20B9%,.0f.",
-                        installment.getAmount(),
-                        DATE_FORMATTER.format(due),
-                        outstanding);
-                DatabaseUtil.addNotification(new NotificationMessage(
+                        reminder.getAmount(),
+                        DATE_FORMATTER.format(reminder.getDueDate()),
+                        reminder.getOutstanding());
+                notifications.add(new NotificationMessage(
                         NotificationMessage.Audience.STUDENT,
-                        student.getStudentId(),
+                        reminder.getStudentId(),
                         message,
                         "Finance Reminder"));
-                DatabaseUtil.markInstallmentReminderSent(student.getStudentId(), installment.getInstallmentId());
+                installmentIds.add(reminder.getInstallmentId());
             }
+            TransactionManager.runInTransaction(() -> {
+                NOTIFICATION_DAO.insertBatch(notifications);
+                FINANCE_REMINDER_DAO.markRemindersSent(installmentIds, today);
+            });
         }
+        return due.size();
     }
 
-    private static void processDailyDigest(Student student, LocalDate today) {
-        double outstanding = Math.max(0.0, student.getTotalFees() - student.getFeesPaid());
-        if (outstanding <= 0.0) {
-            return;
-        }
-        String settingKey = "finance.digest.lastSent." + student.getStudentId();
-        String lastSentRaw = DatabaseUtil.getSetting(settingKey);
-        LocalDate lastSent = null;
-        if (lastSentRaw != null && !lastSentRaw.isBlank()) {
-            try {
-                lastSent = LocalDate.parse(lastSentRaw);
-            } catch (Exception ignored) {
-                lastSent = null;
+    private static int sendDailyDigests(LocalDate today) {
+        List<FinanceReminderDao.DigestCandidate> candidates = FINANCE_REMINDER_DAO.findDigestCandidates(today);
+        for (int start = 0; start < candidates.size(); start += CHUNK_SIZE) {
+            List<FinanceReminderDao.DigestCandidate> chunk =
+                    candidates.subList(start, Math.min(candidates.size(), start + CHUNK_SIZE));
+            List<NotificationMessage> notifications = new ArrayList<>(chunk.size());
+            List<String> studentIds = new ArrayList<>(chunk.size());
+            for (FinanceReminderDao.DigestCandidate candidate : chunk) {
+                String nextDueText = candidate.getNextDue() != null
+                        ? DATE_FORMATTER.format(candidate.getNextDue())
+                        : "Not scheduled";
+                String message = String.format(Locale.ENGLISH,
+                        "Daily finance digest: Outstanding balance \u20B9%,.0f. Next due date: %s.",
+                        candidate.getOutstanding(),
+                        nextDueText);
+                notifications.add(new NotificationMessage(
+                        NotificationMessage.Audience.STUDENT,
+                        candidate.getStudentId(),
+                        message,
+                        "Finance Digest"));
+                studentIds.add(candidate.getStudentId());
             }
+            TransactionManager.runInTransaction(() -> {
+                NOTIFICATION_DAO.insertBatch(notifications);
+                DELIVERY_STATE_DAO.recordSent(NotificationDeliveryStateDao.Channel.FINANCE_DIGEST, studentIds, today);
+            });
         }
-        if (lastSent != null && !lastSent.isBefore(today)) {
-            return;
-        }
-        FeeInstallment next = DatabaseUtil.nextDueInstallment(student.getStudentId());
-        String nextDueText = next != null && next.getDueDate() != null
-                ? DATE_FORMATTER.format(next.getDueDate())
-                : "Not scheduled";
-        String message = String.format(Locale.ENGLISH,
-                "Daily finance digest: Outstanding balance \u20B9%,.0f. Next due date: %s.",
-                outstanding,
-                nextDueText);
-        DatabaseUtil.addNotification(new NotificationMessage(
-                NotificationMessage.Audience.STUDENT,
-                student.getStudentId(),
-                message,
-                "Finance Digest"));
-        DatabaseUtil.setSetting(settingKey, today.toString());
+        return candidates.size();
     }
 }
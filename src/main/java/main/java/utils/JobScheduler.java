@@ -0,0 +1,309 @@
+package main.java.utils;
+
+import main.java.config.ConfigLoader;
+import main.java.data.dao.ScheduledJobDao;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs registered background jobs on exactly one client at a time. Every client polls {@code scheduled_jobs}
+ * and tries to claim the lease of each due job; the one whose conditional UPDATE succeeds runs it, renewing the
+ * lease while it works, then records the outcome and the next due time. A client that dies mid-run simply stops
+ * renewing, and another client takes over once the lease expires; a run that finds its lease gone is interrupted
+ * so two clients never keep working on the same job. Runs missed while no client was up are caught
+ * up by a single run as soon as one polls.
+ */
+public final class JobScheduler {
+    private static final Logger LOGGER = LoggerFactory.getLogger(JobScheduler.class);
+    private static final ScheduledJobDao SCHEDULED_JOB_DAO = new ScheduledJobDao();
+    private static final String NODE_ID = nodeId();
+    private static final Map<String, Job> JOBS = new ConcurrentHashMap<>();
+    private static final AtomicInteger WORKER_IDS = new AtomicInteger();
+    private static final ScheduledExecutorService EXECUTOR =
+            Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "job-scheduler");
+                t.setDaemon(true);
+                return t;
+            });
+    // Renewals get their own thread so a slow poll can never delay them past the lease.
+    private static final ScheduledExecutorService HEARTBEATS =
+            Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "job-heartbeat");
+                t.setDaemon(true);
+                return t;
+            });
+    private static final ExecutorService WORKERS = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "job-worker-" + WORKER_IDS.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+    });
+    private static volatile boolean started = false;
+
+    private JobScheduler() {
+    }
+
+    /**
+     * Registers {@code task} under {@code name} and stores its definition; a job seen for the first time is due
+     * at once. The task signals failure by throwing.
+     */
+    public static void register(String name, Duration interval, Runnable task) {
+        long intervalSeconds = Math.max(1, interval.getSeconds());
+        SCHEDULED_JOB_DAO.define(name, intervalSeconds);
+        JOBS.put(name, new Job(name, task));
+    }
+
+    /**
+     * Brings the job's next run forward to now; whichever client polls next picks it up.
+     */
+    public static void runSoon(String name) {
+        SCHEDULED_JOB_DAO.runSoon(name);
+    }
+
+    public static synchronized void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+        String enabled = ConfigLoader.get("jobs.enabled");
+        if (enabled != null && !Boolean.parseBoolean(enabled.trim())) {
+            LOGGER.info("Background jobs are disabled on this client.");
+            return;
+        }
+        long poll = longConfig("jobs.pollSeconds", 30);
+        EXECUTOR.scheduleWithFixedDelay(JobScheduler::poll, 0, poll, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stops polling and interrupts running jobs. Each interrupted run still records its outcome and releases
+     * its lease on the way out.
+     */
+    public static synchronized void stop() {
+        if (!started) {
+            return;
+        }
+        EXECUTOR.shutdownNow();
+        HEARTBEATS.shutdownNow();
+        WORKERS.shutdownNow();
+        try {
+            WORKERS.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        started = false;
+    }
+
+    /**
+     * Timing of the runs this client performed, per job.
+     */
+    public static Map<String, Metrics> metrics() {
+        Map<String, Metrics> metrics = new LinkedHashMap<>();
+        JOBS.values().stream()
+                .sorted((a, b) -> a.name.compareTo(b.name))
+                .forEach(job -> metrics.put(job.name, job.snapshot()));
+        return metrics;
+    }
+
+    /**
+     * Definitions and last-run state of every job, whichever client ran them.
+     */
+    public static List<ScheduledJobDao.JobState> jobStates() {
+        return SCHEDULED_JOB_DAO.findAll();
+    }
+
+    public static String nodeIdentity() {
+        return NODE_ID;
+    }
+
+    private static void poll() {
+        for (Job job : JOBS.values()) {
+            if (job.running.get()) {
+                continue;
+            }
+            try {
+                if (SCHEDULED_JOB_DAO.tryAcquire(job.name, NODE_ID, leaseSeconds())) {
+                    job.running.set(true);
+                    FutureTask<Void> execution = new FutureTask<>(() -> run(job), null);
+                    job.execution = execution;
+                    WORKERS.execute(execution);
+                }
+            } catch (Exception ex) {
+                job.running.set(false);
+                LOGGER.error("Unable to schedule job {}: {}", job.name, ex.getMessage(), ex);
+            }
+        }
+    }
+
+    private static void run(Job job) {
+        long lease = leaseSeconds();
+        long renewEvery = Math.max(1, lease / 3);
+        AtomicBoolean leaseLost = new AtomicBoolean();
+        ScheduledFuture<?> heartbeat = HEARTBEATS.scheduleWithFixedDelay(() -> {
+            if (leaseLost.get()) {
+                return;
+            }
+            try {
+                if (!SCHEDULED_JOB_DAO.renewLease(job.name, NODE_ID, lease)) {
+                    leaseLost.set(true);
+                    LOGGER.warn("Lost the lease on job {} while it was running; interrupting it.", job.name);
+                    job.execution.cancel(true);
+                }
+            } catch (Exception ex) {
+                LOGGER.error("Unable to renew lease on job {}: {}", job.name, ex.getMessage(), ex);
+            }
+        }, renewEvery, renewEvery, TimeUnit.SECONDS);
+
+        long startedAt = System.nanoTime();
+        ScheduledJobDao.RunStatus status = ScheduledJobDao.RunStatus.FAILED;
+        String error = null;
+        try {
+            job.task.run();
+            if (leaseLost.get()) {
+                error = "Lease lost while running";
+            } else {
+                status = ScheduledJobDao.RunStatus.SUCCEEDED;
+            }
+        } catch (RuntimeException ex) {
+            error = ex.getMessage() != null ? ex.getMessage() : ex.getClass().getName();
+            LOGGER.error("Job {} failed: {}", job.name, error, ex);
+        } finally {
+            heartbeat.cancel(false);
+            if (leaseLost.get()) {
+                // Clear our own cancellation interrupt so the outcome can still be written below.
+                Thread.interrupted();
+            }
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+            job.record(millis, status == ScheduledJobDao.RunStatus.SUCCEEDED);
+            try {
+                if (!SCHEDULED_JOB_DAO.complete(job.name, NODE_ID, status, error, millis)) {
+                    LOGGER.warn("Job {} finished after its lease moved to another client; outcome not recorded.",
+                            job.name);
+                }
+            } catch (Exception ex) {
+                LOGGER.error("Unable to record completion of job {}: {}", job.name, ex.getMessage(), ex);
+            } finally {
+                job.running.set(false);
+            }
+        }
+    }
+
+    private static long leaseSeconds() {
+        return longConfig("jobs.leaseSeconds", 300);
+    }
+
+    private static String nodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException ex) {
+            host = "unknown-host";
+        }
+        return host + ":" + ProcessHandle.current().pid() + ":" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    private static long longConfig(String key, long defaultValue) {
+        String value = ConfigLoader.get(key);
+        if (value != null) {
+            try {
+                return Math.max(1, Long.parseLong(value.trim()));
+            } catch (NumberFormatException ignored) {
+                // keep default
+            }
+        }
+        return defaultValue;
+    }
+
+    private static final class Job {
+        private final String name;
+        private final Runnable task;
+        private final AtomicBoolean running = new AtomicBoolean();
+        private volatile FutureTask<Void> execution;
+        private final LongAdder runs = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder totalMillis = new LongAdder();
+        private final AtomicLong maxMillis = new AtomicLong();
+        private volatile long lastMillis;
+
+        private Job(String name, Runnable task) {
+            this.name = name;
+            this.task = task;
+        }
+
+        private void record(long millis, boolean succeeded) {
+            runs.increment();
+            if (!succeeded) {
+                failures.increment();
+            }
+            totalMillis.add(millis);
+            maxMillis.accumulateAndGet(millis, Math::max);
+            lastMillis = millis;
+        }
+
+        private Metrics snapshot() {
+            long count = runs.sum();
+            return new Metrics(count, failures.sum(), lastMillis,
+                    count == 0 ? 0 : totalMillis.sum() / count, maxMillis.get(), running.get());
+        }
+    }
+
+    public static final class Metrics {
+        private final long runs;
+        private final long failures;
+        private final long lastMillis;
+        private final long averageMillis;
+        private final long maxMillis;
+        private final boolean running;
+
+        private Metrics(long runs, long failures, long lastMillis, long averageMillis, long maxMillis,
+                        boolean running) {
+            this.runs = runs;
+            this.failures = failures;
+            this.lastMillis = lastMillis;
+            this.averageMillis = averageMillis;
+            this.maxMillis = maxMillis;
+            this.running = running;
+        }
+
+        public long getRuns() {
+            return runs;
+        }
+
+        public long getFailures() {
+            return failures;
+        }
+
+        public long getLastMillis() {
+            return lastMillis;
+        }
+
+        public long getAverageMillis() {
+            return averageMillis;
+        }
+
+        public long getMaxMillis() {
+            return maxMillis;
+        }
+
+        public boolean isRunning() {
+            return running;
+        }
+    }
+}
@@ -0,0 +1,445 @@
+package main.java.utils;
+
+import main.java.config.ConfigLoader;
+import main.java.data.TransactionManager;
+import main.java.data.dao.FeeInstallmentDao;
+import main.java.data.dao.PaymentTransactionDao;
+import main.java.data.dao.StudentDao;
+import main.java.models.FeeInstallment;
+import main.java.models.PaymentTransaction;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVPrinter;
+import org.apache.commons.csv.CSVRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+import java.util.regex.Pattern;
+
+/**
+ * Imports a bank statement CSV as student payments. The statement is parsed one line at a time and matched
+ * against in-memory indexes of existing payment references and student codes, so each line costs no queries.
+ * Matched lines are applied in chunks, each in one transaction: the chunk's students are locked and their
+ * balances re-read, the payments are inserted as a batch, every student's {@code fees_paid} is bumped in one
+ * batched UPDATE and the installments the payments cover are marked paid in due order. Lines that cannot be
+ * applied, including payments that no longer fit the locked balance, are written to an exceptions report.
+ * <p>
+ * A line is a duplicate when its bank reference is already on file or appeared earlier in the statement, so
+ * importing the same statement twice, or again after a failed chunk, applies each payment once. The unique key
+ * on the reference has the final say: a payment another import recorded after the snapshot was taken is
+ * skipped by the insert and reported as a duplicate too.
+ */
+public final class PaymentReconciler {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PaymentReconciler.class);
+    private static final PaymentTransactionDao PAYMENT_TRANSACTION_DAO = new PaymentTransactionDao();
+    private static final StudentDao STUDENT_DAO = new StudentDao();
+    private static final FeeInstallmentDao FEE_INSTALLMENT_DAO = new FeeInstallmentDao();
+    private static final String PAYMENT_METHOD = "Bank Transfer";
+    private static final int MAX_REFERENCE_LENGTH = 64;
+    private static final int MAX_NOTES_LENGTH = 255;
+    private static final Pattern AMOUNT_PATTERN = Pattern.compile("[+-]?(\\d{1,3}(,\\d{3})+|\\d+)(\\.\\d+)?");
+    private static final CSVFormat REPORT_FORMAT = CSVFormat.DEFAULT.builder()
+            .setHeader("Line", "Date", "Reference", "Amount", "Narration", "Issue", "Detail")
+            .build();
+
+    /**
+     * Why a statement line was not applied.
+     */
+    public enum Issue {
+        INVALID,
+        DUPLICATE,
+        UNMATCHED,
+        AMBIGUOUS,
+        EXCEEDS_BALANCE
+    }
+
+    /**
+     * Outcome of one import.
+     */
+    public static final class Summary {
+        private long lines;
+        private long applied;
+        private double appliedAmount;
+        private final Map<Issue, Long> issues = new EnumMap<>(Issue.class);
+        private final Set<String> paidStudentIds = new LinkedHashSet<>();
+
+        public long getLines() {
+            return lines;
+        }
+
+        public long getApplied() {
+            return applied;
+        }
+
+        public double getAppliedAmount() {
+            return appliedAmount;
+        }
+
+        public long getExceptions() {
+            return issues.values().stream().mapToLong(Long::longValue).sum();
+        }
+
+        public Map<Issue, Long> getIssues() {
+            return Collections.unmodifiableMap(issues);
+        }
+
+        /**
+         * Students who received at least one payment.
+         */
+        public Set<String> getPaidStudentIds() {
+            return Collections.unmodifiableSet(paidStudentIds);
+        }
+    }
+
+    private PaymentReconciler() {
+    }
+
+    /**
+     * Applies every payment in {@code statement} and writes the lines that could not be applied to
+     * {@code report}. {@code progress} receives the number of lines read after each chunk.
+     */
+    public static Summary reconcile(String actor, Path statement, Path report, LongConsumer progress)
+            throws IOException {
+        long started = System.nanoTime();
+        String actorName = actor != null ? actor : "system";
+        Columns columns = Columns.fromConfig();
+        DateTimeFormatter dateFormat = DateTimeFormatter.ofPattern(
+                ConfigLoader.getOrDefault("reconcile.dateFormat", "yyyy-MM-dd"), Locale.ENGLISH);
+        int chunkSize = intConfig("reconcile.chunkSize", 500);
+
+        Set<String> seenReferences = PAYMENT_TRANSACTION_DAO.findAllReferences();
+        Map<String, Double> outstanding = STUDENT_DAO.findOutstandingBalances();
+        Map<String, String> studentsByToken = new HashMap<>(outstanding.size() * 2);
+        outstanding.keySet().forEach(code -> studentsByToken.put(code.toUpperCase(Locale.ROOT), code));
+
+        Summary summary = new Summary();
+        List<Line> chunk = new ArrayList<>(chunkSize);
+        CSVFormat statementFormat = CSVFormat.DEFAULT.builder()
+                .setHeader()
+                .setSkipHeaderRecord(true)
+                .setIgnoreHeaderCase(true)
+                .setIgnoreEmptyLines(true)
+                .setTrim(true)
+                .build();
+        try (Reader reader = Files.newBufferedReader(statement, StandardCharsets.UTF_8);
+             CSVParser parser = statementFormat.parse(reader);
+             Writer writer = Files.newBufferedWriter(report, StandardCharsets.UTF_8);
+             CSVPrinter exceptions = new CSVPrinter(writer, REPORT_FORMAT)) {
+            columns.requirePresent(parser.getHeaderMap().keySet());
+            for (CSVRecord record : parser) {
+                summary.lines++;
+                String reference = columns.value(record, columns.reference);
+                String narration = columns.value(record, columns.narration);
+                String rawDate = columns.value(record, columns.date);
+                String rawAmount = columns.value(record, columns.amount);
+
+                LocalDate paidOn;
+                double amount;
+                try {
+                    paidOn = LocalDate.parse(rawDate, dateFormat);
+                    amount = parseAmount(rawAmount);
+                } catch (DateTimeParseException | NumberFormatException ex) {
+                    reject(exceptions, summary, record, rawDate, reference, rawAmount, narration,
+                            Issue.INVALID, "Unreadable date or amount");
+                    continue;
+                }
+                if (reference.isEmpty() || reference.length() > MAX_REFERENCE_LENGTH) {
+                    reject(exceptions, summary, record, rawDate, reference, rawAmount, narration,
+                            Issue.INVALID, "Bank reference missing or longer than " + MAX_REFERENCE_LENGTH);
+                    continue;
+                }
+                if (amount <= 0) {
+                    reject(exceptions, summary, record, rawDate, reference, rawAmount, narration,
+                            Issue.INVALID, "Not a credit");
+                    continue;
+                }
+                if (!seenReferences.add(reference)) {
+                    reject(exceptions, summary, record, rawDate, reference, rawAmount, narration,
+                            Issue.DUPLICATE, "Reference already recorded");
+                    continue;
+                }
+                Set<String> students = matchStudents(studentsByToken, reference + " " + narration);
+                if (students.isEmpty()) {
+                    reject(exceptions, summary, record, rawDate, reference, rawAmount, narration,
+                            Issue.UNMATCHED, "No student code found");
+                    continue;
+                }
+                if (students.size() > 1) {
+                    reject(exceptions, summary, record, rawDate, reference, rawAmount, narration,
+                            Issue.AMBIGUOUS, "Matches " + String.join(", ", students));
+                    continue;
+                }
+                String studentId = students.iterator().next();
+                double balance = outstanding.get(studentId);
+                if (amount > balance + 1e-3) {
+                    reject(exceptions, summary, record, rawDate, reference, rawAmount, narration,
+                            Issue.EXCEEDS_BALANCE, String.format(Locale.ENGLISH,
+                                    "Outstanding balance of %s is %.2f", studentId, balance));
+                    continue;
+                }
+                outstanding.put(studentId, balance - amount);
+                chunk.add(new Line(record.getRecordNumber() + 1, rawDate, rawAmount, narration,
+                        new PaymentTransaction(studentId, amount, paidOn, PAYMENT_METHOD, reference,
+                                narration.length() > MAX_NOTES_LENGTH
+                                        ? narration.substring(0, MAX_NOTES_LENGTH) : narration)));
+                if (chunk.size() == chunkSize) {
+                    apply(actorName, chunk, outstanding, summary, exceptions);
+                    chunk.clear();
+                    progress.accept(summary.lines);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                apply(actorName, chunk, outstanding, summary, exceptions);
+            }
+            progress.accept(summary.lines);
+        }
+        LOGGER.info("Reconciled {}: {} line(s), {} payment(s) applied, {} exception(s) in {} ms.",
+                statement.getFileName(), summary.lines, summary.applied, summary.getExceptions(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        return summary;
+    }
+
+    /**
+     * Writes one chunk of matched payments in a single transaction and reports the lines it turned away. The
+     * snapshot balances only pre-filter lines; the balances read under the row locks decide, so payments
+     * recorded meanwhile by another client or import cannot push {@code fees_paid} past the total.
+     */
+    private static void apply(String actor, List<Line> lines, Map<String, Double> outstanding, Summary summary,
+                              CSVPrinter exceptions) throws IOException {
+        List<PaymentTransaction> payments = new ArrayList<>(lines.size());
+        Set<String> studentIds = new LinkedHashSet<>();
+        for (Line line : lines) {
+            payments.add(line.payment);
+            studentIds.add(line.payment.getStudentId());
+        }
+        Map<String, Double> balances = new HashMap<>();
+        Set<String> stored = new HashSet<>();
+        Set<String> shortfalls = new HashSet<>();
+        TransactionManager.runInTransaction(() -> {
+            balances.clear();
+            stored.clear();
+            shortfalls.clear();
+            balances.putAll(STUDENT_DAO.lockOutstandingBalances(studentIds));
+            Map<String, Double> remaining = new HashMap<>(balances);
+            Map<String, Double> paidByStudent = new LinkedHashMap<>();
+            List<AuditLogService.AuditEvent> auditEvents = new ArrayList<>(payments.size());
+            for (PaymentTransaction payment : PAYMENT_TRANSACTION_DAO.insertNew(payments)) {
+                double balance = remaining.getOrDefault(payment.getStudentId(), 0.0);
+                if (payment.getAmount() > balance + 1e-3) {
+                    shortfalls.add(payment.getTransactionId());
+                    continue;
+                }
+                remaining.put(payment.getStudentId(), balance - payment.getAmount());
+                stored.add(payment.getTransactionId());
+                paidByStudent.merge(payment.getStudentId(), payment.getAmount(), Double::sum);
+                auditEvents.add(auditEvent(actor, payment));
+            }
+            PAYMENT_TRANSACTION_DAO.deleteBatch(shortfalls);
+            STUDENT_DAO.addFeesPaid(paidByStudent);
+            FEE_INSTALLMENT_DAO.markPaid(coveredInstallments(paidByStudent), LocalDate.now());
+            AuditLogService.logAll(auditEvents);
+        });
+
+        Map<String, Double> remaining = new HashMap<>(balances);
+        for (Line line : lines) {
+            PaymentTransaction payment = line.payment;
+            String studentId = payment.getStudentId();
+            if (stored.contains(payment.getTransactionId())) {
+                remaining.merge(studentId, -payment.getAmount(), Double::sum);
+                summary.applied++;
+                summary.appliedAmount += payment.getAmount();
+                summary.paidStudentIds.add(studentId);
+            } else if (shortfalls.contains(payment.getTransactionId())) {
+                reject(exceptions, summary, line.number, line.rawDate, payment.getReference(), line.rawAmount,
+                        line.narration, Issue.EXCEEDS_BALANCE, String.format(Locale.ENGLISH,
+                                "Outstanding balance of %s is %.2f", studentId,
+                                Math.max(0, remaining.getOrDefault(studentId, 0.0))));
+            } else {
+                reject(exceptions, summary, line.number, line.rawDate, payment.getReference(), line.rawAmount,
+                        line.narration, Issue.DUPLICATE, "Reference recorded by another import");
+            }
+        }
+        // Later chunks pre-filter against what the database said, not the snapshot taken at the start.
+        outstanding.putAll(remaining);
+    }
+
+    private static AuditLogService.AuditEvent auditEvent(String actor, PaymentTransaction payment) {
+        return new AuditLogService.AuditEvent(AuditLogService.EventType.FINANCE_PAYMENT, actor,
+                AuditLogService.SubjectType.STUDENT, payment.getStudentId(),
+                Map.of("amount", String.format(Locale.ENGLISH, "%.2f", payment.getAmount()),
+                        "transaction", payment.getTransactionId(),
+                        "reference", payment.getReference()),
+                String.format(Locale.ENGLISH, "Reconciled bank payment %.2f for %s",
+                        payment.getAmount(), payment.getStudentId()));
+    }
+
+    /**
+     * Installments paid off by each student's total, taken in due order until one is not fully covered, as
+     * {@link DatabaseUtil#recordPayment} does for a single payment.
+     */
+    private static List<String> coveredInstallments(Map<String, Double> paidByStudent) {
+        Map<String, Double> remaining = new HashMap<>(paidByStudent);
+        Set<String> exhausted = new HashSet<>();
+        List<String> covered = new ArrayList<>();
+        for (FeeInstallment installment : FEE_INSTALLMENT_DAO.findUnpaidByStudents(paidByStudent.keySet())) {
+            String studentId = installment.getStudentId();
+            if (exhausted.contains(studentId)) {
+                continue;
+            }
+            double left = remaining.get(studentId);
+            if (left + 1e-3 >= installment.getAmount()) {
+                covered.add(installment.getInstallmentId());
+                remaining.put(studentId, left - installment.getAmount());
+            } else {
+                exhausted.add(studentId);
+            }
+        }
+        return covered;
+    }
+
+    /**
+     * Student codes appearing as whole tokens in {@code text}.
+     */
+    private static Set<String> matchStudents(Map<String, String> studentsByToken, String text) {
+        Set<String> matches = new LinkedHashSet<>();
+        for (String token : text.toUpperCase(Locale.ROOT).split("[^A-Z0-9]+")) {
+            String studentId = studentsByToken.get(token);
+            if (studentId != null) {
+                matches.add(studentId);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Signed amount of a statement line. A trailing {@code DR}/{@code CR} or enclosing parentheses mark the sign
+     * the way banks print it; apart from those, only digits, an optional leading sign, thousands separators and
+     * a decimal point are accepted, so a value in another format is rejected instead of misread.
+     */
+    private static double parseAmount(String raw) {
+        String value = raw.trim();
+        String upper = value.toUpperCase(Locale.ROOT);
+        boolean marked = true;
+        boolean negative;
+        if (upper.endsWith("DR") || upper.endsWith("CR")) {
+            negative = upper.endsWith("DR");
+            value = value.substring(0, value.length() - 2).trim();
+        } else if (value.startsWith("(") && value.endsWith(")")) {
+            negative = true;
+            value = value.substring(1, value.length() - 1).trim();
+        } else {
+            marked = false;
+            negative = false;
+        }
+        if (!AMOUNT_PATTERN.matcher(value).matches() || (marked && !Character.isDigit(value.charAt(0)))) {
+            throw new NumberFormatException("Unreadable amount: " + raw);
+        }
+        double amount = Double.parseDouble(value.replace(",", ""));
+        return negative ? -amount : amount;
+    }
+
+    private static void reject(CSVPrinter exceptions, Summary summary, CSVRecord record, String date,
+                               String reference, String amount, String narration, Issue issue, String detail)
+            throws IOException {
+        reject(exceptions, summary, record.getRecordNumber() + 1, date, reference, amount, narration, issue,
+                detail);
+    }
+
+    private static void reject(CSVPrinter exceptions, Summary summary, long line, String date, String reference,
+                               String amount, String narration, Issue issue, String detail) throws IOException {
+        summary.issues.merge(issue, 1L, Long::sum);
+        exceptions.printRecord(line, date, reference, amount, narration, issue, detail);
+    }
+
+    private static int intConfig(String key, int defaultValue) {
+        String value = ConfigLoader.get(key);
+        if (value != null) {
+            try {
+                return Math.max(1, Integer.parseInt(value.trim()));
+            } catch (NumberFormatException ignored) {
+                // keep default
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * A matched statement line waiting for its chunk to be written, with the raw values needed to report it.
+     */
+    private static final class Line {
+        private final long number;
+        private final String rawDate;
+        private final String rawAmount;
+        private final String narration;
+        private final PaymentTransaction payment;
+
+        private Line(long number, String rawDate, String rawAmount, String narration, PaymentTransaction payment) {
+            this.number = number;
+            this.rawDate = rawDate;
+            this.rawAmount = rawAmount;
+            this.narration = narration;
+            this.payment = payment;
+        }
+    }
+
+    /**
+     * Statement header names, configurable because every bank labels its columns differently.
+     */
+    private static final class Columns {
+        private final String date;
+        private final String reference;
+        private final String narration;
+        private final String amount;
+
+        private Columns(String date, String reference, String narration, String amount) {
+            this.date = date;
+            this.reference = reference;
+            this.narration = narration;
+            this.amount = amount;
+        }
+
+        static Columns fromConfig() {
+            return new Columns(
+                    ConfigLoader.getOrDefault("reconcile.column.date", "Date"),
+                    ConfigLoader.getOrDefault("reconcile.column.reference", "Reference"),
+                    ConfigLoader.getOrDefault("reconcile.column.narration", "Narration"),
+                    ConfigLoader.getOrDefault("reconcile.column.amount", "Amount"));
+        }
+
+        void requirePresent(Set<String> headers) {
+            Set<String> normalized = new HashSet<>();
+            headers.forEach(header -> normalized.add(header.trim().toLowerCase(Locale.ROOT)));
+            for (String column : List.of(date, reference, amount)) {
+                if (!normalized.contains(column.toLowerCase(Locale.ROOT))) {
+                    throw new IllegalArgumentException("Statement has no \"" + column + "\" column.");
+                }
+            }
+        }
+
+        String value(CSVRecord record, String column) {
+            return record.isMapped(column) && record.isSet(column) ? record.get(column) : "";
+        }
+    }
+}
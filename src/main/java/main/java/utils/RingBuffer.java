@@ -0,0 +1,102 @@
+package main.java.utils;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free queue over a power-of-two array. Every slot carries a sequence number that tells producers
+ * and consumers whether it is free or filled for the current lap, so {@link #offer(Object)} and
+ * {@link #poll()} are a CAS on the tail or head and never block.
+ */
+final class RingBuffer<E> {
+    private final int mask;
+    private final AtomicReferenceArray<E> slots;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+
+    RingBuffer(int requestedCapacity) {
+        int capacity = 1 << (32 - Integer.numberOfLeadingZeros(Math.max(2, requestedCapacity) - 1));
+        this.mask = capacity - 1;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * @return {@code false} when the buffer is full
+     */
+    boolean offer(E element) {
+        long pos = tail.get();
+        while (true) {
+            int index = (int) pos & mask;
+            long lag = sequences.get(index) - pos;
+            if (lag == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    slots.set(index, element);
+                    sequences.set(index, pos + 1);
+                    return true;
+                }
+                pos = tail.get();
+            } else if (lag < 0) {
+                return false;
+            } else {
+                pos = tail.get();
+            }
+        }
+    }
+
+    /**
+     * @return the oldest element, or {@code null} when the buffer is empty
+     */
+    E poll() {
+        long pos = head.get();
+        while (true) {
+            int index = (int) pos & mask;
+            long lag = sequences.get(index) - (pos + 1);
+            if (lag == 0) {
+                if (head.compareAndSet(pos, pos + 1)) {
+                    E element = slots.get(index);
+                    slots.set(index, null);
+                    sequences.set(index, pos + mask + 1);
+                    return element;
+                }
+                pos = head.get();
+            } else if (lag < 0) {
+                return null;
+            } else {
+                pos = head.get();
+            }
+        }
+    }
+
+    int drainTo(List<E> sink, int max) {
+        int drained = 0;
+        while (drained < max) {
+            E element = poll();
+            if (element == null) {
+                break;
+            }
+            sink.add(element);
+            drained++;
+        }
+        return drained;
+    }
+
+    int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(size, capacity()));
+    }
+
+    boolean isEmpty() {
+        return size() == 0;
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+}
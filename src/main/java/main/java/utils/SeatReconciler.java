@@ -0,0 +1,86 @@
+package main.java.utils;
+
+import main.java.config.ConfigLoader;
+import main.java.data.dao.SeatCounterDao;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Repairs drift between {@code section_seat_counters}, {@code courses.available_seats},
+ * {@code students.credits_in_progress} and the ENROLLED rows in {@code enrollments}, and compacts waitlist
+ * positions. Runs as a {@link JobScheduler} job on a fixed interval, so only one client scans the tables per
+ * run; start-up only creates the counters of sections that have none.
+ */
+public final class SeatReconciler {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SeatReconciler.class);
+    private static final SeatCounterDao seatCounterDao = new SeatCounterDao();
+    private static final String JOB_NAME = "seat-reconcile";
+
+    private SeatReconciler() {
+    }
+
+    public static void register() {
+        JobScheduler.register(JOB_NAME, Duration.ofMinutes(intervalMinutes()), SeatReconciler::runCycle);
+    }
+
+    /**
+     * Creates a counter for every section that lacks one, so registrations can reserve seats before the first
+     * reconciliation run.
+     */
+    public static void insertMissingCounters() {
+        int created = seatCounterDao.insertMissing();
+        if (created > 0) {
+            LOGGER.info("Created {} missing seat counter(s).", created);
+        }
+    }
+
+    /**
+     * Detects drifted counters with one set-based query, then recomputes each under its section lock so an
+     * in-process registration cannot interleave with the repair.
+     *
+     * @return number of section counters repaired
+     */
+    @SuppressWarnings("try")
+    public static int reconcile() {
+        int created = seatCounterDao.insertMissing();
+        List<String> drifted = seatCounterDao.findDrifted();
+        for (String sectionId : drifted) {
+            try (StripedLockManager.LockScope ignored = StripedLockManager.lockSection(sectionId)) {
+                seatCounterDao.repair(sectionId);
+            }
+        }
+        int courses = seatCounterDao.repairCourseAvailability();
+        if (courses > 0) {
+            DatabaseUtil.refreshCourseAvailability();
+        }
+        int students = DatabaseUtil.reconcileCreditsInProgress();
+        if (created > 0 || !drifted.isEmpty() || courses > 0 || students > 0) {
+            LOGGER.warn("Seat reconciliation: {} counter(s) created, {} repaired, {} course(s) and {} student "
+                            + "credit load(s) corrected.", created, drifted.size(), courses, students);
+        }
+        return drifted.size();
+    }
+
+    private static void runCycle() {
+        reconcile();
+        int compacted = DatabaseUtil.compactWaitlists();
+        if (compacted > 0) {
+            LOGGER.info("Compacted {} waitlist(s).", compacted);
+        }
+    }
+
+    private static long intervalMinutes() {
+        String value = ConfigLoader.get("seats.reconcileIntervalMinutes");
+        if (value != null) {
+            try {
+                return Math.max(1, Long.parseLong(value.trim()));
+            } catch (NumberFormatException ignored) {
+                // keep default
+            }
+        }
+        return 15;
+    }
+}
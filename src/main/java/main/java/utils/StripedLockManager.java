@@ -0,0 +1,140 @@
+package main.java.utils;
+
+import main.java.config.ConfigLoader;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Striped lock registry replacing the JVM-wide {@code DatabaseUtil} monitor.
+ * <p>
+ * Keys are hashed onto a fixed number of stripes per {@link Domain}, so two registrations for different
+ * sections (or a registration and a payment) only contend when their keys share a stripe. Every
+ * acquisition goes through {@link #lock(Collection, Collection, Collection)}, which locks the requested
+ * stripes in one canonical order (domain, then stripe index). Callers must never acquire additional
+ * stripes while already holding a scope; release it and request the union instead.
+ */
+public final class StripedLockManager {
+    public enum Domain {
+        SECTION,
+        STUDENT,
+        USER
+    }
+
+    private static final int STRIPES = resolveStripeCount();
+    private static final ReentrantLock[][] LOCKS = new ReentrantLock[Domain.values().length][STRIPES];
+
+    static {
+        for (ReentrantLock[] domainLocks : LOCKS) {
+            for (int i = 0; i < domainLocks.length; i++) {
+                domainLocks[i] = new ReentrantLock();
+            }
+        }
+    }
+
+    private StripedLockManager() {
+    }
+
+    public static LockScope lockSection(String sectionId) {
+        return lock(Collections.singleton(sectionId), Collections.emptySet(), Collections.emptySet());
+    }
+
+    public static LockScope lockStudent(String studentId) {
+        return lock(Collections.emptySet(), Collections.singleton(studentId), Collections.emptySet());
+    }
+
+    public static LockScope lockUser(String username) {
+        return lock(Collections.emptySet(), Collections.emptySet(), Collections.singleton(username));
+    }
+
+    public static LockScope lockSectionAndStudents(String sectionId, Collection<String> studentIds) {
+        return lock(Collections.singleton(sectionId), studentIds, Collections.emptySet());
+    }
+
+    public static LockScope lock(Collection<String> sectionIds,
+                                 Collection<String> studentIds,
+                                 Collection<String> usernames) {
+        TreeSet<Integer> ordered = new TreeSet<>();
+        collect(ordered, Domain.SECTION, sectionIds);
+        collect(ordered, Domain.STUDENT, studentIds);
+        collect(ordered, Domain.USER, usernames);
+
+        List<ReentrantLock> acquired = new ArrayList<>(ordered.size());
+        try {
+            for (int slot : ordered) {
+                ReentrantLock lock = LOCKS[slot / STRIPES][slot % STRIPES];
+                lock.lock();
+                acquired.add(lock);
+            }
+        } catch (RuntimeException | Error ex) {
+            release(acquired);
+            throw ex;
+        }
+        return new LockScope(acquired);
+    }
+
+    public static int stripeCount() {
+        return STRIPES;
+    }
+
+    static int stripeOf(String key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return h & (STRIPES - 1);
+    }
+
+    private static void collect(TreeSet<Integer> ordered, Domain domain, Collection<String> keys) {
+        if (keys == null) {
+            return;
+        }
+        for (String key : keys) {
+            if (key != null) {
+                ordered.add(domain.ordinal() * STRIPES + stripeOf(key));
+            }
+        }
+    }
+
+    private static void release(List<ReentrantLock> acquired) {
+        for (int i = acquired.size() - 1; i >= 0; i--) {
+            acquired.get(i).unlock();
+        }
+    }
+
+    private static int resolveStripeCount() {
+        int requested = 256;
+        String value = ConfigLoader.get("concurrency.lockStripes");
+        if (value != null) {
+            try {
+                requested = Integer.parseInt(value.trim());
+            } catch (NumberFormatException ignored) {
+                // keep default
+            }
+        }
+        return Integer.highestOneBit(Math.max(16, Math.min(requested, 1 << 14)));
+    }
+
+    /**
+     * Handle for a set of held stripes; closing it releases them in reverse acquisition order.
+     */
+    public static final class LockScope implements AutoCloseable {
+        private final List<ReentrantLock> locks;
+        private boolean released;
+
+        private LockScope(List<ReentrantLock> locks) {
+            this.locks = locks;
+        }
+
+        @Override
+        public void close() {
+            if (released) {
+                return;
+            }
+            released = true;
+            release(locks);
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package main.java.utils;
+
+import main.java.config.ConfigLoader;
+import main.java.data.TransactionManager;
+import main.java.data.dao.FeeInstallmentDao;
+import main.java.data.dao.FeeInvoicingDao;
+import main.java.models.FeeInstallment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates term installment schedules for every active student. A run is requested per term and carried out
+ * by the {@code term-invoicing} {@link JobScheduler} job: students are read in {@code student_code} pages, a
+ * wave of pages is planned and written in parallel, each page in its own transaction, and the last student of
+ * the wave is checkpointed. Installment ids are derived from the term and student, so an interrupted run resumes
+ * from its checkpoint and a repeated page inserts nothing new.
+ * <p>
+ * A student is billed their program's fee divided by its semesters, split according to the installment plan
+ * configured for their course, and never more than the part of their outstanding balance no unpaid installment
+ * covers yet.
+ */
+public final class TermInvoicer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TermInvoicer.class);
+    private static final FeeInvoicingDao FEE_INVOICING_DAO = new FeeInvoicingDao();
+    private static final FeeInstallmentDao FEE_INSTALLMENT_DAO = new FeeInstallmentDao();
+    private static final String JOB_NAME = "term-invoicing";
+    private static final int MAX_TERM_CODE_LENGTH = 24;
+    private static final Map<String, Plan> PLANS_BY_COURSE = new ConcurrentHashMap<>();
+
+    private TermInvoicer() {
+    }
+
+    public static void register() {
+        JobScheduler.register(JOB_NAME, Duration.ofMinutes(longConfig("invoicing.intervalMinutes", 15)),
+                TermInvoicer::runPending);
+    }
+
+    /**
+     * Requests invoicing for {@code termCode} and brings the job forward so a client starts it shortly.
+     *
+     * @return {@code false} when the term was already requested
+     */
+    public static boolean request(String actor, String termCode, LocalDate termStart) {
+        if (termCode == null || termCode.isBlank() || termCode.trim().length() > MAX_TERM_CODE_LENGTH) {
+            throw new IllegalArgumentException("Term code must be 1 to " + MAX_TERM_CODE_LENGTH + " characters.");
+        }
+        if (termStart == null) {
+            throw new IllegalArgumentException("Term start date is required.");
+        }
+        String code = termCode.trim();
+        if (!FEE_INVOICING_DAO.request(code, termStart, actor)) {
+            return false;
+        }
+        AuditLogService.log(AuditLogService.EventType.FINANCE_INVOICING, actor,
+                "Requested invoicing for term " + code + " starting " + termStart);
+        JobScheduler.runSoon(JOB_NAME);
+        return true;
+    }
+
+    /**
+     * Carries out every pending or interrupted run, oldest request first.
+     */
+    static void runPending() {
+        for (FeeInvoicingDao.Run run : FEE_INVOICING_DAO.findUnfinished()) {
+            invoice(run);
+        }
+    }
+
+    private static void invoice(FeeInvoicingDao.Run run) {
+        int workers = (int) longConfig("invoicing.workers", 3);
+        int chunkSize = (int) longConfig("invoicing.chunkSize", 1000);
+        long started = System.nanoTime();
+        if (run.getLastStudentId() != null) {
+            LOGGER.info("Resuming invoicing for term {} after student {}.", run.getTermCode(),
+                    run.getLastStudentId());
+        }
+        AtomicInteger threadIds = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(workers, r -> {
+            Thread t = new Thread(r, "term-invoicer-" + threadIds.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            String cursor = run.getLastStudentId();
+            int students = run.getStudentsInvoiced();
+            int installments = run.getInstallmentsScheduled();
+            boolean exhausted = false;
+            while (!exhausted) {
+                List<List<FeeInvoicingDao.Candidate>> wave = new ArrayList<>(workers);
+                while (wave.size() < workers) {
+                    List<FeeInvoicingDao.Candidate> page = FEE_INVOICING_DAO.findCandidates(cursor, chunkSize);
+                    if (!page.isEmpty()) {
+                        wave.add(page);
+                        cursor = page.get(page.size() - 1).getStudentId();
+                    }
+                    if (page.size() < chunkSize) {
+                        exhausted = true;
+                        break;
+                    }
+                }
+                if (wave.isEmpty()) {
+                    break;
+                }
+                List<Future<Integer>> written = new ArrayList<>(wave.size());
+                for (List<FeeInvoicingDao.Candidate> page : wave) {
+                    written.add(pool.submit(() -> writePage(run, page)));
+                }
+                int waveStudents = 0;
+                int waveInstallments = 0;
+                for (int i = 0; i < wave.size(); i++) {
+                    waveStudents += wave.get(i).size();
+                    waveInstallments += await(written.get(i));
+                }
+                FEE_INVOICING_DAO.checkpoint(run.getTermCode(), cursor, waveStudents, waveInstallments);
+                students += waveStudents;
+                installments += waveInstallments;
+            }
+            FEE_INVOICING_DAO.complete(run.getTermCode());
+            LOGGER.info("Invoiced term {}: {} student(s), {} installment(s) in {} ms.", run.getTermCode(),
+                    students, installments, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+            AuditLogService.log(AuditLogService.EventType.FINANCE_INVOICING, "system",
+                    "Invoiced term " + run.getTermCode() + ": " + students + " student(s), "
+                            + installments + " installment(s)");
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Plans one page and inserts its installments in a single transaction.
+     *
+     * @return number of installments planned
+     */
+    private static int writePage(FeeInvoicingDao.Run run, List<FeeInvoicingDao.Candidate> page) {
+        List<FeeInstallment> installments = new ArrayList<>();
+        for (FeeInvoicingDao.Candidate candidate : page) {
+            installments.addAll(plan(run, candidate));
+        }
+        if (!installments.isEmpty()) {
+            TransactionManager.runInTransaction(() -> FEE_INSTALLMENT_DAO.insertMissing(installments));
+        }
+        return installments.size();
+    }
+
+    private static List<FeeInstallment> plan(FeeInvoicingDao.Run run, FeeInvoicingDao.Candidate candidate) {
+        long total = Math.round(Math.min(candidate.getTermFee(), candidate.getUnscheduled()));
+        if (total <= 0) {
+            return List.of();
+        }
+        Plan plan = planFor(candidate.getCourseCode());
+        int count = (int) Math.min(plan.installments, total);
+        long share = total / count;
+        LocalDate today = LocalDate.now();
+        LocalDate firstDue = run.getTermStart().plusDays(longConfig("invoicing.firstDueDays", 14));
+        List<FeeInstallment> installments = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            // The last installment absorbs the rounding remainder.
+            long amount = i == count - 1 ? total - share * (count - 1) : share;
+            LocalDate due = firstDue.plusMonths((long) i * plan.monthsApart);
+            installments.add(new FeeInstallment(
+                    run.getTermCode() + "-" + candidate.getStudentId() + "-" + (i + 1),
+                    candidate.getStudentId(),
+                    due,
+                    amount,
+                    due.isBefore(today) ? FeeInstallment.Status.OVERDUE : FeeInstallment.Status.DUE,
+                    "Term " + run.getTermCode() + " installment " + (i + 1) + " of " + count,
+                    null,
+                    null));
+        }
+        return installments;
+    }
+
+    /**
+     * The plan named by {@code invoicing.plan.course.<course>}, else {@code invoicing.defaultPlan}. Plans are
+     * defined as {@code invoicing.plan.<name>=<installments>x<months apart>}.
+     */
+    private static Plan planFor(String courseCode) {
+        return PLANS_BY_COURSE.computeIfAbsent(courseCode == null ? "" : courseCode, code -> {
+            String name = ConfigLoader.get("invoicing.plan.course." + code);
+            if (name == null || name.isBlank()) {
+                name = ConfigLoader.getOrDefault("invoicing.defaultPlan", "STANDARD");
+            }
+            String spec = ConfigLoader.get("invoicing.plan." + name.trim());
+            if (spec != null) {
+                String[] parts = spec.trim().toLowerCase().split("x");
+                try {
+                    if (parts.length == 2) {
+                        return new Plan(Math.max(1, Integer.parseInt(parts[0].trim())),
+                                Math.max(0, Integer.parseInt(parts[1].trim())));
+                    }
+                } catch (NumberFormatException ignored) {
+                    // fall through to the default plan
+                }
+                LOGGER.warn("Ignoring malformed installment plan {}={}.", name, spec);
+            }
+            return Plan.DEFAULT;
+        });
+    }
+
+    private static int await(Future<Integer> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Term invoicing was interrupted.", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw new IllegalStateException("Term invoicing failed.", ex.getCause());
+        }
+    }
+
+    private static long longConfig(String key, long defaultValue) {
+        String value = ConfigLoader.get(key);
+        if (value != null) {
+            try {
+                return Math.max(1, Long.parseLong(value.trim()));
+            } catch (NumberFormatException ignored) {
+                // keep default
+            }
+        }
+        return defaultValue;
+    }
+
+    private static final class Plan {
+        private static final Plan DEFAULT = new Plan(3, 1);
+
+        private final int installments;
+        private final int monthsApart;
+
+        private Plan(int installments, int monthsApart) {
+            this.installments = installments;
+            this.monthsApart = monthsApart;
+        }
+    }
+}
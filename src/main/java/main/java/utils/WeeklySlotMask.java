@@ -0,0 +1,114 @@
+package main.java.utils;
+
+import main.java.models.Section;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Objects;
+
+/**
+ * Immutable bitmap of the minutes in a week, one bit per minute (7 x 1440 bits).
+ * <p>
+ * Only the words between the first and last set bit are stored, so a section mask is two or three longs and a
+ * conflict check is a handful of ANDs. Section end times are inclusive, matching the historical pairwise check
+ * where a class ending at 10:30 clashes with one starting at 10:30.
+ */
+public final class WeeklySlotMask {
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    private static final WeeklySlotMask EMPTY = new WeeklySlotMask(0, new long[0], null, null, null);
+
+    private final int firstWord;
+    private final long[] words;
+    private final DayOfWeek day;
+    private final LocalTime start;
+    private final LocalTime end;
+
+    private WeeklySlotMask(int firstWord, long[] words, DayOfWeek day, LocalTime start, LocalTime end) {
+        this.firstWord = firstWord;
+        this.words = words;
+        this.day = day;
+        this.start = start;
+        this.end = end;
+    }
+
+    public static WeeklySlotMask empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Mask covering a section's weekly meeting; sections without a day or times occupy nothing.
+     */
+    public static WeeklySlotMask forSection(Section section) {
+        DayOfWeek day = section.getDayOfWeek();
+        LocalTime start = section.getStartTime();
+        LocalTime end = section.getEndTime();
+        if (day == null || start == null || end == null || end.isBefore(start)) {
+            return new WeeklySlotMask(0, new long[0], day, start, end);
+        }
+        int base = (day.getValue() - 1) * MINUTES_PER_DAY;
+        int from = base + start.getHour() * 60 + start.getMinute();
+        int to = base + end.getHour() * 60 + end.getMinute();
+        int firstWord = from >>> 6;
+        long[] words = new long[(to >>> 6) - firstWord + 1];
+        for (int bit = from; bit <= to; bit++) {
+            words[(bit >>> 6) - firstWord] |= 1L << (bit & 63);
+        }
+        return new WeeklySlotMask(firstWord, words, day, start, end);
+    }
+
+    public static WeeklySlotMask union(Collection<WeeklySlotMask> masks) {
+        int lo = Integer.MAX_VALUE;
+        int hi = -1;
+        for (WeeklySlotMask mask : masks) {
+            if (!mask.isEmpty()) {
+                lo = Math.min(lo, mask.firstWord);
+                hi = Math.max(hi, mask.lastWord());
+            }
+        }
+        if (hi < 0) {
+            return EMPTY;
+        }
+        long[] words = new long[hi - lo + 1];
+        for (WeeklySlotMask mask : masks) {
+            for (int i = 0; i < mask.words.length; i++) {
+                words[mask.firstWord + i - lo] |= mask.words[i];
+            }
+        }
+        return new WeeklySlotMask(lo, words, null, null, null);
+    }
+
+    public WeeklySlotMask or(WeeklySlotMask other) {
+        return union(Arrays.asList(this, other));
+    }
+
+    public boolean intersects(WeeklySlotMask other) {
+        int lo = Math.max(firstWord, other.firstWord);
+        int hi = Math.min(lastWord(), other.lastWord());
+        for (int w = lo; w <= hi; w++) {
+            if ((words[w - firstWord] & other.words[w - other.firstWord]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isEmpty() {
+        return words.length == 0;
+    }
+
+    /**
+     * Whether this section mask was built from the section's current day and times, i.e. is still valid after
+     * the section may have been edited in place.
+     */
+    public boolean matches(Section section) {
+        return day == section.getDayOfWeek()
+                && Objects.equals(start, section.getStartTime())
+                && Objects.equals(end, section.getEndTime());
+    }
+
+    private int lastWord() {
+        return firstWord + words.length - 1;
+    }
+}
@@ -0,0 +1,16 @@
+-- Row versions for compare-and-set updates: every DAO update matches the version it read and increments it,
+-- so a write based on a stale read affects no rows instead of silently overwriting another client's change.
+ALTER TABLE students
+    ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+
+ALTER TABLE sections
+    ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+
+ALTER TABLE courses
+    ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+
+ALTER TABLE enrollments
+    ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+
+ALTER TABLE fee_installments
+    ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
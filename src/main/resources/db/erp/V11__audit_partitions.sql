@@ -0,0 +1,13 @@
+-- Monthly range partitions for audit_events so range scans are pruned and old months can be archived and
+-- dropped without a row-by-row DELETE. MariaDB requires the partitioning column in every unique key, hence
+-- the wider primary key; ids still come from AUTO_INCREMENT.
+-- Rows so far land in p_history. AuditArchiver splits monthly partitions off p_future ahead of time.
+ALTER TABLE audit_events
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (id, created_at);
+
+ALTER TABLE audit_events
+    PARTITION BY RANGE (UNIX_TIMESTAMP(created_at)) (
+        PARTITION p_history VALUES LESS THAN (UNIX_TIMESTAMP('2026-11-01 00:00:00')),
+        PARTITION p_future VALUES LESS THAN MAXVALUE
+    );
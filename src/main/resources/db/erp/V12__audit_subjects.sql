@@ -0,0 +1,8 @@
+-- Structured audit subjects: the entity an event is about plus a compact key/value payload
+-- (URL-encoded key=value pairs). Per-entity history is an index seek on idx_audit_events_subject.
+-- Existing rows keep only their free-text details.
+ALTER TABLE audit_events
+    ADD COLUMN subject_type VARCHAR(16) NULL AFTER details,
+    ADD COLUMN subject_id VARCHAR(64) NULL AFTER subject_type,
+    ADD COLUMN payload VARCHAR(1024) NULL AFTER subject_id,
+    ADD INDEX idx_audit_events_subject (subject_type, subject_id, created_at, id);
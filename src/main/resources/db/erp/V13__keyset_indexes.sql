@@ -0,0 +1,16 @@
+-- Composite indexes for keyset pagination on (created_at, id), newest first. Each branch of the
+-- visible-notifications query seeks one of these and reads only a page of rows.
+CREATE INDEX IF NOT EXISTS idx_notifications_created
+    ON notifications (created_at, id);
+
+CREATE INDEX IF NOT EXISTS idx_notifications_audience_created
+    ON notifications (audience, created_at, id);
+
+CREATE INDEX IF NOT EXISTS idx_notifications_target_created
+    ON notifications (target_id, created_at, id);
+
+-- The partitioned primary key (id, created_at) is implicitly appended to secondary indexes, but spelling
+-- out the keyset order keeps range pages on audit_events an index seek without a filesort.
+ALTER TABLE audit_events
+    DROP INDEX idx_audit_events_created,
+    ADD INDEX idx_audit_events_created (created_at, id);
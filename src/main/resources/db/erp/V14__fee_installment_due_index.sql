@@ -0,0 +1,3 @@
+-- Lets the finance reminder cycle range-scan unpaid installments by due date instead of reading the table.
+CREATE INDEX IF NOT EXISTS idx_fee_installments_status_due
+    ON fee_installments (status, due_date);
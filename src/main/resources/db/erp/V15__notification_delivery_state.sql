@@ -0,0 +1,21 @@
+-- Per-student delivery state for scheduled notifications, replacing one
+-- finance.digest.lastSent.<studentId> row per student in settings.
+CREATE TABLE IF NOT EXISTS notification_delivery_state (
+    student_id VARCHAR(64) NOT NULL,
+    channel VARCHAR(32) NOT NULL,
+    last_sent_on DATE NOT NULL,
+    PRIMARY KEY (student_id, channel),
+    CONSTRAINT fk_delivery_state_student FOREIGN KEY (student_id)
+        REFERENCES students(student_code)
+        ON DELETE CASCADE
+);
+
+INSERT INTO notification_delivery_state (student_id, channel, last_sent_on)
+SELECT s.student_code, 'FINANCE_DIGEST', STR_TO_DATE(st.setting_value, '%Y-%m-%d')
+FROM settings st
+JOIN students s ON s.student_code = SUBSTRING(st.setting_key, CHAR_LENGTH('finance.digest.lastSent.') + 1)
+WHERE st.setting_key LIKE 'finance.digest.lastSent.%'
+  AND STR_TO_DATE(st.setting_value, '%Y-%m-%d') IS NOT NULL
+ON DUPLICATE KEY UPDATE last_sent_on = GREATEST(last_sent_on, VALUES(last_sent_on));
+
+DELETE FROM settings WHERE setting_key LIKE 'finance.digest.lastSent.%';
@@ -0,0 +1,18 @@
+-- Background job definitions, last-run state and the lease that lets exactly one
+-- client run each job. Lease and schedule times are always compared against the
+-- database clock so client clock skew does not matter.
+CREATE TABLE IF NOT EXISTS scheduled_jobs (
+    job_name VARCHAR(64) PRIMARY KEY,
+    interval_seconds INT NOT NULL,
+    enabled BOOLEAN NOT NULL DEFAULT TRUE,
+    next_run_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    lease_owner VARCHAR(128) NULL,
+    lease_expires_at TIMESTAMP NULL,
+    last_started_at TIMESTAMP NULL,
+    last_finished_at TIMESTAMP NULL,
+    last_status VARCHAR(16) NULL,
+    last_error VARCHAR(512) NULL,
+    last_duration_ms BIGINT NULL,
+    run_count BIGINT NOT NULL DEFAULT 0,
+    failure_count BIGINT NOT NULL DEFAULT 0
+);
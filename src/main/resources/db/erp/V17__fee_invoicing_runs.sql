@@ -0,0 +1,15 @@
+-- One row per term invoicing run. The term-invoicing job walks students in
+-- student_code order and checkpoints the last code of every committed wave, so an
+-- interrupted run resumes where it stopped.
+CREATE TABLE IF NOT EXISTS fee_invoicing_runs (
+    term_code VARCHAR(24) PRIMARY KEY,
+    term_start DATE NOT NULL,
+    status VARCHAR(16) NOT NULL,
+    last_student_id VARCHAR(64) NULL,
+    students_invoiced INT NOT NULL DEFAULT 0,
+    installments_scheduled INT NOT NULL DEFAULT 0,
+    requested_by VARCHAR(64) NULL,
+    requested_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    finished_at TIMESTAMP NULL,
+    INDEX idx_fee_invoicing_runs_status (status, requested_at)
+);
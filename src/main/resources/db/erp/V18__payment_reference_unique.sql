@@ -0,0 +1,21 @@
+-- A bank reference identifies one payment, so the database rejects a second row with
+-- the same non-blank reference however many imports run at once. Duplicates recorded
+-- before this migration keep their rows but are flagged and left out of the key.
+ALTER TABLE payment_transactions
+    ADD COLUMN duplicate_reference BOOLEAN NOT NULL DEFAULT FALSE;
+
+UPDATE payment_transactions p
+JOIN (
+    SELECT TRIM(reference) AS reference, MIN(transaction_id) AS kept_id
+    FROM payment_transactions
+    WHERE reference IS NOT NULL AND TRIM(reference) <> ''
+    GROUP BY TRIM(reference)
+    HAVING COUNT(*) > 1
+) d ON d.reference = TRIM(p.reference)
+SET p.duplicate_reference = TRUE
+WHERE p.transaction_id <> d.kept_id;
+
+ALTER TABLE payment_transactions
+    ADD COLUMN reference_key VARCHAR(64)
+        AS (CASE WHEN duplicate_reference THEN NULL ELSE NULLIF(TRIM(reference), '') END) PERSISTENT,
+    ADD UNIQUE KEY uk_payment_transactions_reference (reference_key);
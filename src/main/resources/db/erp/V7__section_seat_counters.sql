@@ -0,0 +1,20 @@
+CREATE TABLE IF NOT EXISTS section_seat_counters (
+    section_code VARCHAR(32) PRIMARY KEY,
+    capacity INT NOT NULL DEFAULT 0,
+    enrolled INT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    CONSTRAINT fk_seat_counter_section FOREIGN KEY (section_code)
+        REFERENCES sections (section_code)
+        ON DELETE CASCADE
+);
+
+INSERT INTO section_seat_counters (section_code, capacity, enrolled)
+SELECT s.section_code,
+       COALESCE(s.capacity, 0),
+       (SELECT COUNT(*) FROM enrollments e WHERE e.section_code = s.section_code AND e.status = 'ENROLLED')
+FROM sections s
+ON DUPLICATE KEY UPDATE
+    capacity = VALUES(capacity),
+    enrolled = VALUES(enrolled);
+
+CREATE INDEX IF NOT EXISTS idx_enrollments_section_status ON enrollments (section_code, status);
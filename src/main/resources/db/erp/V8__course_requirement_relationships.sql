@@ -0,0 +1,17 @@
+CREATE TABLE IF NOT EXISTS course_corequisites (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    course_code VARCHAR(32) NOT NULL,
+    corequisite_code VARCHAR(32) NOT NULL,
+    CONSTRAINT uq_coreq UNIQUE (course_code, corequisite_code),
+    CONSTRAINT fk_coreq_course FOREIGN KEY (course_code) REFERENCES courses (course_code) ON DELETE CASCADE,
+    CONSTRAINT fk_coreq_required FOREIGN KEY (corequisite_code) REFERENCES courses (course_code) ON DELETE CASCADE
+);
+
+CREATE TABLE IF NOT EXISTS course_antirequisites (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    course_code VARCHAR(32) NOT NULL,
+    antirequisite_code VARCHAR(32) NOT NULL,
+    CONSTRAINT uq_antireq UNIQUE (course_code, antirequisite_code),
+    CONSTRAINT fk_antireq_course FOREIGN KEY (course_code) REFERENCES courses (course_code) ON DELETE CASCADE,
+    CONSTRAINT fk_antireq_excluded FOREIGN KEY (antirequisite_code) REFERENCES courses (course_code) ON DELETE CASCADE
+);
@@ -0,0 +1,25 @@
+-- Positions were assigned as "current size + 1", which repeats numbers after a delete. Renumber every
+-- waitlist densely in its existing order before positions become unique.
+UPDATE section_waitlist w
+JOIN (
+    SELECT id, ROW_NUMBER() OVER (PARTITION BY section_code ORDER BY position, id) AS rn
+    FROM section_waitlist
+) ranked ON ranked.id = w.id
+SET w.position = ranked.rn;
+
+ALTER TABLE section_waitlist
+    ADD CONSTRAINT uq_waitlist_position UNIQUE (section_code, position);
+
+CREATE TABLE IF NOT EXISTS section_waitlist_sequences (
+    section_code VARCHAR(32) PRIMARY KEY,
+    next_position INT NOT NULL DEFAULT 1,
+    CONSTRAINT fk_waitlist_sequence_section FOREIGN KEY (section_code)
+        REFERENCES sections (section_code)
+        ON DELETE CASCADE
+);
+
+INSERT INTO section_waitlist_sequences (section_code, next_position)
+SELECT s.section_code, COALESCE(MAX(w.position), 0) + 1
+FROM sections s
+LEFT JOIN section_waitlist w ON w.section_code = s.section_code
+GROUP BY s.section_code;
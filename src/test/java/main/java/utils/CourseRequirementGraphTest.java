@@ -0,0 +1,99 @@
+package main.java.utils;
+
+import main.java.models.CourseRequirement;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static main.java.models.CourseRequirement.Kind.ANTIREQUISITE;
+import static main.java.models.CourseRequirement.Kind.COREQUISITE;
+import static main.java.models.CourseRequirement.Kind.PREREQUISITE;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CourseRequirementGraphTest {
+
+    private static CourseRequirement edge(CourseRequirement.Kind kind, String course, String related) {
+        return new CourseRequirement(kind, course, related);
+    }
+
+    @Test
+    void computesTransitivePrerequisites() {
+        CourseRequirementGraph graph = CourseRequirementGraph.of(List.of(
+                edge(PREREQUISITE, "CS301", "CS201"),
+                edge(PREREQUISITE, "CS201", "CS101"),
+                edge(PREREQUISITE, "CS301", "MA101")));
+
+        assertThat(graph.prerequisitesOf("CS301")).containsExactly("CS201", "MA101");
+        assertThat(graph.allPrerequisitesOf("CS301")).containsExactlyInAnyOrder("CS201", "CS101", "MA101");
+        assertThat(graph.allPrerequisitesOf("CS101")).isEmpty();
+    }
+
+    @Test
+    void antirequisitesAreSymmetric() {
+        CourseRequirementGraph graph = CourseRequirementGraph.of(List.of(edge(ANTIREQUISITE, "CS101", "CS102")));
+
+        assertThat(graph.antirequisitesOf("CS101")).containsExactly("CS102");
+        assertThat(graph.antirequisitesOf("CS102")).containsExactly("CS101");
+    }
+
+    @Test
+    void findViolationReportsPrerequisitesFirst() {
+        CourseRequirementGraph graph = CourseRequirementGraph.of(List.of(
+                edge(PREREQUISITE, "CS201", "CS101"),
+                edge(COREQUISITE, "CS201", "CS201L"),
+                edge(ANTIREQUISITE, "CS201", "CS299")));
+
+        assertThat(graph.findViolation("CS201", Set.of(), Set.of()))
+                .isEqualTo("Missing prerequisite(s): CS101");
+        assertThat(graph.findViolation("CS201", Set.of("CS101"), Set.of()))
+                .isEqualTo("Must also take co-requisite(s): CS201L");
+        assertThat(graph.findViolation("CS201", Set.of("CS101", "CS299"), Set.of("CS201L")))
+                .isEqualTo("Cannot be combined with anti-requisite(s): CS299");
+        assertThat(graph.findViolation("CS201", Set.of("CS101"), Set.of("CS201L"))).isNull();
+    }
+
+    @Test
+    void detectsPrerequisiteCycle() {
+        CourseRequirementGraph graph = CourseRequirementGraph.of(List.of(
+                edge(PREREQUISITE, "A", "B"),
+                edge(PREREQUISITE, "B", "C"),
+                edge(PREREQUISITE, "C", "A")));
+
+        assertThat(graph.findInconsistency()).hasValueSatisfying(message ->
+                assertThat(message).startsWith("Prerequisite cycle: "));
+    }
+
+    @Test
+    void rejectsMutualCorequisites() {
+        CourseRequirementGraph graph = CourseRequirementGraph.of(List.of(edge(COREQUISITE, "PH101", "PH101L")));
+        assertThat(graph.findInconsistency()).isEmpty();
+
+        assertThat(graph.with(edge(COREQUISITE, "PH101L", "PH101")).findInconsistency())
+                .hasValueSatisfying(message -> assertThat(message).startsWith("Co-requisite cycle: "));
+    }
+
+    @Test
+    void detectsSelfReferenceAndRequiredExclusion() {
+        assertThat(CourseRequirementGraph.of(List.of(edge(PREREQUISITE, "A", "A"))).findInconsistency())
+                .hasValueSatisfying(message -> assertThat(message).startsWith("Course cannot reference itself"));
+
+        CourseRequirementGraph graph = CourseRequirementGraph.of(List.of(
+                edge(PREREQUISITE, "CS301", "CS201"),
+                edge(PREREQUISITE, "CS201", "CS101"),
+                edge(ANTIREQUISITE, "CS301", "CS101")));
+        assertThat(graph.findInconsistency()).contains("CS301 both requires and excludes CS101");
+    }
+
+    @Test
+    void withAddsEdgeWithoutChangingOriginal() {
+        CourseRequirementGraph empty = CourseRequirementGraph.empty();
+        CourseRequirement prereq = edge(PREREQUISITE, "CS201", "CS101");
+
+        CourseRequirementGraph next = empty.with(prereq);
+
+        assertThat(empty.size()).isZero();
+        assertThat(next.contains(prereq)).isTrue();
+        assertThat(next.findInconsistency()).isEmpty();
+    }
+}
@@ -0,0 +1,109 @@
+package main.java.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Stand-alone contention benchmark comparing the former global {@code DatabaseUtil} monitor with
+ * {@link StripedLockManager}. The critical section parks for a configurable time to stand in for the
+ * JDBC round trips performed while the lock is held, so no database is required.
+ * <p>
+ * Run with {@code mvn -q test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=main.java.utils.LockContentionBenchmark -Dexec.args="[seconds] [criticalSectionMicros] [maxThreads]"}.
+ */
+public final class LockContentionBenchmark {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LockContentionBenchmark.class);
+    private static final int SECTIONS = 2_000;
+    private static final int STUDENTS = 20_000;
+    private static final Object GLOBAL_MONITOR = new Object();
+
+    private LockContentionBenchmark() {
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 2;
+        int criticalMicros = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int maxThreads = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+
+        LOGGER.info("Striped locks: {} stripes/domain, critical section {} us, {} s per run",
+                StripedLockManager.stripeCount(), criticalMicros, seconds);
+        LOGGER.info(String.format(Locale.ENGLISH, "%8s %16s %16s %8s",
+                "threads", "global ops/s", "striped ops/s", "speedup"));
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            double global = run(threads, seconds, criticalMicros, false);
+            double striped = run(threads, seconds, criticalMicros, true);
+            LOGGER.info(String.format(Locale.ENGLISH, "%8d %16.0f %16.0f %7.1fx",
+                    threads, global, striped, global > 0 ? striped / global : 0.0));
+        }
+    }
+
+    private static double run(int threads, int seconds, int criticalMicros, boolean striped)
+            throws InterruptedException {
+        LongAdder completed = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        long parkNanos = TimeUnit.MICROSECONDS.toNanos(criticalMicros);
+
+        for (int i = 0; i < threads; i++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (System.nanoTime() < deadline) {
+                        String section = "SEC" + random.nextInt(SECTIONS);
+                        String student = "STU" + random.nextInt(STUDENTS);
+                        int op = random.nextInt(10);
+                        if (striped) {
+                            runStriped(op, section, student, parkNanos);
+                        } else {
+                            synchronized (GLOBAL_MONITOR) {
+                                LockSupport.parkNanos(parkNanos);
+                            }
+                        }
+                        completed.increment();
+                    }
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }, "lock-bench-" + i);
+            worker.setDaemon(true);
+            worker.start();
+        }
+
+        long began = System.nanoTime();
+        start.countDown();
+        done.await();
+        double elapsedSeconds = (System.nanoTime() - began) / 1_000_000_000.0;
+        return completed.sum() / elapsedSeconds;
+    }
+
+    @SuppressWarnings("try")
+    private static void runStriped(int op, String section, String student, long parkNanos) {
+        // Mix roughly matching registration day: mostly register/drop, some payments and logins.
+        if (op < 7) {
+            try (StripedLockManager.LockScope ignored =
+                         StripedLockManager.lockSectionAndStudents(section, Collections.singleton(student))) {
+                LockSupport.parkNanos(parkNanos);
+            }
+        } else if (op < 9) {
+            try (StripedLockManager.LockScope ignored = StripedLockManager.lockStudent(student)) {
+                LockSupport.parkNanos(parkNanos);
+            }
+        } else {
+            try (StripedLockManager.LockScope ignored = StripedLockManager.lockUser("user" + student)) {
+                LockSupport.parkNanos(parkNanos);
+            }
+        }
+    }
+}
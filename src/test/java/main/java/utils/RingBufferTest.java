@@ -0,0 +1,113 @@
+package main.java.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RingBufferTest {
+
+    @Test
+    void roundsCapacityUpToPowerOfTwo() {
+        assertThat(new RingBuffer<String>(5).capacity()).isEqualTo(8);
+        assertThat(new RingBuffer<String>(8).capacity()).isEqualTo(8);
+        assertThat(new RingBuffer<String>(0).capacity()).isEqualTo(2);
+    }
+
+    @Test
+    void pollsInOfferOrder() {
+        RingBuffer<Integer> buffer = new RingBuffer<>(4);
+        buffer.offer(1);
+        buffer.offer(2);
+        buffer.offer(3);
+
+        assertThat(buffer.poll()).isEqualTo(1);
+        assertThat(buffer.poll()).isEqualTo(2);
+        assertThat(buffer.poll()).isEqualTo(3);
+        assertThat(buffer.poll()).isNull();
+        assertThat(buffer.isEmpty()).isTrue();
+    }
+
+    @Test
+    void rejectsOfferWhenFullAndAcceptsAgainAfterPoll() {
+        RingBuffer<Integer> buffer = new RingBuffer<>(2);
+        assertThat(buffer.offer(1)).isTrue();
+        assertThat(buffer.offer(2)).isTrue();
+        assertThat(buffer.offer(3)).isFalse();
+        assertThat(buffer.size()).isEqualTo(2);
+
+        assertThat(buffer.poll()).isEqualTo(1);
+        assertThat(buffer.offer(3)).isTrue();
+        assertThat(buffer.poll()).isEqualTo(2);
+        assertThat(buffer.poll()).isEqualTo(3);
+    }
+
+    @Test
+    void wrapsAroundManyLaps() {
+        RingBuffer<Integer> buffer = new RingBuffer<>(4);
+        for (int i = 0; i < 1_000; i++) {
+            assertThat(buffer.offer(i)).isTrue();
+            assertThat(buffer.poll()).isEqualTo(i);
+        }
+        assertThat(buffer.isEmpty()).isTrue();
+    }
+
+    @Test
+    void drainToStopsAtMaxOrWhenEmpty() {
+        RingBuffer<Integer> buffer = new RingBuffer<>(8);
+        for (int i = 0; i < 5; i++) {
+            buffer.offer(i);
+        }
+        List<Integer> sink = new ArrayList<>();
+
+        assertThat(buffer.drainTo(sink, 3)).isEqualTo(3);
+        assertThat(sink).containsExactly(0, 1, 2);
+        assertThat(buffer.drainTo(sink, 10)).isEqualTo(2);
+        assertThat(sink).containsExactly(0, 1, 2, 3, 4);
+    }
+
+    @Test
+    void concurrentProducersAndConsumersLoseNothing() throws Exception {
+        int producers = 4;
+        int perProducer = 5_000;
+        RingBuffer<Integer> buffer = new RingBuffer<>(64);
+        Set<Integer> consumed = ConcurrentHashMap.newKeySet();
+        CountDownLatch produced = new CountDownLatch(producers);
+        ExecutorService pool = Executors.newFixedThreadPool(producers + 2);
+        try {
+            for (int p = 0; p < producers; p++) {
+                int base = p * perProducer;
+                pool.execute(() -> {
+                    for (int i = 0; i < perProducer; i++) {
+                        while (!buffer.offer(base + i)) {
+                            Thread.yield();
+                        }
+                    }
+                    produced.countDown();
+                });
+            }
+            for (int c = 0; c < 2; c++) {
+                pool.execute(() -> {
+                    while (produced.getCount() > 0 || !buffer.isEmpty()) {
+                        Integer element = buffer.poll();
+                        if (element != null) {
+                            assertThat(consumed.add(element)).isTrue();
+                        }
+                    }
+                });
+            }
+        } finally {
+            pool.shutdown();
+            assertThat(pool.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+        }
+        assertThat(consumed).hasSize(producers * perProducer);
+    }
+}
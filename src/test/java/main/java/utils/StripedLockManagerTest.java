@@ -0,0 +1,99 @@
+package main.java.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class StripedLockManagerTest {
+
+    @Test
+    void stripeCountIsPowerOfTwo() {
+        int stripes = StripedLockManager.stripeCount();
+        assertThat(stripes).isGreaterThanOrEqualTo(16);
+        assertThat(Integer.bitCount(stripes)).isEqualTo(1);
+    }
+
+    @Test
+    void stripeOfIsStableAndInRange() {
+        for (int i = 0; i < 1_000; i++) {
+            String key = "STU" + i;
+            int stripe = StripedLockManager.stripeOf(key);
+            assertThat(stripe).isBetween(0, StripedLockManager.stripeCount() - 1);
+            assertThat(StripedLockManager.stripeOf(key)).isEqualTo(stripe);
+        }
+    }
+
+    @Test
+    void closeReleasesForOtherThreadsAndIsIdempotent() throws Exception {
+        StripedLockManager.LockScope scope = StripedLockManager.lockStudent("STU1");
+        ExecutorService other = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> blocked = other.submit(() -> StripedLockManager.lockStudent("STU1").close());
+            Thread.sleep(100);
+            assertThat(blocked.isDone()).isFalse();
+
+            scope.close();
+            scope.close();
+            blocked.get(5, TimeUnit.SECONDS);
+        } finally {
+            other.shutdownNow();
+        }
+    }
+
+    @Test
+    void sameKeyInDifferentDomainsDoesNotContend() throws Exception {
+        try (StripedLockManager.LockScope section = StripedLockManager.lockSection("K1")) {
+            ExecutorService other = Executors.newSingleThreadExecutor();
+            try {
+                other.submit(() -> StripedLockManager.lockStudent("K1").close()).get(5, TimeUnit.SECONDS);
+            } finally {
+                other.shutdownNow();
+            }
+        }
+    }
+
+    @Test
+    void opposingRequestOrdersDoNotDeadlock() {
+        List<String> students = new ArrayList<>();
+        for (int i = 0; i < 32; i++) {
+            students.add("STU" + i);
+        }
+        List<String> reversed = new ArrayList<>(students);
+        Collections.reverse(reversed);
+
+        assertTimeoutPreemptively(Duration.ofSeconds(20), () -> {
+            int threads = 8;
+            CountDownLatch start = new CountDownLatch(1);
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            List<Future<?>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                List<String> order = t % 2 == 0 ? students : reversed;
+                String section = t % 2 == 0 ? "SEC-A" : "SEC-B";
+                results.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 2_000; i++) {
+                        StripedLockManager.lock(Collections.singleton(section), order,
+                                Collections.singleton("user" + order.get(0))).close();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get();
+            }
+            pool.shutdown();
+        });
+    }
+}